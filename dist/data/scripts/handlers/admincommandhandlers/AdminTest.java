@@ -39,6 +39,8 @@ import l2server.gameserver.handler.IAdminCommandHandler;
 import l2server.gameserver.instancemanager.CustomAuctionManager;
 import l2server.gameserver.instancemanager.GrandBossManager;
 import l2server.gameserver.instancemanager.InstanceManager;
+import l2server.gameserver.instancemanager.ItemsWriteBehindManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager;
 import l2server.gameserver.model.L2CharPosition;
 import l2server.gameserver.model.L2Clan;
 import l2server.gameserver.model.L2ItemInstance;
@@ -60,6 +62,7 @@ import l2server.gameserver.model.olympiad.Olympiad;
 import l2server.gameserver.model.olympiad.OlympiadNobleInfo;
 import l2server.gameserver.network.L2GameClient;
 import l2server.gameserver.network.L2GameClient.GameClientState;
+import l2server.gameserver.network.PacketStats;
 import l2server.gameserver.network.clientpackets.Say2;
 import l2server.gameserver.network.serverpackets.ActionFailed;
 import l2server.gameserver.network.serverpackets.AllyCrest;
@@ -72,9 +75,12 @@ import l2server.gameserver.network.serverpackets.MagicSkillLaunched;
 import l2server.gameserver.network.serverpackets.MagicSkillUse;
 import l2server.gameserver.network.serverpackets.RestartResponse;
 import l2server.gameserver.network.serverpackets.SocialAction;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager;
 import l2server.gameserver.templates.chars.L2NpcTemplate;
 import l2server.gameserver.templates.item.L2Item;
+import l2server.gameserver.util.CharacterLoadStats;
 import l2server.gameserver.util.Util;
+import l2server.log.AsyncLogWriter;
 import l2server.log.Log;
 import l2server.util.Rnd;
 
@@ -97,7 +103,7 @@ import java.util.StringTokenizer;
 public class AdminTest implements IAdminCommandHandler
 {
 	private static final String[] ADMIN_COMMANDS =
-			{"admin_stats", "admin_skill_test", "admin_known", "admin_test", "admin_do"};
+			{"admin_stats", "admin_packet_stats", "admin_skill_test", "admin_known", "admin_test", "admin_do"};
 
 	private List<L2NpcTemplate> _npcTemplates = new ArrayList<L2NpcTemplate>();
 	private List<Location> _coords = new ArrayList<Location>();
@@ -118,6 +124,77 @@ public class AdminTest implements IAdminCommandHandler
 			{
 				activeChar.sendMessage(line);
 			}
+
+			if (Config.ITEMS_WRITE_BEHIND)
+			{
+				for (String line : ItemsWriteBehindManager.getInstance().getStats())
+				{
+					activeChar.sendMessage(line);
+				}
+			}
+
+			if (Config.QUEST_VARS_WRITE_BEHIND)
+			{
+				for (String line : QuestVarsWriteBehindManager.getInstance().getStats())
+				{
+					activeChar.sendMessage(line);
+				}
+			}
+
+			for (String line : CharacterLoadStats.getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+
+			for (String line : AsyncLogWriter.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+
+			for (String line : BroadcastUpdateTaskManager.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+		}
+		else if (command.startsWith("admin_packet_stats"))
+		{
+			// //packet_stats [client|server|save|reset] [count]
+			final String type = st.hasMoreTokens() ? st.nextToken() : "client";
+			if (type.equals("save"))
+			{
+				PacketStats.getInstance().saveSnapshot();
+				activeChar.sendMessage("Packet stats written to log/packetstats.txt.");
+			}
+			else if (type.equals("reset"))
+			{
+				PacketStats.getInstance().reset();
+				activeChar.sendMessage("Packet stats reset.");
+			}
+			else if (type.equals("client") || type.equals("server"))
+			{
+				int count = 15;
+				try
+				{
+					if (st.hasMoreTokens())
+					{
+						count = Integer.parseInt(st.nextToken());
+					}
+				}
+				catch (NumberFormatException e)
+				{
+					activeChar.sendMessage("Command format is //packet_stats [client|server|save|reset] [count]");
+					return false;
+				}
+
+				for (String line : PacketStats.getInstance().getStats(type.equals("server"), count))
+				{
+					activeChar.sendMessage(line);
+				}
+			}
+			else
+			{
+				activeChar.sendMessage("Command format is //packet_stats [client|server|save|reset] [count]");
+			}
 		}
 		else if (command.startsWith("admin_skill_test") || command.startsWith("admin_st"))
 		{
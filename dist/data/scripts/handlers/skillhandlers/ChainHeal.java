@@ -166,7 +166,8 @@ public class ChainHeal implements ISkillHandler
 			tmpTargets.put(caster, caster.getCurrentHp() / caster.getMaxHp());
 		}
 
-		for (L2Character target : caster.getKnownList().getKnownCharactersInRadius(skillRadius))
+		// Stops once the list is full
+		caster.getKnownList().findKnownCharacterInRadius(skillRadius, target ->
 		{
 			//caster.sendMessage("Trying to add " + target.getName());
 			if (canAddCharacter(caster, target, tmpTargets.size(), skillRadius))
@@ -176,7 +177,8 @@ public class ChainHeal implements ISkillHandler
 
 				//caster.sendMessage("Added " + target.getName());
 			}
-		}
+			return tmpTargets.size() >= 10;
+		});
 
 		// Sort in ascending order then add the values to the list
 		ValueSortMap.sortMapByValue(tmpTargets, true);
@@ -52,22 +52,22 @@ public class Detection implements ISkillHandler
 			hasAlly = false;
 		}
 
-		for (L2PcInstance target : activeChar.getKnownList().getKnownPlayersInRadius(skill.getSkillRadius()))
+		activeChar.getKnownList().forEachKnownPlayerInRadius(skill.getSkillRadius(), target ->
 		{
 			if (target != null && target.getAppearance().getInvisible())
 			{
 				if (hasParty && target.getParty() != null &&
 						player.getParty().getPartyLeaderOID() == target.getParty().getPartyLeaderOID())
 				{
-					continue;
+					return;
 				}
 				if (hasClan && player.getClanId() == target.getClanId())
 				{
-					continue;
+					return;
 				}
 				if (hasAlly && player.getAllyId() == target.getAllyId())
 				{
-					continue;
+					return;
 				}
 
 				L2Abnormal eHide = target.getFirstEffect(L2AbnormalType.HIDE);
@@ -76,7 +76,7 @@ public class Detection implements ISkillHandler
 					eHide.exit();
 				}
 			}
-		}
+		});
 	}
 
 	@Override
@@ -46,16 +46,16 @@ public class Trap implements ISkillHandler
 		{
 			case DETECT_TRAP:
 			{
-				for (L2Character target : activeChar.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius()))
+				activeChar.getKnownList().forEachKnownCharacterInRadius(skill.getSkillRadius(), target ->
 				{
 					if (!(target instanceof L2Trap))
 					{
-						continue;
+						return;
 					}
 
 					if (target.isAlikeDead())
 					{
-						continue;
+						return;
 					}
 
 					final L2Trap trap = (L2Trap) target;
@@ -64,7 +64,7 @@ public class Trap implements ISkillHandler
 					{
 						trap.setDetected(activeChar);
 					}
-				}
+				});
 				break;
 			}
 			case REMOVE_TRAP:
@@ -45,12 +45,11 @@ public class TargetAroundCaster implements ISkillTargetTypeHandler
 	{
 		final ArrayList<L2Character> result = new ArrayList<L2Character>();
 
-		L2Character actualCaster = activeChar;
-		if (activeChar instanceof L2NpcInstance && ((L2NpcInstance) activeChar).getOwner() != null)
-		{
-			actualCaster = ((L2NpcInstance) activeChar).getOwner();
-		}
-		for (L2Character obj : activeChar.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius()))
+		final L2Character actualCaster =
+				activeChar instanceof L2NpcInstance && ((L2NpcInstance) activeChar).getOwner() != null ?
+						((L2NpcInstance) activeChar).getOwner() : activeChar;
+		// Returns true to stop the scan once there are enough targets
+		activeChar.getKnownList().findKnownCharacterInRadius(skill.getSkillRadius(), obj ->
 		{
 			if (skill.getSkillSafeRadius() != 0)
 			{
@@ -59,37 +58,38 @@ public class TargetAroundCaster implements ISkillTargetTypeHandler
 						(int) Util.calculateDistance(activeChar.getX(), activeChar.getY(), obj.getX(), obj.getY());
 				if (distance < safeRadius)
 				{
-					continue;
+					return false;
 				}
 			}
 
 			if (activeChar == obj)
 			{
-				continue;
+				return false;
 			}
 			else if (!isReachableTarget(activeChar, obj, skill.getTargetDirection()) ||
 					!actualCaster.isAbleToCastOnTarget(obj, skill, true))
 			{
-				continue;
+				return false;
 			}
 
 			if (!GeoEngine.getInstance().canSeeTarget(activeChar, obj))
 			{
-				continue;
+				return false;
 			}
 
 			if (actualCaster instanceof L2PcInstance && !((L2PcInstance) actualCaster).checkPvpSkill(obj, skill))
 			{
-				continue;
+				return false;
 			}
 
 			if (result.size() > 20 && skill.getSkillType() != L2SkillType.AGGDAMAGE)
 			{
-				break;
+				return true;
 			}
 
 			result.add(obj);
-		}
+			return false;
+		});
 
 		return result.toArray(new L2Character[result.size()]);
 	}
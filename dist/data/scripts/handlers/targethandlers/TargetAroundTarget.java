@@ -69,21 +69,21 @@ public class TargetAroundTarget implements ISkillTargetTypeHandler
 
 		if (target instanceof L2Playable)
 		{
-			for (L2Character obj : target.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius()))
+			target.getKnownList().forEachKnownCharacterInRadius(skill.getSkillRadius(), obj ->
 			{
 				if (!isReachableTarget(activeChar, obj, skill, true) ||
 						!activeChar.isAbleToCastOnTarget(obj, skill, true))
 				{
-					continue;
+					return;
 				}
 
 				if (!GeoEngine.getInstance().canSeeTarget(activeChar, obj))
 				{
-					continue;
+					return;
 				}
 
 				result.add(obj);
-			}
+			});
 		}
 		else
 		{
@@ -72,11 +72,11 @@ public class TargetChainHeal implements ISkillTargetTypeHandler
 		}
 
 		//get objects in radius of target
-		for (L2Character o : target.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius()))
+		target.getKnownList().forEachKnownCharacterInRadius(skill.getSkillRadius(), o ->
 		{
 			if (!GeoEngine.getInstance().canSeeTarget(target, o))
 			{
-				continue;
+				return;
 			}
 
 			final L2PcInstance kTarget = o.getActingPlayer();
@@ -85,14 +85,14 @@ public class TargetChainHeal implements ISkillTargetTypeHandler
 				//dont add self when not targeted self (worked this way on retail))
 				if (kTarget == aPlayer)
 				{
-					continue;
+					return;
 				}
 				final L2Summon kPet = kTarget.getPet();
 				if (kPet != null)
 				{
 					if (!isReachableTarget(aPlayer, kPet))
 					{
-						continue;
+						return;
 					}
 
 					result.add(kPet);
@@ -102,7 +102,7 @@ public class TargetChainHeal implements ISkillTargetTypeHandler
 			{
 				result.add(o);
 			}
-		}
+		});
 		if (result.size() <= 11) //target + 10 allies
 		{
 			return result.toArray(new L2Character[result.size()]);
@@ -54,7 +54,7 @@ public class TargetClanParty implements ISkillTargetTypeHandler
 		{
 			int radius = skill.getSkillRadius();
 
-			L2PcInstance player = null;
+			final L2PcInstance player;
 
 			if (activeChar instanceof L2Summon)
 			{
@@ -91,11 +91,11 @@ public class TargetClanParty implements ISkillTargetTypeHandler
 					targetList.add(activeChar.getPet());
 			}*/
 
-			for (L2PcInstance tempChar : player.getKnownList().getKnownPlayersInRadius(radius))
+			player.getKnownList().forEachKnownPlayerInRadius(radius, tempChar ->
 			{
 				if (tempChar == player || tempChar.isDead())
 				{
-					continue;
+					return;
 				}
 
 				if (tempChar.getClan() != null && player.getClan() != null && player.getClan() == tempChar.getClan() ||
@@ -106,28 +106,19 @@ public class TargetClanParty implements ISkillTargetTypeHandler
 					{
 						if (Util.checkIfInRange(radius, activeChar, tempChar.getPet(), true))
 						{
-							if (!tempChar.getPet().isDead() && player.checkPvpSkill(tempChar, skill) && !onlyFirst)
+							if (!tempChar.getPet().isDead() && player.checkPvpSkill(tempChar, skill))
 							{
 								targetList.add(tempChar.getPet());
 							}
 						}
 					}
 
-					if (!player.checkPvpSkill(tempChar, skill))
-					{
-						continue;
-					}
-
-					if (!onlyFirst)
+					if (player.checkPvpSkill(tempChar, skill))
 					{
 						targetList.add(tempChar);
 					}
-					else
-					{
-						return new L2Character[]{tempChar};
-					}
 				}
-			}
+			});
 		}
 		return targetList.toArray(new L2Character[targetList.size()]);
 	}
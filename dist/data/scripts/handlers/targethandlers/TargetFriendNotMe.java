@@ -76,46 +76,38 @@ public class TargetFriendNotMe implements ISkillTargetTypeHandler
 		L2Party playerPt = player.getParty();
 		L2CommandChannel cmdChannel = playerPt == null ? null : playerPt.getCommandChannel();
 
-		for (L2PcInstance tempChar : player.getKnownList().getKnownPlayersInRadius(radius))
+		final L2PcInstance owner = player;
+		owner.getKnownList().forEachKnownPlayerInRadius(radius, tempChar ->
 		{
-			if (tempChar == player || tempChar.isDead())
+			if (tempChar == owner || tempChar.isDead())
 			{
-				continue;
+				return;
 			}
 
-			if (tempChar.getClan() != null && player.getClan() != null && player.getClan() == tempChar.getClan() ||
+			if (tempChar.getClan() != null && owner.getClan() != null && owner.getClan() == tempChar.getClan() ||
 					playerPt != null && (playerPt.isInParty(tempChar) ||
 							cmdChannel != null && tempChar.getParty() != null &&
 									cmdChannel.isInChannel(tempChar.getParty())) ||
-					tempChar.getAllyId() != 0 && tempChar.getAllyId() == player.getAllyId())
+					tempChar.getAllyId() != 0 && tempChar.getAllyId() == owner.getAllyId())
 			{
 
 				if (tempChar.getPet() != null)
 				{
 					if (Util.checkIfInRange(radius, activeChar, tempChar.getPet(), true))
 					{
-						if (!tempChar.getPet().isDead() && player.checkPvpSkill(tempChar, skill) && !onlyFirst)
+						if (!tempChar.getPet().isDead() && owner.checkPvpSkill(tempChar, skill))
 						{
 							targetList.add(tempChar.getPet());
 						}
 					}
 				}
 
-				if (!player.checkPvpSkill(tempChar, skill))
-				{
-					continue;
-				}
-
-				if (!onlyFirst)
+				if (owner.checkPvpSkill(tempChar, skill))
 				{
 					targetList.add(tempChar);
 				}
-				else
-				{
-					return new L2Character[]{tempChar};
-				}
 			}
-		}
+		});
 		return targetList.toArray(new L2Character[targetList.size()]);
 	}
 
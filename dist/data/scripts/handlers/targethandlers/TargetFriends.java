@@ -224,30 +224,30 @@ public class TargetFriends implements ISkillTargetTypeHandler
 			{
 				final L2MonsterInstance aMonster = (L2MonsterInstance) activeChar;
 
-				for (L2Character obj : aMonster.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius()))
+				aMonster.getKnownList().forEachKnownCharacterInRadius(skill.getSkillRadius(), obj ->
 				{
 					if (!(obj instanceof L2MonsterInstance))
 					{
-						continue;
+						return;
 					}
 
 					final L2MonsterInstance kMonster = (L2MonsterInstance) obj;
 
 					if (aMonster == kMonster)
 					{
-						continue;
+						return;
 					}
 					else if (aMonster.getFactionId() == null || kMonster.getFactionId() == null)
 					{
-						continue;
+						return;
 					}
 					else if (!aMonster.getFactionId().equals(kMonster.getFactionId()))
 					{
-						continue;
+						return;
 					}
 
 					result.add(kMonster);
-				}
+				});
 			}
 
 			return result.toArray(new L2Character[result.size()]);
@@ -67,11 +67,11 @@ public class TargetSpecial implements ISkillTargetTypeHandler
 		if (skill.getTargetDirection() == L2SkillTargetDirection.SUBLIMES)
 		{
 			result.add(activeChar);
-			for (L2Character o : aPlayer.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius()))
+			aPlayer.getKnownList().forEachKnownCharacterInRadius(skill.getSkillRadius(), o ->
 			{
 				if (!GeoEngine.getInstance().canSeeTarget(aPlayer, o))
 				{
-					continue;
+					return;
 				}
 
 				final L2PcInstance kTarget = o.getActingPlayer();
@@ -79,7 +79,7 @@ public class TargetSpecial implements ISkillTargetTypeHandler
 				{
 					if (kTarget == aPlayer)
 					{
-						continue;
+						return;
 					}
 
 					final L2Summon kPet = kTarget.getPet();
@@ -87,7 +87,7 @@ public class TargetSpecial implements ISkillTargetTypeHandler
 					{
 						if (!isReacheableBySublime(aPlayer, kPet))
 						{
-							continue;
+							return;
 						}
 
 						result.add(kPet);
@@ -98,7 +98,7 @@ public class TargetSpecial implements ISkillTargetTypeHandler
 				{
 					result.add(o);
 				}
-			}
+			});
 		}
 		else if (skill.getTargetDirection() == L2SkillTargetDirection.CHAIN_HEAL)
 		{
@@ -37,7 +37,7 @@ public class TrapTarget implements ISkillTargetTypeHandler
 	@Override
 	public L2Object[] getTargetList(L2Skill skill, L2Character activeChar, boolean onlyFirst, L2Character target)
 	{
-		L2TrapInstance aTrap = activeChar instanceof L2TrapInstance ? (L2TrapInstance) activeChar : null;
+		final L2TrapInstance aTrap = activeChar instanceof L2TrapInstance ? (L2TrapInstance) activeChar : null;
 
 		if (aTrap == null)
 		{
@@ -46,28 +46,35 @@ public class TrapTarget implements ISkillTargetTypeHandler
 
 		final ArrayList<L2Character> result = new ArrayList<L2Character>();
 
-		for (L2Character o : aTrap.getKnownList().getKnownCharactersInRadius(skill.getSkillRadius()))
+		// Stops at the first target of a single target trap
+		final L2Character first = aTrap.getKnownList().findKnownCharacterInRadius(skill.getSkillRadius(), o ->
 		{
 			if (o == aTrap.getOwner() || o.isDead())
 			{
-				continue;
+				return false;
 			}
 
 			if (!aTrap.getOwner().isAbleToCastOnTarget(o, skill, skill.isUseableWithoutTarget()))
 			{
-				continue;
+				return false;
 			}
 			else if (!GeoEngine.getInstance().canSeeTarget(aTrap, o))
 			{
-				continue;
+				return false;
 			}
 
 			if (skill.getTargetDirection() == L2SkillTargetDirection.SINGLE)
 			{
-				return new L2Character[]{o};
+				return true;
 			}
 
 			result.add(o);
+			return false;
+		});
+
+		if (first != null)
+		{
+			return new L2Character[]{first};
 		}
 
 		return result.toArray(new L2Character[result.size()]);
@@ -0,0 +1,108 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.idfactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting and releasing object ids like spawns and drops do, the BitSetIdAllocator against the synchronized BitSet
+ * it replaced, from one thread and from as many threads as a busy server.<BR><BR>
+ * <p>
+ * Each thread keeps its last 1000 ids alive and releases the oldest one for each new one, so the number of used ids
+ * stays the same for the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocationBenchmark
+{
+	private static final int LIVE_IDS = 1000;
+
+	@Param({"synchronized", "lockfree"})
+	public String implementation;
+
+	private SynchronizedBitSetIds _synchronized;
+	private BitSetIdAllocator _allocator;
+
+	@State(Scope.Thread)
+	public static class LiveIds
+	{
+		private final int[] _ids = new int[LIVE_IDS];
+		private int _next;
+		private boolean _full;
+	}
+
+	@Setup
+	public void setUp()
+	{
+		_synchronized = new SynchronizedBitSetIds();
+		_allocator = new BitSetIdAllocator(100000, IdFactory.FREE_OBJECT_ID_SIZE);
+	}
+
+	@Benchmark
+	public int getAndRelease(LiveIds live)
+	{
+		return next(live);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public int getAndReleaseConcurrently(LiveIds live)
+	{
+		return next(live);
+	}
+
+	private int next(LiveIds live)
+	{
+		final boolean lockFree = "lockfree".equals(implementation);
+		if (live._full)
+		{
+			if (lockFree)
+			{
+				_allocator.release(live._ids[live._next]);
+			}
+			else
+			{
+				_synchronized.releaseId(live._ids[live._next]);
+			}
+		}
+
+		final int id = lockFree ? _allocator.allocate() : _synchronized.getNextId();
+		live._ids[live._next] = id;
+		if (++live._next == LIVE_IDS)
+		{
+			live._next = 0;
+			live._full = true;
+		}
+		return id;
+	}
+}
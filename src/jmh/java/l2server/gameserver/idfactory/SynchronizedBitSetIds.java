@@ -0,0 +1,58 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.idfactory;
+
+import l2server.util.PrimeFinder;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ids of the BitSetIDFactory as they were taken before BitSetIdAllocator: a BitSet behind the monitor of the
+ * factory. Only kept as the baseline of IdAllocationBenchmark.
+ */
+public class SynchronizedBitSetIds
+{
+	private BitSet _freeIds = new BitSet(PrimeFinder.nextPrime(100000));
+	private AtomicInteger _freeIdCount = new AtomicInteger(IdFactory.FREE_OBJECT_ID_SIZE);
+	private AtomicInteger _nextFreeId = new AtomicInteger(_freeIds.nextClearBit(0));
+
+	public synchronized void releaseId(int objectID)
+	{
+		_freeIds.clear(objectID);
+		_freeIdCount.incrementAndGet();
+	}
+
+	public synchronized int getNextId()
+	{
+		int newID = _nextFreeId.get();
+		_freeIds.set(newID);
+		_freeIdCount.decrementAndGet();
+
+		int nextFree = _freeIds.nextClearBit(newID);
+		if (nextFree < 0)
+		{
+			nextFree = _freeIds.nextClearBit(0);
+		}
+		if (nextFree < 0)
+		{
+			throw new NullPointerException("Ran out of valid Id's.");
+		}
+
+		_nextFreeId.set(nextFree);
+		return newID;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.instancemanager;
+
+import l2server.Config;
+import l2server.gameserver.templates.InstanceTemplate;
+import l2server.gameserver.templates.StatsSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opening 1000 instances from the same xml, reading it each time as createDynamicInstance did against stamping them
+ * from the cached InstanceTemplate.<BR><BR>
+ * <p>
+ * Only the template part of the creation is measured: the doors and spawns get what they are built from (the door
+ * StatsSet, the spawn coordinates), the world objects themselves cost the same either way. Run it from the dist
+ * folder, it reads data/instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceCreationBenchmark
+{
+	private static final int INSTANCES = 1000;
+
+	@Param({"CrystalCaverns.xml", "Teredor.xml"})
+	public String template;
+
+	private File _file;
+	private final Map<String, InstanceTemplate> _cache = new ConcurrentHashMap<>();
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		_file = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "instances/" + template);
+		_cache.put(template, InstanceTemplate.load(_file));
+	}
+
+	@Benchmark
+	public void parseEachTime(Blackhole bh) throws Exception
+	{
+		for (int i = 0; i < INSTANCES; i++)
+		{
+			stamp(InstanceTemplate.load(_file), bh);
+		}
+	}
+
+	@Benchmark
+	public void stampFromCache(Blackhole bh)
+	{
+		for (int i = 0; i < INSTANCES; i++)
+		{
+			stamp(_cache.get(template), bh);
+		}
+	}
+
+	private static void stamp(InstanceTemplate template, Blackhole bh)
+	{
+		int[] spawnLoc = new int[3];
+		System.arraycopy(template.getSpawnLoc(), 0, spawnLoc, 0, 3);
+		bh.consume(spawnLoc);
+
+		for (InstanceTemplate.DoorInfo door : template.getDoors())
+		{
+			StatsSet set = door.newStatsSet();
+			bh.consume(set);
+			bh.consume(door.getDoorId());
+		}
+
+		for (InstanceTemplate.SpawnInfo spawn : template.getSpawns())
+		{
+			bh.consume(spawn.getNpcId());
+			bh.consume(spawn.getX() + spawn.getY() + spawn.getZ() + spawn.getHeading());
+		}
+	}
+}
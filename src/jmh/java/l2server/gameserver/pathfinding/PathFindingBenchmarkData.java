@@ -0,0 +1,193 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.pathfinding;
+
+import l2server.Config;
+import l2server.ServerMode;
+import l2server.gameserver.model.L2World;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Synthetic geodata and pathnodes for the pathfinding benchmarks, so they don't need a real datapack.<BR><BR>
+ * <p>
+ * A single flat region crossed by north-south walls every 8 nodes (64 cells), which can only be passed through
+ * gaps every 32 nodes.
+ */
+public final class PathFindingBenchmarkData
+{
+	public static final byte REGION_X = 20;
+	public static final byte REGION_Y = 18;
+
+	private static final int WALL_EVERY = 8;
+	private static final int WALL_COLUMN = 4;
+	private static final int GAP_EVERY = 32;
+	private static final int GAP_SIZE = 2;
+
+	private static final byte EAST = 1;
+	private static final byte WEST = 2;
+	private static final byte SOUTH = 4;
+	private static final byte NORTH = 8;
+
+	private static boolean _initialized;
+
+	private PathFindingBenchmarkData()
+	{
+	}
+
+	/**
+	 * Load the configs (the benchmarks run from the dist folder) and generate the region in a temporary datapack.
+	 */
+	public static synchronized void init() throws IOException
+	{
+		if (_initialized)
+		{
+			return;
+		}
+
+		ServerMode.serverMode = ServerMode.MODE_GAMESERVER;
+		Config.load();
+
+		final File root = Files.createTempDirectory("l2pathfinding").toFile();
+		root.deleteOnExit();
+		Config.DATAPACK_ROOT = root;
+		Config.DATA_FOLDER = "data/";
+		Config.GEODATA = 2;
+		Config.GEODATA_INDEX_CACHE = false;
+		Config.DEBUG_PATH = false;
+		// The LOS postfilter needs the doors, hence the whole server
+		Config.MAX_POSTFILTER_PASSES = 0;
+
+		writeGeodata(new File(root, "data/geodata"));
+		writePathNodes(new File(root, "data/pathnode"));
+		_initialized = true;
+	}
+
+	/**
+	 * @return the world X of the given cell of the benchmark region
+	 */
+	public static int getWorldX(int cellX)
+	{
+		return L2World.MAP_MIN_X + ((REGION_X - Config.WORLD_X_MIN << 11) + cellX << 4) + 8;
+	}
+
+	/**
+	 * @return the world Y of the given cell of the benchmark region
+	 */
+	public static int getWorldY(int cellY)
+	{
+		return L2World.MAP_MIN_Y + ((REGION_Y - Config.WORLD_Y_MIN << 11) + cellY << 4) + 8;
+	}
+
+	private static boolean isGap(int nodeY)
+	{
+		return nodeY % GAP_EVERY < GAP_SIZE;
+	}
+
+	private static boolean isWallWest(int nodeX, int nodeY)
+	{
+		return nodeX % WALL_EVERY == WALL_COLUMN && !isGap(nodeY);
+	}
+
+	private static boolean isWallEast(int nodeX, int nodeY)
+	{
+		return nodeX % WALL_EVERY == WALL_COLUMN + 1 && !isGap(nodeY);
+	}
+
+	private static void writeGeodata(File folder) throws IOException
+	{
+		folder.mkdirs();
+		try (FileWriter index = new FileWriter(new File(folder, "geo_index.txt")))
+		{
+			index.write(REGION_X + "_" + REGION_Y + "\n");
+		}
+
+		try (BufferedOutputStream out = new BufferedOutputStream(
+				new FileOutputStream(new File(folder, REGION_X + "_" + REGION_Y + ".l2j"))))
+		{
+			// Complex blocks only, indexed (blockX << 8) + blockY
+			for (int blockX = 0; blockX < 256; blockX++)
+			{
+				for (int blockY = 0; blockY < 256; blockY++)
+				{
+					out.write(1);
+					for (int cellX = 0; cellX < 8; cellX++)
+					{
+						for (int cellY = 0; cellY < 8; cellY++)
+						{
+							int nswe = EAST | WEST | SOUTH | NORTH;
+							// walls stand between the last cell of a node and the first one of the next
+							if (cellX == 7 && isWallWest(blockX, blockY))
+							{
+								nswe &= ~EAST;
+							}
+							else if (cellX == 0 && isWallEast(blockX, blockY))
+							{
+								nswe &= ~WEST;
+							}
+
+							// height 0, little endian
+							out.write(nswe);
+							out.write(0);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void writePathNodes(File folder) throws IOException
+	{
+		folder.mkdirs();
+		try (FileWriter index = new FileWriter(new File(folder, "pn_index.txt")))
+		{
+			index.write(REGION_X + "_" + REGION_Y + "\n");
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(new File(folder, REGION_X + "_" + REGION_Y + ".pn")))))
+		{
+			// One layer per node, indexed (nodeY << 8) + nodeX
+			for (int nodeY = 0; nodeY < 256; nodeY++)
+			{
+				for (int nodeX = 0; nodeX < 256; nodeX++)
+				{
+					final boolean north = nodeY > 0;
+					final boolean south = nodeY < 255;
+					final boolean east = nodeX < 255 && !isWallWest(nodeX, nodeY);
+					final boolean west = nodeX > 0 && !isWallEast(nodeX, nodeY);
+
+					out.writeByte(1);
+					out.writeShort(0);
+					out.writeByte(north ? 1 : 0); // N
+					out.writeByte(north && east ? 1 : 0); // NE
+					out.writeByte(east ? 1 : 0); // E
+					out.writeByte(south && east ? 1 : 0); // SE
+					out.writeByte(south ? 1 : 0); // S
+					out.writeByte(south && west ? 1 : 0); // SW
+					out.writeByte(west ? 1 : 0); // W
+					out.writeByte(north && west ? 1 : 0); // NW
+				}
+			}
+		}
+	}
+}
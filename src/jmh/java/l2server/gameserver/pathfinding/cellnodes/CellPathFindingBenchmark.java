@@ -0,0 +1,87 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.pathfinding.cellnodes;
+
+import l2server.Config;
+import l2server.gameserver.pathfinding.AbstractNodeLoc;
+import l2server.gameserver.pathfinding.PathFindingBenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cell pathfinding through the walls of the synthetic benchmark region, with and without the path cache, from one
+ * thread and from as many threads as a busy AI pool.
+ *
+ * @see PathFindingBenchmarkData
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellPathFindingBenchmark
+{
+	@Param({"0", "3000"})
+	public int cacheTime;
+
+	private int _x, _y, _tx, _ty;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		PathFindingBenchmarkData.init();
+		Config.PATHFIND_CACHE_TIME = cacheTime;
+		Config.PATHFIND_CACHE_SIZE = 10000;
+
+		// Through two walls, the gap is 30 to 45 cells away
+		_x = PathFindingBenchmarkData.getWorldX(45);
+		_y = PathFindingBenchmarkData.getWorldY(300);
+		_tx = PathFindingBenchmarkData.getWorldX(190);
+		_ty = PathFindingBenchmarkData.getWorldY(310);
+
+		if (CellPathFinding.getInstance().findPath(_x, _y, 0, _tx, _ty, 0, 0, false) == null)
+		{
+			throw new IllegalStateException("No path found in the benchmark region");
+		}
+	}
+
+	@Benchmark
+	public List<AbstractNodeLoc> findPath()
+	{
+		return CellPathFinding.getInstance().findPath(_x, _y, 0, _tx, _ty, 0, 0, false);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public List<AbstractNodeLoc> findPathConcurrently()
+	{
+		return CellPathFinding.getInstance().findPath(_x, _y, 0, _tx, _ty, 0, 0, false);
+	}
+}
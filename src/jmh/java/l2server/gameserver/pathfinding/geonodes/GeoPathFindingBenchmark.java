@@ -0,0 +1,80 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.pathfinding.geonodes;
+
+import l2server.gameserver.model.L2World;
+import l2server.gameserver.pathfinding.AbstractNodeLoc;
+import l2server.gameserver.pathfinding.PathFindingBenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pathnode search between the same points as {@link l2server.gameserver.pathfinding.cellnodes.CellPathFindingBenchmark}.
+ * The reachability checks of findPath are skipped because they need the doors, hence the whole server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoPathFindingBenchmark
+{
+	private int _gx, _gy, _gtx, _gty;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		PathFindingBenchmarkData.init();
+
+		_gx = PathFindingBenchmarkData.getWorldX(45) - L2World.MAP_MIN_X >> 4;
+		_gy = PathFindingBenchmarkData.getWorldY(300) - L2World.MAP_MIN_Y >> 4;
+		_gtx = PathFindingBenchmarkData.getWorldX(190) - L2World.MAP_MIN_X >> 4;
+		_gty = PathFindingBenchmarkData.getWorldY(310) - L2World.MAP_MIN_Y >> 4;
+
+		if (findPath() == null)
+		{
+			throw new IllegalStateException("No path found in the benchmark region");
+		}
+	}
+
+	@Benchmark
+	public List<AbstractNodeLoc> findPath()
+	{
+		final GeoPathFinding pathFinding = GeoPathFinding.getInstance();
+		return pathFinding.searchByClosest2(pathFinding.readNode(_gx, _gy, (short) 0),
+				pathFinding.readNode(_gtx, _gty, (short) 0));
+	}
+
+	@Benchmark
+	@Threads(8)
+	public List<AbstractNodeLoc> findPathConcurrently()
+	{
+		return findPath();
+	}
+}
@@ -144,6 +144,7 @@ public final class Config
 	public static int MAX_PATK_SPEED;
 	public static int MAX_MATK_SPEED;
 	public static int MAX_EVASION;
+	public static boolean STAT_CACHE;
 	public static byte MAX_LEVEL;
 	public static byte MAX_PET_LEVEL;
 	public static byte MAX_SUBCLASS;
@@ -450,8 +451,16 @@ public final class Config
 	public static int THREAD_P_GENERAL;
 	public static int GENERAL_PACKET_THREAD_CORE_SIZE;
 	public static int IO_PACKET_THREAD_CORE_SIZE;
+	public static int PACKET_THREAD_PLAYERS;
+	public static int PACKET_THREADS_MAX;
 	public static int GENERAL_THREAD_CORE_SIZE;
 	public static int AI_MAX_THREAD;
+	public static int PATHFIND_THREADS;
+	public static int CHARACTER_LOAD_THREADS;
+	public static int SHUTDOWN_SAVE_THREADS;
+	public static boolean PARALLEL_STARTUP;
+	public static boolean TIMING_WHEEL_SCHEDULER;
+	public static int TIMING_WHEEL_TICK;
 	public static int CLIENT_PACKET_QUEUE_SIZE;
 	public static int CLIENT_PACKET_QUEUE_MAX_BURST_SIZE;
 	public static int CLIENT_PACKET_QUEUE_MAX_PACKETS_PER_SECOND;
@@ -461,6 +470,10 @@ public final class Config
 	public static int CLIENT_PACKET_QUEUE_MAX_OVERFLOWS_PER_MIN;
 	public static int CLIENT_PACKET_QUEUE_MAX_UNDERFLOWS_PER_MIN;
 	public static int CLIENT_PACKET_QUEUE_MAX_UNKNOWN_PER_MIN;
+	public static boolean PACKET_STATS;
+	public static boolean PACKET_STATS_ALLOCATIONS;
+	public static int PACKET_STATS_SNAPSHOT_INTERVAL;
+	public static String[] COALESCED_BROADCASTS;
 	public static boolean DEADLOCK_DETECTOR;
 	public static int DEADLOCK_CHECK_INTERVAL;
 	public static boolean RESTART_ON_DEADLOCK;
@@ -470,6 +483,10 @@ public final class Config
 	public static TIntArrayList LIST_PROTECTED_ITEMS;
 	public static int CHAR_STORE_INTERVAL;
 	public static boolean LAZY_ITEMS_UPDATE;
+	public static boolean ITEMS_WRITE_BEHIND;
+	public static int ITEMS_WRITE_BEHIND_DELAY;
+	public static int ITEMS_WRITE_BEHIND_BATCH_SIZE;
+	public static int ITEMS_WRITE_BEHIND_QUEUE_SIZE;
 	public static boolean UPDATE_ITEMS_ON_CHAR_STORE;
 	public static boolean DESTROY_DROPPED_PLAYER_ITEM;
 	public static boolean DESTROY_EQUIPABLE_PLAYER_ITEM;
@@ -478,6 +495,9 @@ public final class Config
 	public static int SAVE_DROPPED_ITEM_INTERVAL;
 	public static boolean CLEAR_DROPPED_ITEM_TABLE;
 	public static boolean AUTODELETE_INVALID_QUEST_DATA;
+	public static boolean QUEST_VARS_WRITE_BEHIND;
+	public static int QUEST_VARS_WRITE_BEHIND_DELAY;
+	public static int QUEST_VARS_WRITE_BEHIND_BATCH_SIZE;
 	public static boolean PRECISE_DROP_CALCULATION;
 	public static boolean MULTIPLE_ITEM_DROP;
 	public static boolean FORCE_INVENTORY_UPDATE;
@@ -492,6 +512,10 @@ public final class Config
 	public static boolean GRIDS_ALWAYS_ON;
 	public static int GRID_NEIGHBOR_TURNON_TIME;
 	public static int GRID_NEIGHBOR_TURNOFF_TIME;
+	public static boolean SLEEPING_AI;
+	public static int SLEEPING_AI_RANGE_MARGIN;
+	public static int SLEEPING_AI_THINK_INTERVAL;
+	public static int SLEEPING_AI_PARK_DELAY;
 	public static int WORLD_X_MIN;
 	public static int WORLD_X_MAX;
 	public static int WORLD_Y_MIN;
@@ -499,6 +523,8 @@ public final class Config
 	public static int GEODATA;
 	public static boolean GEODATA_CELLFINDING;
 	public static String PATHFIND_BUFFERS;
+	public static int PATHFIND_CACHE_TIME;
+	public static int PATHFIND_CACHE_SIZE;
 	public static float LOW_WEIGHT;
 	public static float MEDIUM_WEIGHT;
 	public static float HIGH_WEIGHT;
@@ -507,8 +533,11 @@ public final class Config
 	public static int MAX_POSTFILTER_PASSES;
 	public static boolean DEBUG_PATH;
 	public static boolean FORCE_GEODATA;
+	public static boolean GEODATA_INDEX_CACHE;
+	public static int GEODATA_LOAD_THREADS;
 	public static boolean MOVE_BASED_KNOWNLIST;
 	public static long KNOWNLIST_UPDATE_INTERVAL;
+	public static boolean EVENT_BASED_KNOWNLIST;
 	public static int ZONE_TOWN;
 	public static String DEFAULT_GLOBAL_CHAT;
 	public static String DEFAULT_TRADE_CHAT;
@@ -844,6 +873,7 @@ public final class Config
 	public static int MMO_MAX_SEND_PER_PASS;
 	public static int MMO_MAX_READ_PER_PASS;
 	public static int MMO_HELPER_BUFFER_COUNT;
+	public static int MMO_SELECTOR_THREADS;
 
 	//--------------------------------------------------
 	// Vitality Settings
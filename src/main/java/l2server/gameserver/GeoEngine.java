@@ -40,11 +40,15 @@ import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
-import gnu.trove.TShortObjectHashMap;
-
 /**
  * @author -Nemesiss-
  */
@@ -56,8 +60,15 @@ public class GeoEngine extends GeoData
 	private static final byte SOUTH = 4;
 	private static final byte NORTH = 8;
 	private static final byte NSWE_ALL = 15;
-	private static TShortObjectHashMap<MappedByteBuffer> _geodata = new TShortObjectHashMap<>();
-	private static TShortObjectHashMap<IntBuffer> _geodataIndex = new TShortObjectHashMap<>();
+	// Both indexed by region offset (rx << 5) + ry, so finding the data of a region is a plain array access
+	private static final MappedByteBuffer[] _geodata = new MappedByteBuffer[1 << 15];
+	private static final IntBuffer[] _geodataIndex = new IntBuffer[1 << 15];
+	private static final AtomicInteger _loadedRegions = new AtomicInteger();
+
+	// Header of the block index files: magic, size and last modification of the .l2j file they were built from
+	private static final int INDEX_MAGIC = 0x4C32474B;
+	private static final int INDEX_HEADER_SIZE = 16;
+	private static final int BLOCKS = 65536;
 	private static BufferedOutputStream _geoBugsOut;
 
 	public static GeoEngine getInstance()
@@ -285,7 +296,7 @@ public class GeoEngine extends GeoData
 		int gx = x - L2World.MAP_MIN_X >> 4;
 		int gy = y - L2World.MAP_MIN_Y >> 4;
 		short region = getRegionOffset(gx, gy);
-		return _geodata.contains(region);
+		return getGeodata(region) != null;
 	}
 
 	private static boolean canSee(int x, int y, double z, int tx, int ty, int tz)
@@ -311,7 +322,7 @@ public class GeoEngine extends GeoData
 				short region = getRegionOffset(x, y);
 				// geodata is loaded for region and mobs should have correct Z coordinate...
 				// so there would likely be a floor in between the two
-				if (_geodata.contains(region))
+				if (getGeodata(region) != null)
 				{
 					return false;
 				}
@@ -450,7 +461,7 @@ public class GeoEngine extends GeoData
 				short region = getRegionOffset(x, y);
 				// geodata is loaded for region and mobs should have correct Z coordinate...
 				// so there would likely be a floor in between the two
-				if (_geodata.get(region) != null)
+				if (getGeodata(region) != null)
 				{
 					return false;
 				}
@@ -749,8 +760,12 @@ public class GeoEngine extends GeoData
 			throw new Error("Failed to Load geo_index File.");
 		}
 		String line;
+		int threads = Config.GEODATA_LOAD_THREADS > 0 ? Config.GEODATA_LOAD_THREADS :
+				Runtime.getRuntime().availableProcessors();
+		ExecutorService loader = Executors.newFixedThreadPool(threads);
 		try
 		{
+			List<Callable<Boolean>> files = new ArrayList<>();
 			while ((line = lnr.readLine()) != null)
 			{
 				if (line.trim().length() == 0 || line.startsWith("#"))
@@ -758,10 +773,13 @@ public class GeoEngine extends GeoData
 					continue;
 				}
 				StringTokenizer st = new StringTokenizer(line, "_");
-				byte rx = Byte.parseByte(st.nextToken());
-				byte ry = Byte.parseByte(st.nextToken());
-				loadGeodataFile(rx, ry);
+				final byte rx = Byte.parseByte(st.nextToken());
+				final byte ry = Byte.parseByte(st.nextToken());
+				files.add(() -> loadGeodataFile(rx, ry));
 			}
+
+			// The regions are independent, map and index them in parallel
+			loader.invokeAll(files);
 		}
 		catch (Exception e)
 		{
@@ -770,6 +788,7 @@ public class GeoEngine extends GeoData
 		}
 		finally
 		{
+			loader.shutdown();
 			try
 			{
 				lnr.close();
@@ -791,14 +810,18 @@ public class GeoEngine extends GeoData
 			throw new Error("Failed to Load geo_bugs.txt File.");
 		}
 
-		Log.info("Loaded " + _geodata.size() + " geo files!");
+		Log.info("Loaded " + _loadedRegions.get() + " geo files!");
 	}
 
 	public static void unloadGeodata(byte rx, byte ry)
 	{
 		short regionoffset = (short) ((rx << 5) + ry);
-		_geodataIndex.remove(regionoffset);
-		_geodata.remove(regionoffset);
+		if (_geodata[regionoffset] != null)
+		{
+			_loadedRegions.decrementAndGet();
+		}
+		_geodataIndex[regionoffset] = null;
+		_geodata[regionoffset] = null;
 	}
 
 	public static boolean loadGeodataFile(byte rx, byte ry)
@@ -813,13 +836,10 @@ public class GeoEngine extends GeoData
 		short regionoffset = (short) ((rx << 5) + ry);
 		//Logozo.info("Geo Engine: - Loading: " + fname + " -> region offset: " + regionoffset + "X: " + rx + " Y: " + ry);
 		File Geo = new File(fname);
-		int size, index = 0, block = 0, flor = 0;
-		FileChannel roChannel = null;
-		try
+		int size;
+		try (RandomAccessFile file = new RandomAccessFile(Geo, "r"); FileChannel roChannel = file.getChannel())
 		{
 			// Create a read-only memory-mapped file
-			RandomAccessFile file = new RandomAccessFile(Geo, "r");
-			roChannel = file.getChannel();
 			size = (int) roChannel.size();
 			MappedByteBuffer geo;
 			if (Config.FORCE_GEODATA) //Force O/S to Loads this buffer's content into physical memory.
@@ -833,63 +853,131 @@ public class GeoEngine extends GeoData
 			}
 			geo.order(ByteOrder.LITTLE_ENDIAN);
 
+			// Flat regions (3 bytes per block) don't need any index
+			IntBuffer indexs = null;
 			if (size > 196608)
 			{
-				// Indexing geo files, so we will know where each block starts
-				IntBuffer indexs = IntBuffer.allocate(65536);
-				while (block < 65536)
+				indexs = loadGeodataIndex(Geo, geo, rx, ry);
+				if (indexs == null)
 				{
-					byte type = geo.get(index);
-					indexs.put(block, index);
-					block++;
-					index++;
-					if (type == 0)
-					{
-						index += 2; // 1x short
-					}
-					else if (type == 1)
+					return false;
+				}
+			}
+
+			_geodataIndex[regionoffset] = indexs;
+			if (_geodata[regionoffset] == null)
+			{
+				_loadedRegions.incrementAndGet();
+			}
+			_geodata[regionoffset] = geo;
+		}
+		catch (Exception e)
+		{
+			Log.log(Level.WARNING, "Failed to Load GeoFile " + fname, e);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * The index tells where each block of a region starts. Building it means walking the whole file, so it is stored
+	 * next to the geodata (geodata/index/rx_ry.idx) and memory-mapped as well the next times, out of the java heap.
+	 */
+	private static IntBuffer loadGeodataIndex(File geoFile, ByteBuffer geo, byte rx, byte ry)
+	{
+		final File indexFile = new File(geoFile.getParentFile(), "index/" + rx + "_" + ry + ".idx");
+		final long indexSize = INDEX_HEADER_SIZE + BLOCKS * 4L;
+		if (indexFile.length() == indexSize)
+		{
+			try (RandomAccessFile file = new RandomAccessFile(indexFile, "r"); FileChannel channel = file.getChannel())
+			{
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexSize);
+				buffer.order(ByteOrder.LITTLE_ENDIAN);
+				if (buffer.getInt(0) == INDEX_MAGIC && buffer.getInt(4) == geo.capacity() &&
+						buffer.getLong(8) == geoFile.lastModified())
+				{
+					if (Config.FORCE_GEODATA)
 					{
-						index += 128; // 64 x short
+						buffer.load();
 					}
-					else
+					buffer.position(INDEX_HEADER_SIZE);
+					return buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+				}
+			}
+			catch (Exception e)
+			{
+				Log.log(Level.WARNING, "Failed to read geodata index " + indexFile + ", rebuilding it", e);
+			}
+		}
+
+		// Indexing geo files, so we will know where each block starts
+		final ByteBuffer buffer = ByteBuffer.allocateDirect((int) indexSize).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(0, INDEX_MAGIC);
+		buffer.putInt(4, geo.capacity());
+		buffer.putLong(8, geoFile.lastModified());
+		int index = 0, block = 0;
+		try
+		{
+			while (block < BLOCKS)
+			{
+				byte type = geo.get(index);
+				buffer.putInt(INDEX_HEADER_SIZE + (block << 2), index);
+				block++;
+				index++;
+				if (type == 0)
+				{
+					index += 2; // 1x short
+				}
+				else if (type == 1)
+				{
+					index += 128; // 64 x short
+				}
+				else
+				{
+					int b;
+					for (b = 0; b < 64; b++)
 					{
-						int b;
-						for (b = 0; b < 64; b++)
-						{
-							byte layers = geo.get(index);
-							index += (layers << 1) + 1;
-							if (layers > flor)
-							{
-								flor = layers;
-							}
-						}
+						byte layers = geo.get(index);
+						index += (layers << 1) + 1;
 					}
 				}
-				_geodataIndex.put(regionoffset, indexs);
 			}
-			_geodata.put(regionoffset, geo);
-
-			file.close();
-
-			//Logozo.info("Geo Engine: - Max Layers: " + flor + " Size: " + size + " Loaded: " + index);
 		}
 		catch (Exception e)
 		{
 			Log.log(Level.WARNING, "Failed to Load GeoFile at block: " + block, e);
-			return false;
+			return null;
 		}
-		finally
+
+		if (Config.GEODATA_INDEX_CACHE)
 		{
-			try
+			indexFile.getParentFile().mkdirs();
+			try (FileOutputStream out = new FileOutputStream(indexFile); FileChannel channel = out.getChannel())
 			{
-				roChannel.close();
+				buffer.clear();
+				while (buffer.hasRemaining())
+				{
+					channel.write(buffer);
+				}
 			}
 			catch (Exception e)
 			{
-				e.printStackTrace();
+				Log.log(Level.WARNING, "Failed to store geodata index " + indexFile, e);
 			}
 		}
-		return true;
+
+		buffer.position(INDEX_HEADER_SIZE);
+		return buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	private static MappedByteBuffer getGeodata(short region)
+	{
+		return region < 0 ? null : _geodata[region];
+	}
+
+	private static IntBuffer getGeodataIndex(short region)
+	{
+		return region < 0 ? null : _geodataIndex[region];
 	}
 
 	//Geodata Methods
@@ -935,7 +1023,7 @@ public class GeoEngine extends GeoData
 		int blockX = getBlock(x);
 		int blockY = getBlock(y);
 		int index = 0;
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		//Geodata without index - it is just empty so index can be calculated on the fly
 		if (idx == null)
 		{
@@ -947,7 +1035,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -969,7 +1057,7 @@ public class GeoEngine extends GeoData
 		int blockX = getBlock(geox);
 		int blockY = getBlock(geoy);
 		int cellX, cellY, index;
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		//Geodata without index - it is just empty so index can be calculated on the fly
 		if (idx == null)
 		{
@@ -981,7 +1069,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -1057,7 +1145,7 @@ public class GeoEngine extends GeoData
 		int blockY = getBlock(geoy);
 		int cellX, cellY, index;
 		//Geodata without index - it is just empty so index can be calculated on the fly
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		if (idx == null)
 		{
 			index = ((blockX << 8) + blockY) * 3;
@@ -1068,7 +1156,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -1146,7 +1234,7 @@ public class GeoEngine extends GeoData
 		int blockY = getBlock(geoy);
 		int cellX, cellY, index;
 		short temph = Short.MIN_VALUE;
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		//Geodata without index - it is just empty so index can be calculated on the fly
 		if (idx == null)
 		{
@@ -1158,7 +1246,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -1262,7 +1350,7 @@ public class GeoEngine extends GeoData
 		short NSWE = 0;
 
 		int index = 0;
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		//Geodata without index - it is just empty so index can be calculated on the fly
 		if (idx == null)
 		{
@@ -1274,7 +1362,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -1378,7 +1466,7 @@ public class GeoEngine extends GeoData
 		short NSWE = 0;
 
 		int index;
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		//Geodata without index - it is just empty so index can be calculated on the fly
 		if (idx == null)
 		{
@@ -1390,7 +1478,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -1555,7 +1643,7 @@ public class GeoEngine extends GeoData
 		short NSWE = 0;
 
 		int index = 0;
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		//Geodata without index - it is just empty so index can be calculated on the fly
 		if (idx == null)
 		{
@@ -1567,7 +1655,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -1648,7 +1736,7 @@ public class GeoEngine extends GeoData
 		int cellX, cellY;
 
 		int index = 0;
-		final IntBuffer idx = _geodataIndex.get(region);
+		final IntBuffer idx = getGeodataIndex(region);
 		//Geodata without index - it is just empty so index can be calculated on the fly
 		if (idx == null)
 		{
@@ -1660,7 +1748,7 @@ public class GeoEngine extends GeoData
 			index = idx.get((blockX << 8) + blockY);
 		}
 		//Buffer that Contains current Region GeoData
-		ByteBuffer geo = _geodata.get(region);
+		ByteBuffer geo = getGeodata(region);
 		if (geo == null)
 		{
 			if (Config.DEBUG)
@@ -15,12 +15,12 @@
 
 package l2server.gameserver;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReloadableManager
 {
-	private Map<String, Reloadable> _reloadables = new HashMap<>();
+	private Map<String, Reloadable> _reloadables = new ConcurrentHashMap<>();
 
 	public static ReloadableManager getInstance()
 	{
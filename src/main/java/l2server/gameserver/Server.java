@@ -218,48 +218,78 @@ public class Server
 		GlobalVariablesManager.getInstance();
 		PacketOpcodes.init();
 
-		printSection("Skills");
-		EnchantCostsTable.getInstance();
-		SkillTable.getInstance();
-		SkillTreeTable.getInstance();
-		PledgeSkillTree.getInstance();
-		NobleSkillTable.getInstance();
-		GMSkillTable.getInstance();
-		HeroSkillTable.getInstance();
-		ResidentialSkillTable.getInstance();
-		SubPledgeSkillTree.getInstance();
-		AbilityTable.getInstance();
-		ComboSkillTable.getInstance();
-
-		printSection("Items");
-		ItemTable.getInstance();
-		SummonItemsData.getInstance();
-		EnchantHPBonusData.getInstance();
-		MerchantPriceConfigTable.getInstance().load();
-		TradeController.getInstance();
-		MultiSell.getInstance();
-		RecipeController.getInstance();
-		ArmorSetsTable.getInstance();
-		FishTable.getInstance();
+		// Skills, items, characters, geodata and caches, in parallel when possible
+		printSection("Data");
+		StartupLoader startupLoader = new StartupLoader();
+		// SkillTable and the skill trees use each other while loading
+		startupLoader.add("SkillTable", () ->
+		{
+			EnchantCostsTable.getInstance();
+			SkillTable.getInstance();
+			SkillTreeTable.getInstance();
+			PledgeSkillTree.getInstance();
+			SubPledgeSkillTree.getInstance();
+		});
+		startupLoader.add("NobleSkillTable", NobleSkillTable::getInstance, "SkillTable");
+		startupLoader.add("GMSkillTable", GMSkillTable::getInstance, "SkillTable");
+		startupLoader.add("HeroSkillTable", HeroSkillTable::getInstance, "SkillTable");
+		startupLoader.add("ResidentialSkillTable", ResidentialSkillTable::getInstance, "SkillTable");
+		startupLoader.add("AbilityTable", AbilityTable::getInstance, "SkillTable");
+		startupLoader.add("ComboSkillTable", ComboSkillTable::getInstance, "SkillTable");
+
+		// ItemTable and EnchantHPBonusData use each other while loading
+		startupLoader.add("ItemTable", () ->
+		{
+			ItemTable.getInstance();
+			EnchantHPBonusData.getInstance();
+		});
+		startupLoader.add("SummonItemsData", SummonItemsData::getInstance, "ItemTable");
+		startupLoader.add("RecipeController", RecipeController::getInstance, "ItemTable");
+		startupLoader.add("ArmorSetsTable", ArmorSetsTable::getInstance, "ItemTable", "SkillTable");
+		startupLoader.add("FishTable", FishTable::getInstance, "ItemTable");
 		if (Config.isServer(Config.TENKAI_LEGACY))
 		{
-			EnchantMultiSellTable.getInstance();
+			startupLoader.add("EnchantMultiSellTable", EnchantMultiSellTable::getInstance, "ItemTable");
+		}
+
+		startupLoader.add("CharTemplateTable", CharTemplateTable::getInstance, "ItemTable", "SkillTable");
+		startupLoader.add("PlayerStatDataTable", PlayerStatDataTable::getInstance);
+		startupLoader.add("CharNameTable", CharNameTable::getInstance);
+		startupLoader.add("AccessLevels", () ->
+		{
+			AccessLevels.getInstance();
+			AdminCommandAccessRights.getInstance();
+			GmListTable.getInstance();
+		});
+		startupLoader.add("RaidBossPointsManager", RaidBossPointsManager::getInstance);
+		startupLoader.add("MultiSell", MultiSell::getInstance, "ItemTable", "RaidBossPointsManager");
+		startupLoader.add("PetDataTable", PetDataTable::getInstance, "ItemTable", "SkillTable");
+		startupLoader.add("PartySearchManager", PartySearchManager::getInstance);
+		startupLoader.add("MentorManager", MentorManager::getInstance);
+		startupLoader.add("BeautyTable", BeautyTable::getInstance);
+		startupLoader.add("ScenePlayerDataTable", ScenePlayerDataTable::getInstance);
+		startupLoader.add("CompoundTable", CompoundTable::getInstance, "ItemTable");
+
+		startupLoader.add("GeoData", GeoData::getInstance);
+		if (Config.GEODATA == 2)
+		{
+			startupLoader.add("PathFinding", PathFinding::getInstance, "GeoData");
 		}
 
-		printSection("Characters");
-		CharTemplateTable.getInstance();
-		PlayerStatDataTable.getInstance();
-		CharNameTable.getInstance();
-		AccessLevels.getInstance();
-		AdminCommandAccessRights.getInstance();
-		GmListTable.getInstance();
-		RaidBossPointsManager.getInstance();
-		PetDataTable.getInstance();
-		PartySearchManager.getInstance();
-		MentorManager.getInstance();
-		BeautyTable.getInstance();
-		ScenePlayerDataTable.getInstance();
-		CompoundTable.getInstance();
+		startupLoader.add("HtmCache", HtmCache::getInstance);
+		startupLoader.add("TeleportLocationTable", TeleportLocationTable::getInstance);
+		startupLoader.add("UITable", UITable::getInstance);
+		startupLoader.add("HennaTable", HennaTable::getInstance, "ItemTable", "SkillTable");
+		startupLoader.add("EnsoulDataTable", EnsoulDataTable::getInstance, "ItemTable", "SkillTable");
+		startupLoader.add("EnchantEffectTable", EnchantEffectTable::getInstance, "ItemTable", "SkillTable");
+		startupLoader.add("LifeStoneTable", LifeStoneTable::getInstance, "EnchantEffectTable");
+		startupLoader.add("CoreMessageTable", CoreMessageTable::getInstance);
+		startupLoader.add("ImageTable", ImageTable::getInstance);
+		startupLoader.load();
+
+		printSection("Items");
+		MerchantPriceConfigTable.getInstance().load();
+		TradeController.getInstance();
 
 		printSection("Clans");
 		ClanTable.getInstance();
@@ -271,13 +301,6 @@ public class Server
 		printSection("Auction");
 		//AuctionManager.getInstance();
 
-		printSection("Geodata");
-		GeoData.getInstance();
-		if (Config.GEODATA == 2)
-		{
-			PathFinding.getInstance();
-		}
-
 		printSection("NPCs");
 		CastleManager.getInstance().load();
 		ExtraDropTable.getInstance();
@@ -318,21 +341,13 @@ public class Server
 
 		// Call to load caches
 		printSection("Cache");
-		HtmCache.getInstance();
+		// Not in the parallel startup: converting the old crest files uses the ClanTable and the IdFactory
 		CrestCache.getInstance();
-		TeleportLocationTable.getInstance();
-		UITable.getInstance();
 		PartyMatchWaitingList.getInstance();
 		PartyMatchRoomList.getInstance();
 		PetitionManager.getInstance();
-		HennaTable.getInstance();
 		HelperBuffTable.getInstance();
-		EnsoulDataTable.getInstance();
-		EnchantEffectTable.getInstance();
-		LifeStoneTable.getInstance();
 		CursedWeaponsManager.getInstance();
-		CoreMessageTable.getInstance();
-		ImageTable.getInstance();
 
 		printSection("Scripts");
 		QuestManager.getInstance();
@@ -496,7 +511,10 @@ public class Server
 			LotterySystem.getInstance();
 		}
 
-		KnownListUpdateTaskManager.getInstance();
+		if (!Config.EVENT_BASED_KNOWNLIST)
+		{
+			KnownListUpdateTaskManager.getInstance();
+		}
 
 		if ((Config.OFFLINE_TRADE_ENABLE || Config.OFFLINE_CRAFT_ENABLE) && Config.RESTORE_OFFLINERS)
 		{
@@ -537,6 +555,7 @@ public class Server
 		sc.MAX_SEND_PER_PASS = Config.MMO_MAX_SEND_PER_PASS;
 		sc.SLEEP_TIME = Config.MMO_SELECTOR_SLEEP_TIME;
 		sc.HELPER_BUFFER_COUNT = Config.MMO_HELPER_BUFFER_COUNT;
+		sc.SELECTOR_THREADS = Config.MMO_SELECTOR_THREADS;
 
 		_gamePacketHandler = new L2GamePacketHandler();
 		_selectorThread = new Core<>(sc, _gamePacketHandler, _gamePacketHandler, _gamePacketHandler, new IPv4Filter());
@@ -567,6 +586,7 @@ public class Server
 		}
 		_selectorThread.start();
 		Log.info("Maximum Numbers of Connected Players: " + Config.MAXIMUM_ONLINE_USERS);
+		startupLoader.report();
 		long serverLoadEnd = System.currentTimeMillis();
 		Log.info("Server Loaded in " + (serverLoadEnd - serverLoadStart) / 1000 + " seconds");
 
@@ -28,7 +28,9 @@ import l2server.gameserver.instancemanager.GlobalVariablesManager;
 import l2server.gameserver.instancemanager.GrandBossManager;
 import l2server.gameserver.instancemanager.ItemAuctionManager;
 import l2server.gameserver.instancemanager.ItemsOnGroundManager;
+import l2server.gameserver.instancemanager.ItemsWriteBehindManager;
 import l2server.gameserver.instancemanager.QuestManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager;
 import l2server.gameserver.instancemanager.SpawnDataManager;
 import l2server.gameserver.model.L2World;
 import l2server.gameserver.model.actor.instance.L2PcInstance;
@@ -36,6 +38,7 @@ import l2server.gameserver.model.entity.ClanWarManager;
 import l2server.gameserver.model.olympiad.HeroesManager;
 import l2server.gameserver.model.olympiad.Olympiad;
 import l2server.gameserver.network.L2GameClient;
+import l2server.gameserver.network.PacketStats;
 import l2server.gameserver.network.SystemMessageId;
 import l2server.gameserver.network.serverpackets.ExShowScreenMessage;
 import l2server.gameserver.network.serverpackets.ServerClose;
@@ -351,6 +354,26 @@ public class Shutdown extends Thread
 			Log.info("ItemsOnGroundManager: All items on ground saved!!");
 		}
 
+		// Write the queued item updates
+		if (Config.ITEMS_WRITE_BEHIND)
+		{
+			ItemsWriteBehindManager.getInstance().shutdown();
+			Log.info("ItemsWriteBehindManager: All queued item updates saved");
+		}
+
+		// Write the queued quest variables
+		if (Config.QUEST_VARS_WRITE_BEHIND)
+		{
+			QuestVarsWriteBehindManager.getInstance().shutdown();
+			Log.info("QuestVarsWriteBehindManager: All queued quest variables saved");
+		}
+
+		if (Config.PACKET_STATS && Config.PACKET_STATS_SNAPSHOT_INTERVAL > 0)
+		{
+			PacketStats.getInstance().saveSnapshot();
+			Log.info("PacketStats: Packet stats saved");
+		}
+
 		if (Config.ENABLE_CUSTOM_DAMAGE_MANAGER)
 		{
 			DamageManager.getInstance().saveData();
@@ -394,22 +417,18 @@ public class Shutdown extends Thread
 				}
 			}
 
-			for (L2PcInstance player : pls)
-			{
-				if (player == null)
-				{
-					continue;
-				}
+			// Store the characters, several at a time
+			new ShutdownSaver<>("characters", pls, L2PcInstance::deleteMe).save();
 
-				// Store character
-				try
-				{
-					player.deleteMe();
-				}
-				catch (Throwable t)
-				{
-					Log.log(Level.WARNING, "Failed to store char " + player, t);
-				}
+			// Then write their items and quest variables, queued by deleteMe() without flushing them per character:
+			// the writers batch the rows of all the characters together
+			if (Config.ITEMS_WRITE_BEHIND)
+			{
+				ItemsWriteBehindManager.getInstance().flush();
+			}
+			if (Config.QUEST_VARS_WRITE_BEHIND)
+			{
+				QuestVarsWriteBehindManager.getInstance().flush();
 			}
 		}
 	}
@@ -0,0 +1,172 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver;
+
+import l2server.Config;
+import l2server.log.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Saves many objects of the same kind while the server shuts down, like the online characters, on
+ * ShutdownSaveThreads threads, logging the progress and the time left every few seconds.<BR><BR>
+ * <p>
+ * The threads take the next object to save from a shared cursor, so a slow character doesn't hold back the ones
+ * after it. save() only returns once everything is saved, however long it takes, so the database can be closed
+ * after it.
+ */
+public final class ShutdownSaver<T>
+{
+	private static final long PROGRESS_INTERVAL = 5000;
+
+	private final String _name;
+	private final List<T> _objects;
+	private final Consumer<T> _saver;
+
+	private final AtomicInteger _cursor = new AtomicInteger();
+	// Saved or failed
+	private final AtomicInteger _done = new AtomicInteger();
+	private final AtomicInteger _failed = new AtomicInteger();
+	private long _start;
+
+	/**
+	 * @param name    what is saved, for the console
+	 * @param objects the objects to save
+	 * @param saver   saves one object
+	 */
+	public ShutdownSaver(String name, Iterable<T> objects, Consumer<T> saver)
+	{
+		_name = name;
+		_objects = new ArrayList<>();
+		for (T object : objects)
+		{
+			if (object != null)
+			{
+				_objects.add(object);
+			}
+		}
+		_saver = saver;
+	}
+
+	/**
+	 * Save all the objects and wait for them.
+	 */
+	public void save()
+	{
+		_start = System.currentTimeMillis();
+		final int threads = Math.min(Config.SHUTDOWN_SAVE_THREADS, _objects.size());
+		Log.info("ShutdownSaver: Saving " + _objects.size() + " " + _name + " on " + Math.max(1, threads) +
+				" thread(s)...");
+
+		if (threads <= 1)
+		{
+			long nextReport = _start + PROGRESS_INTERVAL;
+			while (saveNext())
+			{
+				if (System.currentTimeMillis() >= nextReport)
+				{
+					reportProgress();
+					nextReport += PROGRESS_INTERVAL;
+				}
+			}
+		}
+		else
+		{
+			final AtomicInteger threadCount = new AtomicInteger();
+			final ExecutorService pool = Executors.newFixedThreadPool(threads,
+					r -> new Thread(r, "ShutdownSaver-" + threadCount.incrementAndGet()));
+			for (int i = 0; i < threads; i++)
+			{
+				pool.execute(() ->
+				{
+					while (saveNext())
+					{
+						// Next one
+					}
+				});
+			}
+			pool.shutdown();
+
+			boolean interrupted = false;
+			while (true)
+			{
+				try
+				{
+					if (pool.awaitTermination(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS))
+					{
+						break;
+					}
+				}
+				catch (InterruptedException e)
+				{
+					// The data must be saved before the database is closed, keep waiting
+					interrupted = true;
+				}
+				reportProgress();
+			}
+
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		Log.info("ShutdownSaver: Saved " + (_done.get() - _failed.get()) + " " + _name + " in " +
+				(System.currentTimeMillis() - _start) / 1000.0 + " s" +
+				(_failed.get() > 0 ? ", " + _failed.get() + " failed" : "") + ".");
+	}
+
+	/**
+	 * @return false if there was nothing left to save
+	 */
+	private boolean saveNext()
+	{
+		final int index = _cursor.getAndIncrement();
+		if (index >= _objects.size())
+		{
+			return false;
+		}
+
+		final T object = _objects.get(index);
+		try
+		{
+			_saver.accept(object);
+		}
+		catch (Throwable t)
+		{
+			_failed.incrementAndGet();
+			Log.log(Level.WARNING, "ShutdownSaver: Failed to save " + object, t);
+		}
+		_done.incrementAndGet();
+		return true;
+	}
+
+	private void reportProgress()
+	{
+		final int done = _done.get();
+		final long elapsed = System.currentTimeMillis() - _start;
+		final String left =
+				done == 0 ? "unknown" : (long) (elapsed * (double) (_objects.size() - done) / done / 1000) + " s";
+		Log.info("ShutdownSaver: " + done + "/" + _objects.size() + " " + _name + " saved, " + left + " left.");
+	}
+}
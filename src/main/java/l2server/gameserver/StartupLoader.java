@@ -0,0 +1,162 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver;
+
+import l2server.Config;
+import l2server.log.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Loads the data tables of the server, each one after the tables it depends on.<BR><BR>
+ * <p>
+ * With ParallelStartup the tables which don't depend on each other are loaded at the same time on a fork-join pool,
+ * otherwise they are loaded one after another in the order they were added. The dependencies can only be tables added
+ * before, so the order they are added in is always a valid sequential order.<BR>
+ * Tables calling each other while loading (SkillTable and the skill trees...) must be loaded in the same stage, or
+ * their threads would wait for each other forever.
+ */
+public final class StartupLoader
+{
+	private final Map<String, Stage> _stages = new LinkedHashMap<>();
+	private long _time;
+
+	/**
+	 * @param name         the name of the stage, for the dependencies and the report
+	 * @param loader       what loads the tables of this stage
+	 * @param dependencies the names of the stages to load before
+	 */
+	public void add(String name, Runnable loader, String... dependencies)
+	{
+		final List<Stage> stageDependencies = new ArrayList<>(dependencies.length);
+		for (String dependency : dependencies)
+		{
+			final Stage stage = _stages.get(dependency);
+			if (stage == null)
+			{
+				throw new IllegalArgumentException(
+						"StartupLoader: " + name + " depends on " + dependency + ", which must be added before.");
+			}
+			stageDependencies.add(stage);
+		}
+
+		if (_stages.put(name, new Stage(name, loader, stageDependencies)) != null)
+		{
+			throw new IllegalArgumentException("StartupLoader: " + name + " was already added.");
+		}
+	}
+
+	/**
+	 * Load all the stages and wait for them.
+	 */
+	public void load() throws Exception
+	{
+		final long start = System.currentTimeMillis();
+		if (!Config.PARALLEL_STARTUP)
+		{
+			for (Stage stage : _stages.values())
+			{
+				stage.run();
+			}
+			_time = System.currentTimeMillis() - start;
+			return;
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try
+		{
+			final List<CompletableFuture<Void>> futures = new ArrayList<>(_stages.size());
+			for (Stage stage : _stages.values())
+			{
+				final CompletableFuture<?>[] dependencies = new CompletableFuture<?>[stage._dependencies.size()];
+				for (int i = 0; i < dependencies.length; i++)
+				{
+					dependencies[i] = stage._dependencies.get(i)._future;
+				}
+
+				stage._future = CompletableFuture.allOf(dependencies).thenRunAsync(stage::run, pool);
+				futures.add(stage._future);
+			}
+
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof Exception)
+			{
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		_time = System.currentTimeMillis() - start;
+	}
+
+	/**
+	 * Log the time each stage took, the slowest ones first.
+	 */
+	public void report()
+	{
+		final List<Stage> stages = new ArrayList<>(_stages.values());
+		stages.sort((a, b) -> Long.compare(b._time, a._time));
+
+		long total = 0;
+		for (Stage stage : stages)
+		{
+			total += stage._time;
+		}
+
+		Log.info("StartupLoader: Loaded " + stages.size() + " stages in " + _time + " ms (" + total + " ms of loading, " +
+				(Config.PARALLEL_STARTUP ? "in parallel" : "sequentially") + "):");
+		for (Stage stage : stages)
+		{
+			Log.info(" + " + stage._name + ": " + stage._time + " ms");
+		}
+	}
+
+	private static final class Stage
+	{
+		private final String _name;
+		private final Runnable _loader;
+		private final List<Stage> _dependencies;
+		private CompletableFuture<Void> _future;
+		private volatile long _time;
+
+		private Stage(String name, Runnable loader, List<Stage> dependencies)
+		{
+			_name = name;
+			_loader = loader;
+			_dependencies = dependencies;
+		}
+
+		private void run()
+		{
+			final long start = System.currentTimeMillis();
+			_loader.run();
+			_time = System.currentTimeMillis() - start;
+		}
+	}
+}
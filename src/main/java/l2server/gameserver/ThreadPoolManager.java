@@ -16,10 +16,17 @@
 package l2server.gameserver;
 
 import l2server.Config;
+import l2server.gameserver.model.L2World;
 import l2server.log.Log;
 import l2server.util.StringUtil;
+import l2server.util.TimingWheel;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RunnableScheduledFuture;
@@ -59,6 +66,7 @@ import java.util.logging.Level;
  * <li>A general ThreadPool where everything else that needs to run asynchronously with no delay should be executed ({@link l2server.gameserver.model.actor.knownlist KnownList} updates, SQL updates/inserts...)?</li>
  * </ul>
  * </p>
+ * <p>When TimingWheelScheduler is enabled, the effects, general and AI scheduled tasks are handled by {@link TimingWheel TimingWheels} instead.</p>
  *
  * @author -Wooden-
  */
@@ -99,6 +107,11 @@ public class ThreadPoolManager
 	private ThreadPoolExecutor _generalPacketsThreadPool;
 	private ThreadPoolExecutor _ioPacketsThreadPool;
 	private ThreadPoolExecutor _generalThreadPool;
+	private ThreadPoolExecutor _pathFindingThreadPool;
+	private ThreadPoolExecutor _characterLoadThreadPool;
+	private TimingWheel _effectsWheel;
+	private TimingWheel _generalWheel;
+	private TimingWheel _aiWheel;
 
 	/**
 	 * temp workaround for VM issue
@@ -131,8 +144,30 @@ public class ThreadPoolManager
 						new PriorityThreadFactory("General Pool", Thread.NORM_PRIORITY));
 		_aiScheduledThreadPool = new ScheduledThreadPoolExecutor(Config.AI_MAX_THREAD,
 				new PriorityThreadFactory("AISTPool", Thread.NORM_PRIORITY));
+		_pathFindingThreadPool =
+				new ThreadPoolExecutor(Config.PATHFIND_THREADS, Config.PATHFIND_THREADS, 5L, TimeUnit.SECONDS,
+						new LinkedBlockingQueue<>(), new PriorityThreadFactory("PathFinding Pool", Thread.NORM_PRIORITY));
+		final int characterLoadThreads = Math.max(1, Config.CHARACTER_LOAD_THREADS);
+		_characterLoadThreadPool =
+				new ThreadPoolExecutor(characterLoadThreads, characterLoadThreads, 5L, TimeUnit.SECONDS,
+						new LinkedBlockingQueue<>(),
+						new PriorityThreadFactory("Character Load Pool", Thread.NORM_PRIORITY));
+
+		if (Config.TIMING_WHEEL_SCHEDULER)
+		{
+			_effectsWheel = new TimingWheel("EffectsWheel", Config.TIMING_WHEEL_TICK, Config.THREAD_P_EFFECTS,
+					new PriorityThreadFactory("EffectsWheelPool", Thread.NORM_PRIORITY));
+			_generalWheel = new TimingWheel("GeneralWheel", Config.TIMING_WHEEL_TICK, Config.THREAD_P_GENERAL,
+					new PriorityThreadFactory("GeneralWheelPool", Thread.NORM_PRIORITY));
+			_aiWheel = new TimingWheel("AIWheel", Config.TIMING_WHEEL_TICK, Config.AI_MAX_THREAD,
+					new PriorityThreadFactory("AIWheelPool", Thread.NORM_PRIORITY));
+		}
 
 		scheduleGeneralAtFixedRate(new PurgeTask(), 10 * 60 * 1000L, 5 * 60 * 1000L);
+		if (Config.PACKET_THREAD_PLAYERS > 0)
+		{
+			scheduleGeneralAtFixedRate(new PacketPoolsSizeTask(), 10000L, 10000L);
+		}
 	}
 
 	public static long validateDelay(long delay)
@@ -153,6 +188,11 @@ public class ThreadPoolManager
 		try
 		{
 			delay = ThreadPoolManager.validateDelay(delay);
+			if (_effectsWheel != null)
+			{
+				return _effectsWheel.schedule(r, delay);
+			}
+
 			return _effectsScheduledThreadPool.schedule(new RunnableWrapper(r), delay, TimeUnit.MILLISECONDS);
 		}
 		catch (RejectedExecutionException e)
@@ -167,6 +207,11 @@ public class ThreadPoolManager
 		{
 			delay = ThreadPoolManager.validateDelay(delay);
 			initial = ThreadPoolManager.validateDelay(initial);
+			if (_effectsWheel != null)
+			{
+				return _effectsWheel.scheduleAtFixedRate(r, initial, delay);
+			}
+
 			return _effectsScheduledThreadPool
 					.scheduleAtFixedRate(new RunnableWrapper(r), initial, delay, TimeUnit.MILLISECONDS);
 		}
@@ -187,6 +232,11 @@ public class ThreadPoolManager
 		try
 		{
 			delay = ThreadPoolManager.validateDelay(delay);
+			if (_generalWheel != null)
+			{
+				return _generalWheel.schedule(r, delay);
+			}
+
 			return _generalScheduledThreadPool.schedule(new RunnableWrapper(r), delay, TimeUnit.MILLISECONDS);
 		}
 		catch (RejectedExecutionException e)
@@ -201,6 +251,11 @@ public class ThreadPoolManager
 		{
 			delay = ThreadPoolManager.validateDelay(delay);
 			initial = ThreadPoolManager.validateDelay(initial);
+			if (_generalWheel != null)
+			{
+				return _generalWheel.scheduleAtFixedRate(r, initial, delay);
+			}
+
 			return _generalScheduledThreadPool
 					.scheduleAtFixedRate(new RunnableWrapper(r), initial, delay, TimeUnit.MILLISECONDS);
 		}
@@ -221,6 +276,11 @@ public class ThreadPoolManager
 		try
 		{
 			delay = ThreadPoolManager.validateDelay(delay);
+			if (_aiWheel != null)
+			{
+				return _aiWheel.schedule(r, delay);
+			}
+
 			return _aiScheduledThreadPool.schedule(new RunnableWrapper(r), delay, TimeUnit.MILLISECONDS);
 		}
 		catch (RejectedExecutionException e)
@@ -235,6 +295,11 @@ public class ThreadPoolManager
 		{
 			delay = ThreadPoolManager.validateDelay(delay);
 			initial = ThreadPoolManager.validateDelay(initial);
+			if (_aiWheel != null)
+			{
+				return _aiWheel.scheduleAtFixedRate(r, initial, delay);
+			}
+
 			return _aiScheduledThreadPool
 					.scheduleAtFixedRate(new RunnableWrapper(r), initial, delay, TimeUnit.MILLISECONDS);
 		}
@@ -264,14 +329,33 @@ public class ThreadPoolManager
 		_generalThreadPool.execute(r);
 	}
 
+	public void executePathFinding(Runnable r)
+	{
+		_pathFindingThreadPool.execute(new RunnableWrapper(r));
+	}
+
+	/**
+	 * Run a part of a character restore. The tasks must not wait for other character load tasks.
+	 */
+	public Future<?> submitCharacterLoad(Runnable r)
+	{
+		return _characterLoadThreadPool.submit(new RunnableWrapper(r));
+	}
+
 	public void executeAi(Runnable r)
 	{
+		if (_aiWheel != null)
+		{
+			_aiWheel.execute(new RunnableWrapper(r));
+			return;
+		}
+
 		_aiScheduledThreadPool.execute(new RunnableWrapper(r));
 	}
 
 	public String[] getStats()
 	{
-		return new String[]{
+		final String[] stats = new String[]{
 				"STP:",
 				" + Effects:",
 				" |- ActiveThreads:   " + _effectsScheduledThreadPool.getActiveCount(),
@@ -326,8 +410,43 @@ public class ThreadPoolManager
 				" |- PoolSize:		" + _generalThreadPool.getPoolSize(),
 				" |- CompletedTasks:  " + _generalThreadPool.getCompletedTaskCount(),
 				" |- QueuedTasks:	 " + _generalThreadPool.getQueue().size(),
+				" | -------",
+				" + PathFinding:",
+				" |- ActiveThreads:   " + _pathFindingThreadPool.getActiveCount(),
+				" |- PoolSize:		" + _pathFindingThreadPool.getPoolSize(),
+				" |- CompletedTasks:  " + _pathFindingThreadPool.getCompletedTaskCount(),
+				" |- QueuedTasks:	 " + _pathFindingThreadPool.getQueue().size(),
+				" | -------",
+				" + Character Load:",
+				" |- ActiveThreads:   " + _characterLoadThreadPool.getActiveCount(),
+				" |- PoolSize:		" + _characterLoadThreadPool.getPoolSize(),
+				" |- CompletedTasks:  " + _characterLoadThreadPool.getCompletedTaskCount(),
+				" |- QueuedTasks:	 " + _characterLoadThreadPool.getQueue().size(),
 				" | -------"
 		};
+
+		if (_effectsWheel == null)
+		{
+			return stats;
+		}
+
+		// The scheduled thread pools are idle, show the timing wheels instead
+		final List<String> wheelStats = new ArrayList<>();
+		wheelStats.add("Timing Wheels:");
+		wheelStats.add(" + Effects:");
+		Collections.addAll(wheelStats, _effectsWheel.getStats());
+		wheelStats.add(" | -------");
+		wheelStats.add(" + General:");
+		Collections.addAll(wheelStats, _generalWheel.getStats());
+		wheelStats.add(" | -------");
+		wheelStats.add(" + AI:");
+		Collections.addAll(wheelStats, _aiWheel.getStats());
+		for (int i = Arrays.asList(stats).indexOf("TP:"); i < stats.length; i++)
+		{
+			wheelStats.add(stats[i]);
+		}
+
+		return wheelStats.toArray(new String[wheelStats.size()]);
 	}
 
 	private static class PriorityThreadFactory implements ThreadFactory
@@ -370,12 +489,25 @@ public class ThreadPoolManager
 			_generalScheduledThreadPool.awaitTermination(1, TimeUnit.SECONDS);
 			_aiScheduledThreadPool.awaitTermination(1, TimeUnit.SECONDS);
 			_generalThreadPool.awaitTermination(1, TimeUnit.SECONDS);
+			_pathFindingThreadPool.awaitTermination(1, TimeUnit.SECONDS);
+			_characterLoadThreadPool.awaitTermination(1, TimeUnit.SECONDS);
 			_generalPacketsThreadPool.shutdown();
 			_ioPacketsThreadPool.shutdown();
 			_effectsScheduledThreadPool.shutdown();
 			_generalScheduledThreadPool.shutdown();
 			_aiScheduledThreadPool.shutdown();
 			_generalThreadPool.shutdown();
+			_pathFindingThreadPool.shutdown();
+			_characterLoadThreadPool.shutdown();
+			if (_effectsWheel != null)
+			{
+				_effectsWheel.shutdown();
+				_generalWheel.shutdown();
+				_aiWheel.shutdown();
+				_effectsWheel.awaitTermination(1, TimeUnit.SECONDS);
+				_generalWheel.awaitTermination(1, TimeUnit.SECONDS);
+				_aiWheel.awaitTermination(1, TimeUnit.SECONDS);
+			}
 			Log.info("All ThreadPools are now stopped");
 		}
 		catch (InterruptedException e)
@@ -397,6 +529,8 @@ public class ThreadPoolManager
 		_ioPacketsThreadPool.purge();
 		_generalPacketsThreadPool.purge();
 		_generalThreadPool.purge();
+		_pathFindingThreadPool.purge();
+		_characterLoadThreadPool.purge();
 	}
 
 	public String getPacketStats()
@@ -521,6 +655,39 @@ public class ThreadPoolManager
 		}
 	}
 
+	/**
+	 * Sizes the packet pools for the players online, and grows them while the clients wait for a thread.
+	 */
+	private class PacketPoolsSizeTask implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			final int players = L2World.getInstance().getAllPlayersCount();
+			resize(_generalPacketsThreadPool, Config.GENERAL_PACKET_THREAD_CORE_SIZE, players);
+			resize(_ioPacketsThreadPool, Config.IO_PACKET_THREAD_CORE_SIZE, players);
+		}
+
+		private void resize(ThreadPoolExecutor pool, int coreSize, int players)
+		{
+			int size = coreSize + players / Config.PACKET_THREAD_PLAYERS;
+			if (pool.getQueue().size() > pool.getPoolSize())
+			{
+				size = Math.max(size, pool.getCorePoolSize() + 1);
+			}
+			size = Math.max(coreSize, Math.min(size, Config.PACKET_THREADS_MAX));
+
+			if (size > pool.getMaximumPoolSize())
+			{
+				pool.setMaximumPoolSize(size);
+			}
+			if (size != pool.getCorePoolSize())
+			{
+				pool.setCorePoolSize(size);
+			}
+		}
+	}
+
 	@SuppressWarnings("synthetic-access")
 	private static class SingletonHolder
 	{
@@ -215,7 +215,7 @@ public class TimeController
 			{
 				if (_ended.hasAI()) // AI could be just disabled due to region turn off
 				{
-					if (Config.MOVE_BASED_KNOWNLIST)
+					if (Config.MOVE_BASED_KNOWNLIST && !Config.EVENT_BASED_KNOWNLIST)
 					{
 						_ended.getKnownList().findObjects();
 					}
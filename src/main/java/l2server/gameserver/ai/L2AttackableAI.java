@@ -27,6 +27,7 @@ import l2server.gameserver.datatables.NpcTable;
 import l2server.gameserver.model.L2CharPosition;
 import l2server.gameserver.model.L2Object;
 import l2server.gameserver.model.L2Skill;
+import l2server.gameserver.model.L2WorldRegion;
 import l2server.gameserver.model.actor.L2Attackable;
 import l2server.gameserver.model.actor.L2Attackable.AggroInfo;
 import l2server.gameserver.model.actor.L2Character;
@@ -87,6 +88,16 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 	 */
 	private boolean _thinking; // to prevent recursive thinking
 
+	/**
+	 * Amount of AI ticks since the last time a L2Playable was around (see Config.SLEEPING_AI)
+	 */
+	private int _sleepTicks;
+
+	/**
+	 * The L2WorldRegion where the AI task got parked, null while it's running
+	 */
+	private L2WorldRegion _parkedRegion;
+
 	private int timepass = 0;
 	private int chaostime = 0;
 	private L2NpcTemplate _skillrender;
@@ -116,10 +127,97 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 	@Override
 	public void run()
 	{
+		if (Config.SLEEPING_AI && isSleeping())
+		{
+			return;
+		}
+
 		// Launch actions corresponding to the Event Think
 		onEvtThink();
 	}
 
+	/**
+	 * An idle L2Attackable without any L2Playable within its aggro range (plus a margin) only thinks every
+	 * SleepingAIThinkInterval ticks, and its AI task is parked when there is no L2Playable at all in the surrounding
+	 * L2WorldRegions. It is woken up by the region when a L2Playable enters it.
+	 *
+	 * @return true if this tick should be skipped
+	 */
+	private boolean isSleeping()
+	{
+		final L2Attackable npc = getActiveChar();
+		final L2WorldRegion region = npc.getWorldRegion();
+		if (getIntention() != AI_INTENTION_ACTIVE || region == null || npc.getLeader() != null ||
+				!npc.getAggroList().isEmpty())
+		{
+			_sleepTicks = 0;
+			return false;
+		}
+
+		final int range = npc.getAggroRange() + Config.SLEEPING_AI_RANGE_MARGIN;
+		boolean playableAround = false;
+		for (L2WorldRegion neighbor : region.getSurroundingRegions())
+		{
+			for (L2Playable playable : neighbor.getVisiblePlayable().values())
+			{
+				if (npc.isInsideRadius(playable, range, true, false))
+				{
+					_sleepTicks = 0;
+					return false;
+				}
+
+				playableAround = true;
+			}
+		}
+
+		_sleepTicks++;
+		if (!playableAround && Config.SLEEPING_AI_PARK_DELAY > 0 && _sleepTicks >= Config.SLEEPING_AI_PARK_DELAY)
+		{
+			park(region);
+			return true;
+		}
+
+		return _sleepTicks % Math.max(1, Config.SLEEPING_AI_THINK_INTERVAL) != 0;
+	}
+
+	private synchronized void park(L2WorldRegion region)
+	{
+		if (_aiTask == null || getIntention() != AI_INTENTION_ACTIVE)
+		{
+			return;
+		}
+
+		_aiTask.cancel(false);
+		_aiTask = null;
+		_parkedRegion = region;
+		region.addSleepingAI(getActiveChar(), this);
+	}
+
+	private void unpark()
+	{
+		if (_parkedRegion != null)
+		{
+			_parkedRegion.removeSleepingAI(getActiveChar());
+			_parkedRegion = null;
+		}
+
+		_sleepTicks = 0;
+	}
+
+	/**
+	 * Restart the AI task of a parked L2Attackable, called by its L2WorldRegion when a L2Playable comes by or when it
+	 * enters another region. It parks again in its new region if nobody is around.
+	 */
+	public synchronized void wakeUp()
+	{
+		if (_parkedRegion == null || _actor.getAI() != this)
+		{
+			return;
+		}
+
+		startAITask();
+	}
+
 	/**
 	 * Return True if the target is autoattackable (depends on the actor type).<BR><BR>
 	 * <p>
@@ -382,8 +480,10 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 		}
 	}
 
-	public void startAITask()
+	public synchronized void startAITask()
 	{
+		unpark();
+
 		// If not idle - create an AI task (schedule onEvtThink repeatedly)
 		if (_aiTask == null)
 		{
@@ -392,8 +492,10 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 	}
 
 	@Override
-	public void stopAITask()
+	public synchronized void stopAITask()
 	{
+		unpark();
+
 		if (_aiTask != null)
 		{
 			_aiTask.cancel(false);
@@ -445,6 +547,7 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 				super.changeIntention(AI_INTENTION_IDLE, null, null);
 
 				// Stop AI task and detach AI from NPC
+				unpark();
 				if (_aiTask != null)
 				{
 					_aiTask.cancel(true);
@@ -1138,35 +1241,25 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 						continue;
 					}
 
-					int allies = 0;
-					for (L2Character obj : npc.getKnownList().getKnownCharactersInRadius(sk.getCastRange() + collision))
+					if (sk.getTargetType() == L2SkillTargetType.TARGET_ONE)
 					{
-						if (!(obj instanceof L2Attackable) || obj.isDead())
-						{
-							continue;
-						}
-
-						L2Attackable targets = (L2Attackable) obj;
-						if (npc.getFactionId() != null && !npc.getFactionId().equals(targets.getFactionId()))
-						{
-							continue;
-						}
-						percentage = targets.getCurrentHp() / targets.getMaxHp() * 100;
-						if (percentage < 70 && sk.getTargetType() == L2SkillTargetType.TARGET_ONE)
+						final L2Character target = npc.getKnownList()
+								.findKnownCharacterInRadius(sk.getCastRange() + collision,
+										obj -> isFactionAlly(npc, obj, false) &&
+												obj.getCurrentHp() / obj.getMaxHp() * 100 < 70 &&
+												GeoData.getInstance().canSeeTarget(npc, obj));
+						if (target != null)
 						{
-							if (GeoData.getInstance().canSeeTarget(npc, targets))
-							{
-								clientStopMoving(null);
-								npc.setTarget(obj);
-								npc.doCast(sk);
-								return;
-							}
+							clientStopMoving(null);
+							npc.setTarget(target);
+							npc.doCast(sk);
+							return;
 						}
-
-						allies++;
 					}
 
-					if (allies > 0 && isParty(sk))
+					if (isParty(sk) && npc.getKnownList()
+							.findKnownCharacterInRadius(sk.getCastRange() + collision,
+									obj -> isFactionAlly(npc, obj, false)) != null)
 					{
 						clientStopMoving(null);
 						npc.doCast(sk);
@@ -1223,29 +1316,16 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 						}
 						if (sk.getTargetType() == L2SkillTargetType.TARGET_ONE)
 						{
-							for (L2Character obj : npc.getKnownList()
-									.getKnownCharactersInRadius(sk.getCastRange() + collision))
+							final L2Character target = npc.getKnownList()
+									.findKnownCharacterInRadius(sk.getCastRange() + collision,
+											obj -> isFactionAlly(npc, obj, true) && Rnd.get(100) < 10 &&
+													GeoData.getInstance().canSeeTarget(npc, obj));
+							if (target != null)
 							{
-								if (!(obj instanceof L2Attackable) || !obj.isDead())
-								{
-									continue;
-								}
-
-								L2Attackable targets = (L2Attackable) obj;
-								if (npc.getFactionId() != null && !npc.getFactionId().equals(targets.getFactionId()))
-								{
-									continue;
-								}
-								if (Rnd.get(100) < 10)
-								{
-									if (GeoData.getInstance().canSeeTarget(npc, targets))
-									{
-										clientStopMoving(null);
-										npc.setTarget(obj);
-										npc.doCast(sk);
-										return;
-									}
-								}
+								clientStopMoving(null);
+								npc.setTarget(target);
+								npc.doCast(sk);
+								return;
 							}
 						}
 						if (isParty(sk))
@@ -1564,52 +1644,31 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 
 				if (sk.getTargetType() == L2SkillTargetType.TARGET_ONE)
 				{
-					for (L2Character obj : caster.getKnownList()
-							.getKnownCharactersInRadius(sk.getCastRange() + caster.getTemplate().collisionRadius))
+					final L2Character target = caster.getKnownList()
+							.findKnownCharacterInRadius(sk.getCastRange() + caster.getTemplate().collisionRadius,
+									obj -> isFactionAlly(caster, obj, false) &&
+											Rnd.get(100) < (100 - obj.getCurrentHp() / obj.getMaxHp() * 100) / 10 &&
+											GeoData.getInstance().canSeeTarget(caster, obj));
+					if (target != null)
 					{
-						if (!(obj instanceof L2Attackable) || obj.isDead())
-						{
-							continue;
-						}
-
-						L2Attackable targets = (L2Attackable) obj;
-						if (caster.getFactionId() != null && !caster.getFactionId().equals(targets.getFactionId()))
-						{
-							continue;
-						}
-						percentage = targets.getCurrentHp() / targets.getMaxHp() * 100;
-						if (Rnd.get(100) < (100 - percentage) / 10)
-						{
-							if (GeoData.getInstance().canSeeTarget(caster, targets))
-							{
-								clientStopMoving(null);
-								caster.setTarget(obj);
-								caster.doCast(sk);
-								return true;
-							}
-						}
+						clientStopMoving(null);
+						caster.setTarget(target);
+						caster.doCast(sk);
+						return true;
 					}
 				}
 				if (isParty(sk))
 				{
-					for (L2Character obj : caster.getKnownList()
-							.getKnownCharactersInRadius(sk.getSkillRadius() + caster.getTemplate().collisionRadius))
+					if (caster.getFactionId() != null && caster.getKnownList()
+							.findKnownCharacterInRadius(sk.getSkillRadius() + caster.getTemplate().collisionRadius,
+									obj -> obj instanceof L2Attackable &&
+											caster.getFactionId().equals(((L2Attackable) obj).getFactionId()) &&
+											obj.getCurrentHp() < obj.getMaxHp() && Rnd.get(100) <= 20) != null)
 					{
-						if (!(obj instanceof L2Attackable))
-						{
-							continue;
-						}
-						L2Npc targets = (L2Npc) obj;
-						if (caster.getFactionId() != null && targets.getFactionId().equals(caster.getFactionId()))
-						{
-							if (obj.getCurrentHp() < obj.getMaxHp() && Rnd.get(100) <= 20)
-							{
-								clientStopMoving(null);
-								caster.setTarget(caster);
-								caster.doCast(sk);
-								return true;
-							}
-						}
+						clientStopMoving(null);
+						caster.setTarget(caster);
+						caster.doCast(sk);
+						return true;
 					}
 				}
 				break;
@@ -1640,51 +1699,30 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 						}
 					}
 
-					for (L2Character obj : caster.getKnownList()
-							.getKnownCharactersInRadius(sk.getCastRange() + caster.getTemplate().collisionRadius))
+					final L2Character target = caster.getKnownList()
+							.findKnownCharacterInRadius(sk.getCastRange() + caster.getTemplate().collisionRadius,
+									obj -> isFactionAlly(caster, obj, true) && Rnd.get(100) < 10 &&
+											GeoData.getInstance().canSeeTarget(caster, obj));
+					if (target != null)
 					{
-						if (!(obj instanceof L2Attackable) || !obj.isDead())
-						{
-							continue;
-						}
-
-						L2Attackable targets = (L2Attackable) obj;
-						if (caster.getFactionId() != null && !caster.getFactionId().equals(targets.getFactionId()))
-						{
-							continue;
-						}
-						if (Rnd.get(100) < 10)
-						{
-							if (GeoData.getInstance().canSeeTarget(caster, targets))
-							{
-								clientStopMoving(null);
-								caster.setTarget(obj);
-								caster.doCast(sk);
-								return true;
-							}
-						}
+						clientStopMoving(null);
+						caster.setTarget(target);
+						caster.doCast(sk);
+						return true;
 					}
 				}
 				else if (isParty(sk))
 				{
-					for (L2Character obj : caster.getKnownList()
-							.getKnownCharactersInRadius(sk.getSkillRadius() + caster.getTemplate().collisionRadius))
+					if (caster.getFactionId() != null && caster.getKnownList()
+							.findKnownCharacterInRadius(sk.getSkillRadius() + caster.getTemplate().collisionRadius,
+									obj -> obj instanceof L2Attackable &&
+											caster.getFactionId().equals(((L2Attackable) obj).getFactionId()) &&
+											obj.getCurrentHp() < obj.getMaxHp() && Rnd.get(100) <= 20) != null)
 					{
-						if (!(obj instanceof L2Attackable))
-						{
-							continue;
-						}
-						L2Npc targets = (L2Npc) obj;
-						if (caster.getFactionId() != null && caster.getFactionId().equals(targets.getFactionId()))
-						{
-							if (obj.getCurrentHp() < obj.getMaxHp() && Rnd.get(100) <= 20)
-							{
-								clientStopMoving(null);
-								caster.setTarget(caster);
-								caster.doCast(sk);
-								return true;
-							}
-						}
+						clientStopMoving(null);
+						caster.setTarget(caster);
+						caster.doCast(sk);
+						return true;
 					}
 				}
 				break;
@@ -2121,6 +2159,15 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 		}
 	}
 
+	/**
+	 * @return true if the character is a dead or alive attackable of the faction of the npc, any if it has none
+	 */
+	private static boolean isFactionAlly(L2Attackable npc, L2Character obj, boolean dead)
+	{
+		return obj instanceof L2Attackable && obj.isDead() == dead &&
+				(npc.getFactionId() == null || npc.getFactionId().equals(((L2Attackable) obj).getFactionId()));
+	}
+
 	private L2Character effectTargetReconsider(L2Skill sk, boolean positive)
 	{
 		if (sk == null)
@@ -2170,136 +2217,146 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 
 				//----------------------------------------------------------------------
 				//If there is nearby Target with aggro, start going on random target that is attackable
-				for (L2Character obj : actor.getKnownList().getKnownCharactersInRadius(range))
+				return actor.getKnownList().findKnownCharacterInRadius(range, obj ->
 				{
 					if (obj.isDead() || !GeoData.getInstance().canSeeTarget(actor, obj))
 					{
-						continue;
+						return false;
 					}
+
+					double planDist;
+					double targetDist;
+					int castRange;
 					try
 					{
 						actor.setTarget(getAttackTarget());
-						dist = Math.sqrt(actor.getPlanDistanceSq(obj.getX(), obj.getY()));
-						dist2 = dist;
-						range = sk.getCastRange() + actor.getTemplate().collisionRadius +
+						planDist = Math.sqrt(actor.getPlanDistanceSq(obj.getX(), obj.getY()));
+						targetDist = planDist;
+						castRange = sk.getCastRange() + actor.getTemplate().collisionRadius +
 								obj.getTemplate().collisionRadius;
 						if (obj.isMoving())
 						{
-							dist2 = dist2 - 70;
+							targetDist = targetDist - 70;
 						}
 					}
 					catch (NullPointerException e)
 					{
-						continue;
+						return false;
 					}
 					if (obj instanceof L2Attackable)
 					{
 						if (actor.getEnemyClan() != null && actor.getEnemyClan().equals(((L2Attackable) obj).getClan()))
 						{
-							if (dist2 <= range)
+							if (targetDist <= castRange)
 							{
 								if (getAttackTarget().getFirstEffect(sk) == null)
 								{
-									return obj;
+									return true;
 								}
 							}
 						}
 					}
 					if (obj instanceof L2PcInstance || obj instanceof L2Summon)
 					{
-						if (dist2 <= range)
+						if (targetDist <= castRange)
 						{
 							if (getAttackTarget().getFirstEffect(sk) == null)
 							{
-								return obj;
+								return true;
 							}
 						}
 					}
-				}
+					return false;
+				});
 			}
 			else if (positive)
 			{
-				double dist = 0;
-				double dist2 = 0;
 				int range = 0;
-				for (L2Character obj : actor.getKnownList().getKnownCharactersInRadius(range))
+				return actor.getKnownList().findKnownCharacterInRadius(range, obj ->
 				{
 					if (!(obj instanceof L2Attackable) || obj.isDead() ||
 							!GeoData.getInstance().canSeeTarget(actor, obj))
 					{
-						continue;
+						return false;
 					}
 
 					L2Attackable targets = (L2Attackable) obj;
 					if (actor.getFactionId() != null && !actor.getFactionId().equals(targets.getFactionId()))
 					{
-						continue;
+						return false;
 					}
 
+
+					double planDist;
+					double targetDist;
+					int castRange;
 					try
 					{
 						actor.setTarget(getAttackTarget());
-						dist = Math.sqrt(actor.getPlanDistanceSq(obj.getX(), obj.getY()));
-						dist2 = dist - actor.getTemplate().collisionRadius;
-						range = sk.getCastRange() + actor.getTemplate().collisionRadius +
+						planDist = Math.sqrt(actor.getPlanDistanceSq(obj.getX(), obj.getY()));
+						targetDist = planDist - actor.getTemplate().collisionRadius;
+						castRange = sk.getCastRange() + actor.getTemplate().collisionRadius +
 								obj.getTemplate().collisionRadius;
 						if (obj.isMoving())
 						{
-							dist2 = dist2 - 70;
+							targetDist = targetDist - 70;
 						}
 					}
 					catch (NullPointerException e)
 					{
-						continue;
+						return false;
 					}
-					if (dist2 <= range)
+					if (targetDist <= castRange)
 					{
 						if (obj.getFirstEffect(sk) == null)
 						{
-							return obj;
+							return true;
 						}
 					}
-				}
+					return false;
+				});
 			}
 			return null;
 		}
 		else
 		{
-			double dist = 0;
-			double dist2 = 0;
 			int range = 0;
 			range = sk.getCastRange() + actor.getTemplate().collisionRadius +
 					getAttackTarget().getTemplate().collisionRadius;
-			for (L2Character obj : actor.getKnownList().getKnownCharactersInRadius(range))
+			return actor.getKnownList().findKnownCharacterInRadius(range, obj ->
 			{
 				if (obj == null || obj.isDead() || !GeoData.getInstance().canSeeTarget(actor, obj))
 				{
-					continue;
+					return false;
 				}
+
+				double planDist;
+				double targetDist;
+				int castRange;
 				try
 				{
 					actor.setTarget(getAttackTarget());
-					dist = Math.sqrt(actor.getPlanDistanceSq(obj.getX(), obj.getY()));
-					dist2 = dist - actor.getTemplate().collisionRadius;
-					range = sk.getCastRange() + actor.getTemplate().collisionRadius + obj.getTemplate().collisionRadius;
+					planDist = Math.sqrt(actor.getPlanDistanceSq(obj.getX(), obj.getY()));
+					targetDist = planDist - actor.getTemplate().collisionRadius;
+					castRange = sk.getCastRange() + actor.getTemplate().collisionRadius + obj.getTemplate().collisionRadius;
 					if (obj.isMoving())
 					{
-						dist2 = dist2 - 70;
+						targetDist = targetDist - 70;
 					}
 				}
 				catch (NullPointerException e)
 				{
-					continue;
+					return false;
 				}
 				if (obj instanceof L2Attackable)
 				{
 					if (actor.getEnemyClan() != null && actor.getEnemyClan().equals(((L2Attackable) obj).getClan()))
 					{
-						if (dist2 <= range)
+						if (targetDist <= castRange)
 						{
 							if (getAttackTarget().getFirstEffect(L2AbnormalType.BUFF) != null)
 							{
-								return obj;
+								return true;
 							}
 						}
 					}
@@ -2307,16 +2364,16 @@ public class L2AttackableAI extends L2CharacterAI implements Runnable
 				if (obj instanceof L2PcInstance || obj instanceof L2Summon)
 				{
 
-					if (dist2 <= range)
+					if (targetDist <= castRange)
 					{
 						if (getAttackTarget().getFirstEffect(L2AbnormalType.BUFF) != null)
 						{
-							return obj;
+							return true;
 						}
 					}
 				}
-			}
-			return null;
+				return false;
+			});
 		}
 	}
 
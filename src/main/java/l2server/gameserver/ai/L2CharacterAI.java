@@ -1413,13 +1413,9 @@ public class L2CharacterAI extends AbstractAI
 				sk.getTargetType() == L2SkillTargetType.TARGET_BEHIND_AURA ||
 				sk.getTargetType() == L2SkillTargetType.TARGET_FRONT_AURA)
 		{
-			for (L2Object target : _actor.getKnownList().getKnownCharactersInRadius(sk.getSkillRadius()))
-			{
-				if (target == getAttackTarget())
-				{
-					return true;
-				}
-			}
+			final L2Character attackTarget = getAttackTarget();
+			return attackTarget != null && _actor.getKnownList()
+					.findKnownCharacterInRadius(sk.getSkillRadius(), cha -> cha == attackTarget) != null;
 		}
 		return false;
 	}
@@ -1432,74 +1428,15 @@ public class L2CharacterAI extends AbstractAI
 					sk.getTargetType() == L2SkillTargetType.TARGET_BEHIND_AURA ||
 					sk.getTargetType() == L2SkillTargetType.TARGET_FRONT_AURA)
 			{
-				boolean cancast = true;
-				for (L2Character target : _actor.getKnownList().getKnownCharactersInRadius(sk.getSkillRadius()))
-				{
-					if (!GeoData.getInstance().canSeeTarget(_actor, target))
-					{
-						continue;
-					}
-					if (target instanceof L2Attackable)
-					{
-						L2Npc targets = (L2Npc) target;
-						L2Npc actors = (L2Npc) _actor;
-
-						if (targets.getEnemyClan() == null || actors.getClan() == null ||
-								!targets.getEnemyClan().equals(actors.getClan()) ||
-								actors.getClan() == null && actors.getIsChaos() == 0)
-						{
-							continue;
-						}
-					}
-					L2Abnormal[] effects = target.getAllEffects();
-					for (int i = 0; effects != null && i < effects.length; i++)
-					{
-						L2Abnormal effect = effects[i];
-						if (effect.getSkill() == sk)
-						{
-							cancast = false;
-							break;
-						}
-					}
-				}
-				if (cancast)
-				{
-					return true;
-				}
+				return _actor.getKnownList().findKnownCharacterInRadius(sk.getSkillRadius(),
+						target -> isAOETarget(target) && hasEffect(target, sk)) == null;
 			}
 			else if (sk.getTargetType() == L2SkillTargetType.TARGET_AREA ||
 					sk.getTargetType() == L2SkillTargetType.TARGET_BEHIND_AREA ||
 					sk.getTargetType() == L2SkillTargetType.TARGET_FRONT_AREA)
 			{
-				boolean cancast = true;
-				for (L2Character target : getAttackTarget().getKnownList()
-						.getKnownCharactersInRadius(sk.getSkillRadius()))
-				{
-					if (!GeoData.getInstance().canSeeTarget(_actor, target) || target == null)
-					{
-						continue;
-					}
-					if (target instanceof L2Attackable)
-					{
-						L2Npc targets = (L2Npc) target;
-						L2Npc actors = (L2Npc) _actor;
-						if (targets.getEnemyClan() == null || actors.getClan() == null ||
-								!targets.getEnemyClan().equals(actors.getClan()) ||
-								actors.getClan() == null && actors.getIsChaos() == 0)
-						{
-							continue;
-						}
-					}
-					L2Abnormal[] effects = target.getAllEffects();
-					if (effects.length > 0)
-					{
-						cancast = true;
-					}
-				}
-				if (cancast)
-				{
-					return true;
-				}
+				// No target around the attack target can prevent it
+				return true;
 			}
 		}
 		else
@@ -1508,109 +1445,48 @@ public class L2CharacterAI extends AbstractAI
 					sk.getTargetType() == L2SkillTargetType.TARGET_BEHIND_AURA ||
 					sk.getTargetType() == L2SkillTargetType.TARGET_FRONT_AURA)
 			{
-				boolean cancast = false;
-				for (L2Character target : _actor.getKnownList().getKnownCharactersInRadius(sk.getSkillRadius()))
-				{
-					if (!GeoData.getInstance().canSeeTarget(_actor, target))
-					{
-						continue;
-					}
-					if (target instanceof L2Attackable)
-					{
-						L2Npc targets = (L2Npc) target;
-						L2Npc actors = (L2Npc) _actor;
-						if (targets.getEnemyClan() == null || actors.getClan() == null ||
-								!targets.getEnemyClan().equals(actors.getClan()) ||
-								actors.getClan() == null && actors.getIsChaos() == 0)
-						{
-							continue;
-						}
-					}
-					L2Abnormal[] effects = target.getAllEffects();
-					if (effects.length > 0)
-					{
-						cancast = true;
-					}
-				}
-				if (cancast)
-				{
-					return true;
-				}
+				return _actor.getKnownList().findKnownCharacterInRadius(sk.getSkillRadius(),
+						target -> isAOETarget(target) && !target.getAllEffectsView().isEmpty()) != null;
 			}
 			else if (sk.getTargetType() == L2SkillTargetType.TARGET_AREA ||
 					sk.getTargetType() == L2SkillTargetType.TARGET_BEHIND_AREA ||
 					sk.getTargetType() == L2SkillTargetType.TARGET_FRONT_AREA)
 			{
-				boolean cancast = true;
-				for (L2Character target : getAttackTarget().getKnownList()
-						.getKnownCharactersInRadius(sk.getSkillRadius()))
-				{
-					if (!GeoData.getInstance().canSeeTarget(_actor, target))
-					{
-						continue;
-					}
-					if (target instanceof L2Attackable)
-					{
-						L2Npc targets = (L2Npc) target;
-						L2Npc actors = (L2Npc) _actor;
-						if (targets.getEnemyClan() == null || actors.getClan() == null ||
-								!targets.getEnemyClan().equals(actors.getClan()) ||
-								actors.getClan() == null && actors.getIsChaos() == 0)
-						{
-							continue;
-						}
-					}
-					L2Abnormal[] effects = target.getAllEffects();
-					for (int i = 0; effects != null && i < effects.length; i++)
-					{
-						L2Abnormal effect = effects[i];
-						if (effect.getSkill() == sk)
-						{
-							cancast = false;
-							break;
-						}
-					}
-				}
-				if (cancast)
-				{
-					return true;
-				}
+				return getAttackTarget().getKnownList().findKnownCharacterInRadius(sk.getSkillRadius(),
+						target -> isAOETarget(target) && hasEffect(target, sk)) == null;
 			}
 		}
 		return false;
 	}
 
-	public boolean canParty(L2Skill sk)
+	/**
+	 * @return true if the target is visible and, for an attackable, is an enemy of the actor's clan
+	 */
+	private boolean isAOETarget(L2Character target)
 	{
-		if (sk.getTargetType() == L2SkillTargetType.TARGET_PARTY)
+		if (!GeoData.getInstance().canSeeTarget(_actor, target))
+		{
+			return false;
+		}
+		if (target instanceof L2Attackable)
 		{
-			int count = 0;
-			int ccount = 0;
-			for (L2Character target : _actor.getKnownList().getKnownCharactersInRadius(sk.getSkillRadius()))
+			L2Npc targets = (L2Npc) target;
+			L2Npc actors = (L2Npc) _actor;
+			if (targets.getEnemyClan() == null || actors.getClan() == null ||
+					!targets.getEnemyClan().equals(actors.getClan()) ||
+					actors.getClan() == null && actors.getIsChaos() == 0)
 			{
-				if (!(target instanceof L2Attackable) || !GeoData.getInstance().canSeeTarget(_actor, target))
-				{
-					continue;
-				}
-				L2Npc targets = (L2Npc) target;
-				L2Npc actors = (L2Npc) _actor;
-				if (actors.getFactionId() != null && targets.getFactionId().equals(actors.getFactionId()))
-				{
-					count++;
-					L2Abnormal[] effects = target.getAllEffects();
-					for (int i = 0; effects != null && i < effects.length; i++)
-					{
-
-						L2Abnormal effect = effects[i];
-						if (effect.getSkill() == sk)
-						{
-							ccount++;
-							break;
-						}
-					}
-				}
+				return false;
 			}
-			if (ccount < count)
+		}
+		return true;
+	}
+
+	private static boolean hasEffect(L2Character target, L2Skill sk)
+	{
+		for (L2Abnormal effect : target.getAllEffectsView())
+		{
+			if (effect.getSkill() == sk)
 			{
 				return true;
 			}
@@ -1618,6 +1494,21 @@ public class L2CharacterAI extends AbstractAI
 		return false;
 	}
 
+	public boolean canParty(L2Skill sk)
+	{
+		if (sk.getTargetType() == L2SkillTargetType.TARGET_PARTY)
+		{
+			// True if a faction member around doesn't have the buff yet
+			final L2Npc actors = (L2Npc) _actor;
+			return _actor.getKnownList().findKnownCharacterInRadius(sk.getSkillRadius(),
+					target -> target instanceof L2Attackable && GeoData.getInstance().canSeeTarget(_actor, target) &&
+							actors.getFactionId() != null &&
+							((L2Npc) target).getFactionId().equals(actors.getFactionId()) &&
+							!hasEffect(target, sk)) != null;
+		}
+		return false;
+	}
+
 	public boolean isParty(L2Skill sk)
 	{
 		return sk.getTargetType() == L2SkillTargetType.TARGET_PARTY;
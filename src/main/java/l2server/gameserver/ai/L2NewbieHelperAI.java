@@ -50,7 +50,7 @@ public class L2NewbieHelperAI extends L2CharacterAI implements Runnable
 			return;
 		}
 
-		if (npc.getKnownList().getKnownPlayersInRadius(200).isEmpty())
+		if (!npc.getKnownList().hasKnownPlayersInRadius(200))
 		{
 			return;
 		}
@@ -58,7 +58,7 @@ public class L2NewbieHelperAI extends L2CharacterAI implements Runnable
 		for (L2Character activeChar : npc.getKnownList().getKnownCharacters())
 		{
 			if (activeChar == null || !(activeChar instanceof L2Playable) ||
-					_alreadyBuffed.contains(activeChar.getObjectId()) && activeChar.getAllEffects().length > 0)
+					_alreadyBuffed.contains(activeChar.getObjectId()) && !activeChar.getAllEffectsView().isEmpty())
 			{
 				continue;
 			}
@@ -287,11 +287,11 @@ public class L2SiegeGuardAI extends L2CharacterAI implements Runnable
 		// A L2Attackable isn't aggressive during 10s after its spawn because _globalAggro is set to -10
 		if (_globalAggro >= 0)
 		{
-			for (L2Character target : npc.getKnownList().getKnownCharactersInRadius(_attackRange))
+			npc.getKnownList().forEachKnownCharacterInRadius(_attackRange, target ->
 			{
 				if (target == null)
 				{
-					continue;
+					return;
 				}
 				if (autoAttackCondition(target)) // check aggression
 				{
@@ -304,7 +304,7 @@ public class L2SiegeGuardAI extends L2CharacterAI implements Runnable
 						npc.addDamageHate(target, 0, 1);
 					}
 				}
-			}
+			});
 
 			// Chose a target from its aggroList
 			L2Character hated;
@@ -609,10 +609,8 @@ public class L2SiegeGuardAI extends L2CharacterAI implements Runnable
 						}
 						if (sk.getSkillType() == L2SkillType.BUFF)
 						{
-							L2Abnormal[] effects = _actor.getAllEffects();
-							for (int i = 0; effects != null && i < effects.length; i++)
+							for (L2Abnormal effect : _actor.getAllEffectsView())
 							{
-								L2Abnormal effect = effects[i];
 								if (effect.getSkill() == sk)
 								{
 									useSkillSelf = false;
@@ -757,10 +755,8 @@ public class L2SiegeGuardAI extends L2CharacterAI implements Runnable
 							}
 							if (sk.getSkillType() == L2SkillType.BUFF)
 							{
-								L2Abnormal[] effects = _actor.getAllEffects();
-								for (int i = 0; effects != null && i < effects.length; i++)
+								for (L2Abnormal effect : _actor.getAllEffectsView())
 								{
-									L2Abnormal effect = effects[i];
 									if (effect.getSkill() == sk)
 									{
 										useSkillSelf = false;
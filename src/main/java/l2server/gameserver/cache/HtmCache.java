@@ -36,6 +36,8 @@ import java.util.logging.Level;
 public class HtmCache implements Reloadable
 {
 	private final Map<Integer, String> _cache;
+	// Parsed on demand, by content
+	private final Map<String, HtmTemplate> _templates = new ConcurrentHashMap<>();
 
 	private int _loadedFiles;
 	private long _bytesBuffLen;
@@ -76,6 +78,7 @@ public class HtmCache implements Reloadable
 
 	public void reload(File f)
 	{
+		_templates.clear();
 		if (!Config.LAZY_CACHE)
 		{
 			Log.info("Html cache start...");
@@ -94,6 +97,7 @@ public class HtmCache implements Reloadable
 
 	public void reloadPath(File f)
 	{
+		_templates.clear();
 		parseDir(f);
 		Log.info("Cache[HTML]: Reloaded specified path.");
 	}
@@ -252,6 +256,29 @@ public class HtmCache implements Reloadable
 		return content;
 	}
 
+	/**
+	 * @return the parsed page, or null if it doesn't exist
+	 */
+	public HtmTemplate getTemplate(String prefix, String path)
+	{
+		final String content = getHtm(prefix, path);
+		if (content == null)
+		{
+			return null;
+		}
+
+		return _templates.computeIfAbsent(content, HtmTemplate::new);
+	}
+
+	/**
+	 * @param content the content of a page
+	 * @return the parsed page if it was already asked with getTemplate, null otherwise
+	 */
+	public HtmTemplate getParsedTemplate(String content)
+	{
+		return _templates.get(content);
+	}
+
 	public String getHtm(String path)
 	{
 		if (path == null || path.isEmpty())
@@ -0,0 +1,220 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An html page of the HtmCache, split once into its literal parts and its %placeholders%.<BR><BR>
+ * <p>
+ * Rendering it with the values of the placeholders is a single pass into a per-thread buffer, and the bypasses of the
+ * page are known beforehand, so NpcHtmlMessage doesn't need regexes nor to scan the result again.
+ */
+public final class HtmTemplate
+{
+	private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+	private final String _content;
+	// Literals at the even indexes, placeholders (with their %) at the odd ones
+	private final String[] _segments;
+	// The same for the text of each bypass, after "bypass " or "bypass -h "
+	private final String[][] _bypasses;
+	private final Set<String> _bypassPlaceholders;
+
+	public HtmTemplate(String content)
+	{
+		_content = content;
+		_segments = split(content);
+
+		final List<String[]> bypasses = new ArrayList<>();
+		final Set<String> bypassPlaceholders = new HashSet<>();
+		int start = content.indexOf("\"bypass ");
+		while (start >= 0)
+		{
+			final int finish = content.indexOf('"', start + 1);
+			if (finish < 0)
+			{
+				break;
+			}
+
+			start += content.startsWith("-h", start + 8) ? 11 : 8;
+			if (start <= finish)
+			{
+				final String[] bypass = split(content.substring(start, finish));
+				for (int i = 1; i < bypass.length; i += 2)
+				{
+					bypassPlaceholders.add(bypass[i]);
+				}
+				bypasses.add(bypass);
+			}
+
+			start = content.indexOf("\"bypass ", finish + 1);
+		}
+
+		_bypasses = bypasses.toArray(new String[bypasses.size()][]);
+		_bypassPlaceholders = bypassPlaceholders.isEmpty() ? Collections.emptySet() : bypassPlaceholders;
+	}
+
+	public String getContent()
+	{
+		return _content;
+	}
+
+	/**
+	 * @return true if the given %placeholder% is part of a bypass of the page
+	 */
+	public boolean isInBypass(String placeholder)
+	{
+		return _bypassPlaceholders.contains(placeholder);
+	}
+
+	/**
+	 * @param values the values of the placeholders, the ones without value are left as they are
+	 * @return the page
+	 */
+	public String render(Map<String, String> values)
+	{
+		if (values == null || values.isEmpty())
+		{
+			return _content;
+		}
+
+		return render(_segments, values);
+	}
+
+	/**
+	 * @param values the values of the placeholders, the ones without value are left as they are
+	 * @return the text of the bypasses of the page
+	 */
+	public String[] renderBypasses(Map<String, String> values)
+	{
+		final String[] bypasses = new String[_bypasses.length];
+		for (int i = 0; i < _bypasses.length; i++)
+		{
+			bypasses[i] = render(_bypasses[i], values);
+		}
+		return bypasses;
+	}
+
+	/**
+	 * @return true if the text can be used as the name of a placeholder
+	 */
+	public static boolean isPlaceholder(String text)
+	{
+		final int length = text.length();
+		if (length < 3 || text.charAt(0) != '%' || text.charAt(length - 1) != '%')
+		{
+			return false;
+		}
+
+		for (int i = 1; i < length - 1; i++)
+		{
+			if (!isPlaceholderChar(text.charAt(i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replace all the occurrences of a text, without the regex String.replace uses.
+	 */
+	public static String replace(String text, String target, String value)
+	{
+		int index = text.indexOf(target);
+		if (index < 0 || target.isEmpty())
+		{
+			return text;
+		}
+
+		final StringBuilder sb = BUFFER.get();
+		sb.setLength(0);
+		int last = 0;
+		while (index >= 0)
+		{
+			sb.append(text, last, index).append(value);
+			last = index + target.length();
+			index = text.indexOf(target, last);
+		}
+		sb.append(text, last, text.length());
+		return sb.toString();
+	}
+
+	private static String render(String[] segments, Map<String, String> values)
+	{
+		if (segments.length == 1)
+		{
+			return segments[0];
+		}
+
+		final StringBuilder sb = BUFFER.get();
+		sb.setLength(0);
+		for (int i = 0; i < segments.length; i++)
+		{
+			if ((i & 1) == 0)
+			{
+				sb.append(segments[i]);
+			}
+			else
+			{
+				final String value = values == null ? null : values.get(segments[i]);
+				sb.append(value != null ? value : segments[i]);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String[] split(String text)
+	{
+		final List<String> segments = new ArrayList<>();
+		int last = 0;
+		int start = text.indexOf('%');
+		while (start >= 0)
+		{
+			int end = start + 1;
+			while (end < text.length() && isPlaceholderChar(text.charAt(end)))
+			{
+				end++;
+			}
+
+			if (end < text.length() && end > start + 1 && text.charAt(end) == '%')
+			{
+				segments.add(text.substring(last, start));
+				segments.add(text.substring(start, end + 1));
+				last = end + 1;
+				start = text.indexOf('%', last);
+			}
+			else
+			{
+				// Not a placeholder, but its closing % could open one
+				start = end < text.length() && text.charAt(end) == '%' ? end : text.indexOf('%', end);
+			}
+		}
+		segments.add(text.substring(last));
+		return segments.toArray(new String[segments.size()]);
+	}
+
+	private static boolean isPlaceholderChar(char c)
+	{
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+	}
+}
@@ -4,6 +4,7 @@ import l2server.Config;
 import l2server.L2DatabaseFactory;
 import l2server.gameserver.Ranked1v1;
 import l2server.gameserver.cache.HtmCache;
+import l2server.gameserver.cache.HtmTemplate;
 import l2server.gameserver.datatables.ClanTable;
 import l2server.gameserver.datatables.NpcTable;
 import l2server.gameserver.datatables.NpcTable.DropChances;
@@ -1681,8 +1682,12 @@ public class CustomCommunityBoard
 			return;
 		}
 
-		html = html.replaceFirst("%menu%", getCommunityPage("mainMenu"));
-		html = html.replaceAll("%serverId%", String.valueOf(Config.SERVER_ID));
+		int menu = html.indexOf("%menu%");
+		if (menu >= 0)
+		{
+			html = html.substring(0, menu) + getCommunityPage("mainMenu") + html.substring(menu + 6);
+		}
+		html = HtmTemplate.replace(html, "%serverId%", String.valueOf(Config.SERVER_ID));
 
 		//html = html.replace("%onlineCount%", String.valueOf(getPlayerCount()));
 
@@ -29,12 +29,12 @@ import l2server.gameserver.ThreadPoolManager;
 import l2server.log.Log;
 import l2server.util.PrimeFinder;
 
-import java.util.BitSet;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
  * This class ..
+ * <p>
+ * The ids are taken from a BitSetIdAllocator, so getting and releasing them doesn't lock the factory.
  *
  * @version $Revision: 1.2 $ $Date: 2004/06/27 08:12:59 $
  */
@@ -42,21 +42,16 @@ import java.util.logging.Level;
 public class BitSetIDFactory extends IdFactory
 {
 
-	private BitSet _freeIds;
-	private AtomicInteger _freeIdCount;
-	private AtomicInteger _nextFreeId;
+	private BitSetIdAllocator _freeIds;
 
 	protected class BitSetCapacityCheck implements Runnable
 	{
 		@Override
 		public void run()
 		{
-			synchronized (BitSetIDFactory.this)
+			if (reachingBitSetCapacity())
 			{
-				if (reachingBitSetCapacity())
-				{
-					increaseBitSetCapacity();
-				}
+				increaseBitSetCapacity();
 			}
 		}
 	}
@@ -70,16 +65,14 @@ public class BitSetIDFactory extends IdFactory
 			ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(new BitSetCapacityCheck(), 30000, 30000);
 			initialize();
 		}
-		Log.info("IDFactory: " + _freeIds.size() + " ids available.");
+		Log.info("IDFactory: " + _freeIds.capacity() + " ids available.");
 	}
 
 	public void initialize()
 	{
 		try
 		{
-			_freeIds = new BitSet(PrimeFinder.nextPrime(100000));
-			_freeIds.clear();
-			_freeIdCount = new AtomicInteger(FREE_OBJECT_ID_SIZE);
+			_freeIds = new BitSetIdAllocator(PrimeFinder.nextPrime(100000), FREE_OBJECT_ID_SIZE);
 
 			for (int usedObjectId : extractUsedObjectIDTable())
 			{
@@ -89,11 +82,9 @@ public class BitSetIDFactory extends IdFactory
 					Log.warning("Object ID " + usedObjectId + " in DB is less than minimum ID of " + FIRST_OID);
 					continue;
 				}
-				_freeIds.set(usedObjectId - FIRST_OID);
-				_freeIdCount.decrementAndGet();
+				_freeIds.markUsed(usedObjectId - FIRST_OID);
 			}
 
-			_nextFreeId = new AtomicInteger(_freeIds.nextClearBit(0));
 			_initialized = true;
 		}
 		catch (Exception e)
@@ -107,12 +98,11 @@ public class BitSetIDFactory extends IdFactory
 	 * @see l2server.gameserver.idfactory.IdFactory#releaseId(int)
 	 */
 	@Override
-	public synchronized void releaseId(int objectID)
+	public void releaseId(int objectID)
 	{
 		if (objectID - FIRST_OID > -1)
 		{
-			_freeIds.clear(objectID - FIRST_OID);
-			_freeIdCount.incrementAndGet();
+			_freeIds.release(objectID - FIRST_OID);
 		}
 		else
 		{
@@ -124,65 +114,38 @@ public class BitSetIDFactory extends IdFactory
 	 * @see l2server.gameserver.idfactory.IdFactory#getNextId()
 	 */
 	@Override
-	public synchronized int getNextId()
+	public int getNextId()
 	{
-		int newID = _nextFreeId.get();
-		_freeIds.set(newID);
-		_freeIdCount.decrementAndGet();
-
-		int nextFree = _freeIds.nextClearBit(newID);
-
-		if (nextFree < 0)
-		{
-			nextFree = _freeIds.nextClearBit(0);
-		}
-		if (nextFree < 0)
-		{
-			if (_freeIds.size() < FREE_OBJECT_ID_SIZE)
-			{
-				increaseBitSetCapacity();
-				nextFree = _freeIds.nextClearBit(0);
-			}
-			else
-			{
-				throw new NullPointerException("Ran out of valid Id's.");
-			}
-		}
-
-		_nextFreeId.set(nextFree);
-
-		return newID + FIRST_OID;
+		return _freeIds.allocate() + FIRST_OID;
 	}
 
 	/**
 	 * @see l2server.gameserver.idfactory.IdFactory#size()
 	 */
 	@Override
-	public synchronized int size()
+	public int size()
 	{
-		return _freeIdCount.get();
+		return FREE_OBJECT_ID_SIZE - _freeIds.usedCount();
 	}
 
 	/**
 	 * @return
 	 */
-	protected synchronized int usedIdCount()
+	protected int usedIdCount()
 	{
-		return size() - FIRST_OID;
+		return _freeIds.usedCount();
 	}
 
 	/**
 	 * @return
 	 */
-	protected synchronized boolean reachingBitSetCapacity()
+	protected boolean reachingBitSetCapacity()
 	{
-		return PrimeFinder.nextPrime(usedIdCount() * 11 / 10) > _freeIds.size();
+		return PrimeFinder.nextPrime(usedIdCount() * 11 / 10) > _freeIds.capacity();
 	}
 
-	protected synchronized void increaseBitSetCapacity()
+	protected void increaseBitSetCapacity()
 	{
-		BitSet newBitSet = new BitSet(PrimeFinder.nextPrime(usedIdCount() * 11 / 10));
-		newBitSet.or(_freeIds);
-		_freeIds = newBitSet;
+		_freeIds.ensureCapacity(PrimeFinder.nextPrime(usedIdCount() * 11 / 10));
 	}
 }
@@ -0,0 +1,234 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.idfactory;
+
+import l2server.util.PrimeFinder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The used ids of the BitSetIDFactory, without a global lock.<BR><BR>
+ * <p>
+ * The bits are kept in fixed chunks of atomic words, so growing only appends chunks and never copies a bit another
+ * thread could be changing. Each thread reserves a whole word of free ids with a single CAS and hands them out
+ * from its own block; a released id is cleared with a CAS and found again when the scan wraps around, like the
+ * BitSet did, so an id is never given again right after being released.<BR>
+ * The ids reserved by a thread are marked as used: the ones left when a thread dies are lost until the restart, at
+ * most 63 per thread.
+ */
+public final class BitSetIdAllocator
+{
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_BITS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_WORDS = CHUNK_BITS >>> 6;
+
+	private final int _maxSize;
+	private volatile AtomicLongArray[] _chunks = new AtomicLongArray[0];
+	// Index of the next word to look at
+	private final AtomicInteger _cursor = new AtomicInteger();
+	private final LongAdder _used = new LongAdder();
+
+	private final ThreadLocal<Block> _blocks = ThreadLocal.withInitial(Block::new);
+
+	/**
+	 * @param initialSize the ids available at first
+	 * @param maxSize     the ids it can grow to, from 0 to maxSize - 1
+	 */
+	public BitSetIdAllocator(int initialSize, int maxSize)
+	{
+		_maxSize = maxSize;
+		ensureCapacity(initialSize);
+	}
+
+	/**
+	 * Mark an id as used, while loading the ones stored.
+	 */
+	public void markUsed(int id)
+	{
+		ensureCapacity(id + 1);
+
+		final AtomicLongArray chunk = _chunks[id >>> CHUNK_SHIFT];
+		final int word = (id & CHUNK_BITS - 1) >>> 6;
+		final long mask = 1L << id;
+		long value;
+		do
+		{
+			value = chunk.get(word);
+			if ((value & mask) != 0)
+			{
+				return;
+			}
+		}
+		while (!chunk.compareAndSet(word, value, value | mask));
+		_used.increment();
+	}
+
+	/**
+	 * @return a free id, now used
+	 * @throws NullPointerException if all the ids are used, as the BitSetIDFactory always did
+	 */
+	public int allocate()
+	{
+		final Block block = _blocks.get();
+		if (block._position == block._count)
+		{
+			reserve(block);
+		}
+
+		_used.increment();
+		return block._ids[block._position++];
+	}
+
+	/**
+	 * @return false if the id wasn't used
+	 */
+	public boolean release(int id)
+	{
+		final AtomicLongArray[] chunks = _chunks;
+		if (id < 0 || id >>> CHUNK_SHIFT >= chunks.length)
+		{
+			return false;
+		}
+
+		final AtomicLongArray chunk = chunks[id >>> CHUNK_SHIFT];
+		final int word = (id & CHUNK_BITS - 1) >>> 6;
+		final long mask = 1L << id;
+		long value;
+		do
+		{
+			value = chunk.get(word);
+			if ((value & mask) == 0)
+			{
+				return false;
+			}
+		}
+		while (!chunk.compareAndSet(word, value, value & ~mask));
+
+		_used.decrement();
+		return true;
+	}
+
+	/**
+	 * @return the ids handed out and not released
+	 */
+	public int usedCount()
+	{
+		return (int) _used.sum();
+	}
+
+	/**
+	 * @return the ids it can hand out without growing
+	 */
+	public int capacity()
+	{
+		return (int) Math.min(_maxSize, (long) _chunks.length * CHUNK_BITS);
+	}
+
+	/**
+	 * Grow so at least the given number of ids is available, up to the maximum size.
+	 */
+	public synchronized void ensureCapacity(int size)
+	{
+		final AtomicLongArray[] chunks = _chunks;
+		final long wanted = Math.min(Math.max(size, 1), _maxSize);
+		final int count = (int) ((wanted + CHUNK_BITS - 1) >>> CHUNK_SHIFT);
+		if (count <= chunks.length)
+		{
+			return;
+		}
+
+		final AtomicLongArray[] newChunks = new AtomicLongArray[count];
+		System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+		for (int i = chunks.length; i < count; i++)
+		{
+			newChunks[i] = new AtomicLongArray(CHUNK_WORDS);
+		}
+		_chunks = newChunks;
+	}
+
+	private void reserve(Block block)
+	{
+		while (true)
+		{
+			final AtomicLongArray[] chunks = _chunks;
+			final int words = chunks.length * CHUNK_WORDS;
+			int start = _cursor.get();
+			if (start >= words)
+			{
+				start = 0;
+			}
+
+			for (int i = 0; i < words; i++)
+			{
+				final int index = start + i < words ? start + i : start + i - words;
+				if (reserveWord(chunks[index / CHUNK_WORDS], index, block))
+				{
+					_cursor.lazySet(index + 1);
+					return;
+				}
+			}
+
+			// Not a single free id: grow, the same way the capacity check does
+			final int capacity = capacity();
+			if (capacity >= _maxSize)
+			{
+				throw new NullPointerException("Ran out of valid Id's.");
+			}
+
+			final long size = Math.max((long) usedCount() * 11 / 10, (long) capacity * 11 / 10);
+			ensureCapacity(PrimeFinder.nextPrime((int) Math.min(size, _maxSize)));
+		}
+	}
+
+	private boolean reserveWord(AtomicLongArray chunk, int index, Block block)
+	{
+		final int word = index % CHUNK_WORDS;
+		long value;
+		do
+		{
+			value = chunk.get(word);
+			if (value == -1L)
+			{
+				return false;
+			}
+		}
+		while (!chunk.compareAndSet(word, value, -1L));
+
+		block._position = 0;
+		block._count = 0;
+		long free = ~value;
+		while (free != 0)
+		{
+			final int id = index << 6 | Long.numberOfTrailingZeros(free);
+			free &= free - 1;
+			// The end of the last word can be past the maximum size, those stay used forever
+			if (id >= 0 && id < _maxSize)
+			{
+				block._ids[block._count++] = id;
+			}
+		}
+		return block._count > 0;
+	}
+
+	private static final class Block
+	{
+		private final int[] _ids = new int[64];
+		private int _position;
+		private int _count;
+	}
+}
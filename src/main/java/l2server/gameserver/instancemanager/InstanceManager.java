@@ -17,6 +17,8 @@ package l2server.gameserver.instancemanager;
 
 import l2server.Config;
 import l2server.L2DatabaseFactory;
+import l2server.gameserver.Reloadable;
+import l2server.gameserver.ReloadableManager;
 import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.ai.CtrlIntention;
 import l2server.gameserver.datatables.ScenePlayerDataTable;
@@ -32,6 +34,7 @@ import l2server.gameserver.network.SystemMessageId;
 import l2server.gameserver.network.serverpackets.ExStartScenePlayer;
 import l2server.gameserver.network.serverpackets.L2GameServerPacket;
 import l2server.gameserver.network.serverpackets.SystemMessage;
+import l2server.gameserver.templates.InstanceTemplate;
 import l2server.gameserver.util.Broadcast;
 import l2server.gameserver.util.Util;
 import l2server.log.Log;
@@ -44,6 +47,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.text.SimpleDateFormat;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
@@ -55,10 +59,15 @@ import java.util.logging.Level;
 /**
  * @author evill33t, GodKratos
  */
-public class InstanceManager
+public class InstanceManager implements Reloadable
 {
 	private ConcurrentHashMap<Integer, Instance> _instanceList = new ConcurrentHashMap<>();
-	private HashMap<Integer, InstanceWorld> _instanceWorlds = new HashMap<>();
+	private Map<Integer, InstanceWorld> _instanceWorlds = new ConcurrentHashMap<>();
+	// Player object id -> the instance they are in and the world they are allowed in, instead of looking in all of them
+	private final Map<Integer, Integer> _playerInstances = new ConcurrentHashMap<>();
+	private final Map<Integer, InstanceWorld> _playerWorlds = new ConcurrentHashMap<>();
+	// The parsed instance xmls by file name
+	private final Map<String, InstanceTemplate> _instanceTemplates = new ConcurrentHashMap<>();
 	private int _dynamic = 300000;
 
 	// InstanceId Names
@@ -225,36 +234,140 @@ public class InstanceManager
 	{
 		public int instanceId;
 		public int templateId = -1;
-		public ArrayList<Integer> allowed = new ArrayList<>();
+		public final List<Integer> allowed = new AllowedPlayers();
 		public volatile int status;
+
+		/**
+		 * Keeps the player index of the InstanceManager up to date when the scripts add or remove allowed players.
+		 * AbstractList sends every change, iterators and sub lists included, through add, set and remove.
+		 */
+		private class AllowedPlayers extends AbstractList<Integer>
+		{
+			private final ArrayList<Integer> _objectIds = new ArrayList<>();
+
+			@Override
+			public Integer get(int index)
+			{
+				return _objectIds.get(index);
+			}
+
+			@Override
+			public int size()
+			{
+				return _objectIds.size();
+			}
+
+			@Override
+			public void add(int index, Integer objectId)
+			{
+				_objectIds.add(index, objectId);
+				modCount++;
+				getInstance().onPlayerAllowed(InstanceWorld.this, objectId);
+			}
+
+			@Override
+			public Integer set(int index, Integer objectId)
+			{
+				Integer old = _objectIds.set(index, objectId);
+				getInstance().onPlayerDisallowed(InstanceWorld.this, old);
+				getInstance().onPlayerAllowed(InstanceWorld.this, objectId);
+				return old;
+			}
+
+			@Override
+			public Integer remove(int index)
+			{
+				Integer objectId = _objectIds.remove(index);
+				modCount++;
+				getInstance().onPlayerDisallowed(InstanceWorld.this, objectId);
+				return objectId;
+			}
+		}
 	}
 
 	public void addWorld(InstanceWorld world)
 	{
 		_instanceWorlds.put(world.instanceId, world);
+		synchronized (_playerWorlds)
+		{
+			for (Integer objectId : world.allowed)
+			{
+				_playerWorlds.put(objectId, world);
+			}
+		}
 	}
 
-	public InstanceWorld getWorld(int instanceId)
+	private void onPlayerAllowed(InstanceWorld world, Integer objectId)
 	{
-		return _instanceWorlds.get(instanceId);
+		// The allowed players added before addWorld are indexed by it
+		if (objectId == null || _instanceWorlds.get(world.instanceId) != world)
+		{
+			return;
+		}
+
+		synchronized (_playerWorlds)
+		{
+			_playerWorlds.put(objectId, world);
+		}
 	}
 
-	public InstanceWorld getPlayerWorld(L2PcInstance player)
+	private void onPlayerDisallowed(InstanceWorld world, Integer objectId)
 	{
-		for (InstanceWorld temp : _instanceWorlds.values())
+		if (objectId == null || world.allowed.contains(objectId))
+		{
+			return;
+		}
+
+		synchronized (_playerWorlds)
 		{
-			if (temp == null)
+			if (_playerWorlds.get(objectId) != world)
 			{
-				continue;
+				return;
 			}
-			// check if the player have a World Instance where he/she is allowed to enter
-			if (temp.allowed.contains(player.getObjectId()))
+
+			// They can still be allowed in an older world
+			_playerWorlds.remove(objectId);
+			for (InstanceWorld temp : _instanceWorlds.values())
 			{
-				return temp;
+				if (temp != world && temp.allowed.contains(objectId))
+				{
+					_playerWorlds.put(objectId, temp);
+					break;
+				}
 			}
 		}
+	}
 
-		return null;
+	/**
+	 * Called by the Instance when a player enters it.
+	 */
+	public void onPlayerAdded(int objectId, int instanceId)
+	{
+		_playerInstances.put(objectId, instanceId);
+	}
+
+	/**
+	 * Called by the Instance when a player leaves it.
+	 */
+	public void onPlayerRemoved(int objectId, int instanceId)
+	{
+		_playerInstances.remove(objectId, instanceId);
+	}
+
+	public InstanceWorld getWorld(int instanceId)
+	{
+		return _instanceWorlds.get(instanceId);
+	}
+
+	public InstanceWorld getPlayerWorld(L2PcInstance player)
+	{
+		return getPlayerWorld(player.getObjectId());
+	}
+
+	public InstanceWorld getPlayerWorld(int objectId)
+	{
+		// the World Instance where the player is allowed to enter, if any
+		return _playerWorlds.get(objectId);
 	}
 
 	private InstanceManager()
@@ -263,6 +376,8 @@ public class InstanceManager
 		loadInstanceNames();
 		Log.info("Loaded " + _instanceIdNames.size() + " instance names");
 		createWorld();
+
+		ReloadableManager.getInstance().register("instances", this);
 	}
 
 	public static InstanceManager getInstance()
@@ -297,9 +412,13 @@ public class InstanceManager
 			temp.removeDoors();
 			temp.cancelTimer();
 			_instanceList.remove(instanceid);
-			if (_instanceWorlds.containsKey(instanceid))
+			InstanceWorld world = _instanceWorlds.remove(instanceid);
+			if (world != null)
 			{
-				_instanceWorlds.remove(instanceid);
+				for (Integer objectId : world.allowed.toArray(new Integer[world.allowed.size()]))
+				{
+					onPlayerDisallowed(world, objectId);
+				}
 			}
 		}
 	}
@@ -316,20 +435,60 @@ public class InstanceManager
 
 	public int getPlayerInstance(int objectId)
 	{
-		for (Instance temp : _instanceList.values())
+		// 0 is default instance aka the world
+		return _playerInstances.getOrDefault(objectId, 0);
+	}
+
+	/**
+	 * @param fileName the instance xml, in data/instances
+	 * @return the parsed xml, read only the first time, or null if it can't be loaded
+	 */
+	public InstanceTemplate getInstanceTemplate(String fileName)
+	{
+		InstanceTemplate template = _instanceTemplates.get(fileName);
+		if (template != null)
 		{
-			if (temp == null)
-			{
-				continue;
-			}
-			// check if the player is in any active instance
-			if (temp.containsPlayer(objectId))
+			return template;
+		}
+
+		File xml = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "instances/" + fileName);
+		try
+		{
+			template = InstanceTemplate.load(xml);
+			if (template == null)
 			{
-				return temp.getId();
+				Log.warning("Instance: no instance in " + xml.getAbsolutePath() + " !");
+				return null;
 			}
 		}
-		// 0 is default instance aka the world
-		return 0;
+		catch (FileNotFoundException e)
+		{
+			Log.log(Level.WARNING, "Instance: can not find " + xml.getAbsolutePath() + " ! " + e.getMessage(), e);
+			return null;
+		}
+		catch (Exception e)
+		{
+			Log.log(Level.WARNING, "Instance: error while loading " + xml.getAbsolutePath() + " ! " + e.getMessage(),
+					e);
+			return null;
+		}
+
+		InstanceTemplate previous = _instanceTemplates.putIfAbsent(fileName, template);
+		return previous != null ? previous : template;
+	}
+
+	@Override
+	public boolean reload()
+	{
+		// The next instances read their xml again
+		_instanceTemplates.clear();
+		return true;
+	}
+
+	@Override
+	public String getReloadMessage(boolean success)
+	{
+		return "Instance templates will be reloaded when the instances are created";
 	}
 
 	public boolean createInstance(int id)
@@ -0,0 +1,361 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.instancemanager;
+
+import l2server.Config;
+import l2server.L2DatabaseFactory;
+import l2server.gameserver.model.L2ItemInstance;
+import l2server.log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Write-behind store for the item updates, used by L2ItemInstance.updateDatabase when ItemsWriteBehind is enabled.<BR><BR>
+ * <p>
+ * Instead of an UPDATE round trip per item change, the changed items are queued (once per object id, however many
+ * times they change) and a dedicated thread writes them in JDBC batches every ItemsWriteBehindDelay milliseconds.
+ * Only the updates are delayed: inserts and deletes stay synchronous, and wait for the batch being written so an old
+ * update can never land after them. Forced updates (logout, trades...) also bypass the queue. A batch that fails is
+ * queued again for the next flush.
+ */
+public final class ItemsWriteBehindManager
+{
+	private final Map<Integer, L2ItemInstance> _pending = new ConcurrentHashMap<>();
+
+	// Held while a batch is written
+	private final ReentrantLock _flushLock = new ReentrantLock();
+	private final Object _signal = new Object();
+	private volatile boolean _running;
+
+	private final AtomicLong _queued = new AtomicLong();
+	private final AtomicLong _coalesced = new AtomicLong();
+	private final AtomicLong _rejected = new AtomicLong();
+	private long _flushes;
+	private long _written;
+	private long _totalFlushTime;
+	private long _maxFlushTime;
+	private long _lastFlushTime;
+
+	private ItemsWriteBehindManager()
+	{
+		if (!Config.ITEMS_WRITE_BEHIND)
+		{
+			return;
+		}
+
+		_running = true;
+		final Thread writer = new Thread(this::run, "ItemsWriteBehind");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public static ItemsWriteBehindManager getInstance()
+	{
+		return SingletonHolder._instance;
+	}
+
+	/**
+	 * Queue the update of an item already stored in the database.
+	 *
+	 * @param item the changed item
+	 * @return false if the queue is full or stopped, then the caller must update the item itself
+	 */
+	public boolean add(L2ItemInstance item)
+	{
+		if (!_running)
+		{
+			return false;
+		}
+
+		final Integer objectId = item.getObjectId();
+		if (_pending.size() >= Config.ITEMS_WRITE_BEHIND_QUEUE_SIZE && !_pending.containsKey(objectId))
+		{
+			_rejected.incrementAndGet();
+			return false;
+		}
+
+		if (_pending.put(objectId, item) == null)
+		{
+			_queued.incrementAndGet();
+		}
+		else
+		{
+			_coalesced.incrementAndGet();
+		}
+
+		if (_pending.size() >= Config.ITEMS_WRITE_BEHIND_BATCH_SIZE)
+		{
+			synchronized (_signal)
+			{
+				_signal.notify();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Forget the queued update of an item and wait for the batch being written, if any.
+	 * Must be called before writing the item synchronously.
+	 *
+	 * @param item the item about to be inserted, updated or deleted
+	 */
+	public void cancel(L2ItemInstance item)
+	{
+		_pending.remove(item.getObjectId());
+
+		if (_flushLock.isLocked() && !_flushLock.isHeldByCurrentThread())
+		{
+			_flushLock.lock();
+			_flushLock.unlock();
+
+			// A failed batch queues its items again
+			_pending.remove(item.getObjectId());
+		}
+	}
+
+	/**
+	 * Write all the queued updates now.
+	 */
+	public void flush()
+	{
+		_flushLock.lock();
+		try
+		{
+			boolean written = true;
+			while (written && !_pending.isEmpty())
+			{
+				written = writeBatch(_pending.keySet().iterator());
+			}
+		}
+		finally
+		{
+			_flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Write the queued updates of the items owned by a character now, before it can log in again.
+	 *
+	 * @param ownerId the object id of the character
+	 */
+	public void flush(int ownerId)
+	{
+		List<Integer> objectIds = null;
+		for (L2ItemInstance item : _pending.values())
+		{
+			if (item.getOwnerId() == ownerId)
+			{
+				if (objectIds == null)
+				{
+					objectIds = new ArrayList<>();
+				}
+				objectIds.add(item.getObjectId());
+			}
+		}
+
+		if (objectIds == null)
+		{
+			return;
+		}
+
+		_flushLock.lock();
+		try
+		{
+			final Iterator<Integer> it = objectIds.iterator();
+			boolean written = true;
+			while (written && it.hasNext())
+			{
+				written = writeBatch(it);
+			}
+		}
+		finally
+		{
+			_flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Stop the writer and flush the queue. Items changed afterwards are updated synchronously.
+	 */
+	public void shutdown()
+	{
+		if (!_running)
+		{
+			return;
+		}
+
+		_running = false;
+		synchronized (_signal)
+		{
+			_signal.notify();
+		}
+
+		flush();
+		for (String line : getStats())
+		{
+			Log.info(line);
+		}
+	}
+
+	private void run()
+	{
+		while (_running)
+		{
+			try
+			{
+				synchronized (_signal)
+				{
+					if (_pending.size() < Config.ITEMS_WRITE_BEHIND_BATCH_SIZE)
+					{
+						_signal.wait(Config.ITEMS_WRITE_BEHIND_DELAY);
+					}
+				}
+
+				flush();
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			catch (Exception e)
+			{
+				Log.log(Level.SEVERE, "ItemsWriteBehindManager: Error while flushing the items: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Take up to a batch of items from the queue and write them. Failed items are queued again.
+	 *
+	 * @param objectIds the object ids of the items to take, consumed up to the batch size
+	 * @return false if the batch could not be written (DB unreachable)
+	 */
+	private boolean writeBatch(Iterator<Integer> objectIds)
+	{
+		final long start = System.nanoTime();
+		final List<L2ItemInstance> taken = new ArrayList<>();
+		int count = 0;
+		boolean written = false;
+
+		Connection con = null;
+		try
+		{
+			con = L2DatabaseFactory.getInstance().getConnection();
+			con.setAutoCommit(false);
+
+			PreparedStatement statement = con.prepareStatement(L2ItemInstance.UPDATE_QUERY);
+			while (objectIds.hasNext() && taken.size() < Config.ITEMS_WRITE_BEHIND_BATCH_SIZE)
+			{
+				// Removed before reading it, so a change made meanwhile queues it again
+				final L2ItemInstance item = _pending.remove(objectIds.next());
+				if (item == null)
+				{
+					continue;
+				}
+
+				taken.add(item);
+				if (item.addUpdateBatch(statement))
+				{
+					count++;
+				}
+			}
+
+			if (count > 0)
+			{
+				statement.executeBatch();
+			}
+			statement.close();
+
+			con.commit();
+			written = true;
+		}
+		catch (Exception e)
+		{
+			Log.log(Level.SEVERE, "ItemsWriteBehindManager: Could not update " + count + " items in DB: " + e.getMessage(),
+					e);
+			try
+			{
+				if (con != null)
+				{
+					con.rollback();
+				}
+			}
+			catch (Exception ignored)
+			{
+			}
+
+			// Queue them again for the next flush, unless they changed meanwhile
+			for (L2ItemInstance item : taken)
+			{
+				item.onUpdateBatchFailed();
+				_pending.putIfAbsent(item.getObjectId(), item);
+			}
+			count = 0;
+		}
+		finally
+		{
+			try
+			{
+				if (con != null)
+				{
+					con.setAutoCommit(true);
+				}
+			}
+			catch (Exception ignored)
+			{
+			}
+			L2DatabaseFactory.close(con);
+		}
+
+		final long time = (System.nanoTime() - start) / 1000;
+		synchronized (this)
+		{
+			_flushes++;
+			_written += count;
+			_totalFlushTime += time;
+			_maxFlushTime = Math.max(_maxFlushTime, time);
+			_lastFlushTime = time;
+		}
+		return written;
+	}
+
+	public synchronized String[] getStats()
+	{
+		return new String[]{
+				"Items write-behind:",
+				" + Queue size: " + _pending.size() + "/" + Config.ITEMS_WRITE_BEHIND_QUEUE_SIZE,
+				" + Queued: " + _queued.get() + " coalesced: " + _coalesced.get() + " rejected: " + _rejected.get(),
+				" + Batches: " + _flushes + " items written: " + _written,
+				" + Batch time (us) last: " + _lastFlushTime + " avg: " + (_flushes == 0 ? 0 : _totalFlushTime / _flushes) +
+						" max: " + _maxFlushTime
+		};
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder
+	{
+		protected static final ItemsWriteBehindManager _instance = new ItemsWriteBehindManager();
+	}
+}
@@ -0,0 +1,535 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.instancemanager;
+
+import l2server.Config;
+import l2server.L2DatabaseFactory;
+import l2server.log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Write-behind store for the quest variables, used by Quest when QuestVarsWriteBehind is enabled.<BR><BR>
+ * <p>
+ * The changes of character_quests and quest_global_data are queued once per (character, quest, variable), however
+ * many times they change, and a dedicated thread writes them in JDBC batches every QuestVarsWriteBehindDelay
+ * milliseconds, on logout (only the changes of that character) and on shutdown. The queued value is the last one set,
+ * so a kill counter going from 1 to 50 between two batches is written once. A batch that fails is queued again, under
+ * the changes made meanwhile.<BR>
+ * The statements deleting a whole quest or character bypass the queue: they forget what was queued for it and wait
+ * for the batch being written, so an old change can never land after them.
+ */
+public final class QuestVarsWriteBehindManager
+{
+	// The character id of the quest_global_data variables, no character has it
+	public static final int GLOBAL = 0;
+
+	public enum Operation
+	{
+		// Insert the variable or update it if it exists
+		CREATE,
+		// Only update it if it exists
+		UPDATE,
+		DELETE
+	}
+
+	private static final String CREATE_QUERY =
+			"INSERT INTO character_quests (charId,name,var,value) VALUES (?,?,?,?) ON DUPLICATE KEY UPDATE value=?";
+	private static final String UPDATE_QUERY = "UPDATE character_quests SET value=? WHERE charId=? AND name=? AND var = ?";
+	private static final String DELETE_QUERY = "DELETE FROM character_quests WHERE charId=? AND name=? AND var=?";
+	private static final String GLOBAL_SAVE_QUERY = "REPLACE INTO quest_global_data (quest_name,var,value) VALUES (?,?,?)";
+	private static final String GLOBAL_DELETE_QUERY = "DELETE FROM quest_global_data WHERE quest_name = ? AND var = ?";
+
+	private final Map<VarKey, VarChange> _pending = new ConcurrentHashMap<>();
+	// The changes taken by the batch being written, until it's committed
+	private final Map<VarKey, VarChange> _writing = new ConcurrentHashMap<>();
+
+	// Held while a batch is written
+	private final ReentrantLock _flushLock = new ReentrantLock();
+	private final Object _signal = new Object();
+	private volatile boolean _running;
+
+	private final AtomicLong _queued = new AtomicLong();
+	private final AtomicLong _coalesced = new AtomicLong();
+	private long _flushes;
+	private long _written;
+	private long _totalFlushTime;
+	private long _maxFlushTime;
+	private long _lastFlushTime;
+
+	private QuestVarsWriteBehindManager()
+	{
+		if (!Config.QUEST_VARS_WRITE_BEHIND)
+		{
+			return;
+		}
+
+		_running = true;
+		final Thread writer = new Thread(this::run, "QuestVarsWriteBehind");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public static QuestVarsWriteBehindManager getInstance()
+	{
+		return SingletonHolder._instance;
+	}
+
+	/**
+	 * Queue the change of a quest variable.
+	 *
+	 * @param charId the character id, or GLOBAL for quest_global_data (where UPDATE saves it like CREATE)
+	 * @param value  ignored for DELETE
+	 * @return false if the queue is stopped, then the caller must write it itself
+	 */
+	public boolean add(int charId, String quest, String var, String value, Operation operation)
+	{
+		if (!_running)
+		{
+			return false;
+		}
+
+		final VarKey key = new VarKey(charId, quest, var);
+		final VarChange change = new VarChange(operation, value);
+		if (_pending.putIfAbsent(key, change) == null)
+		{
+			_queued.incrementAndGet();
+		}
+		else
+		{
+			// If the writer took it meanwhile, merge queues it again
+			_pending.merge(key, change, VarChange::merge);
+			_coalesced.incrementAndGet();
+		}
+
+		if (_pending.size() >= Config.QUEST_VARS_WRITE_BEHIND_BATCH_SIZE)
+		{
+			synchronized (_signal)
+			{
+				_signal.notify();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the queued value of a variable, "" if it's queued to be deleted, or null if it's not queued nor being
+	 * written
+	 */
+	public String getPendingValue(int charId, String quest, String var)
+	{
+		final VarKey key = new VarKey(charId, quest, var);
+		// The writer adds it to _writing before removing it from _pending
+		VarChange change = _pending.get(key);
+		if (change == null)
+		{
+			change = _writing.get(key);
+		}
+		if (change == null)
+		{
+			return null;
+		}
+
+		return change._operation == Operation.DELETE ? "" : change._value;
+	}
+
+	/**
+	 * Forget the queued changes of a character or quest and wait for the batch being written, if any.
+	 * Must be called before deleting them synchronously.
+	 *
+	 * @param charId the character id, or GLOBAL for quest_global_data
+	 * @param quest  the quest name, or null for all the quests of the character
+	 */
+	public void cancel(int charId, String quest)
+	{
+		_pending.keySet().removeIf(key -> key._charId == charId && (quest == null || key._quest.equals(quest)));
+
+		if (_flushLock.isLocked() && !_flushLock.isHeldByCurrentThread())
+		{
+			_flushLock.lock();
+			_flushLock.unlock();
+
+			// Queued again if the batch failed
+			_pending.keySet().removeIf(key -> key._charId == charId && (quest == null || key._quest.equals(quest)));
+		}
+	}
+
+	/**
+	 * Write all the queued changes now.
+	 */
+	public void flush()
+	{
+		_flushLock.lock();
+		try
+		{
+			boolean written = true;
+			while (written && !_pending.isEmpty())
+			{
+				written = writeBatch(_pending.keySet().iterator());
+			}
+		}
+		finally
+		{
+			_flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Write the queued changes of a character now, before it can log in again.
+	 *
+	 * @param charId the character id
+	 */
+	public void flush(int charId)
+	{
+		List<VarKey> keys = null;
+		for (VarKey key : _pending.keySet())
+		{
+			if (key._charId == charId)
+			{
+				if (keys == null)
+				{
+					keys = new ArrayList<>();
+				}
+				keys.add(key);
+			}
+		}
+
+		if (keys == null)
+		{
+			return;
+		}
+
+		_flushLock.lock();
+		try
+		{
+			final Iterator<VarKey> it = keys.iterator();
+			boolean written = true;
+			while (written && it.hasNext())
+			{
+				written = writeBatch(it);
+			}
+		}
+		finally
+		{
+			_flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Stop the writer and flush the queue. Variables changed afterwards are written synchronously.
+	 */
+	public void shutdown()
+	{
+		if (!_running)
+		{
+			return;
+		}
+
+		_running = false;
+		synchronized (_signal)
+		{
+			_signal.notify();
+		}
+
+		flush();
+		for (String line : getStats())
+		{
+			Log.info(line);
+		}
+	}
+
+	private void run()
+	{
+		while (_running)
+		{
+			try
+			{
+				synchronized (_signal)
+				{
+					if (_pending.size() < Config.QUEST_VARS_WRITE_BEHIND_BATCH_SIZE)
+					{
+						_signal.wait(Config.QUEST_VARS_WRITE_BEHIND_DELAY);
+					}
+				}
+
+				flush();
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			catch (Exception e)
+			{
+				Log.log(Level.SEVERE,
+						"QuestVarsWriteBehindManager: Error while flushing the quest variables: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Write the next batch of the given variables. Must be called holding _flushLock.
+	 *
+	 * @return false if the batch could not be written, then it's queued again
+	 */
+	private boolean writeBatch(Iterator<VarKey> keys)
+	{
+		final long start = System.nanoTime();
+		int count = 0;
+		boolean written = false;
+
+		Connection con = null;
+		try
+		{
+			con = L2DatabaseFactory.getInstance().getConnection();
+			con.setAutoCommit(false);
+
+			final PreparedStatement[] statements = new PreparedStatement[5];
+			while (keys.hasNext() && count < Config.QUEST_VARS_WRITE_BEHIND_BATCH_SIZE)
+			{
+				// Removed before writing it, so a change made meanwhile queues it again
+				final VarKey key = keys.next();
+				final VarChange change = _pending.get(key);
+				if (change == null)
+				{
+					continue;
+				}
+
+				_writing.put(key, change);
+				_pending.remove(key, change);
+				addBatch(con, statements, key, change);
+				count++;
+			}
+
+			for (PreparedStatement statement : statements)
+			{
+				if (statement != null)
+				{
+					statement.executeBatch();
+					statement.close();
+				}
+			}
+
+			con.commit();
+			written = true;
+		}
+		catch (Exception e)
+		{
+			Log.log(Level.SEVERE,
+					"QuestVarsWriteBehindManager: Could not write " + count + " quest variables in DB: " + e.getMessage(),
+					e);
+			try
+			{
+				if (con != null)
+				{
+					con.rollback();
+				}
+			}
+			catch (Exception ignored)
+			{
+			}
+
+			// Queued again for the next batch, under the changes made meanwhile
+			for (Map.Entry<VarKey, VarChange> entry : _writing.entrySet())
+			{
+				_pending.merge(entry.getKey(), entry.getValue(), (newer, failed) -> VarChange.merge(failed, newer));
+			}
+			count = 0;
+		}
+		finally
+		{
+			try
+			{
+				if (con != null)
+				{
+					con.setAutoCommit(true);
+				}
+			}
+			catch (Exception ignored)
+			{
+			}
+			L2DatabaseFactory.close(con);
+			_writing.clear();
+		}
+
+		final long time = (System.nanoTime() - start) / 1000;
+		synchronized (this)
+		{
+			_flushes++;
+			_written += count;
+			_totalFlushTime += time;
+			_maxFlushTime = Math.max(_maxFlushTime, time);
+			_lastFlushTime = time;
+		}
+		return written;
+	}
+
+	private static void addBatch(Connection con, PreparedStatement[] statements, VarKey key, VarChange change)
+			throws Exception
+	{
+		final PreparedStatement statement;
+		if (key._charId == GLOBAL)
+		{
+			if (change._operation == Operation.DELETE)
+			{
+				statement = getStatement(con, statements, 4, GLOBAL_DELETE_QUERY);
+				statement.setString(1, key._quest);
+				statement.setString(2, key._var);
+			}
+			else
+			{
+				statement = getStatement(con, statements, 3, GLOBAL_SAVE_QUERY);
+				statement.setString(1, key._quest);
+				statement.setString(2, key._var);
+				statement.setString(3, change._value);
+			}
+		}
+		else
+		{
+			switch (change._operation)
+			{
+				case CREATE:
+					statement = getStatement(con, statements, 0, CREATE_QUERY);
+					statement.setInt(1, key._charId);
+					statement.setString(2, key._quest);
+					statement.setString(3, key._var);
+					statement.setString(4, change._value);
+					statement.setString(5, change._value);
+					break;
+				case UPDATE:
+					statement = getStatement(con, statements, 1, UPDATE_QUERY);
+					statement.setString(1, change._value);
+					statement.setInt(2, key._charId);
+					statement.setString(3, key._quest);
+					statement.setString(4, key._var);
+					break;
+				default:
+					statement = getStatement(con, statements, 2, DELETE_QUERY);
+					statement.setInt(1, key._charId);
+					statement.setString(2, key._quest);
+					statement.setString(3, key._var);
+					break;
+			}
+		}
+		statement.addBatch();
+	}
+
+	private static PreparedStatement getStatement(Connection con, PreparedStatement[] statements, int index, String query)
+			throws Exception
+	{
+		if (statements[index] == null)
+		{
+			statements[index] = con.prepareStatement(query);
+		}
+		return statements[index];
+	}
+
+	public synchronized String[] getStats()
+	{
+		return new String[]{
+				"Quest variables write-behind:",
+				" + Queue size: " + _pending.size(),
+				" + Queued: " + _queued.get() + " coalesced: " + _coalesced.get(),
+				" + Batches: " + _flushes + " variables written: " + _written,
+				" + Batch time (us) last: " + _lastFlushTime + " avg: " + (_flushes == 0 ? 0 : _totalFlushTime / _flushes) +
+						" max: " + _maxFlushTime
+		};
+	}
+
+	private static final class VarKey
+	{
+		private final int _charId;
+		private final String _quest;
+		private final String _var;
+
+		private VarKey(int charId, String quest, String var)
+		{
+			_charId = charId;
+			_quest = quest;
+			_var = var;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof VarKey))
+			{
+				return false;
+			}
+
+			final VarKey key = (VarKey) o;
+			return _charId == key._charId && _quest.equals(key._quest) && _var.equals(key._var);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (_charId * 31 + _quest.hashCode()) * 31 + _var.hashCode();
+		}
+	}
+
+	/**
+	 * The change to write, never modified: a new change replaces it.
+	 */
+	private static final class VarChange
+	{
+		private final Operation _operation;
+		private final String _value;
+
+		private VarChange(Operation operation, String value)
+		{
+			_operation = operation;
+			_value = value;
+		}
+
+		/**
+		 * @return the change that has the same effect as the old one followed by the new one
+		 */
+		private static VarChange merge(VarChange old, VarChange change)
+		{
+			if (change._operation != Operation.UPDATE)
+			{
+				return change;
+			}
+
+			switch (old._operation)
+			{
+				// The row may not exist yet
+				case CREATE:
+					return new VarChange(Operation.CREATE, change._value);
+				// Updating a deleted variable does nothing
+				case DELETE:
+					return old;
+				default:
+					return change;
+			}
+		}
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder
+	{
+		protected static final QuestVarsWriteBehindManager _instance = new QuestVarsWriteBehindManager();
+	}
+}
@@ -82,7 +82,7 @@ public class ZoneManager
 		{
 			for (L2WorldRegion aWorldRegion : worldRegion)
 			{
-				aWorldRegion.getZones().clear();
+				aWorldRegion.clearZones();
 				count++;
 			}
 		}
@@ -630,7 +630,7 @@ public class ZoneManager
 	{
 		L2WorldRegion region = L2World.getInstance().getRegion(x, y);
 		ArrayList<L2ZoneType> temp = new ArrayList<>();
-		for (L2ZoneType zone : region.getZones())
+		for (L2ZoneType zone : region.getZones(x, y))
 		{
 			if (zone.isInsideZone(x, y))
 			{
@@ -652,7 +652,7 @@ public class ZoneManager
 	{
 		L2WorldRegion region = L2World.getInstance().getRegion(x, y);
 		ArrayList<L2ZoneType> temp = new ArrayList<>();
-		for (L2ZoneType zone : region.getZones())
+		for (L2ZoneType zone : region.getZones(x, y))
 		{
 			if (zone.isInsideZone(x, y, z))
 			{
@@ -675,7 +675,7 @@ public class ZoneManager
 	public <T extends L2ZoneType> T getZone(int x, int y, int z, Class<T> type)
 	{
 		L2WorldRegion region = L2World.getInstance().getRegion(x, y);
-		for (L2ZoneType zone : region.getZones())
+		for (L2ZoneType zone : region.getZones(x, y))
 		{
 			if (zone.isInsideZone(x, y, z) && type.isInstance(zone))
 			{
@@ -0,0 +1,248 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.model;
+
+import gnu.trove.TIntObjectHashMap;
+import l2server.gameserver.templates.skills.L2AbnormalType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The buffs or the debuffs of a CharEffectList, indexed by skill id, abnormal type, stack type and effect name.<BR><BR>
+ * <p>
+ * Only the queue runner of the CharEffectList changes it: it edits a working list and publishes it with publish()
+ * once per queued effect, however many inserts, removals and stack changes that took. Everybody else reads the last
+ * published view, which is never copied again: getEffects() returns the same array until the next change, and the
+ * lookups are hash lookups instead of scans.<BR>
+ * Each index keeps what the scans of the lists returned: the first matching effect in use, or else the last matching
+ * one. So the indexes are rebuilt with reindex() whenever an effect of the list starts or stops being in use, even
+ * between two publishes. The effect flags are counted per bit, so adding or removing an effect updates them at once.
+ */
+public final class AbnormalList
+{
+	private static final L2Abnormal[] EMPTY_EFFECTS = new L2Abnormal[0];
+	private static final L2AbnormalType[] ABNORMAL_TYPES = L2AbnormalType.values();
+
+	// Only touched by the queue runner
+	private final List<L2Abnormal> _working = new ArrayList<>();
+	private int[] _flagCounts;
+
+	private volatile View _view = View.EMPTY;
+	private volatile long _effectFlags;
+
+	public void add(L2Abnormal effect)
+	{
+		add(_working.size(), effect);
+	}
+
+	public void add(int index, L2Abnormal effect)
+	{
+		_working.add(index, effect);
+		countFlags(effect.getEffectMask(), 1);
+	}
+
+	public boolean remove(L2Abnormal effect)
+	{
+		if (!_working.remove(effect))
+		{
+			return false;
+		}
+
+		countFlags(effect.getEffectMask(), -1);
+		return true;
+	}
+
+	/**
+	 * @return true if the effect is in the list, including the changes not published yet
+	 */
+	public boolean contains(L2Abnormal effect)
+	{
+		return _working.contains(effect);
+	}
+
+	public void clear()
+	{
+		_working.clear();
+		_flagCounts = null;
+		_effectFlags = 0;
+		publish();
+	}
+
+	/**
+	 * Make the changes visible to the readers and rebuild the indexes, which also depend on the effects in use.
+	 * The readers must read _view once, it may be replaced by an empty one in between.
+	 */
+	public void publish()
+	{
+		_view = _working.isEmpty() ? View.EMPTY : new View(_working.toArray(new L2Abnormal[_working.size()]));
+	}
+
+	/**
+	 * Rebuild the indexes of the published effects, after one of them started or stopped being in use.
+	 */
+	public void reindex()
+	{
+		final View view = _view;
+		if (view._effects.length != 0)
+		{
+			_view = new View(view._effects);
+		}
+	}
+
+	/**
+	 * @return the effects in icon order, shared: don't modify it
+	 */
+	public L2Abnormal[] getEffects()
+	{
+		return _view._effects;
+	}
+
+	public boolean isEmpty()
+	{
+		return _view._effects.length == 0;
+	}
+
+	public L2Abnormal getBySkillId(int skillId)
+	{
+		final View view = _view;
+		return view._bySkillId == null ? null : view._bySkillId.get(skillId);
+	}
+
+	public L2Abnormal getByType(L2AbnormalType type)
+	{
+		final View view = _view;
+		return view._byType == null ? null : view._byType[type.ordinal()];
+	}
+
+	public L2Abnormal getByStackType(String stackType)
+	{
+		final View view = _view;
+		return view._byStackType == null ? null : view._byStackType.get(stackType);
+	}
+
+	/**
+	 * @param effectName the lower case name of the effect class, like "cancel" for EffectCancel
+	 */
+	public L2Abnormal getByEffectName(String effectName)
+	{
+		final View view = _view;
+		return view._byEffectName == null ? null : view._byEffectName.get(effectName);
+	}
+
+	public long getEffectFlags()
+	{
+		return _effectFlags;
+	}
+
+	private void countFlags(long mask, int change)
+	{
+		if (mask == 0)
+		{
+			return;
+		}
+
+		if (_flagCounts == null)
+		{
+			_flagCounts = new int[Long.SIZE];
+		}
+
+		long flags = _effectFlags;
+		while (mask != 0)
+		{
+			final int bit = Long.numberOfTrailingZeros(mask);
+			mask &= mask - 1;
+
+			_flagCounts[bit] += change;
+			if (_flagCounts[bit] > 0)
+			{
+				flags |= 1L << bit;
+			}
+			else
+			{
+				flags &= ~(1L << bit);
+			}
+		}
+		_effectFlags = flags;
+	}
+
+	/**
+	 * An immutable state of the list with its indexes.
+	 */
+	private static final class View
+	{
+		private static final View EMPTY = new View(EMPTY_EFFECTS);
+
+		private final L2Abnormal[] _effects;
+		private final TIntObjectHashMap<L2Abnormal> _bySkillId;
+		private final L2Abnormal[] _byType;
+		private final Map<String, L2Abnormal> _byStackType;
+		private final Map<String, L2Abnormal> _byEffectName;
+
+		private View(L2Abnormal[] effects)
+		{
+			_effects = effects;
+			if (effects.length == 0)
+			{
+				_bySkillId = null;
+				_byType = null;
+				_byStackType = null;
+				_byEffectName = null;
+				return;
+			}
+
+			_bySkillId = new TIntObjectHashMap<>(effects.length);
+			_byType = new L2Abnormal[ABNORMAL_TYPES.length];
+			_byStackType = new HashMap<>(effects.length);
+			_byEffectName = new HashMap<>(effects.length);
+			for (L2Abnormal e : effects)
+			{
+				final L2Abnormal sameSkill = _bySkillId.get(e.getSkill().getId());
+				if (sameSkill == null || !sameSkill.getInUse())
+				{
+					_bySkillId.put(e.getSkill().getId(), e);
+				}
+
+				final int type = e.getType().ordinal();
+				if (_byType[type] == null || !_byType[type].getInUse())
+				{
+					_byType[type] = e;
+				}
+
+				index(_byStackType, e.getSkill().getFirstEffectStack(), e);
+
+				for (L2Effect eff : e.getEffects())
+				{
+					if (eff != null)
+					{
+						index(_byEffectName, eff.getTemplate().funcName.toLowerCase(), e);
+					}
+				}
+			}
+		}
+
+		private static void index(Map<String, L2Abnormal> index, String key, L2Abnormal e)
+		{
+			final L2Abnormal current = index.get(key);
+			if (current == null || !current.getInUse())
+			{
+				index.put(key, e);
+			}
+		}
+	}
+}
@@ -17,7 +17,6 @@ package l2server.gameserver.model;
 
 import l2server.Config;
 import l2server.gameserver.ThreadPoolManager;
-import l2server.gameserver.model.actor.L2Character;
 import l2server.gameserver.model.actor.L2Npc;
 import l2server.gameserver.model.actor.instance.L2DefenderInstance;
 import l2server.gameserver.model.actor.instance.L2PcInstance;
@@ -705,22 +704,17 @@ public class AutoChatHandler implements SpawnListener
 						List<L2PcInstance> nearbyPlayers = new ArrayList<>();
 						List<L2PcInstance> nearbyGMs = new ArrayList<>();
 
-						for (L2Character player : chatNpc.getKnownList().getKnownCharactersInRadius(1500))
+						chatNpc.getKnownList().forEachKnownPlayerInRadius(1500, player ->
 						{
-							if (!(player instanceof L2PcInstance))
-							{
-								continue;
-							}
-
 							if (player.isGM())
 							{
-								nearbyGMs.add((L2PcInstance) player);
+								nearbyGMs.add(player);
 							}
 							else
 							{
-								nearbyPlayers.add((L2PcInstance) player);
+								nearbyPlayers.add(player);
 							}
-						}
+						});
 
 						int maxIndex = chatDef.getChatTexts().length;
 						int lastIndex = Rnd.nextInt(maxIndex);
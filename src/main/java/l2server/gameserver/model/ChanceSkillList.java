@@ -307,7 +307,7 @@ public class ChanceSkillList extends ConcurrentHashMap<IChanceSkillTrigger, Chan
 			if (level == 0)
 			{
 				level = 1;
-				for (L2Abnormal e : target.getAllEffects())
+				for (L2Abnormal e : target.getAllEffectsView())
 				{
 					if (e == null)
 					{
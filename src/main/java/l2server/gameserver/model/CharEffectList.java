@@ -35,13 +35,13 @@ import l2server.util.Rnd;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
@@ -53,8 +53,10 @@ public class CharEffectList
 
 	private AtomicBoolean _queueLock = new AtomicBoolean(true);
 
-	private CopyOnWriteArrayList<L2Abnormal> _buffs;
-	private CopyOnWriteArrayList<L2Abnormal> _debuffs;
+	private AbnormalList _buffs;
+	private AbnormalList _debuffs;
+	// The buffs and then the debuffs, as published by both lists
+	private volatile List<L2Abnormal> _allEffects = Collections.emptyList();
 
 	// The table containing the List of all stacked effect in progress for each Stack group Identifier
 	private Map<String, List<L2Abnormal>> _stackedEffects;
@@ -67,7 +69,6 @@ public class CharEffectList
 	private boolean _queuesInitialized = false;
 	private LinkedBlockingQueue<L2Abnormal> _addQueue;
 	private LinkedBlockingQueue<L2Abnormal> _removeQueue;
-	private long _effectFlags;
 
 	// only party icons need to be updated
 	private boolean _partyOnly = false;
@@ -83,70 +84,27 @@ public class CharEffectList
 	/**
 	 * Returns all effects affecting stored in this CharEffectList
 	 *
-	 * @return
+	 * @return a copy of the buffs and then the debuffs, which the caller may modify
 	 */
 	public final L2Abnormal[] getAllEffects()
 	{
-		// If no effect is active, return EMPTY_EFFECTS
-		if ((_buffs == null || _buffs.isEmpty()) && (_debuffs == null || _debuffs.isEmpty()))
-		{
-			return EMPTY_EFFECTS;
-		}
-
-		// Create a copy of the effects
-		ArrayList<L2Abnormal> temp = new ArrayList<>();
-
-		// Add all buffs and all debuffs
-		if (_buffs != null)
-		{
-			//synchronized (_buffs)
-			{
-				if (!_buffs.isEmpty())
-				{
-					temp.addAll(_buffs);
-				}
-			}
-		}
-		if (_debuffs != null)
-		{
-			//synchronized (_debuffs)
-			{
-				if (!_debuffs.isEmpty())
-				{
-					temp.addAll(_debuffs);
-				}
-			}
-		}
+		final List<L2Abnormal> effects = _allEffects;
+		return effects.isEmpty() ? EMPTY_EFFECTS : effects.toArray(new L2Abnormal[effects.size()]);
+	}
 
-		// Return all effects in an array
-		L2Abnormal[] tempArray = new L2Abnormal[temp.size()];
-		temp.toArray(tempArray);
-		return tempArray;
+	/**
+	 * @return the buffs and then the debuffs as last published, read only and not copied: use it to look through
+	 * the effects, and getAllEffects() to change or keep them
+	 */
+	public final List<L2Abnormal> getAllEffectsView()
+	{
+		return _allEffects;
 	}
 
 	public final L2Abnormal[] getAllDebuffs()
 	{
-		// If no effect is active, return EMPTY_EFFECTS
-		if (_debuffs == null || _debuffs.isEmpty())
-		{
-			return EMPTY_EFFECTS;
-		}
-
-		// Create a copy of the effects
-		ArrayList<L2Abnormal> temp = new ArrayList<>();
-
-		if (_debuffs != null)
-		{
-			if (!_debuffs.isEmpty())
-			{
-				temp.addAll(_debuffs);
-			}
-		}
-
-		// Return all effects in an array
-		L2Abnormal[] tempArray = new L2Abnormal[temp.size()];
-		temp.toArray(tempArray);
-		return tempArray;
+		final AbnormalList debuffs = _debuffs;
+		return debuffs == null ? EMPTY_EFFECTS : debuffs.getEffects().clone();
 	}
 
 	/**
@@ -157,64 +115,15 @@ public class CharEffectList
 	 */
 	public final L2Abnormal getFirstEffect(L2AbnormalType tp)
 	{
-		L2Abnormal effectNotInUse = null;
+		final AbnormalList buffs = _buffs;
+		final AbnormalList debuffs = _debuffs;
 
-		if (_buffs != null)
-		{
-			//synchronized (_buffs)
-			{
-				if (!_buffs.isEmpty())
-				{
-					for (L2Abnormal e : _buffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-
-						if (e.getType() == tp)
-						{
-							if (e.getInUse())
-							{
-								return e;
-							}
-							else
-							{
-								effectNotInUse = e;
-							}
-						}
-					}
-				}
-			}
-		}
-		if (effectNotInUse == null && _debuffs != null)
+		L2Abnormal effect = buffs == null ? null : buffs.getByType(tp);
+		if (effect == null && debuffs != null)
 		{
-			//synchronized (_debuffs)
-			{
-				if (!_debuffs.isEmpty())
-				{
-					for (L2Abnormal e : _debuffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-						if (e.getType() == tp)
-						{
-							if (e.getInUse())
-							{
-								return e;
-							}
-							else
-							{
-								effectNotInUse = e;
-							}
-						}
-					}
-				}
-			}
+			effect = debuffs.getByType(tp);
 		}
-		return effectNotInUse;
+		return effect;
 	}
 
 	/**
@@ -225,78 +134,35 @@ public class CharEffectList
 	 */
 	public final L2Abnormal getFirstEffect(L2Skill skill)
 	{
-		L2Abnormal effectNotInUse = null;
-
-		if (skill.isDebuff())
+		final AbnormalList effects = skill.isDebuff() ? _debuffs : _buffs;
+		if (effects == null)
 		{
-			if (_debuffs == null)
-			{
-				return null;
-			}
-
-			//synchronized (_debuffs)
-			{
-				if (_debuffs.isEmpty())
-				{
-					return null;
-				}
-
-				for (L2Abnormal e : _debuffs)
-				{
-					if (e == null)
-					{
-						continue;
-					}
-					if (e.getSkill() == skill)
-					{
-						if (e.getInUse())
-						{
-							return e;
-						}
-						else
-						{
-							effectNotInUse = e;
-						}
-					}
-				}
-			}
-			return effectNotInUse;
+			return null;
 		}
-		else
+
+		// Same id, but it has to be this level
+		final L2Abnormal effect = effects.getBySkillId(skill.getId());
+		if (effect == null || effect.getSkill() == skill)
 		{
-			if (_buffs == null)
-			{
-				return null;
-			}
+			return effect;
+		}
 
-			//synchronized (_buffs)
+		L2Abnormal effectNotInUse = null;
+		for (L2Abnormal e : effects.getEffects())
+		{
+			if (e.getSkill() == skill)
 			{
-				if (_buffs.isEmpty())
+				if (e.getInUse())
 				{
-					return null;
+					return e;
 				}
-
-				for (L2Abnormal e : _buffs)
+				else
 				{
-					if (e == null)
-					{
-						continue;
-					}
-					if (e.getSkill() == skill)
-					{
-						if (e.getInUse())
-						{
-							return e;
-						}
-						else
-						{
-							effectNotInUse = e;
-						}
-					}
+					effectNotInUse = e;
 				}
 			}
-			return effectNotInUse;
 		}
+		return effectNotInUse;
 	}
 
 	/**
@@ -306,212 +172,47 @@ public class CharEffectList
 	 */
 	public final L2Abnormal getFirstEffect(int skillId)
 	{
-		L2Abnormal effectNotInUse = null;
-
-		if (_buffs != null)
-		{
-			//synchronized (_buffs)
-			{
-				if (!_buffs.isEmpty())
-				{
-					for (L2Abnormal e : _buffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-						if (e.getSkill().getId() == skillId)
-						{
-							if (e.getInUse())
-							{
-								return e;
-							}
-							else
-							{
-								effectNotInUse = e;
-							}
-						}
-					}
-				}
-			}
-		}
+		final AbnormalList buffs = _buffs;
+		final AbnormalList debuffs = _debuffs;
 
-		if (effectNotInUse == null && _debuffs != null)
+		L2Abnormal effect = buffs == null ? null : buffs.getBySkillId(skillId);
+		if (effect == null && debuffs != null)
 		{
-			//synchronized (_debuffs)
-			{
-				if (!_debuffs.isEmpty())
-				{
-					for (L2Abnormal e : _debuffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-						if (e.getSkill().getId() == skillId)
-						{
-							if (e.getInUse())
-							{
-								return e;
-							}
-							else
-							{
-								effectNotInUse = e;
-							}
-						}
-					}
-				}
-			}
+			effect = debuffs.getBySkillId(skillId);
 		}
-
-		return effectNotInUse;
+		return effect;
 	}
 
 	public final L2Abnormal getFirstEffectByName(String effectName)
 	{
-		L2Abnormal effectNotInUse = null;
-		if (_buffs != null)
-		{
-			//synchronized (_buffs)
-			{
-				if (!_buffs.isEmpty())
-				{
-					for (L2Abnormal e : _buffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-
-						for (L2Effect eff : e.getEffects())
-						{
-							if (eff == null)
-							{
-								continue;
-							}
+		final AbnormalList buffs = _buffs;
+		final AbnormalList debuffs = _debuffs;
 
-							if (eff.getTemplate().funcName.equalsIgnoreCase(effectName))
-							{
-								if (e.getInUse())
-								{
-									return e;
-								}
-								else
-								{
-									effectNotInUse = e;
-								}
-							}
-						}
-					}
-				}
-			}
-		}
-
-		if (effectNotInUse == null && _debuffs != null)
+		final String name = effectName.toLowerCase();
+		L2Abnormal effect = buffs == null ? null : buffs.getByEffectName(name);
+		if (effect == null && debuffs != null)
 		{
-			//synchronized (_debuffs)
-			{
-				if (!_debuffs.isEmpty())
-				{
-					for (L2Abnormal e : _debuffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-
-						for (L2Effect eff : e.getEffects())
-						{
-							if (eff == null)
-							{
-								continue;
-							}
-
-							if (eff.getTemplate().funcName.equalsIgnoreCase(effectName))
-							{
-								if (e.getInUse())
-								{
-									return e;
-								}
-								else
-								{
-									effectNotInUse = e;
-								}
-							}
-						}
-					}
-				}
-			}
+			effect = debuffs.getByEffectName(name);
 		}
-		return effectNotInUse;
+		return effect;
 	}
 
 	/**
-	 * Returns the first effect matching the given skillId
+	 * Returns the first effect matching the given stack type
 	 *
 	 * @return
 	 */
 	public final L2Abnormal getFirstEffect(final String stackType)
 	{
-		L2Abnormal effectNotInUse = null;
-
-		if (_buffs != null)
-		{
-			//synchronized (_buffs)
-			{
-				if (!_buffs.isEmpty())
-				{
-					for (L2Abnormal e : _buffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-						if (e.getSkill().getFirstEffectStack().equals(stackType))
-						{
-							if (e.getInUse())
-							{
-								return e;
-							}
-							else
-							{
-								effectNotInUse = e;
-							}
-						}
-					}
-				}
-			}
-		}
+		final AbnormalList buffs = _buffs;
+		final AbnormalList debuffs = _debuffs;
 
-		if (effectNotInUse == null && _debuffs != null)
+		L2Abnormal effect = buffs == null ? null : buffs.getByStackType(stackType);
+		if (effect == null && debuffs != null)
 		{
-			//synchronized (_debuffs)
-			{
-				if (!_debuffs.isEmpty())
-				{
-					for (L2Abnormal e : _debuffs)
-					{
-						if (e == null)
-						{
-							continue;
-						}
-						if (e.getSkill().getFirstEffectStack().equals(stackType))
-						{
-							if (e.getInUse())
-							{
-								return e;
-							}
-							else
-							{
-								effectNotInUse = e;
-							}
-						}
-					}
-				}
-			}
+			effect = debuffs.getByStackType(stackType);
 		}
-
-		return effectNotInUse;
+		return effect;
 	}
 
 	/**
@@ -534,7 +235,7 @@ public class CharEffectList
 				return 0;
 			}
 
-			for (L2Abnormal e : _buffs)
+			for (L2Abnormal e : _buffs.getEffects())
 			{
 				if (e != null && e.getShowIcon() && !e.getSkill().isDance() && !e.getSkill().isToggle() &&
 						!e.getSkill().isActivation() && !e.getSkill().is7Signs())
@@ -572,7 +273,7 @@ public class CharEffectList
 				return 0;
 			}
 
-			for (L2Abnormal e : _buffs)
+			for (L2Abnormal e : _buffs.getEffects())
 			{
 				if (e != null && e.getSkill().isDance() && e.getInUse())
 				{
@@ -603,7 +304,7 @@ public class CharEffectList
 				return 0;
 			}
 
-			for (L2Abnormal e : _buffs)
+			for (L2Abnormal e : _buffs.getEffects())
 			{
 				if (e != null && e.getSkill().isActivation() && e.getInUse())
 				{
@@ -661,7 +362,7 @@ public class CharEffectList
 			{
 				if (!_buffs.isEmpty())
 				{
-					_buffs.stream().filter(e -> e != null && e.getSkill().isToggle()).forEachOrdered(L2Abnormal::exit);
+					Arrays.stream(_buffs.getEffects()).filter(e -> e != null && e.getSkill().isToggle()).forEachOrdered(L2Abnormal::exit);
 				}
 			}
 		}
@@ -683,7 +384,7 @@ public class CharEffectList
 				if (!_buffs.isEmpty())
 				{
 					temp.addAll(
-							_buffs.stream().filter(e -> e != null && e.getType() == type).collect(Collectors.toList()));
+							Arrays.stream(_buffs.getEffects()).filter(e -> e != null && e.getType() == type).collect(Collectors.toList()));
 				}
 			}
 		}
@@ -693,7 +394,7 @@ public class CharEffectList
 			{
 				if (!_debuffs.isEmpty())
 				{
-					temp.addAll(_debuffs.stream().filter(e -> e != null && e.getType() == type)
+					temp.addAll(Arrays.stream(_debuffs.getEffects()).filter(e -> e != null && e.getType() == type)
 							.collect(Collectors.toList()));
 				}
 			}
@@ -719,7 +420,7 @@ public class CharEffectList
 			{
 				if (!_buffs.isEmpty())
 				{
-					temp.addAll(_buffs.stream().filter(e -> e != null && (e.getEffectMask() & type.getMask()) > 0)
+					temp.addAll(Arrays.stream(_buffs.getEffects()).filter(e -> e != null && (e.getEffectMask() & type.getMask()) > 0)
 							.collect(Collectors.toList()));
 				}
 			}
@@ -730,7 +431,7 @@ public class CharEffectList
 			{
 				if (!_debuffs.isEmpty())
 				{
-					temp.addAll(_debuffs.stream().filter(e -> e != null && (e.getEffectMask() & type.getMask()) > 0)
+					temp.addAll(Arrays.stream(_debuffs.getEffects()).filter(e -> e != null && (e.getEffectMask() & type.getMask()) > 0)
 							.collect(Collectors.toList()));
 				}
 			}
@@ -756,7 +457,7 @@ public class CharEffectList
 			{
 				if (!_buffs.isEmpty())
 				{
-					temp.addAll(_buffs.stream().filter(e -> e != null && e.getSkill().getId() == skillId)
+					temp.addAll(Arrays.stream(_buffs.getEffects()).filter(e -> e != null && e.getSkill().getId() == skillId)
 							.collect(Collectors.toList()));
 				}
 			}
@@ -767,7 +468,7 @@ public class CharEffectList
 			{
 				if (!_debuffs.isEmpty())
 				{
-					temp.addAll(_debuffs.stream().filter(e -> e != null && e.getSkill().getId() == skillId)
+					temp.addAll(Arrays.stream(_debuffs.getEffects()).filter(e -> e != null && e.getSkill().getId() == skillId)
 							.collect(Collectors.toList()));
 				}
 			}
@@ -788,7 +489,7 @@ public class CharEffectList
 				skill.getTargetType() == L2SkillTargetType.TARGET_FRIENDS);
 		if (_hasBuffsRemovedOnAction && _buffs != null && !_buffs.isEmpty())
 		{
-			for (L2Abnormal e : _buffs)
+			for (L2Abnormal e : _buffs.getEffects())
 			{
 				if (e == null || !e.getSkill().isRemovedOnAction() || friendlyAction)
 				{
@@ -804,7 +505,7 @@ public class CharEffectList
 	{
 		if (_hasBuffsRemovedOnDamage && _buffs != null && !_buffs.isEmpty())
 		{
-			for (L2Abnormal e : _buffs)
+			for (L2Abnormal e : _buffs.getEffects())
 			{
 				if (e != null && awake)
 				{
@@ -823,7 +524,7 @@ public class CharEffectList
 
 		if (_hasDebuffsRemovedOnDamage && _debuffs != null && !_debuffs.isEmpty())
 		{
-			for (L2Abnormal e : _debuffs)
+			for (L2Abnormal e : _debuffs.getEffects())
 			{
 				if (e != null && awake)
 				{
@@ -848,7 +549,7 @@ public class CharEffectList
 	{
 		if (_hasBuffsRemovedOnDebuffBlock && _buffs != null && !_buffs.isEmpty())
 		{
-			_buffs.stream().filter(e -> e != null).filter(e -> e.isRemovedOnDebuffBlock(true)).forEachOrdered(e ->
+			Arrays.stream(_buffs.getEffects()).filter(e -> e != null).filter(e -> e.isRemovedOnDebuffBlock(true)).forEachOrdered(e ->
 			{
 				e.exit(true);
 			});
@@ -923,18 +624,19 @@ public class CharEffectList
 				while ((effect = _removeQueue.poll()) != null)
 				{
 					removeEffectFromQueue(effect);
+					publishEffects();
 					_partyOnly = false;
 				}
 
 				if ((effect = _addQueue.poll()) != null)
 				{
 					addEffectFromQueue(effect);
+					publishEffects();
 					_partyOnly = false;
 				}
 			}
 			while (!_addQueue.isEmpty() || !_removeQueue.isEmpty());
 
-			computeEffectFlags();
 			updateEffectIcons();
 		}
 		catch (Exception e)
@@ -954,7 +656,7 @@ public class CharEffectList
 			return;
 		}
 
-		CopyOnWriteArrayList<L2Abnormal> effectList;
+		AbnormalList effectList;
 
 		if (effect.getSkill().isDebuff())
 		{
@@ -1066,10 +768,10 @@ public class CharEffectList
 		{
 			if (_debuffs == null)
 			{
-				_debuffs = new CopyOnWriteArrayList<>();
+				_debuffs = new AbnormalList();
 			}
 
-			for (L2Abnormal e : _debuffs)
+			for (L2Abnormal e : _debuffs.getEffects())
 			{
 				if (e != null && e.getSkill().getId() == newEffect.getSkill().getId() &&
 						e.getType() == newEffect.getType() && e.getStackLvl() == newEffect.getStackLvl() &&
@@ -1093,10 +795,10 @@ public class CharEffectList
 		{
 			if (_buffs == null)
 			{
-				_buffs = new CopyOnWriteArrayList<>();
+				_buffs = new AbnormalList();
 			}
 
-			for (L2Abnormal e : _buffs)
+			for (L2Abnormal e : _buffs.getEffects())
 			{
 				if (e != null && e.getSkill().getId() == newEffect.getSkill().getId() &&
 						e.getType() == newEffect.getType() && e.getStackLvl() == newEffect.getStackLvl())
@@ -1135,7 +837,7 @@ public class CharEffectList
 				effectsToRemove = getActivationCount() - 24;
 				if (effectsToRemove >= 0)
 				{
-					for (L2Abnormal e : _buffs)
+					for (L2Abnormal e : _buffs.getEffects())
 					{
 						if (e == null || !e.getSkill().isActivation())
 						{
@@ -1157,7 +859,7 @@ public class CharEffectList
 				effectsToRemove = getDanceCount() - Config.DANCES_MAX_AMOUNT;
 				if (effectsToRemove >= 0)
 				{
-					for (L2Abnormal e : _buffs)
+					for (L2Abnormal e : _buffs.getEffects())
 					{
 						if (e == null || !e.getSkill().isDance())
 						{
@@ -1184,7 +886,7 @@ public class CharEffectList
 						case BUFF:
 						case HEAL_PERCENT:
 						case MANAHEAL_PERCENT:
-							for (L2Abnormal e : _buffs)
+							for (L2Abnormal e : _buffs.getEffects())
 							{
 								if (e == null || e.getSkill().isDance())
 								{
@@ -1222,7 +924,7 @@ public class CharEffectList
 				if (newSkill.isDance())
 				{
 					// toggle skill - before all dances
-					for (L2Abnormal e : _buffs)
+					for (L2Abnormal e : _buffs.getEffects())
 					{
 						if (e == null)
 						{
@@ -1238,7 +940,7 @@ public class CharEffectList
 				else if (newSkill.isToggle())
 				{
 					// toggle skill - before all dances
-					for (L2Abnormal e : _buffs)
+					for (L2Abnormal e : _buffs.getEffects())
 					{
 						if (e == null)
 						{
@@ -1254,7 +956,7 @@ public class CharEffectList
 				else
 				{
 					// normal buff - before toggles and 7s and dances
-					for (L2Abnormal e : _buffs)
+					for (L2Abnormal e : _buffs.getEffects())
 					{
 						if (e == null)
 						{
@@ -1272,6 +974,9 @@ public class CharEffectList
 			}
 		}
 
+		// Visible before it starts
+		publishEffects();
+
 		// Check if a stack group is defined for this effect
 		if (newEffect.getStackType().length == 0)
 		{
@@ -1498,7 +1203,7 @@ public class CharEffectList
 		{
 			//synchronized (_buffs)
 			{
-				for (L2Abnormal e : _buffs)
+				for (L2Abnormal e : _buffs.getEffects())
 				{
 					if (e == null)
 					{
@@ -1560,7 +1265,7 @@ public class CharEffectList
 		{
 			//synchronized (_debuffs)
 			{
-				for (L2Abnormal e : _debuffs)
+				for (L2Abnormal e : _debuffs.getEffects())
 				{
 					if (e == null)
 					{
@@ -1656,7 +1361,7 @@ public class CharEffectList
 		{
 			//synchronized (_buffs)
 			{
-				for (L2Abnormal e : _buffs)
+				for (L2Abnormal e : _buffs.getEffects())
 				{
 					if (e == null)
 					{
@@ -1687,7 +1392,7 @@ public class CharEffectList
 		{
 			//synchronized (_debuffs)
 			{
-				for (L2Abnormal e : _debuffs)
+				for (L2Abnormal e : _debuffs.getEffects())
 				{
 					if (e == null)
 					{
@@ -1712,11 +1417,11 @@ public class CharEffectList
 	 */
 	private L2Abnormal listsContains(L2Abnormal effect)
 	{
-		if (_buffs != null && !_buffs.isEmpty() && _buffs.contains(effect))
+		if (_buffs != null && _buffs.contains(effect))
 		{
 			return effect;
 		}
-		if (_debuffs != null && !_debuffs.isEmpty() && _debuffs.contains(effect))
+		if (_debuffs != null && _debuffs.contains(effect))
 		{
 			return effect;
 		}
@@ -1724,38 +1429,54 @@ public class CharEffectList
 	}
 
 	/**
-	 * Recalculate effect bits flag.<br>
-	 * Please no concurrency access
+	 * Make the changes of the lists visible to the other threads, with the effects in use as they are now.
 	 */
-	private void computeEffectFlags()
+	private void publishEffects()
 	{
-		int flags = 0;
-
-		if (_buffs != null)
+		final AbnormalList buffs = _buffs;
+		final AbnormalList debuffs = _debuffs;
+		if (buffs != null)
 		{
-			for (L2Abnormal e : _buffs)
-			{
-				if (e == null)
-				{
-					continue;
-				}
-				flags |= e.getEffectMask();
-			}
+			buffs.publish();
+		}
+		if (debuffs != null)
+		{
+			debuffs.publish();
 		}
 
-		if (_debuffs != null)
+		final L2Abnormal[] buffEffects = buffs == null ? EMPTY_EFFECTS : buffs.getEffects();
+		final L2Abnormal[] debuffEffects = debuffs == null ? EMPTY_EFFECTS : debuffs.getEffects();
+		final L2Abnormal[] allEffects;
+		if (debuffEffects.length == 0)
 		{
-			for (L2Abnormal e : _debuffs)
-			{
-				if (e == null)
-				{
-					continue;
-				}
-				flags |= e.getEffectMask();
-			}
+			allEffects = buffEffects;
 		}
+		else if (buffEffects.length == 0)
+		{
+			allEffects = debuffEffects;
+		}
+		else
+		{
+			allEffects = Arrays.copyOf(buffEffects, buffEffects.length + debuffEffects.length);
+			System.arraycopy(debuffEffects, 0, allEffects, buffEffects.length, debuffEffects.length);
+		}
+		// The arrays of the lists are shared, so nobody gets to write into them
+		_allEffects = allEffects.length == 0 ? Collections.emptyList() :
+				Collections.unmodifiableList(Arrays.asList(allEffects));
+	}
 
-		_effectFlags = flags;
+	/**
+	 * Keep the indexes of the list of the effect up to date, as they prefer the effects in use.
+	 *
+	 * @param effect the effect which just started or stopped being in use
+	 */
+	public void onInUseChanged(L2Abnormal effect)
+	{
+		final AbnormalList effects = effect.getSkill().isDebuff() ? _debuffs : _buffs;
+		if (effects != null)
+		{
+			effects.reindex();
+		}
 	}
 
 	/**
@@ -1766,7 +1487,11 @@ public class CharEffectList
 	 */
 	public boolean isAffected(long bitFlag)
 	{
-		return (_effectFlags & bitFlag) != 0;
+		final AbnormalList buffs = _buffs;
+		final AbnormalList debuffs = _debuffs;
+		final long flags =
+				(buffs == null ? 0 : buffs.getEffectFlags()) | (debuffs == null ? 0 : debuffs.getEffectFlags());
+		return (flags & bitFlag) != 0;
 	}
 
 	/**
@@ -1799,6 +1524,7 @@ public class CharEffectList
 				_debuffs.clear();
 				_debuffs = null;
 			}
+			_allEffects = Collections.emptyList();
 
 			if (_stackedEffects != null)
 			{
@@ -0,0 +1,276 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.model;
+
+import l2server.gameserver.model.actor.L2Playable;
+import l2server.gameserver.model.actor.knownlist.ObjectKnownList;
+import l2server.gameserver.model.actor.position.ObjectPosition;
+import l2server.gameserver.util.Util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Event based knownlist engine, used instead of the periodic KnownListUpdateTaskManager sweep when EventBasedKnownlist is enabled.<BR><BR>
+ * <p>
+ * The world is split in an uniform grid of cells much smaller than the L2WorldRegions. Knownlists are only updated
+ * when an object is added to the world, crosses a cell boundary or moves UPDATE_DISTANCE away from where its
+ * knownlist was last updated: the objects of the surrounding cells are offered to it (and it is offered to them) and
+ * the ones which got too far are forgotten.<BR>
+ * So an object can move at most UPDATE_DISTANCE without being seen or forgotten, about what a running character
+ * covers between two sweeps of KnownListUpdateInterval. Crossing cells alone would let it move a whole cell.
+ */
+public final class KnownListGrid
+{
+	/**
+	 * biteshift, defines the cell size (512x512)
+	 */
+	public static final int CELL_SHIFT = 9;
+
+	/**
+	 * Biggest watch / forget distance handled by the grid (players forget objects at 4400 at most)
+	 */
+	private static final int MAX_DISTANCE = 4400;
+
+	/**
+	 * Movement inside a cell that updates the knownlists anyway
+	 */
+	public static final int UPDATE_DISTANCE = 1 << CELL_SHIFT - 2;
+
+	/**
+	 * Cells to look around the cell of a moving object. One more cell is added so objects that knew it get the chance to forget it.
+	 */
+	private static final int SCAN_RANGE = (MAX_DISTANCE >> CELL_SHIFT) + 2;
+
+	private static final int CELLS_X = (L2World.MAP_MAX_X - L2World.MAP_MIN_X >> CELL_SHIFT) + 1;
+	private static final int CELLS_Y = (L2World.MAP_MAX_Y - L2World.MAP_MIN_Y >> CELL_SHIFT) + 1;
+
+	// Cells are only created once an object enters them
+	private final AtomicReferenceArray<Map<Integer, L2Object>> _cells =
+			new AtomicReferenceArray<>(CELLS_X * CELLS_Y);
+
+	private KnownListGrid()
+	{
+	}
+
+	public static KnownListGrid getInstance()
+	{
+		return SingletonHolder._instance;
+	}
+
+	/**
+	 * Add a L2Object which has just been added to the world and update the knownlists around it.
+	 *
+	 * @param object the object spawned
+	 */
+	public void addObject(L2Object object)
+	{
+		final int cell = getCellIndex(object.getX(), object.getY());
+		if (cell < 0)
+		{
+			return;
+		}
+
+		getCell(cell).put(object.getObjectId(), object);
+		object.getPosition().setKnownListCell(cell);
+
+		updateKnownLists(object, cell);
+	}
+
+	/**
+	 * Remove a L2Object from the grid. Its knownlists are cleared by L2World.
+	 *
+	 * @param object the object removed from the world
+	 */
+	public void removeObject(L2Object object)
+	{
+		final ObjectPosition position = object.getPosition();
+		final int cell = position.getKnownListCell();
+		if (cell < 0)
+		{
+			return;
+		}
+
+		position.setKnownListCell(-1);
+
+		final Map<Integer, L2Object> objects = _cells.get(cell);
+		if (objects != null)
+		{
+			objects.remove(object.getObjectId());
+		}
+	}
+
+	/**
+	 * Called every time a visible L2Object changes its position. Does nothing until the object crosses a cell boundary
+	 * or moves UPDATE_DISTANCE away from its last update.
+	 *
+	 * @param object the object that moved
+	 */
+	public void onMove(L2Object object)
+	{
+		final ObjectPosition position = object.getPosition();
+		final int oldCell = position.getKnownListCell();
+		if (oldCell < 0)
+		{
+			// Not added to the world yet
+			return;
+		}
+
+		final int newCell = getCellIndex(object.getX(), object.getY());
+		if (newCell < 0)
+		{
+			return;
+		}
+
+		if (newCell == oldCell)
+		{
+			final long dx = object.getX() - position.getKnownListX();
+			final long dy = object.getY() - position.getKnownListY();
+			if (dx * dx + dy * dy < UPDATE_DISTANCE * UPDATE_DISTANCE)
+			{
+				return;
+			}
+		}
+		else
+		{
+			final Map<Integer, L2Object> oldObjects = _cells.get(oldCell);
+			if (oldObjects != null)
+			{
+				oldObjects.remove(object.getObjectId());
+			}
+
+			getCell(newCell).put(object.getObjectId(), object);
+			position.setKnownListCell(newCell);
+		}
+
+		updateKnownLists(object, newCell);
+	}
+
+	/**
+	 * Offer the surrounding objects to the given one again, used when a L2WorldRegion gets activated.
+	 *
+	 * @param object the object to refresh
+	 */
+	public void refresh(L2Object object)
+	{
+		final int cell = object.getPosition().getKnownListCell();
+		if (cell >= 0)
+		{
+			updateKnownLists(object, cell);
+		}
+	}
+
+	private void updateKnownLists(L2Object object, int cell)
+	{
+		if (!object.isVisible())
+		{
+			return;
+		}
+
+		object.getPosition().setKnownListXY(object.getX(), object.getY());
+
+		// Forget the known objects that got too far
+		final ObjectKnownList knownList = object.getKnownList();
+		knownList.forgetObjects(true);
+
+		// Same as the sweep: non playable objects only look around while their region is active
+		final L2WorldRegion region = object.getWorldRegion();
+		final boolean lookAround = object instanceof L2Playable || region != null && region.isActive();
+
+		final int cellX = cell / CELLS_Y;
+		final int cellY = cell % CELLS_Y;
+		final int minX = Math.max(0, cellX - SCAN_RANGE);
+		final int maxX = Math.min(CELLS_X - 1, cellX + SCAN_RANGE);
+		final int minY = Math.max(0, cellY - SCAN_RANGE);
+		final int maxY = Math.min(CELLS_Y - 1, cellY + SCAN_RANGE);
+		for (int x = minX; x <= maxX; x++)
+		{
+			for (int y = minY; y <= maxY; y++)
+			{
+				final Map<Integer, L2Object> objects = _cells.get(x * CELLS_Y + y);
+				if (objects == null || objects.isEmpty())
+				{
+					continue;
+				}
+
+				for (L2Object other : objects.values())
+				{
+					if (other == object)
+					{
+						continue;
+					}
+
+					// Fix for magically stuck objects
+					if (!other.isVisible() || other.getWorldRegion() == null)
+					{
+						objects.remove(other.getObjectId());
+						continue;
+					}
+
+					final ObjectKnownList otherKnownList = other.getKnownList();
+					if (otherKnownList.knowsObject(object))
+					{
+						if (!Util.checkIfInShortRadius(otherKnownList.getDistanceToForgetObject(object), other,
+								object, true))
+						{
+							otherKnownList.removeKnownObject(object);
+						}
+					}
+					else
+					{
+						otherKnownList.addKnownObject(object);
+					}
+
+					if (lookAround)
+					{
+						knownList.addKnownObject(other);
+					}
+				}
+			}
+		}
+	}
+
+	private Map<Integer, L2Object> getCell(int cell)
+	{
+		Map<Integer, L2Object> objects = _cells.get(cell);
+		if (objects == null)
+		{
+			_cells.compareAndSet(cell, null, new ConcurrentHashMap<>());
+			objects = _cells.get(cell);
+		}
+
+		return objects;
+	}
+
+	private static int getCellIndex(int x, int y)
+	{
+		final int cellX = x - L2World.MAP_MIN_X >> CELL_SHIFT;
+		final int cellY = y - L2World.MAP_MIN_Y >> CELL_SHIFT;
+		if (cellX < 0 || cellX >= CELLS_X || cellY < 0 || cellY >= CELLS_Y)
+		{
+			return -1;
+		}
+
+		return cellX * CELLS_Y + cellY;
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder
+	{
+		protected static final KnownListGrid _instance = new KnownListGrid();
+	}
+}
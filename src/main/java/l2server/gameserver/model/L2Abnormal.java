@@ -292,6 +292,7 @@ public class L2Abnormal
 	public boolean setInUse(boolean inUse)
 	{
 		_inUse = inUse;
+		_effected.onAbnormalInUseChanged(this);
 		if (_inUse)
 		{
 			_startConditionsCorrect = onStart();
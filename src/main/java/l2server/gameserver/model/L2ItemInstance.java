@@ -25,6 +25,7 @@ import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.datatables.EnsoulDataTable;
 import l2server.gameserver.datatables.ItemTable;
 import l2server.gameserver.instancemanager.ItemsOnGroundManager;
+import l2server.gameserver.instancemanager.ItemsWriteBehindManager;
 import l2server.gameserver.instancemanager.MercTicketManager;
 import l2server.gameserver.model.actor.L2Character;
 import l2server.gameserver.model.actor.instance.L2PcInstance;
@@ -155,6 +156,10 @@ public final class L2ItemInstance extends L2Object implements ItemInstanceInfo
 
 	private boolean _published = false;
 
+	public static final String UPDATE_QUERY =
+			"UPDATE items SET owner_id=?,count=?,loc=?,loc_data=?,enchant_level=?,custom_type1=?,custom_type2=?,mana_left=?,time=?,appearance=?,mob_id=? " +
+					"WHERE object_id = ?";
+
 	public static final double CHARGED_NONE = 1.0;
 	public static final double CHARGED_SOULSHOT = 2.0;
 	public static final double CHARGED_SPIRITSHOT = 2.0;
@@ -179,7 +184,7 @@ public final class L2ItemInstance extends L2Object implements ItemInstanceInfo
 	public static final int MODIFIED = 2;
 	private int _lastChange = 2; //1 ??, 2 modified, 3 removed
 	private boolean _existsInDb; // if a record exists in DB.
-	private boolean _storedInDb; // if DB data is up-to-date.
+	private volatile boolean _storedInDb; // if DB data is up-to-date.
 
 	private final ReentrantLock _dbLock = new ReentrantLock();
 
@@ -968,6 +973,16 @@ public final class L2ItemInstance extends L2Object implements ItemInstanceInfo
 		}
 		_enchantLevel = enchantLevel;
 		_storedInDb = false;
+
+		// The enchant Funcs of equipped items read the enchant level
+		if (isEquipped())
+		{
+			final L2PcInstance player = L2World.getInstance().getPlayer(getOwnerId());
+			if (player != null)
+			{
+				player.getStat().invalidateStatCache();
+			}
+		}
 	}
 
 	/**
@@ -1871,7 +1886,12 @@ public final class L2ItemInstance extends L2Object implements ItemInstanceInfo
 				}
 				else if (!Config.LAZY_ITEMS_UPDATE || force)
 				{
-					updateInDb();
+					// Let the write-behind queue coalesce the updates, unless they are forced
+					if (force || !Config.ITEMS_WRITE_BEHIND || _storedInDb ||
+							!ItemsWriteBehindManager.getInstance().add(this))
+					{
+						updateInDb();
+					}
 				}
 			}
 			else
@@ -2080,27 +2100,19 @@ public final class L2ItemInstance extends L2Object implements ItemInstanceInfo
 			return;
 		}
 
+		if (Config.ITEMS_WRITE_BEHIND)
+		{
+			ItemsWriteBehindManager.getInstance().cancel(this);
+		}
+
 		Connection con = null;
 		PreparedStatement statement = null;
 		try
 		{
 			con = L2DatabaseFactory.getInstance().getConnection();
 
-			statement = con.prepareStatement(
-					"UPDATE items SET owner_id=?,count=?,loc=?,loc_data=?,enchant_level=?,custom_type1=?,custom_type2=?,mana_left=?,time=?,appearance=?,mob_id=? " +
-							"WHERE object_id = ?");
-			statement.setInt(1, _ownerId);
-			statement.setLong(2, getCount());
-			statement.setString(3, _loc.name());
-			statement.setInt(4, _locData);
-			statement.setInt(5, getEnchantLevel());
-			statement.setInt(6, getCustomType1());
-			statement.setInt(7, getCustomType2());
-			statement.setInt(8, getMana());
-			statement.setLong(9, getTime());
-			statement.setInt(10, getAppearance());
-			statement.setInt(11, getMobId());
-			statement.setInt(12, getObjectId());
+			statement = con.prepareStatement(UPDATE_QUERY);
+			setUpdateParameters(statement);
 			statement.executeUpdate();
 			_existsInDb = true;
 			_storedInDb = true;
@@ -2118,6 +2130,49 @@ public final class L2ItemInstance extends L2Object implements ItemInstanceInfo
 		}
 	}
 
+	/**
+	 * Add the update of the item to a batch of UPDATE_QUERY, for the write-behind queue
+	 *
+	 * @return false if the item doesn't need to be updated anymore
+	 */
+	public boolean addUpdateBatch(PreparedStatement statement) throws SQLException
+	{
+		if (!_existsInDb || _wear || _storedInDb)
+		{
+			return false;
+		}
+
+		// Set before reading the values: a change made meanwhile marks the item as not stored again
+		_storedInDb = true;
+		setUpdateParameters(statement);
+		statement.addBatch();
+		return true;
+	}
+
+	/**
+	 * Mark the item as not stored again, after the batch its update was added to failed
+	 */
+	public void onUpdateBatchFailed()
+	{
+		_storedInDb = false;
+	}
+
+	private void setUpdateParameters(PreparedStatement statement) throws SQLException
+	{
+		statement.setInt(1, _ownerId);
+		statement.setLong(2, getCount());
+		statement.setString(3, _loc.name());
+		statement.setInt(4, _locData);
+		statement.setInt(5, getEnchantLevel());
+		statement.setInt(6, getCustomType1());
+		statement.setInt(7, getCustomType2());
+		statement.setInt(8, getMana());
+		statement.setLong(9, getTime());
+		statement.setInt(10, getAppearance());
+		statement.setInt(11, getMobId());
+		statement.setInt(12, getObjectId());
+	}
+
 	/**
 	 * Insert the item in database
 	 */
@@ -2193,6 +2248,12 @@ public final class L2ItemInstance extends L2Object implements ItemInstanceInfo
 			return;
 		}
 
+		// A queued update must not be written after the delete
+		if (Config.ITEMS_WRITE_BEHIND)
+		{
+			ItemsWriteBehindManager.getInstance().cancel(this);
+		}
+
 		Connection con = null;
 		PreparedStatement statement = null;
 		try
@@ -1766,95 +1766,81 @@ public abstract class L2Skill implements IChanceSkillTrigger
 					return targetList.toArray(new L2Character[targetList.size()]);
 				}
 
-				// Get all visible objects in a spherical area near the L2Character
-				final Collection<L2PcInstance> objs = activeChar.getKnownList().getKnownPlayersInRadius(radius);
-				//synchronized (activeChar.getKnownList().getKnownObjects())
+				// Get all visible players in a spherical area near the L2Character
+				activeChar.getKnownList().forEachKnownPlayerInRadius(radius, obj ->
 				{
-					for (L2PcInstance obj : objs)
+					if (obj == null)
 					{
-						if (obj == null)
-						{
-							continue;
-						}
+						return;
+					}
 
-						// olympiad mode - adding only own side
-						if (player.isInOlympiadMode())
+					// olympiad mode - adding only own side
+					if (player.isInOlympiadMode())
+					{
+						if (!obj.isInOlympiadMode())
 						{
-							if (!obj.isInOlympiadMode())
-							{
-								continue;
-							}
-							if (player.getOlympiadGameId() != obj.getOlympiadGameId())
-							{
-								continue;
-							}
-							if (player.getOlympiadSide() != obj.getOlympiadSide())
-							{
-								continue;
-							}
+							return;
 						}
-
-						if (player.isInDuel())
+						if (player.getOlympiadGameId() != obj.getOlympiadGameId())
 						{
-							if (player.getDuelId() != obj.getDuelId())
-							{
-								continue;
-							}
-
-							if (hasParty && obj.isInParty() &&
-									player.getParty().getPartyLeaderOID() != obj.getParty().getPartyLeaderOID())
-							{
-								continue;
-							}
+							return;
 						}
-
-						if (!(hasClan && obj.getClanId() == player.getClanId() || hasParty && obj.isInParty() &&
-								player.getParty().getPartyLeaderOID() == obj.getParty().getPartyLeaderOID()))
+						if (player.getOlympiadSide() != obj.getOlympiadSide())
 						{
-							continue;
+							return;
 						}
+					}
 
-						// Don't add this target if this is a Pc->Pc pvp
-						// casting and pvp condition not met
-						if (!player.checkPvpSkill(obj, this))
+					if (player.isInDuel())
+					{
+						if (player.getDuelId() != obj.getDuelId())
 						{
-							continue;
+							return;
 						}
 
-						if (obj.getEvent() != null && obj.getEvent().isState(EventState.STARTED) &&
-								player.getEvent() != obj.getEvent())
+						if (hasParty && obj.isInParty() &&
+								player.getParty().getPartyLeaderOID() != obj.getParty().getPartyLeaderOID())
 						{
-							continue;
+							return;
 						}
+					}
 
-						if (!onlyFirst)
-						{
-							if (addCharacter(activeChar, obj.getPet(), radius, isCorpseType))
-							{
-								targetList.add(obj.getPet());
-							}
-							for (L2SummonInstance summon : obj.getSummons())
-							{
-								if (addCharacter(activeChar, summon, radius, isCorpseType))
-								{
-									targetList.add(summon);
-								}
-							}
-						}
+					if (!(hasClan && obj.getClanId() == player.getClanId() || hasParty && obj.isInParty() &&
+							player.getParty().getPartyLeaderOID() == obj.getParty().getPartyLeaderOID()))
+					{
+						return;
+					}
 
-						if (!addCharacter(activeChar, obj, radius, isCorpseType))
-						{
-							continue;
-						}
+					// Don't add this target if this is a Pc->Pc pvp
+					// casting and pvp condition not met
+					if (!player.checkPvpSkill(obj, this))
+					{
+						return;
+					}
+
+					if (obj.getEvent() != null && obj.getEvent().isState(EventState.STARTED) &&
+							player.getEvent() != obj.getEvent())
+					{
+						return;
+					}
 
-						if (onlyFirst)
+					if (addCharacter(activeChar, obj.getPet(), radius, isCorpseType))
+					{
+						targetList.add(obj.getPet());
+					}
+					for (L2SummonInstance summon : obj.getSummons())
+					{
+						if (addCharacter(activeChar, summon, radius, isCorpseType))
 						{
-							return new L2Character[]{obj};
+							targetList.add(summon);
 						}
+					}
 
+					if (addCharacter(activeChar, obj, radius, isCorpseType))
+					{
 						targetList.add(obj);
 					}
-				}
+				});
 
 				return targetList.toArray(new L2Character[targetList.size()]);
 			}
@@ -1938,20 +1924,20 @@ public abstract class L2Skill implements IChanceSkillTrigger
 			case TARGET_AURA_CORPSE_MOB:
 			{
 				// Go through the L2Character _knownList
-				final Collection<L2Character> objs =
-						activeChar.getKnownList().getKnownCharactersInRadius(getSkillRadius());
-				for (L2Character obj : objs)
+				if (onlyFirst)
+				{
+					final L2Character obj = activeChar.getKnownList().findKnownCharacterInRadius(getSkillRadius(),
+							cha -> cha instanceof L2Attackable && cha.isDead());
+					return obj == null ? new L2Character[0] : new L2Character[]{obj};
+				}
+
+				activeChar.getKnownList().forEachKnownCharacterInRadius(getSkillRadius(), obj ->
 				{
 					if (obj instanceof L2Attackable && obj.isDead())
 					{
-						if (onlyFirst)
-						{
-							return new L2Character[]{obj};
-						}
-
 						targetList.add(obj);
 					}
-				}
+				});
 				return targetList.toArray(new L2Character[targetList.size()]);
 			}
 			case TARGET_FLAGPOLE:
@@ -2091,77 +2077,68 @@ public abstract class L2Skill implements IChanceSkillTrigger
 
 						if (player.getClan() != null)
 						{
-							// Get all visible objects in a spherical area near the L2Character
-							final Collection<L2PcInstance> objs =
-									activeChar.getKnownList().getKnownPlayersInRadius(radius);
-							//synchronized (activeChar.getKnownList().getKnownObjects())
+							final L2PcInstance owner = player;
+							// Get all visible players in a spherical area near the L2Character
+							activeChar.getKnownList().forEachKnownPlayerInRadius(radius, obj ->
 							{
-								for (L2PcInstance obj : objs)
+								if (obj == null || obj == owner)
 								{
-									if (obj == null || obj == player)
-									{
-										continue;
-									}
+									return;
+								}
 
-									if ((obj.getAllyId() == 0 || obj.getAllyId() != player.getAllyId()) &&
-											(obj.getClan() == null || obj.getClanId() != player.getClanId()))
-									{
-										continue;
-									}
+								if ((obj.getAllyId() == 0 || obj.getAllyId() != owner.getAllyId()) &&
+										(obj.getClan() == null || obj.getClanId() != owner.getClanId()))
+								{
+									return;
+								}
 
-									if (player.isInDuel())
+								if (owner.isInDuel())
+								{
+									if (owner.getDuelId() != obj.getDuelId())
 									{
-										if (player.getDuelId() != obj.getDuelId())
-										{
-											continue;
-										}
-
-										if (player.isInParty() && obj.isInParty() &&
-												player.getParty().getPartyLeaderOID() !=
-														obj.getParty().getPartyLeaderOID())
-										{
-											continue;
-										}
+										return;
 									}
 
-									// Don't add this target if this is a Pc->Pc pvp
-									// casting and pvp condition not met
-									if (!player.checkPvpSkill(obj, this))
+									if (owner.isInParty() && obj.isInParty() &&
+											owner.getParty().getPartyLeaderOID() !=
+													obj.getParty().getPartyLeaderOID())
 									{
-										continue;
+										return;
 									}
+								}
 
-									if (obj.getEvent() != null && obj.getEvent().isState(EventState.STARTED) &&
-											EventsManager.getInstance().isPlayerParticipant(obj.getObjectId()) &&
-											(player.getEvent() != obj.getEvent() ||
-													player.getEvent().getConfig().isAllVsAll()))
-									{
-										continue;
-									}
+								// Don't add this target if this is a Pc->Pc pvp
+								// casting and pvp condition not met
+								if (!owner.checkPvpSkill(obj, this))
+								{
+									return;
+								}
 
-									if (!onlyFirst)
-									{
-										if (addCharacter(activeChar, obj.getPet(), radius, false))
-										{
-											targetList.add(obj.getPet());
-										}
-										for (L2SummonInstance summon : obj.getSummons())
-										{
-											if (addCharacter(activeChar, summon, radius, false))
-											{
-												targetList.add(summon);
-											}
-										}
-									}
+								if (obj.getEvent() != null && obj.getEvent().isState(EventState.STARTED) &&
+										EventsManager.getInstance().isPlayerParticipant(obj.getObjectId()) &&
+										(owner.getEvent() != obj.getEvent() ||
+												owner.getEvent().getConfig().isAllVsAll()))
+								{
+									return;
+								}
 
-									if (!addCharacter(activeChar, obj, radius, false))
+								if (addCharacter(activeChar, obj.getPet(), radius, false))
+								{
+									targetList.add(obj.getPet());
+								}
+								for (L2SummonInstance summon : obj.getSummons())
+								{
+									if (addCharacter(activeChar, summon, radius, false))
 									{
-										continue;
+										targetList.add(summon);
 									}
+								}
 
+								if (addCharacter(activeChar, obj, radius, false))
+								{
 									targetList.add(obj);
 								}
-							}
+							});
 						}
 					}
 				}
@@ -2244,13 +2221,13 @@ public abstract class L2Skill implements IChanceSkillTrigger
 						ArenaParticipantsHolder holder = HandysBlockCheckerManager.getInstance().getHolder(playerArena);
 						int team = holder.getPlayerTeam(player);
 						// Aura attack
-						for (L2PcInstance actor : player.getKnownList().getKnownPlayersInRadius(250))
+						player.getKnownList().forEachKnownPlayerInRadius(250, actor ->
 						{
 							if (holder.getAllPlayers().contains(actor) && holder.getPlayerTeam(actor) != team)
 							{
 								targetList.add(actor);
 							}
-						}
+						});
 						return targetList.toArray(new L2Character[targetList.size()]);
 					}
 				}
@@ -2678,7 +2655,7 @@ public abstract class L2Skill implements IChanceSkillTrigger
 				if (effected.isInvul(effector) && getId() != 11604) // Shocking Blow
 				{
 					boolean invul = true;
-					for (L2Abnormal effect : effected.getAllEffects())
+					for (L2Abnormal effect : effected.getAllEffectsView())
 					{
 						if (effect.getSkill().getDamageToRemove() > 0)
 						{
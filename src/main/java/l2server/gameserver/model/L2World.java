@@ -387,6 +387,12 @@ public final class L2World
 			}
 		}
 
+		if (Config.EVENT_BASED_KNOWNLIST)
+		{
+			KnownListGrid.getInstance().addObject(object);
+			return;
+		}
+
 		if (!newRegion.isActive())
 		{
 			return;
@@ -476,6 +482,11 @@ public final class L2World
 
 		//removeObject(object);
 
+		if (Config.EVENT_BASED_KNOWNLIST)
+		{
+			KnownListGrid.getInstance().removeObject(object);
+		}
+
 		if (oldRegion != null)
 		{
 			// Remove the object from the L2ObjectHashSet(L2Object) _visibleObjects of L2WorldRegion
@@ -17,12 +17,15 @@ package l2server.gameserver.model;
 
 import l2server.Config;
 import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.ai.L2AttackableAI;
+import l2server.gameserver.ai.L2CharacterAI;
 import l2server.gameserver.datatables.SpawnTable;
 import l2server.gameserver.model.actor.L2Attackable;
 import l2server.gameserver.model.actor.L2Character;
 import l2server.gameserver.model.actor.L2Npc;
 import l2server.gameserver.model.actor.L2Playable;
 import l2server.gameserver.model.actor.L2Vehicle;
+import l2server.gameserver.model.zone.L2ZoneForm;
 import l2server.gameserver.model.zone.L2ZoneType;
 import l2server.gameserver.model.zone.type.L2DerbyTrackZone;
 import l2server.gameserver.model.zone.type.L2PeaceZone;
@@ -53,12 +56,24 @@ public final class L2WorldRegion
 	 */
 	private Map<Integer, L2Object> _visibleObjects;
 
+	/**
+	 * AIs of the L2Attackables of this region parked because no L2Playable was around (see Config.SLEEPING_AI)
+	 */
+	private final Map<Integer, L2AttackableAI> _sleepingAIs = new ConcurrentHashMap<>();
+
 	private List<L2WorldRegion> _surroundingRegions;
 	private int _tileX, _tileY;
 	private boolean _active = false;
 	private ScheduledFuture<?> _neighborsTask = null;
 	private final ArrayList<L2ZoneType> _zones;
 
+	// The region split in ZONE_CELLS x ZONE_CELLS cells, each with the zones whose bounding box touches it
+	private static final int ZONE_CELL_SHIFT = L2World.SHIFT_BY - 3;
+	private static final int ZONE_CELLS = 1 << L2World.SHIFT_BY - ZONE_CELL_SHIFT;
+	private static final L2ZoneType[] NO_ZONES = new L2ZoneType[0];
+	// Built again on the first lookup after a zone is added or removed
+	private volatile L2ZoneType[][] _zoneCells;
+
 	public L2WorldRegion(int pTileX, int pTileY)
 	{
 		_allPlayable = new ConcurrentHashMap<>();
@@ -78,14 +93,93 @@ public final class L2WorldRegion
 		return _zones;
 	}
 
-	public void addZone(L2ZoneType zone)
+	public synchronized void addZone(L2ZoneType zone)
 	{
 		_zones.add(zone);
+		_zoneCells = null;
 	}
 
-	public void removeZone(L2ZoneType zone)
+	public synchronized void removeZone(L2ZoneType zone)
 	{
 		_zones.remove(zone);
+		_zoneCells = null;
+	}
+
+	public synchronized void clearZones()
+	{
+		_zones.clear();
+		_zoneCells = null;
+	}
+
+	/**
+	 * @return the zones of this region which can contain the given point: any other zone doesn't
+	 */
+	public L2ZoneType[] getZones(int x, int y)
+	{
+		final int minX = _tileX - L2World.OFFSET_X << L2World.SHIFT_BY;
+		final int minY = _tileY - L2World.OFFSET_Y << L2World.SHIFT_BY;
+		final int cellX = x - minX >> ZONE_CELL_SHIFT;
+		final int cellY = y - minY >> ZONE_CELL_SHIFT;
+
+		L2ZoneType[][] cells = _zoneCells;
+		if (cells == null)
+		{
+			cells = buildZoneCells(minX, minY);
+		}
+
+		// Not in this region (a character being moved to another one)
+		if (cellX < 0 || cellX >= ZONE_CELLS || cellY < 0 || cellY >= ZONE_CELLS)
+		{
+			return cells[ZONE_CELLS * ZONE_CELLS];
+		}
+		return cells[cellY * ZONE_CELLS + cellX];
+	}
+
+	private synchronized L2ZoneType[][] buildZoneCells(int minX, int minY)
+	{
+		if (_zoneCells != null)
+		{
+			return _zoneCells;
+		}
+
+		// The last one has all the zones
+		final L2ZoneType[][] cells = new L2ZoneType[ZONE_CELLS * ZONE_CELLS + 1][];
+		final List<L2ZoneType> zones = new ArrayList<>();
+		for (L2ZoneType zone : _zones)
+		{
+			if (zone != null && zone.getZone() != null)
+			{
+				zones.add(zone);
+			}
+		}
+		cells[ZONE_CELLS * ZONE_CELLS] = zones.isEmpty() ? NO_ZONES : zones.toArray(new L2ZoneType[zones.size()]);
+
+		final List<L2ZoneType> cellZones = new ArrayList<>();
+		for (int cellY = 0; cellY < ZONE_CELLS; cellY++)
+		{
+			final int y1 = minY + (cellY << ZONE_CELL_SHIFT);
+			final int y2 = y1 + (1 << ZONE_CELL_SHIFT) - 1;
+			for (int cellX = 0; cellX < ZONE_CELLS; cellX++)
+			{
+				final int x1 = minX + (cellX << ZONE_CELL_SHIFT);
+				final int x2 = x1 + (1 << ZONE_CELL_SHIFT) - 1;
+
+				cellZones.clear();
+				for (L2ZoneType zone : zones)
+				{
+					final L2ZoneForm form = zone.getZone();
+					if (form.getMaxX() >= x1 && form.getMinX() <= x2 && form.getMaxY() >= y1 && form.getMinY() <= y2)
+					{
+						cellZones.add(zone);
+					}
+				}
+				cells[cellY * ZONE_CELLS + cellX] =
+						cellZones.isEmpty() ? NO_ZONES : cellZones.toArray(new L2ZoneType[cellZones.size()]);
+			}
+		}
+
+		_zoneCells = cells;
+		return cells;
 	}
 
 	public void revalidateZones(L2Character character)
@@ -98,13 +192,38 @@ public final class L2WorldRegion
 			return;
 		}
 
-		for (L2ZoneType z : getZones())
+		final L2ZoneType[] zones = getZones(character.getX(), character.getY());
+
+		// The zones of the last cell which aren't in this one can't contain the character anymore: let them know
+		final L2ZoneType[] lastZones = character.getZoneCandidates();
+		if (lastZones != null && lastZones != zones)
 		{
-			if (z != null)
+			for (L2ZoneType z : lastZones)
 			{
-				z.revalidateInZone(character);
+				if (z.isCharacterInZone(character) && !contains(zones, z))
+				{
+					z.revalidateInZone(character);
+				}
 			}
 		}
+		character.setZoneCandidates(zones);
+
+		for (L2ZoneType z : zones)
+		{
+			z.revalidateInZone(character);
+		}
+	}
+
+	private static boolean contains(L2ZoneType[] zones, L2ZoneType zone)
+	{
+		for (L2ZoneType z : zones)
+		{
+			if (z == zone)
+			{
+				return true;
+			}
+		}
+		return false;
 	}
 
 	public void removeFromZones(L2Character character)
@@ -297,6 +416,12 @@ public final class L2WorldRegion
 					{
 						((L2Npc) o).startRandomAnimationTimer();
 					}
+
+					// the knownlists are not swept periodically, so fill them now
+					if (Config.EVENT_BASED_KNOWNLIST)
+					{
+						KnownListGrid.getInstance().refresh(o);
+					}
 				}
 			}
 			//KnownListUpdateTaskManager.getInstance().updateRegion(this, true, true);
@@ -432,12 +557,30 @@ public final class L2WorldRegion
 		{
 			_allPlayable.put(object.getObjectId(), (L2Playable) object);
 
+			// wake up the monsters around
+			if (Config.SLEEPING_AI)
+			{
+				for (L2WorldRegion neighbor : _surroundingRegions)
+				{
+					neighbor.wakeUpSleepingAIs();
+				}
+			}
+
 			// if this is the first player to enter the region, activate self & neighbors
 			if (_allPlayable.size() == 1 && !Config.GRIDS_ALWAYS_ON)
 			{
 				startActivation();
 			}
 		}
+		else if (Config.SLEEPING_AI && object instanceof L2Attackable && ((L2Attackable) object).hasAI())
+		{
+			// a parked monster moved or got teleported here, its old region won't wake it up
+			final L2CharacterAI ai = ((L2Attackable) object).getAI();
+			if (ai instanceof L2AttackableAI)
+			{
+				((L2AttackableAI) ai).wakeUp();
+			}
+		}
 	}
 
 	/**
@@ -456,6 +599,7 @@ public final class L2WorldRegion
 		assert object.getWorldRegion() == this || object.getWorldRegion() == null;
 
 		_visibleObjects.remove(object.getObjectId());
+		_sleepingAIs.remove(object.getObjectId());
 
 		if (object instanceof L2Playable)
 		{
@@ -491,6 +635,29 @@ public final class L2WorldRegion
 		return _visibleObjects;
 	}
 
+	public void addSleepingAI(L2Attackable attackable, L2AttackableAI ai)
+	{
+		_sleepingAIs.put(attackable.getObjectId(), ai);
+	}
+
+	public void removeSleepingAI(L2Attackable attackable)
+	{
+		_sleepingAIs.remove(attackable.getObjectId());
+	}
+
+	public void wakeUpSleepingAIs()
+	{
+		if (_sleepingAIs.isEmpty())
+		{
+			return;
+		}
+
+		for (L2AttackableAI ai : _sleepingAIs.values())
+		{
+			ai.wakeUp();
+		}
+	}
+
 	public String getName()
 	{
 		return "(" + _tileX + ", " + _tileY + ")";
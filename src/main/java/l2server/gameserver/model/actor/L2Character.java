@@ -79,6 +79,7 @@ import l2server.gameserver.model.entity.Siege;
 import l2server.gameserver.model.event.ListenersContainer;
 import l2server.gameserver.model.itemcontainer.Inventory;
 import l2server.gameserver.model.quest.Quest;
+import l2server.gameserver.model.zone.L2ZoneType;
 import l2server.gameserver.network.SystemMessageId;
 import l2server.gameserver.network.serverpackets.AbnormalStatusUpdateFromTarget;
 import l2server.gameserver.network.serverpackets.ActionFailed;
@@ -118,6 +119,8 @@ import l2server.gameserver.stats.skills.L2SkillAgathion;
 import l2server.gameserver.stats.skills.L2SkillMount;
 import l2server.gameserver.stats.skills.L2SkillSummon;
 import l2server.gameserver.taskmanager.AttackStanceTaskManager;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager.BroadcastType;
 import l2server.gameserver.templates.chars.L2CharTemplate;
 import l2server.gameserver.templates.chars.L2NpcTemplate;
 import l2server.gameserver.templates.item.L2Item;
@@ -146,6 +149,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
@@ -196,6 +200,8 @@ public abstract class L2Character extends L2Object
 	private L2CharTemplate _template;
 	// The link on the L2CharTemplate object containing generic and static properties of this L2Character type (ex : Max HP, Speed...)
 	private String _title;
+	// The broadcasts left for the next tick by the BroadcastUpdateTaskManager
+	private final AtomicInteger _pendingBroadcasts = new AtomicInteger();
 	private double _hpUpdateIncCheck = .0;
 	private double _hpUpdateDecCheck = .0;
 	private double _hpUpdateInterval = .0;
@@ -251,6 +257,8 @@ public abstract class L2Character extends L2Object
 
 	private final byte[] _zones = new byte[25];
 	protected byte _zoneValidateCounter = 4;
+	// The zones which could contain this character when its zones were last validated
+	private L2ZoneType[] _zoneCandidates;
 
 	protected L2Character _debugger = null;
 
@@ -614,6 +622,11 @@ public abstract class L2Character extends L2Object
 
 	public void broadcastStatusUpdate()
 	{
+		if (BroadcastUpdateTaskManager.getInstance().coalesce(this, BroadcastType.STATUS))
+		{
+			return;
+		}
+
 		broadcastStatusUpdate(null, StatusUpdateDisplay.NONE);
 	}
 
@@ -637,7 +650,7 @@ public abstract class L2Character extends L2Object
 			return;
 		}
 
-		if (getStatus().getStatusListener().isEmpty() && getKnownList().getKnownPlayersInRadius(200).isEmpty())
+		if (getStatus().getStatusListener().isEmpty() && !getKnownList().hasKnownPlayersInRadius(200))
 		{
 			return;
 		}
@@ -660,13 +673,7 @@ public abstract class L2Character extends L2Object
 		// Send the Server->Client packet StatusUpdate with current HP and MP
 		if (this instanceof L2Attackable)
 		{
-			for (L2PcInstance temp : getKnownList().getKnownPlayersInRadius(600))
-			{
-				if (temp != null)
-				{
-					temp.sendPacket(su);
-				}
-			}
+			getKnownList().forEachKnownPlayerInRadius(600, temp -> temp.sendPacket(su));
 		}
 
 		for (L2Character temp : getStatus().getStatusListener())
@@ -685,6 +692,21 @@ public abstract class L2Character extends L2Object
 			return;
 		}
 
+		if (BroadcastUpdateTaskManager.getInstance().coalesce(this, BroadcastType.ABNORMAL_STATUS))
+		{
+			return;
+		}
+
+		broadcastAbnormalStatusUpdateNow();
+	}
+
+	public void broadcastAbnormalStatusUpdateNow()
+	{
+		if (getStatus().getStatusListener().isEmpty())
+		{
+			return;
+		}
+
 		// Create the Server->Client packet AbnormalStatusUpdate
 		AbnormalStatusUpdateFromTarget asu = new AbnormalStatusUpdateFromTarget(this);
 
@@ -700,6 +722,24 @@ public abstract class L2Character extends L2Object
 		}
 	}
 
+	/**
+	 * @return the broadcasts pending before these ones
+	 */
+	public final int addPendingBroadcasts(int broadcasts)
+	{
+		return _pendingBroadcasts.getAndAccumulate(broadcasts, (a, b) -> a | b);
+	}
+
+	public final void removePendingBroadcasts(int broadcasts)
+	{
+		_pendingBroadcasts.accumulateAndGet(broadcasts, (a, b) -> a & ~b);
+	}
+
+	public final int takePendingBroadcasts()
+	{
+		return _pendingBroadcasts.getAndSet(0);
+	}
+
 	/**
 	 * Not Implemented.<BR><BR>
 	 * <p>
@@ -3498,6 +3538,12 @@ public abstract class L2Character extends L2Object
 	public final void setTemplate(L2CharTemplate template)
 	{
 		_template = template;
+
+		// The base stats come from the template
+		if (getStat() != null)
+		{
+			getStat().invalidateStatCache();
+		}
 	}
 
 	/**
@@ -4366,11 +4412,28 @@ public abstract class L2Character extends L2Object
 		return _effects.getAllEffects();
 	}
 
+	/**
+	 * @return all the active skills effects, read only and not copied
+	 * @see CharEffectList#getAllEffectsView()
+	 */
+	public final List<L2Abnormal> getAllEffectsView()
+	{
+		return _effects.getAllEffectsView();
+	}
+
 	public final L2Abnormal[] getAllDebuffs()
 	{
 		return _effects.getAllDebuffs();
 	}
 
+	/**
+	 * @see CharEffectList#onInUseChanged(L2Abnormal)
+	 */
+	public final void onAbnormalInUseChanged(L2Abnormal effect)
+	{
+		_effects.onInUseChanged(effect);
+	}
+
 	/**
 	 * Return L2Effect in progress on the L2Character corresponding to the L2Skill Identifier.<BR><BR>
 	 * <p>
@@ -4564,6 +4627,8 @@ public abstract class L2Character extends L2Object
 			// Add the Func to the calculator corresponding to the state
 			_calculators[stat].addFunc(f);
 		}
+
+		getStat().invalidateStatCache();
 	}
 
 	/**
@@ -4634,6 +4699,7 @@ public abstract class L2Character extends L2Object
 
 			// Remove the Func object from the Calculator
 			_calculators[stat].removeFunc(f);
+			getStat().invalidateStatCache();
 
 			if (_calculators[stat].size() == 0)
 			{
@@ -4744,6 +4810,8 @@ public abstract class L2Character extends L2Object
 				i++;
 			}
 
+			getStat().invalidateStatCache();
+
 			// If possible, free the memory and just create a link on NPC_STD_CALCULATOR
 			if (this instanceof L2Npc)
 			{
@@ -5319,6 +5387,16 @@ public abstract class L2Character extends L2Object
 		return distFraction > 1;
 	}
 
+	public L2ZoneType[] getZoneCandidates()
+	{
+		return _zoneCandidates;
+	}
+
+	public void setZoneCandidates(L2ZoneType[] zoneCandidates)
+	{
+		_zoneCandidates = zoneCandidates;
+	}
+
 	public void revalidateZone(boolean force)
 	{
 		if (getWorldRegion() == null)
@@ -5380,7 +5458,7 @@ public abstract class L2Character extends L2Object
 			revalidateZone(true);
 		}
 		broadcastPacket(new StopMove(this));
-		if (Config.MOVE_BASED_KNOWNLIST && updateKnownObjects)
+		if (Config.MOVE_BASED_KNOWNLIST && !Config.EVENT_BASED_KNOWNLIST && updateKnownObjects)
 		{
 			getKnownList().findObjects();
 		}
@@ -8950,7 +9028,7 @@ public abstract class L2Character extends L2Object
 			}
 
 			L2Character target = (L2Character) obj;
-			for (L2Abnormal abnormal : target.getAllEffects())
+			for (L2Abnormal abnormal : target.getAllEffectsView())
 			{
 				if (abnormal.getSkill() == skill)
 				{
@@ -326,18 +326,10 @@ public class L2Trap extends L2Character
 						}
 					}
 
-					for (L2Character target : getKnownList().getKnownCharactersInRadius(_skill.getSkillRadius()))
+					final L2Character target = getKnownList().findKnownCharacterInRadius(_skill.getSkillRadius(),
+							cha -> cha != getOwner() && getOwner().isAbleToCastOnTarget(cha, _skill, false));
+					if (target != null)
 					{
-						if (target == getOwner())
-						{
-							continue;
-						}
-
-						if (!getOwner().isAbleToCastOnTarget(target, _skill, false))
-						{
-							continue;
-						}
-
 						trigger(target);
 						return;
 					}
@@ -406,7 +406,7 @@ public abstract class L2Vehicle extends L2Character
 			revalidateZone(true);
 		}
 
-		if (Config.MOVE_BASED_KNOWNLIST && updateKnownObjects)
+		if (Config.MOVE_BASED_KNOWNLIST && !Config.EVENT_BASED_KNOWNLIST && updateKnownObjects)
 		{
 			getKnownList().findObjects();
 		}
@@ -23,6 +23,7 @@ import l2server.gameserver.GmListTable;
 import l2server.gameserver.ItemsAutoDestroy;
 import l2server.gameserver.LoginServerThread;
 import l2server.gameserver.RecipeController;
+import l2server.gameserver.Shutdown;
 import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.TimeController;
 import l2server.gameserver.ai.CtrlIntention;
@@ -64,11 +65,13 @@ import l2server.gameserver.instancemanager.HandysBlockCheckerManager;
 import l2server.gameserver.instancemanager.HandysBlockCheckerManager.ArenaParticipantsHolder;
 import l2server.gameserver.instancemanager.InstanceManager;
 import l2server.gameserver.instancemanager.ItemsOnGroundManager;
+import l2server.gameserver.instancemanager.ItemsWriteBehindManager;
 import l2server.gameserver.instancemanager.MainTownManager;
 import l2server.gameserver.instancemanager.MainTownManager.MainTownInfo;
 import l2server.gameserver.instancemanager.PartySearchManager;
 import l2server.gameserver.instancemanager.PlayerAssistsManager;
 import l2server.gameserver.instancemanager.QuestManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager;
 import l2server.gameserver.instancemanager.SiegeManager;
 import l2server.gameserver.instancemanager.TownManager;
 import l2server.gameserver.instancemanager.ZoneManager;
@@ -233,6 +236,8 @@ import l2server.gameserver.stats.skills.L2SkillSiegeFlag;
 import l2server.gameserver.stats.skills.L2SkillSummon;
 import l2server.gameserver.stats.skills.L2SkillTrap;
 import l2server.gameserver.taskmanager.AttackStanceTaskManager;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager.BroadcastType;
 import l2server.gameserver.templates.chars.L2NpcTemplate;
 import l2server.gameserver.templates.chars.L2PcTemplate;
 import l2server.gameserver.templates.item.L2Armor;
@@ -250,6 +255,7 @@ import l2server.gameserver.templates.skills.L2SkillTargetDirection;
 import l2server.gameserver.templates.skills.L2SkillTargetType;
 import l2server.gameserver.templates.skills.L2SkillType;
 import l2server.gameserver.util.Broadcast;
+import l2server.gameserver.util.CharacterLoadStats;
 import l2server.gameserver.util.FloodProtectors;
 import l2server.gameserver.util.IllegalPlayerAction;
 import l2server.gameserver.util.Util;
@@ -275,6 +281,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
@@ -4884,11 +4891,7 @@ public class L2PcInstance extends L2Playable {
         // Send the Server->Client packet StatusUpdate with current HP and MP
         if (needHpUpdate) {
             //for (L2Character temp : getStatus().getStatusListener())
-            for (L2PcInstance temp : getKnownList().getKnownPlayersInRadius(600)) {
-                if (temp != null) {
-                    temp.sendPacket(su);
-                }
-            }
+            getKnownList().forEachKnownPlayerInRadius(600, temp -> temp.sendPacket(su));
 
             for (L2Character temp : getStatus().getStatusListener()) {
                 if (temp != null && !temp.isInsideRadius(this, 600, false, false)) {
@@ -4941,7 +4944,7 @@ public class L2PcInstance extends L2Playable {
      * Indeed, UserInfo packet contains PRIVATE DATA as MaxHP, STR, DEX...</B></FONT><BR><BR>
      */
     public final void broadcastUserInfo() {
-        // Send a Server->Client packet UserInfo to this L2PcInstance
+        // Send a Server->Client packet UserInfo to this L2PcInstance, in order with the packets following it
         sendPacket(new UserInfo(this));
         sendPacket(new ExUserPaperdoll(this));
         sendPacket(new ExUserCubics(this));
@@ -4951,6 +4954,18 @@ public class L2PcInstance extends L2Playable {
         //sendPacket(new ExSubjobInfo(this));
         sendPacket(new ExVitalityEffectInfo(getVitalityPoints(), 200));
 
+        // Only what the other players see can wait for the BroadcastUpdateTaskManager tick
+        if (BroadcastUpdateTaskManager.getInstance().coalesce(this, BroadcastType.USER_INFO)) {
+            return;
+        }
+
+        broadcastCharInfo();
+    }
+
+    /**
+     * Send the CharInfo to the known players straight away.
+     */
+    public final void broadcastCharInfo() {
         // Send a Server->Client packet CharInfo to all L2PcInstance in _KnownPlayers of the L2PcInstance
         if (Config.DEBUG) {
             Log.fine("players to notify:" + getKnownList().getKnownPlayers().size() + " packet: [S] 03 CharInfo");
@@ -7657,6 +7672,7 @@ public class L2PcInstance extends L2Playable {
     private static L2PcInstance restore(int objectId) {
         L2PcInstance player = null;
         Connection con = null;
+        final long start = System.nanoTime();
 
         try {
             // Retrieve the L2PcInstance from the characters table of the database
@@ -7888,21 +7904,49 @@ public class L2PcInstance extends L2Playable {
                     HeroesManager.getInstance().getHeroes().containsKey(objectId)) {
                 player.setHero(true);
             }
+            CharacterLoadStats.add("Character", System.nanoTime() - start);
+
+            // Retrieve meanwhile the data which doesn't depend on the rest of the character
+            final L2PcInstance loaded = player;
+            final List<Future<?>> parallelStages = new ArrayList<>();
+            parallelStages.add(restoreStage("Friends", loaded::restoreFriendList));
+            parallelStages.add(restoreStage("Block list", loaded::restoreBlockList));
+            parallelStages.add(restoreStage("Mentors", () -> {
+                loaded.restoreMenteeList();
+                loaded.restoreMentorInfo();
+            }));
+            parallelStages.add(restoreStage("Macros", loaded._macroses::restore));
+            parallelStages.add(restoreStage("Teleport bookmarks", loaded::restoreTeleportBookmark));
+            parallelStages.add(restoreStage("Recipes", () -> {
+                loaded.restoreRecipeBook(true);
+                if (Config.STORE_RECIPE_SHOPLIST) {
+                    loaded.restoreRecipeShopList();
+                }
+            }));
+            parallelStages.add(restoreStage("Premium items", loaded::loadPremiumItemList));
+            if (Config.STORE_UI_SETTINGS) {
+                parallelStages.add(restoreStage("UI settings", loaded::restoreUISettings));
+            }
+            parallelStages.add(restoreStage("Zone restart limit", loaded::restoreZoneRestartLimitTime));
+            parallelStages.add(restoreStage("Gear presets", loaded::restoreGearPresets));
 
-            // Retrieve from the database all skills of this L2PcInstance and add them to _skills
             // Retrieve from the database all items of this L2PcInstance and add them to _inventory
-            player.getInventory().restore();
-            if (!Config.WAREHOUSE_CACHE) {
-                player.getWarehouse();
-            }
+            CharacterLoadStats.time("Inventory", () -> {
+                loaded.getInventory().restore();
+                if (!Config.WAREHOUSE_CACHE) {
+                    loaded.getWarehouse();
+                }
+            });
 
             // Retrieve from the database all secondary data of this L2PcInstance
             // and reward expertise/lucky skills if necessary.
             // Note that Clan, Noblesse and Hero skills are given separately and not here.
             player.restoreCharData();
 
-            player.giveSkills(false);
-            player.rewardSkills();
+            CharacterLoadStats.time("Give skills", () -> {
+                loaded.giveSkills(false);
+                loaded.rewardSkills();
+            });
 
             if (playerTemporaryLevel != 0) {
                 player.setTemporaryLevelToApply(playerTemporaryLevel);
@@ -7910,8 +7954,15 @@ public class L2PcInstance extends L2Playable {
 
             // buff and status icons
             if (Config.STORE_SKILL_COOLTIME) {
-                player.restoreEffects();
+                CharacterLoadStats.time("Effects", loaded::restoreEffects);
+            }
+
+            // The rest needs the parallel stages
+            final long waitStart = System.nanoTime();
+            for (Future<?> stage : parallelStages) {
+                stage.get();
             }
+            CharacterLoadStats.add("Waiting parallel stages", System.nanoTime() - waitStart);
 
             // Restore current Cp, HP and MP values
             player.setCurrentCp(currentCp);
@@ -7934,12 +7985,6 @@ public class L2PcInstance extends L2Playable {
             // Update the expertise status of the L2PcInstance
             player.refreshExpertisePenalty();
 
-            player.restoreFriendList();
-
-            player.restoreMenteeList();
-            player.restoreMentorInfo();
-
-            player.restoreBlockList();
             if (player.isMentor()) {
                 player.giveMentorSkills();
             }
@@ -7947,14 +7992,8 @@ public class L2PcInstance extends L2Playable {
                 player.giveMenteeSkills();
             }
 
-            if (Config.STORE_UI_SETTINGS) {
-                player.restoreUISettings();
-            }
-
             player.restoreLastSummons();
 
-            player.restoreZoneRestartLimitTime();
-            player.restoreGearPresets();
             //OpenWorldOlympiadsManager.getInstance().onLogin(player);
         } catch (Exception e) {
             Log.log(Level.SEVERE, "Failed loading character.", e);
@@ -7963,9 +8002,22 @@ public class L2PcInstance extends L2Playable {
             L2DatabaseFactory.close(con);
         }
 
+        CharacterLoadStats.add("Total", System.nanoTime() - start);
         return player;
     }
 
+    /**
+     * Run a stage of the character restore on the character load pool, or right away if it has no threads.
+     */
+    private static Future<?> restoreStage(String stage, Runnable task) {
+        if (Config.CHARACTER_LOAD_THREADS <= 0) {
+            CharacterLoadStats.time(stage, task);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return ThreadPoolManager.getInstance().submitCharacterLoad(() -> CharacterLoadStats.time(stage, task));
+    }
+
     /**
      * @return
      */
@@ -8059,39 +8111,24 @@ public class L2PcInstance extends L2Playable {
      */
     private void restoreCharData() {
         // Retrieve from the database all skills of this L2PcInstance and add them to _skills.
-        restoreSkills();
+        CharacterLoadStats.time("Skills", this::restoreSkills);
 
-        // Retrieve from the database all macroses of this L2PcInstance and add them to _macroses.
-        _macroses.restore();
+        // Macroses, teleport bookmarks, recipe book, recipe shop list and premium items are restored in parallel by restore()
 
         // Retrieve from the database all shortCuts of this L2PcInstance and add them to _shortCuts.
-        _shortCuts.restore();
+        CharacterLoadStats.time("Shortcuts", _shortCuts::restore);
 
         // Retrieve from the database all henna of this L2PcInstance and add them to _henna.
-        restoreHenna();
-
-        // Retrieve from the database all teleport bookmark of this L2PcInstance and add them to _tpbookmark.
-        restoreTeleportBookmark();
-
-        // Retrieve from the database the recipe book of this L2PcInstance.
-        restoreRecipeBook(true);
-
-        // Restore Recipe Shop list
-        if (Config.STORE_RECIPE_SHOPLIST) {
-            restoreRecipeShopList();
-        }
-
-        // Load Premium Item List
-        loadPremiumItemList();
+        CharacterLoadStats.time("Henna", this::restoreHenna);
 
         // Check for items in pet inventory
-        checkPetInvItems();
+        CharacterLoadStats.time("Pet items", this::checkPetInvItems);
 
-        restoreLastSummons();
+        CharacterLoadStats.time("Summons", this::restoreLastSummons);
 
-        restoreAbilities();
+        CharacterLoadStats.time("Abilities", this::restoreAbilities);
 
-        restoreConfigs();
+        CharacterLoadStats.time("Configs", this::restoreConfigs);
     }
 
     /**
@@ -8353,9 +8390,9 @@ public class L2PcInstance extends L2Playable {
                     statement.setInt(6, subClass.getCertificates());
                     statement.setInt(7, getObjectId());
                     statement.setInt(8, subClass.getClassIndex());
-
-                    statement.execute();
+                    statement.addBatch();
                 }
+                statement.executeBatch();
             }
             statement.close();
         } catch (Exception e) {
@@ -8436,7 +8473,7 @@ public class L2PcInstance extends L2Playable {
                         statement.setInt(8, 0);
                         statement.setInt(9, getClassIndex());
                         statement.setInt(10, ++buff_index);
-                        statement.execute();
+                        statement.addBatch();
                     }
                 }
             }
@@ -8462,9 +8499,12 @@ public class L2PcInstance extends L2Playable {
                     statement.setInt(8, 1);
                     statement.setInt(9, getClassIndex());
                     statement.setInt(10, ++buff_index);
-                    statement.execute();
+                    statement.addBatch();
                 }
             }
+            if (buff_index > 0) {
+                statement.executeBatch();
+            }
             statement.close();
         } catch (Exception e) {
             Log.log(Level.WARNING, "Could not store char effect data: ", e);
@@ -9109,6 +9149,8 @@ public class L2PcInstance extends L2Playable {
 
             _hennaElem[_henna[i].getStatElemId()] = _henna[i].getStatElemVal();
         }
+
+        getStat().invalidateStatCache();
     }
 
     /**
@@ -11050,6 +11092,9 @@ public class L2PcInstance extends L2Playable {
 
     public void setIsInOlympiadMode(boolean b) {
         _inOlympiadMode = b;
+
+        // The enchant level of the equipment may be limited in the olympiad
+        getStat().invalidateStatCache();
     }
 
     public void setIsOlympiadStart(boolean b) {
@@ -12937,6 +12982,26 @@ public class L2PcInstance extends L2Playable {
             Log.log(Level.SEVERE, "deleteMe()", e);
         }
 
+        // Write the queued updates of the player's items, the player may log in again right away. While shutting down
+        // nobody can log in and the queues are written once after all the characters, see disconnectAllCharacters()
+        final boolean shuttingDown = Shutdown.getInstance().isShuttingDown();
+        if (Config.ITEMS_WRITE_BEHIND && !shuttingDown) {
+            try {
+                ItemsWriteBehindManager.getInstance().flush(getObjectId());
+            } catch (Exception e) {
+                Log.log(Level.SEVERE, "deleteMe()", e);
+            }
+        }
+
+        // Same for the quest variables
+        if (Config.QUEST_VARS_WRITE_BEHIND && !shuttingDown) {
+            try {
+                QuestVarsWriteBehindManager.getInstance().flush(getObjectId());
+            } catch (Exception e) {
+                Log.log(Level.SEVERE, "deleteMe()", e);
+            }
+        }
+
         if (isCursedWeaponEquipped()) {
             try {
                 CursedWeaponsManager.getInstance().getCursedWeapon(_cursedWeaponEquippedId).setPlayer(null);
@@ -18487,6 +18552,7 @@ public class L2PcInstance extends L2Playable {
             _temporaryPlayerClass = null;
             _temporaryTemplateId = 0;
             _temporaryTemplate = null;
+            getStat().invalidateStatCache();
 
             giveSkills(false);
 
@@ -18621,6 +18687,7 @@ public class L2PcInstance extends L2Playable {
                         _temporaryPlayerClass.getRace().ordinal() * 2 + (_temporaryPlayerClass.isMage() ? 1 : 0);
 
                 _temporaryTemplate = CharTemplateTable.getInstance().getTemplate(_temporaryTemplateId);
+                getStat().invalidateStatCache();
             }
 
             // No Brooches for non awakened characters...
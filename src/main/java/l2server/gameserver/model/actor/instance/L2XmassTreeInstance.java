@@ -24,7 +24,6 @@ import l2server.gameserver.model.actor.L2Npc;
 import l2server.gameserver.network.serverpackets.ActionFailed;
 import l2server.gameserver.templates.chars.L2NpcTemplate;
 
-import java.util.Collection;
 import java.util.concurrent.ScheduledFuture;
 
 /**
@@ -56,14 +55,13 @@ public class L2XmassTreeInstance extends L2Npc
 				_caster._aiTask = null;
 				return;
 			}
-			Collection<L2PcInstance> plrs = getKnownList().getKnownPlayersInRadius(200);
-			for (L2PcInstance player : plrs)
+			getKnownList().forEachKnownPlayerInRadius(200, player ->
 			{
 				if (player.getFirstEffect(_skill.getId()) == null)
 				{
 					_skill.getEffects(player, player);
 				}
-			}
+			});
 		}
 	}
 
@@ -26,7 +26,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class CharKnownList extends ObjectKnownList
 {
@@ -214,29 +215,58 @@ public class CharKnownList extends ObjectKnownList
 
 	public Collection<L2Character> getKnownCharacters()
 	{
-		ArrayList<L2Character> result = new ArrayList<>();
-
-		final Collection<L2Object> objs = getKnownObjects().values();
-		//synchronized (getKnownObjects())
+		final ArrayList<L2Character> result = new ArrayList<>();
+		for (L2Object obj : getKnownObjects().values())
 		{
-			result.addAll(objs.stream().filter(obj -> obj instanceof L2Character).map(obj -> (L2Character) obj)
-					.collect(Collectors.toList()));
+			if (obj instanceof L2Character)
+			{
+				result.add((L2Character) obj);
+			}
 		}
 		return result;
 	}
 
+	/**
+	 * @return a new list of the known characters in the radius, use forEachKnownCharacterInRadius() when the list
+	 * itself isn't needed
+	 */
 	public Collection<L2Character> getKnownCharactersInRadius(long radius)
 	{
-		ArrayList<L2Character> result = new ArrayList<>();
+		final ArrayList<L2Character> result = new ArrayList<>();
+		forEachKnownCharacterInRadius(radius, result::add);
+		return result;
+	}
 
-		final Collection<L2Object> objs = getKnownObjects().values();
-		//synchronized (getKnownObjects())
+	/**
+	 * Visit the known characters in the radius (including the collision radius) without building a list.
+	 */
+	public final void forEachKnownCharacterInRadius(long radius, Consumer<? super L2Character> action)
+	{
+		final L2Character activeChar = getActiveChar();
+		for (L2Object obj : getKnownObjects().values())
 		{
-			result.addAll(objs.stream().filter(obj -> obj instanceof L2Character)
-					.filter(obj -> Util.checkIfInRange((int) radius, getActiveChar(), obj, true))
-					.map(obj -> (L2Character) obj).collect(Collectors.toList()));
+			if (obj instanceof L2Character && Util.checkIfInRange((int) radius, activeChar, obj, true))
+			{
+				action.accept((L2Character) obj);
+			}
 		}
-		return result;
+	}
+
+	/**
+	 * @return the first known character in the radius matching the condition, or null
+	 */
+	public final L2Character findKnownCharacterInRadius(long radius, Predicate<? super L2Character> condition)
+	{
+		final L2Character activeChar = getActiveChar();
+		for (L2Object obj : getKnownObjects().values())
+		{
+			if (obj instanceof L2Character && Util.checkIfInRange((int) radius, activeChar, obj, true) &&
+					condition.test((L2Character) obj))
+			{
+				return (L2Character) obj;
+			}
+		}
+		return null;
 	}
 
 	public final Map<Integer, L2PcInstance> getKnownPlayers()
@@ -266,17 +296,45 @@ public class CharKnownList extends ObjectKnownList
 		return _knownSummons;
 	}
 
+	/**
+	 * @return a new list of the known players in the radius, use forEachKnownPlayerInRadius() when the list itself
+	 * isn't needed
+	 */
 	public final Collection<L2PcInstance> getKnownPlayersInRadius(long radius)
 	{
-		ArrayList<L2PcInstance> result = new ArrayList<>();
+		final ArrayList<L2PcInstance> result = new ArrayList<>();
+		forEachKnownPlayerInRadius(radius, result::add);
+		return result;
+	}
+
+	/**
+	 * Visit the known players in the radius (including the collision radius) without building a list.
+	 */
+	public final void forEachKnownPlayerInRadius(long radius, Consumer<? super L2PcInstance> action)
+	{
+		final L2Character activeChar = getActiveChar();
+		for (L2PcInstance player : getKnownPlayers().values())
+		{
+			if (Util.checkIfInRange((int) radius, activeChar, player, true))
+			{
+				action.accept(player);
+			}
+		}
+	}
 
-		final Collection<L2PcInstance> plrs = getKnownPlayers().values();
-		//synchronized (getKnownPlayers())
+	/**
+	 * @return true if a known player is in the radius, stops at the first one
+	 */
+	public final boolean hasKnownPlayersInRadius(long radius)
+	{
+		final L2Character activeChar = getActiveChar();
+		for (L2PcInstance player : getKnownPlayers().values())
 		{
-			result.addAll(
-					plrs.stream().filter(player -> Util.checkIfInRange((int) radius, getActiveChar(), player, true))
-							.collect(Collectors.toList()));
+			if (Util.checkIfInRange((int) radius, activeChar, player, true))
+			{
+				return true;
+			}
 		}
-		return result;
+		return false;
 	}
 }
@@ -15,6 +15,8 @@
 
 package l2server.gameserver.model.actor.position;
 
+import l2server.Config;
+import l2server.gameserver.model.KnownListGrid;
 import l2server.gameserver.model.L2Object;
 import l2server.gameserver.model.L2World;
 import l2server.gameserver.model.L2WorldRegion;
@@ -31,6 +33,9 @@ public class ObjectPosition
 	private int _heading = 0;
 	private Point3D _worldPosition;
 	private L2WorldRegion _worldRegion; // Object localization : Used for items/chars that are seen in the world
+	private int _knownListCell = -1; // KnownListGrid cell, -1 when not in the grid
+	private int _knownListX; // Where the KnownListGrid last updated the knownlist
+	private int _knownListY;
 
 	// =========================================================
 	// Constructor
@@ -64,6 +69,11 @@ public class ObjectPosition
 			{
 				updateWorldRegion();
 			}
+
+			if (Config.EVENT_BASED_KNOWNLIST && getActiveObject().isVisible())
+			{
+				KnownListGrid.getInstance().onMove(getActiveObject());
+			}
 		}
 		catch (Exception e)
 		{
@@ -225,6 +235,32 @@ public class ObjectPosition
 		return _worldRegion;
 	}
 
+	public final int getKnownListCell()
+	{
+		return _knownListCell;
+	}
+
+	public final void setKnownListCell(int cell)
+	{
+		_knownListCell = cell;
+	}
+
+	public final int getKnownListX()
+	{
+		return _knownListX;
+	}
+
+	public final int getKnownListY()
+	{
+		return _knownListY;
+	}
+
+	public final void setKnownListXY(int x, int y)
+	{
+		_knownListX = x;
+		_knownListY = y;
+	}
+
 	public void setWorldRegion(L2WorldRegion value)
 	{
 		if (_worldRegion != null &&
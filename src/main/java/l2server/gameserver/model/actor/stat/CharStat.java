@@ -32,6 +32,8 @@ import l2server.gameserver.templates.item.L2Weapon;
 import l2server.gameserver.templates.item.L2WeaponType;
 import l2server.gameserver.templates.skills.L2SkillType;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class CharStat
 {
 	// =========================================================
@@ -41,6 +43,10 @@ public class CharStat
 	private long _sp = 0;
 	private byte _level = 1;
 
+	// Results of calcStat for the stats which don't depend on the target or the skill (see StatCache config)
+	private final AtomicInteger _statCacheVersion = new AtomicInteger();
+	private CachedStat[] _statCache;
+
 	// =========================================================
 	// Constructor
 	public CharStat(L2Character activeChar)
@@ -98,6 +104,23 @@ public class CharStat
 			return init;
 		}
 
+		// The result only depends on the character: look for it in the cache first
+		final boolean cacheable = Config.STAT_CACHE && isCacheable(_activeChar.getCalculators(), c);
+		int version = 0;
+		int level = 0;
+		if (cacheable)
+		{
+			// Read the version before calculating, so a value calculated while the funcs change is never used
+			version = _statCacheVersion.get();
+			level = _activeChar.getLevel();
+
+			final CachedStat cached = getStatCache()[id];
+			if (cached != null && cached._version == version && cached._level == level && cached._init == init)
+			{
+				return cached._value;
+			}
+		}
+
 		// Create and init an Env object to pass parameters to the Calculator
 		Env env = new Env();
 		env.player = _activeChar;
@@ -135,9 +158,56 @@ public class CharStat
 			}
 		}
 
+		if (cacheable)
+		{
+			getStatCache()[id] = new CachedStat(version, level, init, env.value);
+		}
+
 		return env.value;
 	}
 
+	/**
+	 * Return true if the result of the Calculator can be cached, along with the results of the stats its Funcs read.
+	 */
+	private static boolean isCacheable(Calculator[] calculators, Calculator c)
+	{
+		if (!c.isCacheable())
+		{
+			return false;
+		}
+
+		for (Stats readStat : c.getReadStats())
+		{
+			final Calculator read = calculators[readStat.ordinal()];
+			if (read != null && !isCacheable(calculators, read))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Forget the cached stats. Must be called whenever something the cacheable Funcs depend on changes, other than
+	 * the level: the Funcs of the character (skills, effects and items), its equipment, hennas, class...
+	 */
+	public final void invalidateStatCache()
+	{
+		_statCacheVersion.incrementAndGet();
+	}
+
+	private CachedStat[] getStatCache()
+	{
+		CachedStat[] cache = _statCache;
+		if (cache == null)
+		{
+			cache = new CachedStat[Stats.NUM_STATS];
+			_statCache = cache;
+		}
+
+		return cache;
+	}
+
 	// =========================================================
 	// Method - Private
 
@@ -1305,5 +1375,19 @@ public class CharStat
 		return var;
 	}
 
+	private static final class CachedStat
+	{
+		private final int _version;
+		private final int _level;
+		private final double _init;
+		private final double _value;
 
+		private CachedStat(int version, int level, double init, double value)
+		{
+			_version = version;
+			_level = level;
+			_init = init;
+			_value = value;
+		}
+	}
 }
@@ -24,6 +24,8 @@ import l2server.gameserver.model.actor.stat.CharStat;
 import l2server.gameserver.network.serverpackets.StatusUpdate.StatusUpdateDisplay;
 import l2server.gameserver.stats.BaseStats;
 import l2server.gameserver.stats.Formulas;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager.BroadcastType;
 import l2server.log.Log;
 import l2server.util.Rnd;
 
@@ -361,7 +363,14 @@ public class CharStatus
 		// Send the Server->Client packet StatusUpdate with current HP and MP to all other L2PcInstance to inform
 		if (broadcastPacket)
 		{
-			getActiveChar().broadcastStatusUpdate(causer, display);
+			final BroadcastUpdateTaskManager broadcasts = BroadcastUpdateTaskManager.getInstance();
+			// The ones showing who caused it or the damage done can't wait for the next tick
+			if (causer != null || display != StatusUpdateDisplay.NONE ||
+					!broadcasts.coalesce(getActiveChar(), BroadcastType.STATUS))
+			{
+				broadcasts.cancel(getActiveChar(), BroadcastType.STATUS);
+				getActiveChar().broadcastStatusUpdate(causer, display);
+			}
 		}
 	}
 
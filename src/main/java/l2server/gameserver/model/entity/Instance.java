@@ -21,15 +21,12 @@ import l2server.gameserver.network.clientpackets.Say2;
 import l2server.gameserver.network.serverpackets.CreatureSay;
 import l2server.gameserver.network.serverpackets.L2GameServerPacket;
 import l2server.gameserver.network.serverpackets.SystemMessage;
+import l2server.gameserver.templates.InstanceTemplate;
 import l2server.gameserver.templates.StatsSet;
 import l2server.gameserver.templates.chars.L2DoorTemplate;
 import l2server.gameserver.templates.chars.L2NpcTemplate;
 import l2server.log.Log;
-import l2server.util.xml.XmlDocument;
-import l2server.util.xml.XmlNode;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
@@ -183,6 +180,7 @@ public class Instance extends ListenersContainer
 		{
 			_players.add(objectId);
 		}
+		InstanceManager.getInstance().onPlayerAdded(objectId, _id);
 	}
 
 	/**
@@ -196,6 +194,7 @@ public class Instance extends ListenersContainer
 		{
 			_players.remove(objectId);
 		}
+		InstanceManager.getInstance().onPlayerRemoved(objectId, _id);
 
 		if (_players.isEmpty() && _emptyDestroyTime >= 0)
 		{
@@ -351,6 +350,10 @@ public class Instance extends ListenersContainer
 
 		synchronized (_players)
 		{
+			for (int objectId : _players.toArray())
+			{
+				InstanceManager.getInstance().onPlayerRemoved(objectId, _id);
+			}
 			_players.clear();
 		}
 	}
@@ -401,183 +404,84 @@ public class Instance extends ListenersContainer
 
 	public void loadInstanceTemplate(String filename)
 	{
-		File xml = new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "instances/" + filename);
-
-		try
+		InstanceTemplate template = InstanceManager.getInstance().getInstanceTemplate(filename);
+		if (template != null)
 		{
-			XmlDocument doc = new XmlDocument(xml);
-			for (XmlNode n : doc.getChildren())
-			{
-				if (n.getName().equalsIgnoreCase("instance"))
-				{
-					parseInstance(n);
-				}
-			}
+			loadInstanceTemplate(template);
 		}
-		catch (IOException e)
+	}
+
+	/**
+	 * Stamp the template into this instance: its settings, doors, spawns and spawn location.
+	 */
+	public void loadInstanceTemplate(InstanceTemplate template)
+	{
+		setName(template.getName());
+
+		if (template.getActivityTime() >= 0)
 		{
-			Log.log(Level.WARNING, "Instance: can not find " + xml.getAbsolutePath() + " ! " + e.getMessage(), e);
+			_CheckTimeUpTask = ThreadPoolManager.getInstance()
+					.scheduleGeneral(new CheckTimeUp(template.getActivityTime() * 60000), 15000);
+			_instanceEndTime = System.currentTimeMillis() + template.getActivityTime() * 60000L + 15000;
 		}
-		catch (Exception e)
+		setAllowSummon(template.isSummonAllowed());
+		_emptyDestroyTime = template.getEmptyDestroyTime();
+		_showTimer = template.isShowTimer();
+		_isTimerIncrease = template.isTimerIncrease();
+		_timerText = template.getTimerText();
+		setPvPInstance(template.isPvPInstance());
+
+		for (InstanceTemplate.DoorInfo door : template.getDoors())
 		{
-			Log.log(Level.WARNING, "Instance: error while loading " + xml.getAbsolutePath() + " ! " + e.getMessage(),
-					e);
+			addDoor(door.getDoorId(), door.newStatsSet());
 		}
-	}
 
-	private void parseInstance(XmlNode node) throws Exception
-	{
-		L2Spawn spawnDat;
-		L2NpcTemplate npcTemplate;
-		String name = node.getString("name");
-		setName(name);
-
-		for (XmlNode n : node.getChildren())
+		for (InstanceTemplate.SpawnInfo spawn : template.getSpawns())
 		{
-			if (n.getName().equalsIgnoreCase("activityTime"))
-			{
-				if (n.hasAttribute("val"))
-				{
-					_CheckTimeUpTask = ThreadPoolManager.getInstance()
-							.scheduleGeneral(new CheckTimeUp(n.getInt("val") * 60000), 15000);
-					_instanceEndTime = System.currentTimeMillis() + n.getLong("val") * 60000 + 15000;
-				}
-			}
-			/*			else if (n.getName().equalsIgnoreCase("timeDelay"))
-                        {
-							a = n.getString("val");
-							if (a != null)
-								instance.setTimeDelay(Integer.parseInt(a);
-						}*/
-			else if (n.getName().equalsIgnoreCase("allowSummon"))
-			{
-				if (n.hasAttribute("val"))
-				{
-					setAllowSummon(n.getBool("val"));
-				}
-			}
-			else if (n.getName().equalsIgnoreCase("emptyDestroyTime"))
-			{
-				if (n.hasAttribute("val"))
-				{
-					_emptyDestroyTime = n.getLong("val") * 1000;
-				}
-			}
-			else if (n.getName().equalsIgnoreCase("showTimer"))
+			L2NpcTemplate npcTemplate = NpcTable.getInstance().getTemplate(spawn.getNpcId());
+			if (npcTemplate == null)
 			{
-				if (n.hasAttribute("val"))
-				{
-					_showTimer = n.getBool("val");
-				}
-				if (n.hasAttribute("increase"))
-				{
-					_isTimerIncrease = n.getBool("increase");
-				}
-				if (n.hasAttribute("text"))
-				{
-					_timerText = n.getString("text");
-				}
+				Log.warning("Instance: Data missing in NPC table for ID: " + spawn.getNpcId() + " in Instance " + getId());
+				continue;
 			}
-			else if (n.getName().equalsIgnoreCase("PvPInstance"))
+
+			try
 			{
-				if (n.hasAttribute("val"))
+				L2Spawn spawnDat = new L2Spawn(npcTemplate);
+				spawnDat.setX(spawn.getX());
+				spawnDat.setY(spawn.getY());
+				spawnDat.setZ(spawn.getZ());
+				spawnDat.setHeading(spawn.getHeading());
+				spawnDat.setRespawnDelay(spawn.getRespawn());
+				if (spawn.getRespawn() == 0)
 				{
-					setPvPInstance(n.getBool("val"));
+					spawnDat.stopRespawn();
 				}
-			}
-			else if (n.getName().equalsIgnoreCase("doorlist"))
-			{
-				for (XmlNode d : n.getChildren())
+				else
 				{
-					int doorId = 0;
-					if (d.getName().equalsIgnoreCase("door"))
-					{
-						doorId = d.getInt("doorId");
-						StatsSet set = new StatsSet();
-						for (XmlNode bean : d.getChildren())
-						{
-							if (bean.getName().equalsIgnoreCase("set"))
-							{
-								String setname = d.getString("name");
-								String value = d.getString("val");
-								set.set(setname, value);
-							}
-						}
-						addDoor(doorId, set);
-					}
+					spawnDat.startRespawn();
 				}
-			}
-			else if (n.getName().equalsIgnoreCase("spawnlist"))
-			{
-				for (XmlNode d : n.getChildren())
+				spawnDat.setInstanceId(getId());
+				L2Npc spawned = spawnDat.getNpc();
+				spawnDat.doSpawn();
+				if (spawn.getOnKillDelay() >= 0 && spawned instanceof L2Attackable)
 				{
-					int npcId = 0, x = 0, y = 0, z = 0, respawn = 0, heading = 0, delay = -1;
-
-					if (d.getName().equalsIgnoreCase("spawn"))
-					{
-
-						npcId = d.getInt("npcId");
-						x = d.getInt("x");
-						y = d.getInt("y");
-						z = d.getInt("z");
-						heading = d.getInt("heading");
-						respawn = d.getInt("respawn");
-						if (d.hasAttribute("onKillDelay"))
-						{
-							delay = d.getInt("onKillDelay");
-						}
-
-						npcTemplate = NpcTable.getInstance().getTemplate(npcId);
-						if (npcTemplate != null)
-						{
-							spawnDat = new L2Spawn(npcTemplate);
-							spawnDat.setX(x);
-							spawnDat.setY(y);
-							spawnDat.setZ(z);
-							spawnDat.setHeading(heading);
-							spawnDat.setRespawnDelay(respawn);
-							if (respawn == 0)
-							{
-								spawnDat.stopRespawn();
-							}
-							else
-							{
-								spawnDat.startRespawn();
-							}
-							spawnDat.setInstanceId(getId());
-							L2Npc spawned = spawnDat.getNpc();
-							spawnDat.doSpawn();
-							if (delay >= 0 && spawned instanceof L2Attackable)
-							{
-								((L2Attackable) spawned).setOnKillDelay(delay);
-							}
-						}
-						else
-						{
-							Log.warning(
-									"Instance: Data missing in NPC table for ID: " + npcId + " in Instance " + getId());
-						}
-					}
+					((L2Attackable) spawned).setOnKillDelay(spawn.getOnKillDelay());
 				}
 			}
-			else if (n.getName().equalsIgnoreCase("spawnpoint"))
+			catch (Exception e)
 			{
-				try
-				{
-					_spawnLoc[0] = n.getInt("spawnX");
-					_spawnLoc[1] = n.getInt("spawnY");
-					_spawnLoc[2] = n.getInt("spawnZ");
-				}
-				catch (Exception e)
-				{
-					Log.log(Level.WARNING, "Error parsing instance xml: " + e.getMessage(), e);
-					_spawnLoc = new int[3];
-				}
+				Log.log(Level.WARNING,
+						"Instance: error while spawning " + spawn.getNpcId() + " in " + template.getFileName() + " ! " +
+								e.getMessage(), e);
 			}
 		}
+
+		setSpawnLoc(template.getSpawnLoc());
+
 		if (Config.DEBUG)
 		{
-			Log.info(name + " Instance Template for Instance " + getId() + " loaded");
+			Log.info(template.getName() + " Instance Template for Instance " + getId() + " loaded");
 		}
 	}
 
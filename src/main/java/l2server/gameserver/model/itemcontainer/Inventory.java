@@ -1213,6 +1213,12 @@ public abstract class Inventory extends ItemContainer
 				}
 				item.updateDatabase();
 			}
+
+			// Some base stats depend on the equipped slots, not only on the Funcs of the items
+			if (getOwner() != null)
+			{
+				getOwner().getStat().invalidateStatCache();
+			}
 		}
 		return old;
 	}
@@ -33,6 +33,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,7 +45,12 @@ import java.util.logging.Level;
  */
 public abstract class ItemContainer
 {
+	protected static final L2ItemInstance[] NO_ITEMS = new L2ItemInstance[0];
+
+	// Items by object id
 	protected final Map<Integer, L2ItemInstance> _items = new ConcurrentHashMap<>();
+	// Items by item id. The arrays are replaced, never modified, so they can be read without locking
+	private final Map<Integer, L2ItemInstance[]> _itemsByItemId = new ConcurrentHashMap<>();
 
 	protected abstract L2Character getOwner();
 
@@ -95,15 +102,8 @@ public abstract class ItemContainer
 	 */
 	public L2ItemInstance getItemByItemId(int itemId)
 	{
-		for (L2ItemInstance item : _items.values())
-		{
-			if (item != null && item.getItemId() == itemId)
-			{
-				return item;
-			}
-		}
-
-		return null;
+		final L2ItemInstance[] items = _itemsByItemId.get(itemId);
+		return items == null ? null : items[0];
 	}
 
 	/**
@@ -114,16 +114,27 @@ public abstract class ItemContainer
 	 */
 	public List<L2ItemInstance> getItemsByItemId(int itemId)
 	{
-		List<L2ItemInstance> returnList = new ArrayList<>();
-		for (L2ItemInstance item : _items.values())
-		{
-			if (item != null && item.getItemId() == itemId)
-			{
-				returnList.add(item);
-			}
-		}
+		return Collections.unmodifiableList(Arrays.asList(getIndexedItems(itemId)));
+	}
+
+	/**
+	 * Returns the items having the given <B>itemId</B>, straight from the index: the array must not be modified.<BR><BR>
+	 *
+	 * @param itemId : int designating the ID of the item
+	 * @return L2ItemInstance[] designating the items (NO_ITEMS if not found)
+	 */
+	protected L2ItemInstance[] getIndexedItems(int itemId)
+	{
+		final L2ItemInstance[] items = _itemsByItemId.get(itemId);
+		return items == null ? NO_ITEMS : items;
+	}
 
-		return returnList;
+	/**
+	 * @return the arrays of items grouped by item id, to be read only
+	 */
+	protected Iterable<L2ItemInstance[]> getIndexedItems()
+	{
+		return _itemsByItemId.values();
 	}
 
 	/**
@@ -135,9 +146,9 @@ public abstract class ItemContainer
 	 */
 	public L2ItemInstance getItemByItemId(int itemId, L2ItemInstance itemToIgnore)
 	{
-		for (L2ItemInstance item : _items.values())
+		for (L2ItemInstance item : getIndexedItems(itemId))
 		{
-			if (item != null && item.getItemId() == itemId && !item.equals(itemToIgnore))
+			if (!item.equals(itemToIgnore))
 			{
 				return item;
 			}
@@ -154,19 +165,7 @@ public abstract class ItemContainer
 	 */
 	public L2ItemInstance getItemByObjectId(int objectId)
 	{
-		for (L2ItemInstance item : _items.values())
-		{
-			if (item == null)
-			{
-				continue;
-			}
-
-			if (item.getObjectId() == objectId)
-			{
-				return item;
-			}
-		}
-		return null;
+		return _items.get(objectId);
 	}
 
 	/**
@@ -189,9 +188,9 @@ public abstract class ItemContainer
 	{
 		long count = 0;
 
-		for (L2ItemInstance item : _items.values())
+		for (L2ItemInstance item : getIndexedItems(itemId))
 		{
-			if (item.getItemId() == itemId && (item.getEnchantLevel() == enchantLevel || enchantLevel < 0) &&
+			if ((item.getEnchantLevel() == enchantLevel || enchantLevel < 0) &&
 					(includeEquipped || !item.isEquipped()))
 			{
 				//if (item.isAvailable((L2PcInstance)getOwner(), true) || item.getItem().getType2() == 3)//available or quest item
@@ -560,18 +559,8 @@ public abstract class ItemContainer
 	 */
 	public long getAdena()
 	{
-		long count = 0;
-
-		for (L2ItemInstance item : _items.values())
-		{
-			if (item != null && item.getItemId() == 57)
-			{
-				count = item.getCount();
-				return count;
-			}
-		}
-
-		return count;
+		final L2ItemInstance adena = getItemByItemId(57);
+		return adena == null ? 0 : adena.getCount();
 	}
 
 	/**
@@ -583,7 +572,23 @@ public abstract class ItemContainer
 	{
 		synchronized (_items)
 		{
-			_items.put(item.getObjectId(), item);
+			final L2ItemInstance old = _items.put(item.getObjectId(), item);
+			if (old != null)
+			{
+				unindexItem(old);
+			}
+
+			final L2ItemInstance[] items = _itemsByItemId.get(item.getItemId());
+			if (items == null)
+			{
+				_itemsByItemId.put(item.getItemId(), new L2ItemInstance[]{item});
+			}
+			else
+			{
+				final L2ItemInstance[] newItems = Arrays.copyOf(items, items.length + 1);
+				newItems[items.length] = item;
+				_itemsByItemId.put(item.getItemId(), newItems);
+			}
 		}
 	}
 
@@ -596,7 +601,56 @@ public abstract class ItemContainer
 	{
 		synchronized (_items)
 		{
-			return _items.remove(item.getObjectId()) != null;
+			final L2ItemInstance removed = _items.remove(item.getObjectId());
+			if (removed == null)
+			{
+				return false;
+			}
+
+			unindexItem(removed);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes all the items from the container, without touching them.
+	 */
+	protected void clearItems()
+	{
+		synchronized (_items)
+		{
+			_items.clear();
+			_itemsByItemId.clear();
+		}
+	}
+
+	private void unindexItem(L2ItemInstance item)
+	{
+		final L2ItemInstance[] items = _itemsByItemId.get(item.getItemId());
+		if (items == null)
+		{
+			return;
+		}
+
+		for (int i = 0; i < items.length; i++)
+		{
+			if (items[i] != item)
+			{
+				continue;
+			}
+
+			if (items.length == 1)
+			{
+				_itemsByItemId.remove(item.getItemId());
+			}
+			else
+			{
+				final L2ItemInstance[] newItems = new L2ItemInstance[items.length - 1];
+				System.arraycopy(items, 0, newItems, 0, i);
+				System.arraycopy(items, i + 1, newItems, i, items.length - i - 1);
+				_itemsByItemId.put(item.getItemId(), newItems);
+			}
+			return;
 		}
 	}
 
@@ -621,7 +675,7 @@ public abstract class ItemContainer
 			Log.log(Level.SEVERE, "deletedMe()", e);
 		}
 		List<L2Object> items = new ArrayList<>(_items.values());
-		_items.clear();
+		clearItems();
 
 		L2World.getInstance().removeObjects(items);
 	}
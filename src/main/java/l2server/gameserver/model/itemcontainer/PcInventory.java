@@ -39,6 +39,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -122,35 +123,27 @@ public class PcInventory extends Inventory
 	public L2ItemInstance[] getUniqueItems(boolean allowAdena, boolean allowAncientAdena, boolean onlyAvailable)
 	{
 		ArrayList<L2ItemInstance> list = new ArrayList<>();
-		for (L2ItemInstance item : _items.values())
+		for (L2ItemInstance[] items : getIndexedItems())
 		{
-			if (!allowAdena && item.getItemId() == 57)
+			final int itemId = items[0].getItemId();
+			if (!allowAdena && itemId == ADENA_ID)
 			{
 				continue;
 			}
-			if (!allowAncientAdena && item.getItemId() == 5575)
+			if (!allowAncientAdena && itemId == ANCIENT_ADENA_ID)
 			{
 				continue;
 			}
 
-			boolean isDuplicate = false;
-			for (L2ItemInstance litem : list)
+			// The first one of each item id
+			for (L2ItemInstance item : items)
 			{
-				if (item == null)
-				{
-					continue;
-				}
-
-				if (litem.getItemId() == item.getItemId())
+				if (!onlyAvailable || item.isSellable() && item.isAvailable(getOwner(), false, false))
 				{
-					isDuplicate = true;
+					list.add(item);
 					break;
 				}
 			}
-			if (!isDuplicate && (!onlyAvailable || item.isSellable() && item.isAvailable(getOwner(), false, false)))
-			{
-				list.add(item);
-			}
 		}
 
 		return list.toArray(new L2ItemInstance[list.size()]);
@@ -170,33 +163,35 @@ public class PcInventory extends Inventory
 	public L2ItemInstance[] getUniqueItemsByEnchantLevel(boolean allowAdena, boolean allowAncientAdena, boolean onlyAvailable)
 	{
 		ArrayList<L2ItemInstance> list = new ArrayList<>();
-		for (L2ItemInstance item : _items.values())
+		for (L2ItemInstance[] items : getIndexedItems())
 		{
-			if (item == null)
-			{
-				continue;
-			}
-			if (!allowAdena && item.getItemId() == 57)
+			final int itemId = items[0].getItemId();
+			if (!allowAdena && itemId == ADENA_ID)
 			{
 				continue;
 			}
-			if (!allowAncientAdena && item.getItemId() == 5575)
+			if (!allowAncientAdena && itemId == ANCIENT_ADENA_ID)
 			{
 				continue;
 			}
 
-			boolean isDuplicate = false;
-			for (L2ItemInstance litem : list)
+			// The duplicates can only be among the items of the same id, already added at the end of the list
+			final int firstOfId = list.size();
+			for (L2ItemInstance item : items)
 			{
-				if (litem.getItemId() == item.getItemId() && litem.getEnchantLevel() == item.getEnchantLevel())
+				boolean isDuplicate = false;
+				for (int i = firstOfId; i < list.size(); i++)
 				{
-					isDuplicate = true;
-					break;
+					if (list.get(i).getEnchantLevel() == item.getEnchantLevel())
+					{
+						isDuplicate = true;
+						break;
+					}
+				}
+				if (!isDuplicate && (!onlyAvailable || item.isSellable() && item.isAvailable(getOwner(), false, false)))
+				{
+					list.add(item);
 				}
-			}
-			if (!isDuplicate && (!onlyAvailable || item.isSellable() && item.isAvailable(getOwner(), false, false)))
-			{
-				list.add(item);
 			}
 		}
 
@@ -214,27 +209,15 @@ public class PcInventory extends Inventory
 	/**
 	 * Returns the list of all items in inventory that have a given item id.
 	 *
+	 * The array comes straight from the item id index when there's nothing to filter: it must not be modified.
+	 *
 	 * @param itemId          : ID of item
 	 * @param includeEquipped : include equipped items
 	 * @return L2ItemInstance[] : matching items from inventory
 	 */
 	public L2ItemInstance[] getAllItemsByItemId(int itemId, boolean includeEquipped)
 	{
-		ArrayList<L2ItemInstance> list = new ArrayList<>();
-		for (L2ItemInstance item : _items.values())
-		{
-			if (item == null)
-			{
-				continue;
-			}
-
-			if (item.getItemId() == itemId && (includeEquipped || !item.isEquipped()))
-			{
-				list.add(item);
-			}
-		}
-
-		return list.toArray(new L2ItemInstance[list.size()]);
+		return getAllItemsByItemId(itemId, -1, includeEquipped);
 	}
 
 	/**
@@ -248,29 +231,48 @@ public class PcInventory extends Inventory
 	/**
 	 * Returns the list of all items in inventory that have a given item id AND a given enchantment level.
 	 *
+	 * The array comes straight from the item id index when there's nothing to filter: it must not be modified.
+	 *
 	 * @param itemId          : ID of item
-	 * @param enchantment     : enchant level of item
+	 * @param enchantment     : enchant level of item, or -1 for ANY enchant level
 	 * @param includeEquipped : include equipped items
 	 * @return L2ItemInstance[] : matching items from inventory
 	 */
 	public L2ItemInstance[] getAllItemsByItemId(int itemId, int enchantment, boolean includeEquipped)
 	{
-		ArrayList<L2ItemInstance> list = new ArrayList<>();
-		for (L2ItemInstance item : _items.values())
+		final L2ItemInstance[] items = getIndexedItems(itemId);
+
+		int count = 0;
+		for (L2ItemInstance item : items)
 		{
-			if (item == null)
+			if ((enchantment < 0 || item.getEnchantLevel() == enchantment) && (includeEquipped || !item.isEquipped()))
 			{
-				continue;
+				count++;
 			}
+		}
+
+		if (count == items.length)
+		{
+			return items;
+		}
+		if (count == 0)
+		{
+			return NO_ITEMS;
+		}
 
-			if (item.getItemId() == itemId && item.getEnchantLevel() == enchantment &&
+		final L2ItemInstance[] result = new L2ItemInstance[count];
+		int i = 0;
+		for (L2ItemInstance item : items)
+		{
+			if (i < count && (enchantment < 0 || item.getEnchantLevel() == enchantment) &&
 					(includeEquipped || !item.isEquipped()))
 			{
-				list.add(item);
+				result[i++] = item;
 			}
 		}
 
-		return list.toArray(new L2ItemInstance[list.size()]);
+		// Something got unequipped meanwhile
+		return i == count ? result : Arrays.copyOf(result, i);
 	}
 
 	/**
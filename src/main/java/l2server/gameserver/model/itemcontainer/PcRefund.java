@@ -103,7 +103,7 @@ public class PcRefund extends ItemContainer
 		{
 			Log.log(Level.SEVERE, "deleteMe()", e);
 		}
-		_items.clear();
+		clearItems();
 	}
 
 	@Override
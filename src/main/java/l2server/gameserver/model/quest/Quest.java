@@ -23,6 +23,8 @@ import l2server.gameserver.cache.HtmCache;
 import l2server.gameserver.datatables.NpcTable;
 import l2server.gameserver.idfactory.IdFactory;
 import l2server.gameserver.instancemanager.QuestManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager.Operation;
 import l2server.gameserver.instancemanager.ZoneManager;
 import l2server.gameserver.model.L2Object;
 import l2server.gameserver.model.L2Party;
@@ -1228,6 +1230,12 @@ public class Quest extends AbstractScript
 	 */
 	public final void saveGlobalQuestVar(String var, String value)
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND && QuestVarsWriteBehindManager.getInstance()
+				.add(QuestVarsWriteBehindManager.GLOBAL, getName(), var, value, Operation.CREATE))
+		{
+			return;
+		}
+
 		Connection con = null;
 		try
 		{
@@ -1262,6 +1270,16 @@ public class Quest extends AbstractScript
 	 */
 	public final String loadGlobalQuestVar(String var)
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND)
+		{
+			String pending = QuestVarsWriteBehindManager.getInstance()
+					.getPendingValue(QuestVarsWriteBehindManager.GLOBAL, getName(), var);
+			if (pending != null)
+			{
+				return pending;
+			}
+		}
+
 		String result = "";
 		Connection con = null;
 		try
@@ -1297,6 +1315,12 @@ public class Quest extends AbstractScript
 	 */
 	public final void deleteGlobalQuestVar(String var)
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND && QuestVarsWriteBehindManager.getInstance()
+				.add(QuestVarsWriteBehindManager.GLOBAL, getName(), var, null, Operation.DELETE))
+		{
+			return;
+		}
+
 		Connection con = null;
 		try
 		{
@@ -1323,6 +1347,11 @@ public class Quest extends AbstractScript
 	 */
 	public final void deleteAllGlobalQuestVars()
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND)
+		{
+			QuestVarsWriteBehindManager.getInstance().cancel(QuestVarsWriteBehindManager.GLOBAL, getName());
+		}
+
 		Connection con = null;
 		try
 		{
@@ -1352,6 +1381,12 @@ public class Quest extends AbstractScript
 	 */
 	public static void createQuestVarInDb(QuestState qs, String var, String value)
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND && QuestVarsWriteBehindManager.getInstance()
+				.add(qs.getPlayer().getObjectId(), qs.getQuestName(), var, value, Operation.CREATE))
+		{
+			return;
+		}
+
 		Connection con = null;
 		try
 		{
@@ -1394,6 +1429,12 @@ public class Quest extends AbstractScript
 	 */
 	public static void updateQuestVarInDb(QuestState qs, String var, String value)
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND && QuestVarsWriteBehindManager.getInstance()
+				.add(qs.getPlayer().getObjectId(), qs.getQuestName(), var, value, Operation.UPDATE))
+		{
+			return;
+		}
+
 		Connection con = null;
 		try
 		{
@@ -1426,6 +1467,12 @@ public class Quest extends AbstractScript
 	 */
 	public static void deleteQuestVarInDb(QuestState qs, String var)
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND && QuestVarsWriteBehindManager.getInstance()
+				.add(qs.getPlayer().getObjectId(), qs.getQuestName(), var, null, Operation.DELETE))
+		{
+			return;
+		}
+
 		Connection con = null;
 		try
 		{
@@ -1455,6 +1502,11 @@ public class Quest extends AbstractScript
 	 */
 	public static void deleteQuestInDb(QuestState qs)
 	{
+		if (Config.QUEST_VARS_WRITE_BEHIND)
+		{
+			QuestVarsWriteBehindManager.getInstance().cancel(qs.getPlayer().getObjectId(), qs.getQuestName());
+		}
+
 		Connection con = null;
 		try
 		{
@@ -38,6 +38,15 @@ public abstract class L2ZoneForm
 
 	//landing coordinates.
 
+	// Bounding box on the plane, for the zone grid of the world regions
+	public abstract int getMinX();
+
+	public abstract int getMaxX();
+
+	public abstract int getMinY();
+
+	public abstract int getMaxY();
+
 	protected boolean lineSegmentsIntersect(int ax1, int ay1, int ax2, int ay2, int bx1, int by1, int bx2, int by2)
 	{
 		return java.awt.geom.Line2D.linesIntersect(ax1, ay1, ax2, ay2, bx1, by1, bx2, by2);
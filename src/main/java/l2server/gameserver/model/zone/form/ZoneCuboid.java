@@ -180,6 +180,30 @@ public class ZoneCuboid extends L2ZoneForm
 		return _z2;
 	}
 
+	@Override
+	public int getMinX()
+	{
+		return _x1;
+	}
+
+	@Override
+	public int getMaxX()
+	{
+		return _x2;
+	}
+
+	@Override
+	public int getMinY()
+	{
+		return _y1;
+	}
+
+	@Override
+	public int getMaxY()
+	{
+		return _y2;
+	}
+
 	@Override
 	public int getCenterX()
 	{
@@ -123,6 +123,30 @@ public class ZoneCylinder extends L2ZoneForm
 		return _z2;
 	}
 
+	@Override
+	public int getMinX()
+	{
+		return _x - _rad;
+	}
+
+	@Override
+	public int getMaxX()
+	{
+		return _x + _rad;
+	}
+
+	@Override
+	public int getMinY()
+	{
+		return _y - _rad;
+	}
+
+	@Override
+	public int getMaxY()
+	{
+		return _y + _rad;
+	}
+
 	@Override
 	public int getCenterX()
 	{
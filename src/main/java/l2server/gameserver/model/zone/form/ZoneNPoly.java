@@ -44,6 +44,17 @@ public class ZoneNPoly extends L2ZoneForm
 		_y = y;
 		_z1 = z1;
 		_z2 = z2;
+		_minX = Integer.MAX_VALUE;
+		_maxX = Integer.MIN_VALUE;
+		_minY = Integer.MAX_VALUE;
+		_maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < x.length; i++)
+		{
+			_minX = Math.min(_minX, x[i]);
+			_maxX = Math.max(_maxX, x[i]);
+			_minY = Math.min(_minY, y[i]);
+			_maxY = Math.max(_maxY, y[i]);
+		}
 	}
 
 	public ZoneNPoly(int[] x, int[] y, int z1, int z2, int minX, int maxX, int minY, int maxY)
@@ -61,7 +72,7 @@ public class ZoneNPoly extends L2ZoneForm
 	@Override
 	public boolean isInsideZone(int x, int y, int z)
 	{
-		if (z < _z1 || z > _z2)
+		if (z < _z1 || z > _z2 || x < _minX || x > _maxX || y < _minY || y > _maxY)
 		{
 			return false;
 		}
@@ -184,6 +195,30 @@ public class ZoneNPoly extends L2ZoneForm
 		return _z2;
 	}
 
+	@Override
+	public int getMinX()
+	{
+		return _minX;
+	}
+
+	@Override
+	public int getMaxX()
+	{
+		return _maxX;
+	}
+
+	@Override
+	public int getMinY()
+	{
+		return _minY;
+	}
+
+	@Override
+	public int getMaxY()
+	{
+		return _maxY;
+	}
+
 	@Override
 	public int getCenterX()
 	{
@@ -17,6 +17,9 @@ package l2server.gameserver.network;
 
 import l2server.Config;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ClientStats
 {
 	public int processedPackets = 0;
@@ -30,6 +33,12 @@ public class ClientStats
 	public int longFloods = 0;
 	public int totalQueueOverflows = 0;
 	public int totalUnderflowExceptions = 0;
+	// Time waited in the packet pools (us)
+	public long totalWaitTime = 0;
+	public long maxWaitTime = 0;
+	public int timesScheduled = 0;
+
+	private final Map<Class<?>, PacketTimes> _packetTimes = new ConcurrentHashMap<>();
 
 	private final int[] _packetsInSecond;
 	private long _packetCountStartTick = 0;
@@ -90,6 +99,36 @@ public class ClientStats
 		return countPacket();
 	}
 
+	/**
+	 * Counts the time the client waited in a packet pool before its packets were run.
+	 */
+	protected final void countWait(long nanos)
+	{
+		final long time = nanos / 1000;
+		timesScheduled++;
+		totalWaitTime += time;
+		if (time > maxWaitTime)
+		{
+			maxWaitTime = time;
+		}
+	}
+
+	/**
+	 * Counts the time a packet took to run.
+	 */
+	protected final void countPacketTime(Class<?> packet, long nanos)
+	{
+		_packetTimes.computeIfAbsent(packet, k -> new PacketTimes()).add(nanos);
+	}
+
+	/**
+	 * @return the times of each client packet class run for this client
+	 */
+	public Map<Class<?>, PacketTimes> getPacketTimes()
+	{
+		return _packetTimes;
+	}
+
 	/**
 	 * Counts unknown packets and return true if threshold is reached.
 	 */
@@ -245,4 +284,55 @@ public class ClientStats
 
 		return false;
 	}
+
+	/**
+	 * Run times of a packet type, with a power of two histogram: this one is kept for each client.
+	 */
+	public static final class PacketTimes
+	{
+		private final PacketStats.Histogram _histogram = new PacketStats.Histogram(0);
+		private int _count;
+		private long _total;
+		private long _max;
+
+		private void add(long nanos)
+		{
+			_histogram.add(nanos);
+			_count++;
+			_total += nanos;
+			if (nanos > _max)
+			{
+				_max = nanos;
+			}
+		}
+
+		public int getCount()
+		{
+			return _count;
+		}
+
+		/**
+		 * @return the total run time (ns)
+		 */
+		public long getTotalTime()
+		{
+			return _total;
+		}
+
+		/**
+		 * @return the longest run time (ns)
+		 */
+		public long getMaxTime()
+		{
+			return _max;
+		}
+
+		/**
+		 * @return the upper bound (ns) of the bucket holding the given fraction of the runs, e.g. 0.99
+		 */
+		public long getPercentile(double fraction)
+		{
+			return Math.min(_histogram.getPercentile(fraction), _max);
+		}
+	}
 }
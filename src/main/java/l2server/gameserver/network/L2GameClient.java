@@ -27,6 +27,7 @@ import l2server.gameserver.events.instanced.EventsManager;
 import l2server.gameserver.instancemanager.AntiFeedManager;
 import l2server.gameserver.instancemanager.ArenaManager;
 import l2server.gameserver.instancemanager.CustomOfflineBuffersManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager;
 import l2server.gameserver.instancemanager.arena.Fighter;
 import l2server.gameserver.model.CharSelectInfoPackage;
 import l2server.gameserver.model.L2Abnormal;
@@ -35,6 +36,7 @@ import l2server.gameserver.model.L2World;
 import l2server.gameserver.model.actor.L2Character;
 import l2server.gameserver.model.actor.instance.L2PcInstance;
 import l2server.gameserver.model.actor.instance.L2SummonInstance;
+import l2server.gameserver.network.clientpackets.L2GameClientPacket;
 import l2server.gameserver.network.serverpackets.ActionFailed;
 import l2server.gameserver.network.serverpackets.L2GameServerPacket;
 import l2server.gameserver.network.serverpackets.ServerClose;
@@ -56,6 +58,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -115,7 +118,10 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 	private int _protocolVersion;
 
 	private final ArrayBlockingQueue<ReceivablePacket<L2GameClient>> _packetQueue;
-	private ReentrantLock _queueLock = new ReentrantLock();
+	// Queued in a packet pool or running its packets
+	private final AtomicBoolean _scheduled = new AtomicBoolean();
+	private boolean _scheduledIO;
+	private long _scheduleTime;
 
 	private int[][] trace;
 
@@ -462,6 +468,11 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 
 		CharNameTable.getInstance().removeName(objid);
 
+		if (Config.QUEST_VARS_WRITE_BEHIND)
+		{
+			QuestVarsWriteBehindManager.getInstance().cancel(objid, null);
+		}
+
 		Connection con = null;
 
 		try
@@ -1243,25 +1254,37 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 			return;
 		}
 
-		if (_queueLock.isLocked()) // already processing
+		if (_state == GameClientState.CONNECTED && getStats().processedPackets > 3)
 		{
+			if (Config.PACKET_HANDLER_DEBUG)
+			{
+				Log.severe("Client " + toString() + " - Disconnected, too many packets in non-authed state.");
+			}
+			closeNow();
 			return;
 		}
 
+		// Already waiting in a pool or running, the packet will be taken then
+		if (!_scheduled.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		schedule();
+	}
+
+	/**
+	 * Queue this client in the packet pool of its next packet. A client is queued at most once at a time and goes back
+	 * to the end of the queue after each burst, so the clients sending many packets don't delay the others.
+	 */
+	private void schedule()
+	{
+		_scheduledIO = isIOPacket(_packetQueue.peek());
+		_scheduleTime = System.nanoTime();
 		try
 		{
-			if (_state == GameClientState.CONNECTED)
+			if (_scheduledIO)
 			{
-				if (getStats().processedPackets > 3)
-				{
-					if (Config.PACKET_HANDLER_DEBUG)
-					{
-						Log.severe("Client " + toString() + " - Disconnected, too many packets in non-authed state.");
-					}
-					closeNow();
-					return;
-				}
-
 				ThreadPoolManager.getInstance().executeIOPacket(this);
 			}
 			else
@@ -1271,59 +1294,83 @@ public final class L2GameClient extends MMOClient<MMOConnection<L2GameClient>> i
 		}
 		catch (RejectedExecutionException e)
 		{
+			_scheduled.set(false);
 			// if the server is shutdown we ignore
 			if (!ThreadPoolManager.getInstance().isShutdown())
 			{
-				Log.severe("Failed executing: " + packet.getClass().getSimpleName() + " for Client: " + toString());
+				Log.severe("Failed executing packets for Client: " + toString());
 			}
 		}
 	}
 
+	private boolean isIOPacket(ReceivablePacket<L2GameClient> packet)
+	{
+		// Everything before the character selection (auth, character creation...) hits the database
+		return _state == GameClientState.CONNECTED ||
+				packet instanceof L2GameClientPacket && ((L2GameClientPacket) packet).isIOBound();
+	}
+
 	@Override
 	public void run()
 	{
-		if (!_queueLock.tryLock())
-		{
-			return;
-		}
+		getStats().countWait(System.nanoTime() - _scheduleTime);
 
-		try
+		int count = 0;
+		while (true)
 		{
-			int count = 0;
-			while (true)
+			final ReceivablePacket<L2GameClient> packet = _packetQueue.peek();
+			if (packet == null) // queue is empty
 			{
-				final ReceivablePacket<L2GameClient> packet = _packetQueue.poll();
-				if (packet == null) // queue is empty
-				{
-					return;
-				}
+				break;
+			}
 
-				if (_isDetached) // clear queue immediately after detach
-				{
-					_packetQueue.clear();
-					return;
-				}
+			if (_isDetached) // clear queue immediately after detach
+			{
+				_packetQueue.clear();
+				break;
+			}
 
-				try
-				{
-					packet.run();
-				}
-				catch (Exception e)
-				{
-					Log.severe("Exception during execution " + packet.getClass().getSimpleName() + ", client: " +
-							toString() + "," + e.getMessage());
-				}
+			// The next packet belongs to the other pool
+			if (isIOPacket(packet) != _scheduledIO)
+			{
+				schedule();
+				return;
+			}
 
-				count++;
-				if (getStats().countBurst(count))
-				{
-					return;
-				}
+			_packetQueue.poll();
+			final long allocated = Config.PACKET_STATS ? PacketStats.getInstance().getAllocatedBytes() : 0;
+			final long start = System.nanoTime();
+			try
+			{
+				packet.run();
+			}
+			catch (Exception e)
+			{
+				Log.severe("Exception during execution " + packet.getClass().getSimpleName() + ", client: " +
+						toString() + "," + e.getMessage());
+			}
+			final long time = System.nanoTime() - start;
+			getStats().countPacketTime(packet.getClass(), time);
+			if (Config.PACKET_STATS)
+			{
+				PacketStats.getInstance()
+						.count(packet.getClass(), time, PacketStats.getInstance().getAllocatedBytes() - allocated);
+			}
+
+			count++;
+			if (getStats().countBurst(count))
+			{
+				// Let the other clients run before the rest of the queue
+				schedule();
+				return;
 			}
 		}
-		finally
+
+		_scheduled.set(false);
+		// A packet queued after the queue was found empty, but before the flag was cleared
+		if (!_packetQueue.isEmpty() && _scheduled.compareAndSet(false, true))
 		{
-			_queueLock.unlock();
+			schedule();
 		}
 	}
 
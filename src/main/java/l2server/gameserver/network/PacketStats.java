@@ -0,0 +1,361 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.network;
+
+import l2server.Config;
+import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.network.serverpackets.L2GameServerPacket;
+import l2server.log.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Server wide cost of each packet type: how many times the client packets were read and run and the server packets
+ * written, with a latency histogram of each one.<BR><BR>
+ * <p>
+ * Counting doesn't lock: the metrics of a packet class are found through a ClassValue and only use adders and atomic
+ * counters. The allocation estimate asks the JVM for the bytes allocated by the thread, which costs more, so it has
+ * its own switch (PacketStatsAllocations).<BR>
+ * The stats are shown by //packet_stats and written to log/packetstats.txt every PacketStatsSnapshotInterval minutes.
+ */
+public final class PacketStats
+{
+	private final Map<Class<?>, PacketMetrics> _metrics = new ConcurrentHashMap<>();
+	private final ClassValue<PacketMetrics> _metricsByClass = new ClassValue<PacketMetrics>()
+	{
+		@Override
+		protected PacketMetrics computeValue(Class<?> type)
+		{
+			final PacketMetrics metrics = new PacketMetrics(type);
+			_metrics.put(type, metrics);
+			return metrics;
+		}
+	};
+
+	private final com.sun.management.ThreadMXBean _threadBean;
+	private long _startTime = System.currentTimeMillis();
+
+	private PacketStats()
+	{
+		com.sun.management.ThreadMXBean threadBean = null;
+		if (Config.PACKET_STATS_ALLOCATIONS &&
+				ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)
+		{
+			threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (threadBean.isThreadAllocatedMemorySupported())
+			{
+				threadBean.setThreadAllocatedMemoryEnabled(true);
+			}
+			else
+			{
+				Log.warning("PacketStats: This JVM can't measure the allocations of the threads.");
+				threadBean = null;
+			}
+		}
+		_threadBean = threadBean;
+
+		if (Config.PACKET_STATS && Config.PACKET_STATS_SNAPSHOT_INTERVAL > 0)
+		{
+			final long interval = Config.PACKET_STATS_SNAPSHOT_INTERVAL * 60000L;
+			ThreadPoolManager.getInstance().scheduleGeneralAtFixedRate(this::saveSnapshot, interval, interval);
+		}
+	}
+
+	public static PacketStats getInstance()
+	{
+		return SingletonHolder._instance;
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread so far, or 0 if they aren't measured
+	 */
+	public long getAllocatedBytes()
+	{
+		return _threadBean == null ? 0 : _threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Count the decoding of a client packet.
+	 */
+	public void countRead(Class<?> packet, long nanos)
+	{
+		_metricsByClass.get(packet).addRead(nanos);
+	}
+
+	/**
+	 * Count a client packet run, or a server packet written.
+	 *
+	 * @param allocated the bytes allocated meanwhile, see getAllocatedBytes()
+	 */
+	public void count(Class<?> packet, long nanos, long allocated)
+	{
+		_metricsByClass.get(packet).add(nanos, allocated);
+	}
+
+	public void reset()
+	{
+		for (PacketMetrics metrics : _metrics.values())
+		{
+			metrics.reset();
+		}
+		_startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * @param server true for the server packets, false for the client ones
+	 * @param count  how many packet types to show, the ones taking the most time first
+	 */
+	public String[] getStats(boolean server, int count)
+	{
+		final List<PacketMetrics> packets = new ArrayList<>();
+		for (PacketMetrics metrics : _metrics.values())
+		{
+			if (metrics._server == server && metrics._count.sum() > 0)
+			{
+				packets.add(metrics);
+			}
+		}
+		packets.sort((a, b) -> Long.compare(b._total.sum(), a._total.sum()));
+
+		final List<String> lines = new ArrayList<>();
+		lines.add((server ? "Server packets (write)" : "Client packets (run)") + " in the last " +
+				(System.currentTimeMillis() - _startTime) / 60000 + " min, us: count avg/p50/p99/max total" +
+				(server ? "" : " [read avg]") + (_threadBean == null ? "" : " {alloc avg}"));
+		for (int i = 0; i < packets.size() && i < count; i++)
+		{
+			lines.add(" + " + packets.get(i).toString(_threadBean != null));
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	public void saveSnapshot()
+	{
+		final File file = new File(Config.DATAPACK_ROOT, "log/packetstats.txt");
+		try (Writer writer = new FileWriter(file))
+		{
+			writer.write("Packet stats at " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + "\r\n");
+			for (String line : getStats(false, Integer.MAX_VALUE))
+			{
+				writer.write(line + "\r\n");
+			}
+			for (String line : getStats(true, Integer.MAX_VALUE))
+			{
+				writer.write(line + "\r\n");
+			}
+		}
+		catch (IOException e)
+		{
+			Log.log(Level.WARNING, "PacketStats: Could not write " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static final class PacketMetrics
+	{
+		private final String _name;
+		private final boolean _server;
+
+		private final LongAdder _count = new LongAdder();
+		private final LongAdder _total = new LongAdder();
+		private final LongAccumulator _max = new LongAccumulator(Math::max, 0);
+		private final Histogram _histogram = new Histogram();
+		private final LongAdder _reads = new LongAdder();
+		private final LongAdder _readTime = new LongAdder();
+		private final LongAdder _allocated = new LongAdder();
+
+		private PacketMetrics(Class<?> type)
+		{
+			_server = L2GameServerPacket.class.isAssignableFrom(type);
+			final byte[] opcode =
+					_server ? PacketOpcodes.getServerPacketOpcode(type) : PacketOpcodes.getClientPacketOpcode(type);
+
+			String name = opcode == null ? "" : Integer.toHexString(opcode[0] & 0xff);
+			if (opcode != null && opcode.length > 2)
+			{
+				name += ":" + Integer.toHexString(opcode[1] & 0xff | (opcode[2] & 0xff) << 8);
+			}
+			_name = name + " " + type.getSimpleName();
+		}
+
+		private void add(long nanos, long allocated)
+		{
+			_count.increment();
+			_total.add(nanos);
+			_max.accumulate(nanos);
+			_histogram.add(nanos);
+			if (allocated > 0)
+			{
+				_allocated.add(allocated);
+			}
+		}
+
+		private void addRead(long nanos)
+		{
+			_reads.increment();
+			_readTime.add(nanos);
+		}
+
+		private void reset()
+		{
+			_count.reset();
+			_total.reset();
+			_max.reset();
+			_histogram.reset();
+			_reads.reset();
+			_readTime.reset();
+			_allocated.reset();
+		}
+
+		private String toString(boolean allocations)
+		{
+			final long count = _count.sum();
+			final long reads = _reads.sum();
+			return _name + ": " + count + " " + _total.sum() / Math.max(1, count) / 1000 + "/" +
+					_histogram.getPercentile(0.5) / 1000 + "/" + _histogram.getPercentile(0.99) / 1000 + "/" +
+					_max.get() / 1000 + " " + _total.sum() / 1000 +
+					(_server ? "" : " [" + _readTime.sum() / Math.max(1, reads) / 1000 + "]") +
+					(allocations ? " {" + _allocated.sum() / Math.max(1, count) + " B}" : "");
+		}
+	}
+
+	/**
+	 * Log-linear histogram of nanoseconds, like an HdrHistogram with 3 significant bits by default: 8 buckets per power
+	 * of two, so the values are known within 12.5%. With 0 significant bits it's a plain power of two histogram.
+	 */
+	public static final class Histogram
+	{
+		public static final int DEFAULT_SUB_BITS = 3;
+		// Up to 2^40 ns (18 minutes), longer values are counted in the last bucket
+		private static final int MAX_EXPONENT = 40;
+
+		private final int _subBits;
+		private final AtomicLongArray _buckets;
+
+		public Histogram()
+		{
+			this(DEFAULT_SUB_BITS);
+		}
+
+		/**
+		 * @param subBits the significant bits kept from the values, 2^subBits buckets per power of two
+		 */
+		public Histogram(int subBits)
+		{
+			_subBits = subBits;
+			_buckets = new AtomicLongArray((MAX_EXPONENT - subBits + 2) << subBits);
+		}
+
+		public void add(long value)
+		{
+			_buckets.incrementAndGet(getBucket(value, _subBits));
+		}
+
+		public void reset()
+		{
+			for (int i = 0; i < _buckets.length(); i++)
+			{
+				_buckets.set(i, 0);
+			}
+		}
+
+		/**
+		 * @return the highest value of the bucket holding the given fraction of the values, e.g. 0.99
+		 */
+		public long getPercentile(double fraction)
+		{
+			final int buckets = _buckets.length();
+			long count = 0;
+			for (int i = 0; i < buckets; i++)
+			{
+				count += _buckets.get(i);
+			}
+			if (count == 0)
+			{
+				return 0;
+			}
+
+			final long target = (long) Math.ceil(count * fraction);
+			long seen = 0;
+			for (int i = 0; i < buckets; i++)
+			{
+				seen += _buckets.get(i);
+				if (seen >= target)
+				{
+					return i + 1 < buckets ? getLowestValue(i + 1, _subBits) - 1 : Long.MAX_VALUE;
+				}
+			}
+			return Long.MAX_VALUE;
+		}
+
+		public static int getBucket(long value)
+		{
+			return getBucket(value, DEFAULT_SUB_BITS);
+		}
+
+		public static int getBucket(long value, int subBits)
+		{
+			final int subBuckets = 1 << subBits;
+			if (value < subBuckets)
+			{
+				return (int) Math.max(0, value);
+			}
+
+			final int exponent = 63 - Long.numberOfLeadingZeros(value);
+			if (exponent > MAX_EXPONENT)
+			{
+				return (MAX_EXPONENT - subBits + 2 << subBits) - 1;
+			}
+			final int sub = (int) (value >>> exponent - subBits) & subBuckets - 1;
+			return (exponent - subBits + 1 << subBits) + sub;
+		}
+
+		public static long getLowestValue(int bucket)
+		{
+			return getLowestValue(bucket, DEFAULT_SUB_BITS);
+		}
+
+		public static long getLowestValue(int bucket, int subBits)
+		{
+			final int subBuckets = 1 << subBits;
+			if (bucket < subBuckets)
+			{
+				return bucket;
+			}
+
+			final int exponent = (bucket >> subBits) + subBits - 1;
+			return (long) (subBuckets + (bucket & subBuckets - 1)) << exponent - subBits;
+		}
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder
+	{
+		protected static final PacketStats _instance = new PacketStats();
+	}
+}
@@ -468,4 +468,10 @@ public final class CharacterCreate extends L2GameClientPacket
 			//add spawn items
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
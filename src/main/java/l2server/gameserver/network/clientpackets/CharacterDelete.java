@@ -84,4 +84,10 @@ public final class CharacterDelete extends L2GameClientPacket
 		sendPacket(cl);
 		getClient().setCharSelection(cl.getCharInfo());
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
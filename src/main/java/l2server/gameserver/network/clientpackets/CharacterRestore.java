@@ -55,4 +55,10 @@ public final class CharacterRestore extends L2GameClientPacket
 		sendPacket(cl);
 		getClient().setCharSelection(cl.getCharInfo());
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
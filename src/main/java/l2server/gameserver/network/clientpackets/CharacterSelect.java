@@ -149,4 +149,10 @@ public class CharacterSelect extends L2GameClientPacket
 			_logAccounting.log(record);
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
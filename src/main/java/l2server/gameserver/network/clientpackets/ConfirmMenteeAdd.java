@@ -112,4 +112,10 @@ public class ConfirmMenteeAdd extends L2GameClientPacket
 			requestor.onTransactionResponse();
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
@@ -1066,4 +1066,10 @@ public class EnterWorld extends L2GameClientPacket
 			L2DatabaseFactory.close(con);
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
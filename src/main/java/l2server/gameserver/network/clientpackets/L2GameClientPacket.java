@@ -19,6 +19,7 @@ import l2server.Config;
 import l2server.gameserver.model.actor.instance.L2PcInstance;
 import l2server.gameserver.network.L2GameClient;
 import l2server.gameserver.network.PacketOpcodes;
+import l2server.gameserver.network.PacketStats;
 import l2server.gameserver.network.serverpackets.L2GameServerPacket;
 import l2server.log.Log;
 import l2server.network.ReceivablePacket;
@@ -41,7 +42,15 @@ public abstract class L2GameClientPacket extends ReceivablePacket<L2GameClient>
 		//	Log.info("C: " + this.getType());
 		try
 		{
+			if (!Config.PACKET_STATS)
+			{
+				readImpl();
+				return true;
+			}
+
+			final long start = System.nanoTime();
 			readImpl();
+			PacketStats.getInstance().countRead(getClass(), System.nanoTime() - start);
 			return true;
 		}
 		catch (Exception e)
@@ -147,6 +156,15 @@ public abstract class L2GameClientPacket extends ReceivablePacket<L2GameClient>
 		return triggersOnActionRequest();
 	}
 
+	/**
+	 * @return true if this packet spends most of its time waiting for the database, so it's run on the I/O packet pool
+	 * and doesn't hold the threads of the other packets
+	 */
+	public boolean isIOBound()
+	{
+		return false;
+	}
+
 	protected void cleanUp()
 	{
 	}
@@ -120,4 +120,10 @@ public final class Logout extends L2GameClientPacket
 
 		player.logout();
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
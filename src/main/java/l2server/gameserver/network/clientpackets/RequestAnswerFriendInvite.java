@@ -114,4 +114,10 @@ public final class RequestAnswerFriendInvite extends L2GameClientPacket
 			requestor.onTransactionResponse();
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
@@ -492,4 +492,10 @@ public final class RequestBypassToServer extends L2GameClientPacket
 					new L2CharPosition(activeChar.getX(), activeChar.getY(), activeChar.getZ(), 0));
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
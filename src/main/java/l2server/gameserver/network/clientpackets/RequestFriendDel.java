@@ -117,4 +117,10 @@ public final class RequestFriendDel extends L2GameClientPacket
 			L2DatabaseFactory.close(con);
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
@@ -148,4 +148,10 @@ public class RequestMentorCancel extends L2GameClientPacket
 			L2DatabaseFactory.close(con);
 		}
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
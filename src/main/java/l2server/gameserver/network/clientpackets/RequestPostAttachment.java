@@ -314,4 +314,10 @@ public final class RequestPostAttachment extends L2GameClientPacket
 	{
 		return false;
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
@@ -149,4 +149,10 @@ public final class RequestRestart extends L2GameClientPacket
 		sendPacket(cl);
 		client.setCharSelection(cl.getCharInfo());
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
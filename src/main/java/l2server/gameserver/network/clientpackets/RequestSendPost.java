@@ -437,4 +437,10 @@ public final class RequestSendPost extends L2GameClientPacket
 	{
 		return false;
 	}
+
+	@Override
+	public boolean isIOBound()
+	{
+		return true;
+	}
 }
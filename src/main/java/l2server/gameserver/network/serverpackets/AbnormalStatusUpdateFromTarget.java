@@ -52,7 +52,7 @@ public class AbnormalStatusUpdateFromTarget extends L2GameServerPacket
 		_character = c;
 		_effects = new ArrayList<>();
 
-		for (L2Abnormal e : c.getAllEffects())
+		for (L2Abnormal e : c.getAllEffectsView())
 		{
 			if (e == null || !e.getShowIcon())
 			{
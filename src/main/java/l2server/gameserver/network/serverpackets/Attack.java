@@ -170,4 +170,10 @@ public class Attack extends L2GameServerPacket
 		writeD(_ty);
 		writeD(_tz);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -38,4 +38,10 @@ public final class AutoAttackStart extends L2GameServerPacket
 	{
 		writeD(_targetObjId);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
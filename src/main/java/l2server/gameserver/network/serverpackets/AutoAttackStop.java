@@ -38,4 +38,10 @@ public class AutoAttackStop extends L2GameServerPacket
 	{
 		writeD(_targetObjId);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -47,4 +47,10 @@ public class ChangeMoveType extends L2GameServerPacket
 		writeD(_running ? RUN : WALK);
 		writeD(0); //c2
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
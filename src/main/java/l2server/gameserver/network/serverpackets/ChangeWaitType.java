@@ -57,4 +57,10 @@ public class ChangeWaitType extends L2GameServerPacket
 		writeD(_y);
 		writeD(_z);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -42,4 +42,10 @@ public final class DeleteObject extends L2GameServerPacket
 		writeD(_objectId);
 		writeC(0x00); //c2
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -35,4 +35,10 @@ public class ExRotation extends L2GameServerPacket
 		writeD(_charObjId);
 		writeD(_degree);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
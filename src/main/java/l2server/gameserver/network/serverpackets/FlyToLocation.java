@@ -73,4 +73,10 @@ public final class FlyToLocation extends L2GameServerPacket
 		writeD(0x00); // flyDelay?
 		writeD(333); // animationSpeed?
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -15,8 +15,10 @@
 
 package l2server.gameserver.network.serverpackets;
 
+import l2server.Config;
 import l2server.gameserver.network.L2GameClient;
 import l2server.gameserver.network.PacketOpcodes;
+import l2server.gameserver.network.PacketStats;
 import l2server.log.Log;
 import l2server.network.SendablePacket;
 
@@ -65,7 +67,18 @@ public abstract class L2GameServerPacket extends SendablePacket<L2GameClient>
 				writeB(opcode);
 			}
 
-			writeImpl();
+			if (Config.PACKET_STATS)
+			{
+				final PacketStats stats = PacketStats.getInstance();
+				final long allocated = stats.getAllocatedBytes();
+				final long start = System.nanoTime();
+				writeImpl();
+				stats.count(getClass(), System.nanoTime() - start, stats.getAllocatedBytes() - allocated);
+			}
+			else
+			{
+				writeImpl();
+			}
 		}
 		catch (Exception e)
 		{
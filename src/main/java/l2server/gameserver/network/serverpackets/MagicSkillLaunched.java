@@ -86,4 +86,10 @@ public class MagicSkillLaunched extends L2GameServerPacket
 			}
 		}
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
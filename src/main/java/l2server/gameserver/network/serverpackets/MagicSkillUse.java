@@ -144,4 +144,10 @@ public final class MagicSkillUse extends L2GameServerPacket
 			writeD(_skillActionId);
 		}
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
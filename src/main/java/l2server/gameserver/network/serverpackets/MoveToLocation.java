@@ -54,4 +54,10 @@ public final class MoveToLocation extends L2GameServerPacket
 		writeD(_y);
 		writeD(_z);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -60,4 +60,10 @@ public class MoveToPawn extends L2GameServerPacket
 		writeD(_ty);
 		writeD(_tz);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -17,9 +17,14 @@ package l2server.gameserver.network.serverpackets;
 
 import l2server.Config;
 import l2server.gameserver.cache.HtmCache;
+import l2server.gameserver.cache.HtmTemplate;
 import l2server.gameserver.model.actor.instance.L2PcInstance;
 import l2server.log.Log;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 /**
  * the HTML parser in the client knowns these standard and non-standard tags and attributes
  * VOLUMN
@@ -128,8 +133,15 @@ public final class NpcHtmlMessage extends L2GameServerPacket
 	// d is usually 0, S is the html text starting with <html> and ending with </html>
 	//
 
+	private static final Pattern REGEX_CHARS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
 	private int _npcObjId;
 	private String _html;
+	// While only %placeholders% are replaced, the page stays a cached template and its values
+	private HtmTemplate _template;
+	private Map<String, String> _values;
+	// Some value may contain or change a bypass, so the template bypasses are not enough
+	private boolean _scanBypasses;
 	private int _itemId = 0;
 	private boolean _isFirstTalk = false;
 	private boolean _validate = true;
@@ -186,27 +198,83 @@ public final class NpcHtmlMessage extends L2GameServerPacket
 			text = "<html><body>" + text + "</body></html>";
 		}
 
+		setTemplate(HtmCache.getInstance().getParsedTemplate(text));
 		_html = text;
 	}
 
 	public boolean setFile(String prefix, String path)
 	{
-		String content = HtmCache.getInstance().getHtm(prefix, path);
+		HtmTemplate template = HtmCache.getInstance().getTemplate(prefix, path);
 
-		if (content == null)
+		if (template == null)
 		{
 			setHtml("<html><body>My Text is missing:<br>" + path + "</body></html>");
 			Log.warning("missing html page " + path);
 			return false;
 		}
 
-		setHtml(content);
+		if (!template.getContent().contains("<html>"))
+		{
+			setHtml(template.getContent());
+			return true;
+		}
+
+		setTemplate(template);
+		_html = template.getContent();
 		return true;
 	}
 
+	private void setTemplate(HtmTemplate template)
+	{
+		_template = template;
+		_values = null;
+		_scanBypasses = false;
+	}
+
 	public void replace(String pattern, String value)
 	{
-		_html = _html.replaceAll(pattern, value.replaceAll("\\$", "\\\\\\$"));
+		// A value with placeholders could be replaced again, so only the simple ones can stay aside
+		if (_template != null && HtmTemplate.isPlaceholder(pattern) && value.indexOf('%') < 0)
+		{
+			if (_values == null)
+			{
+				_values = new HashMap<>();
+			}
+
+			// Once replaced, there is nothing left to replace
+			if (_values.putIfAbsent(pattern, value) == null)
+			{
+				_html = null;
+				if (value.contains("bypass") || _template.isInBypass(pattern) &&
+						(value.indexOf('"') >= 0 || value.indexOf('$') >= 0))
+				{
+					_scanBypasses = true;
+				}
+			}
+			return;
+		}
+
+		final String html = getHtml();
+		_template = null;
+		_values = null;
+		if (REGEX_CHARS.matcher(pattern).find())
+		{
+			_html = html.replaceAll(pattern, value.replaceAll("\\$", "\\\\\\$"));
+		}
+		else
+		{
+			_html = HtmTemplate.replace(html, pattern, value);
+		}
+	}
+
+	private synchronized String getHtml()
+	{
+		if (_html == null)
+		{
+			_html = _template.render(_values);
+		}
+
+		return _html;
 	}
 
 	private void buildBypassCache(L2PcInstance activeChar)
@@ -217,35 +285,45 @@ public final class NpcHtmlMessage extends L2GameServerPacket
 		}
 
 		activeChar.clearBypass();
-		int len = _html.length();
-		for (int i = 0; i < len; i++)
+		if (_template != null && !_scanBypasses)
 		{
-			int start = _html.indexOf("\"bypass ", i);
-			int finish = _html.indexOf("\"", start + 1);
-			if (start < 0 || finish < 0)
+			for (String bypass : _template.renderBypasses(_values))
 			{
-				break;
+				addBypass(activeChar, bypass);
 			}
+			return;
+		}
 
-			if (_html.substring(start + 8, start + 10).equals("-h"))
-			{
-				start += 11;
-			}
-			else
+		final String html = getHtml();
+		int start = html.indexOf("\"bypass ");
+		while (start >= 0)
+		{
+			int finish = html.indexOf("\"", start + 1);
+			if (finish < 0)
 			{
-				start += 8;
+				break;
 			}
 
-			i = finish;
-			int finish2 = _html.indexOf("$", start);
-			if (finish2 < finish && finish2 > 0)
-			{
-				activeChar.addBypass2(_html.substring(start, finish2).trim());
-			}
-			else
+			start += html.startsWith("-h", start + 8) ? 11 : 8;
+			if (start <= finish)
 			{
-				activeChar.addBypass(_html.substring(start, finish).trim());
+				addBypass(activeChar, html.substring(start, finish));
 			}
+
+			start = html.indexOf("\"bypass ", finish + 1);
+		}
+	}
+
+	private static void addBypass(L2PcInstance activeChar, String bypass)
+	{
+		int dollar = bypass.indexOf('$');
+		if (dollar >= 0)
+		{
+			activeChar.addBypass2(bypass.substring(0, dollar).trim());
+		}
+		else
+		{
+			activeChar.addBypass(bypass.trim());
 		}
 	}
 
@@ -253,7 +331,7 @@ public final class NpcHtmlMessage extends L2GameServerPacket
 	protected final void writeImpl()
 	{
 		writeD(_npcObjId);
-		writeS(_html);
+		writeS(getHtml());
 		writeD(_itemId);
 		writeD(_isFirstTalk ? 0x00 : 0x01);
 	}
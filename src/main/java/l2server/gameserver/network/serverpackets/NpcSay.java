@@ -98,4 +98,10 @@ public final class NpcSay extends L2GameServerPacket
 			}
 		}
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -49,4 +49,10 @@ public class SocialAction extends L2GameServerPacket
 		writeD(_actionId);
 		writeD(0x00); // GoD ??? (maybe npcstringId or npcTextId)
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
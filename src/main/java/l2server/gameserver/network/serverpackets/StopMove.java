@@ -59,4 +59,10 @@ public final class StopMove extends L2GameServerPacket
 		writeD(_z);
 		writeD(_heading);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
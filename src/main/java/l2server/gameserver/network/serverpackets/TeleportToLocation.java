@@ -54,4 +54,10 @@ public final class TeleportToLocation extends L2GameServerPacket
 		writeD(_heading); // nYaw
 		writeD(0x00);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -49,4 +49,10 @@ public class ValidateLocation extends L2GameServerPacket
 		writeD(_z);
 		writeD(_heading);
 	}
+
+	@Override
+	protected boolean isRecipientIndependent()
+	{
+		return true;
+	}
 }
@@ -0,0 +1,167 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.pathfinding;
+
+import l2server.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short lived cache of the paths found between two geodata cells.<BR><BR>
+ * <p>
+ * Lots of monsters chasing the same player around a wall, or a whole clan running to the same siege gate, ask for the
+ * same paths over and over. Paths (and failures to find one) are kept PathFindCacheTime milliseconds, which also
+ * bounds how long a path can ignore a door that got opened or closed meanwhile.
+ */
+public final class PathCache
+{
+	private static final List<AbstractNodeLoc> NO_PATH = Collections.emptyList();
+
+	private final Map<Key, Entry> _paths = new ConcurrentHashMap<>();
+
+	private final AtomicLong _hits = new AtomicLong();
+	private final AtomicLong _misses = new AtomicLong();
+
+	public static boolean isEnabled()
+	{
+		return Config.PATHFIND_CACHE_TIME > 0;
+	}
+
+	public static Key getKey(int gx, int gy, int gz, int gtx, int gty, int gtz, int instanceId, boolean playable)
+	{
+		return new Key(gx, gy, gz, gtx, gty, gtz, instanceId, playable);
+	}
+
+	/**
+	 * @param key the start and end cells of the path
+	 * @return a copy of the cached path, NO_PATH if it was not found last time, or null when the path is not cached
+	 */
+	public List<AbstractNodeLoc> get(Key key)
+	{
+		final Entry entry = _paths.get(key);
+		if (entry == null || entry._expiration < System.currentTimeMillis())
+		{
+			_misses.incrementAndGet();
+			return null;
+		}
+
+		_hits.incrementAndGet();
+		return entry._path == NO_PATH ? NO_PATH : new ArrayList<>(entry._path);
+	}
+
+	public static boolean isNoPath(List<AbstractNodeLoc> path)
+	{
+		return path == NO_PATH;
+	}
+
+	public void put(Key key, List<AbstractNodeLoc> path)
+	{
+		final long now = System.currentTimeMillis();
+		if (_paths.size() >= Config.PATHFIND_CACHE_SIZE)
+		{
+			_paths.values().removeIf(entry -> entry._expiration < now);
+			if (_paths.size() >= Config.PATHFIND_CACHE_SIZE)
+			{
+				_paths.clear();
+			}
+		}
+
+		_paths.put(key, new Entry(path == null ? NO_PATH : new ArrayList<>(path), now + Config.PATHFIND_CACHE_TIME));
+	}
+
+	public void clear()
+	{
+		_paths.clear();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Path cache size:" + _paths.size() + " hits/misses:" + _hits.get() + "/" + _misses.get();
+	}
+
+	public static final class Key
+	{
+		private final int _gx;
+		private final int _gy;
+		private final int _gz;
+		private final int _gtx;
+		private final int _gty;
+		private final int _gtz;
+		private final int _instanceId;
+		private final boolean _playable;
+
+		private Key(int gx, int gy, int gz, int gtx, int gty, int gtz, int instanceId, boolean playable)
+		{
+			_gx = gx;
+			_gy = gy;
+			_gz = gz;
+			_gtx = gtx;
+			_gty = gty;
+			_gtz = gtz;
+			_instanceId = instanceId;
+			_playable = playable;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = _gx;
+			result = 31 * result + _gy;
+			result = 31 * result + _gz;
+			result = 31 * result + _gtx;
+			result = 31 * result + _gty;
+			result = 31 * result + _gtz;
+			result = 31 * result + _instanceId;
+			return _playable ? result : ~result;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+			{
+				return true;
+			}
+
+			if (!(o instanceof Key))
+			{
+				return false;
+			}
+
+			final Key key = (Key) o;
+			return _gx == key._gx && _gy == key._gy && _gz == key._gz && _gtx == key._gtx && _gty == key._gty &&
+					_gtz == key._gtz && _instanceId == key._instanceId && _playable == key._playable;
+		}
+	}
+
+	private static final class Entry
+	{
+		private final List<AbstractNodeLoc> _path;
+		private final long _expiration;
+
+		private Entry(List<AbstractNodeLoc> path, long expiration)
+		{
+			_path = path;
+			_expiration = expiration;
+		}
+	}
+}
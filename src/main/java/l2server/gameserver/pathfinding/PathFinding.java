@@ -16,11 +16,13 @@
 package l2server.gameserver.pathfinding;
 
 import l2server.Config;
+import l2server.gameserver.ThreadPoolManager;
 import l2server.gameserver.model.L2World;
 import l2server.gameserver.pathfinding.cellnodes.CellPathFinding;
 import l2server.gameserver.pathfinding.geonodes.GeoPathFinding;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author -Nemesiss-
@@ -45,6 +47,17 @@ public abstract class PathFinding
 
 	public abstract List<AbstractNodeLoc> findPath(int x, int y, int z, int tx, int ty, int tz, int instanceId, boolean playable);
 
+	/**
+	 * Look for a path in the pathfinding thread pool, so the calling thread (usually an AI one) doesn't wait for it.
+	 *
+	 * @param callback receives the path, or null if none was found
+	 */
+	public void findPathAsync(final int x, final int y, final int z, final int tx, final int ty, final int tz, final int instanceId, final boolean playable, final Consumer<List<AbstractNodeLoc>> callback)
+	{
+		ThreadPoolManager.getInstance()
+				.executePathFinding(() -> callback.accept(findPath(x, y, z, tx, ty, tz, instanceId, playable)));
+	}
+
 	/*
 	public List<AbstractNodeLoc> search(AbstractNode start, AbstractNode end, int instanceId)
 	{
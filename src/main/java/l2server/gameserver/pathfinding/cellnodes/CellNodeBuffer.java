@@ -18,7 +18,6 @@ package l2server.gameserver.pathfinding.cellnodes;
 import l2server.Config;
 
 import java.util.ArrayList;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author DS
@@ -35,7 +34,6 @@ public class CellNodeBuffer
 
 	private static final int MAX_ITERATIONS = 3500;
 
-	private final ReentrantLock _lock = new ReentrantLock();
 	private final int _mapSize;
 	private final CellNode[][] _buffer;
 
@@ -57,9 +55,12 @@ public class CellNodeBuffer
 		_buffer = new CellNode[_mapSize][_mapSize];
 	}
 
-	public final boolean lock()
+	/**
+	 * Called before each use. Buffers are owned by a single thread, so there is nothing to lock.
+	 */
+	public final void init()
 	{
-		return _lock.tryLock();
+		_current = null;
 	}
 
 	public final CellNode findPath(int x, int y, short z, int tx, int ty, short tz)
@@ -109,7 +110,6 @@ public class CellNodeBuffer
 			}
 		}
 
-		_lock.unlock();
 		_lastElapsedTime = System.currentTimeMillis() - _timeStamp;
 	}
 
@@ -22,6 +22,7 @@ import l2server.gameserver.model.L2ItemInstance;
 import l2server.gameserver.model.L2World;
 import l2server.gameserver.pathfinding.AbstractNode;
 import l2server.gameserver.pathfinding.AbstractNodeLoc;
+import l2server.gameserver.pathfinding.PathCache;
 import l2server.gameserver.pathfinding.PathFinding;
 import l2server.log.Log;
 import l2server.util.StringUtil;
@@ -29,6 +30,8 @@ import l2server.util.StringUtil;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 /**
@@ -38,12 +41,20 @@ import java.util.logging.Level;
 public class CellPathFinding extends PathFinding
 {
 	private BufferInfo[] _allBuffers;
-	private int _findSuccess = 0;
-	private int _findFails = 0;
-	private int _postFilterUses = 0;
-	private int _postFilterPlayableUses = 0;
-	private int _postFilterPasses = 0;
-	private long _postFilterElapsed = 0;
+
+	// Every thread looking for paths gets its own node buffers, created the first time it needs each size
+	private final ThreadLocal<CellNodeBuffer[]> _threadBuffers =
+			ThreadLocal.withInitial(() -> new CellNodeBuffer[_allBuffers.length]);
+
+	private final PathCache _pathCache = new PathCache();
+
+	private final AtomicInteger _findSuccess = new AtomicInteger();
+	private final AtomicInteger _findFails = new AtomicInteger();
+	private final AtomicInteger _postFilterUses = new AtomicInteger();
+	private final AtomicInteger _postFilterPlayableUses = new AtomicInteger();
+	private final AtomicInteger _postFilterPasses = new AtomicInteger();
+	private final AtomicLong _postFilterElapsed = new AtomicLong();
+	private final AtomicInteger _tooFar = new AtomicInteger();
 
 	private ArrayList<L2ItemInstance> _debugItems = null;
 
@@ -71,7 +82,8 @@ public class CellPathFinding extends PathFinding
 					throw new Exception("Invalid buffer definition: " + buf);
 				}
 
-				_allBuffers[i] = new BufferInfo(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+				// the amount of buffers doesn't matter anymore, every thread has its own ones
+				_allBuffers[i] = new BufferInfo(Integer.parseInt(args[0]));
 			}
 		}
 		catch (Exception e)
@@ -108,14 +120,33 @@ public class CellPathFinding extends PathFinding
 			return null;
 		}
 		short gtz = GeoData.getInstance().getHeight(tx, ty, tz);
+
+		boolean debug = playable && Config.DEBUG_PATH;
+		if (debug || !PathCache.isEnabled())
+		{
+			return findPath(x, y, z, gx, gy, gz, gtx, gty, gtz, instanceId, playable, debug);
+		}
+
+		final PathCache.Key key = PathCache.getKey(gx, gy, gz, gtx, gty, gtz, instanceId, playable);
+		List<AbstractNodeLoc> path = _pathCache.get(key);
+		if (path != null)
+		{
+			return PathCache.isNoPath(path) ? null : path;
+		}
+
+		path = findPath(x, y, z, gx, gy, gz, gtx, gty, gtz, instanceId, playable, false);
+		_pathCache.put(key, path);
+		return path;
+	}
+
+	private List<AbstractNodeLoc> findPath(int x, int y, int z, int gx, int gy, short gz, int gtx, int gty, short gtz, int instanceId, boolean playable, boolean debug)
+	{
 		CellNodeBuffer buffer = alloc(64 + 2 * Math.max(Math.abs(gx - gtx), Math.abs(gy - gty)), playable);
 		if (buffer == null)
 		{
 			return null;
 		}
 
-		boolean debug = playable && Config.DEBUG_PATH;
-
 		if (debug)
 		{
 			if (_debugItems == null)
@@ -160,7 +191,7 @@ public class CellPathFinding extends PathFinding
 
 			if (result == null)
 			{
-				_findFails++;
+				_findFails.incrementAndGet();
 				return null;
 			}
 
@@ -178,15 +209,15 @@ public class CellPathFinding extends PathFinding
 
 		if (path.size() < 3 || Config.MAX_POSTFILTER_PASSES <= 0)
 		{
-			_findSuccess++;
+			_findSuccess.incrementAndGet();
 			return path;
 		}
 
 		long timeStamp = System.currentTimeMillis();
-		_postFilterUses++;
+		_postFilterUses.incrementAndGet();
 		if (playable)
 		{
-			_postFilterPlayableUses++;
+			_postFilterPlayableUses.incrementAndGet();
 		}
 
 		int currentX, currentY, currentZ;
@@ -197,7 +228,7 @@ public class CellPathFinding extends PathFinding
 		do
 		{
 			pass++;
-			_postFilterPasses++;
+			_postFilterPasses.incrementAndGet();
 
 			remove = false;
 			middlePoint = path.listIterator();
@@ -242,8 +273,8 @@ public class CellPathFinding extends PathFinding
 			}
 		}
 
-		_findSuccess++;
-		_postFilterElapsed += System.currentTimeMillis() - timeStamp;
+		_findSuccess.incrementAndGet();
+		_postFilterElapsed.addAndGet(System.currentTimeMillis() - timeStamp);
 		return path;
 	}
 
@@ -295,56 +326,36 @@ public class CellPathFinding extends PathFinding
 
 	private CellNodeBuffer alloc(int size, boolean playable)
 	{
-		CellNodeBuffer current = null;
-		for (BufferInfo i : _allBuffers)
+		final CellNodeBuffer[] buffers = _threadBuffers.get();
+		for (int i = 0; i < _allBuffers.length; i++)
 		{
-			if (i.mapSize >= size)
+			final BufferInfo info = _allBuffers[i];
+			if (info.mapSize < size)
 			{
-				for (CellNodeBuffer buf : i.bufs)
-				{
-					if (buf.lock())
-					{
-						i.uses++;
-						if (playable)
-						{
-							i.playableUses++;
-						}
-						i.elapsed += buf.getElapsedTime();
-						current = buf;
-						break;
-					}
-				}
-				if (current != null)
-				{
-					break;
-				}
+				continue;
+			}
 
-				// not found, allocate temporary buffer
-				current = new CellNodeBuffer(i.mapSize);
-				current.lock();
-				if (i.bufs.size() < i.count)
-				{
-					i.bufs.add(current);
-					i.uses++;
-					if (playable)
-					{
-						i.playableUses++;
-					}
-					break;
-				}
-				else
-				{
-					i.overflows++;
-					if (playable)
-					{
-						i.playableOverflows++;
-					}
-					//System.err.println("Overflow, size requested: " + size + " playable:"+playable);
-				}
+			CellNodeBuffer buffer = buffers[i];
+			if (buffer == null)
+			{
+				buffer = new CellNodeBuffer(info.mapSize);
+				buffers[i] = buffer;
+				info.threads.incrementAndGet();
 			}
+
+			info.uses.incrementAndGet();
+			if (playable)
+			{
+				info.playableUses.incrementAndGet();
+			}
+			info.elapsed.addAndGet(buffer.getElapsedTime());
+			buffer.init();
+			return buffer;
 		}
 
-		return current;
+		// too far, no buffer is big enough
+		_tooFar.incrementAndGet();
+		return null;
 	}
 
 	private void dropDebugItem(int itemId, int num, AbstractNodeLoc loc)
@@ -358,36 +369,30 @@ public class CellPathFinding extends PathFinding
 	private static final class BufferInfo
 	{
 		final int mapSize;
-		final int count;
-		ArrayList<CellNodeBuffer> bufs;
-		int uses = 0;
-		int playableUses = 0;
-		int overflows = 0;
-		int playableOverflows = 0;
-		long elapsed = 0;
-
-		public BufferInfo(int size, int cnt)
+		final AtomicInteger threads = new AtomicInteger();
+		final AtomicInteger uses = new AtomicInteger();
+		final AtomicInteger playableUses = new AtomicInteger();
+		final AtomicLong elapsed = new AtomicLong();
+
+		public BufferInfo(int size)
 		{
 			mapSize = size;
-			count = cnt;
-			bufs = new ArrayList<>(count);
 		}
 
 		@Override
 		public String toString()
 		{
 			final StringBuilder stat = new StringBuilder(100);
-			StringUtil.append(stat, String.valueOf(mapSize), "x", String.valueOf(mapSize), " num:",
-					String.valueOf(bufs.size()), "/", String.valueOf(count), " uses:", String.valueOf(uses), "/",
-					String.valueOf(playableUses));
+			final int uses = this.uses.get();
+			StringUtil.append(stat, String.valueOf(mapSize), "x", String.valueOf(mapSize), " threads:",
+					String.valueOf(threads.get()), " uses:", String.valueOf(uses), "/",
+					String.valueOf(playableUses.get()));
 			if (uses > 0)
 			{
-				StringUtil.append(stat, " total/avg(ms):", String.valueOf(elapsed), "/",
-						String.format("%1.2f", (double) elapsed / uses));
+				StringUtil.append(stat, " total/avg(ms):", String.valueOf(elapsed.get()), "/",
+						String.format("%1.2f", (double) elapsed.get() / uses));
 			}
 
-			StringUtil.append(stat, " ovf:", String.valueOf(overflows), "/", String.valueOf(playableOverflows));
-
 			return stat.toString();
 		}
 	}
@@ -395,25 +400,27 @@ public class CellPathFinding extends PathFinding
 	@Override
 	public String[] getStat()
 	{
-		final String[] result = new String[_allBuffers.length + 1];
+		final String[] result = new String[_allBuffers.length + 2];
 		for (int i = 0; i < _allBuffers.length; i++)
 		{
 			result[i] = _allBuffers[i].toString();
 		}
 
 		final StringBuilder stat = new StringBuilder(100);
-		StringUtil.append(stat, "LOS postfilter uses:", String.valueOf(_postFilterUses), "/",
-				String.valueOf(_postFilterPlayableUses));
-		if (_postFilterUses > 0)
+		final int postFilterUses = _postFilterUses.get();
+		StringUtil.append(stat, "LOS postfilter uses:", String.valueOf(postFilterUses), "/",
+				String.valueOf(_postFilterPlayableUses.get()));
+		if (postFilterUses > 0)
 		{
-			StringUtil.append(stat, " total/avg(ms):", String.valueOf(_postFilterElapsed), "/",
-					String.format("%1.2f", (double) _postFilterElapsed / _postFilterUses), " passes total/avg:",
-					String.valueOf(_postFilterPasses), "/",
-					String.format("%1.1f", (double) _postFilterPasses / _postFilterUses), "\r\n");
+			StringUtil.append(stat, " total/avg(ms):", String.valueOf(_postFilterElapsed.get()), "/",
+					String.format("%1.2f", (double) _postFilterElapsed.get() / postFilterUses), " passes total/avg:",
+					String.valueOf(_postFilterPasses.get()), "/",
+					String.format("%1.1f", (double) _postFilterPasses.get() / postFilterUses), "\r\n");
 		}
-		StringUtil
-				.append(stat, "Pathfind success/fail:", String.valueOf(_findSuccess), "/", String.valueOf(_findFails));
-		result[result.length - 1] = stat.toString();
+		StringUtil.append(stat, "Pathfind success/fail/too far:", String.valueOf(_findSuccess.get()), "/",
+				String.valueOf(_findFails.get()), "/", String.valueOf(_tooFar.get()));
+		result[result.length - 2] = stat.toString();
+		result[result.length - 1] = _pathCache.toString();
 
 		return result;
 	}
@@ -359,7 +359,7 @@ public class GeoPathFinding extends PathFinding
 		return new GeoNode(new GeoNodeLoc(node_x, node_y, node_z), idx);
 	}
 
-	private GeoNode readNode(int gx, int gy, short z)
+	GeoNode readNode(int gx, int gy, short z)
 	{
 		short node_x = getNodePos(gx);
 		short node_y = getNodePos(gy);
@@ -396,7 +396,7 @@ public class GeoPathFinding extends PathFinding
 		try
 		{
 			Log.info("PathFinding Engine: - Loading Path Nodes...");
-			File Data = new File("./data/pathnode/pn_index.txt");
+			File Data = new File(Config.DATAPACK_ROOT, "data/pathnode/pn_index.txt");
 			if (!Data.exists())
 			{
 				return;
@@ -449,7 +449,7 @@ public class GeoPathFinding extends PathFinding
 			Log.warning("Failed to Load PathNode File: invalid region " + rx + "," + ry + "\n");
 			return;
 		}
-		String fname = "./data/pathnode/" + rx + "_" + ry + ".pn";
+		String fname = Config.DATAPACK_ROOT + "/data/pathnode/" + rx + "_" + ry + ".pn";
 		short regionoffset = getRegionOffset(rx, ry);
 		//Logozo.info("PathFinding Engine: - Loading: " + fname + " -> region offset: " + regionoffset + "X: " + rx + " Y: " + ry);
 		File Pn = new File(fname);
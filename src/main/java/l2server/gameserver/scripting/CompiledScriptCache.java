@@ -27,8 +27,14 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 import javax.script.Compilable;
 import javax.script.CompiledScript;
@@ -36,25 +42,30 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
 /**
- * Cache of Compiled Scripts
+ * Cache of Compiled Scripts, saved in the scripts folder.<BR><BR>
+ * <p>
+ * The scripts are matched by the hash of their content and of the content of every other datapack source compiled
+ * with them, so a script is compiled again only when one of them changed.
  *
  * @author KenM
  */
 public class CompiledScriptCache implements Serializable
 {
-	private static final long serialVersionUID = 2L;
+	private static final long serialVersionUID = 3L;
 
-	private Map<String, CompiledScriptHolder> _compiledScripts = new HashMap<>();
-	private transient boolean _modified = false;
+	private static final String FILE_NAME = "CompiledScripts.cache";
+
+	// Hashes of the sources, computed again only when their modification time or size changes
+	private static final Map<String, SourceHash> _hashes = new ConcurrentHashMap<>();
+
+	private Map<String, CompiledScriptHolder> _compiledScripts = new ConcurrentHashMap<>();
+	private transient volatile boolean _modified = false;
 
 	public CompiledScript loadCompiledScript(ScriptEngine engine, File file) throws FileNotFoundException,
 			ScriptException
 	{
-		int len = L2ScriptEngineManager.SCRIPT_FOLDER.getPath().length() + 1;
-		String relativeName = file.getPath().substring(len);
-
-		CompiledScriptHolder csh = _compiledScripts.get(relativeName);
-		if (csh != null && csh.matches(file))
+		CompiledScriptHolder csh = _compiledScripts.get(getRelativeName(file));
+		if (csh != null && csh.matches(file, this))
 		{
 			if (Config.DEBUG)
 			{
@@ -62,28 +73,54 @@ public class CompiledScriptCache implements Serializable
 			}
 			return csh.getCompiledScript();
 		}
-		else
+
+		return compile(engine, file);
+	}
+
+	/**
+	 * @return true if the script can be loaded from the cache
+	 */
+	public boolean isCached(File file)
+	{
+		CompiledScriptHolder csh = _compiledScripts.get(getRelativeName(file));
+		return csh != null && csh.matches(file, this);
+	}
+
+	/**
+	 * Compile a script with the given engine and keep it if possible.
+	 * Different engines can compile at the same time.
+	 */
+	public CompiledScript compile(ScriptEngine engine, File file) throws FileNotFoundException, ScriptException
+	{
+		if (Config.DEBUG)
 		{
-			if (Config.DEBUG)
-			{
-				Log.info("Compiling script: " + file);
-			}
-			Compilable eng = (Compilable) engine;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+			Log.info("Compiling script: " + file);
+		}
 
-			// TODO lock file
-			CompiledScript cs = eng.compile(reader);
-			if (cs instanceof Serializable)
+		final String hash = getHash(file);
+		Compilable eng = (Compilable) engine;
+		CompiledScript cs;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file))))
+		{
+			cs = eng.compile(reader);
+		}
+		catch (IOException e)
+		{
+			throw new ScriptException(e);
+		}
+
+		if (cs instanceof Serializable && hash != null)
+		{
+			final String relativeName = getRelativeName(file);
+			final Map<String, String> dependencies = getDependencies(cs, relativeName);
+			if (dependencies != null)
 			{
-				synchronized (_compiledScripts)
-				{
-					_compiledScripts.put(relativeName, new CompiledScriptHolder(cs, file));
-					_modified = true;
-				}
+				_compiledScripts.put(relativeName, new CompiledScriptHolder(cs, hash, dependencies));
+				_modified = true;
 			}
-
-			return cs;
 		}
+
+		return cs;
 	}
 
 	public boolean isModified()
@@ -93,45 +130,133 @@ public class CompiledScriptCache implements Serializable
 
 	public void purge()
 	{
-		synchronized (_compiledScripts)
+		if (_compiledScripts.keySet()
+				.removeIf(path -> !new File(L2ScriptEngineManager.SCRIPT_FOLDER, path).isFile()))
 		{
-			for (String path : _compiledScripts.keySet())
-			{
-				File file = new File(L2ScriptEngineManager.SCRIPT_FOLDER, path);
-				if (!file.isFile())
-				{
-					_compiledScripts.remove(path);
-					_modified = true;
-				}
-			}
+			_modified = true;
 		}
 	}
 
 	public void save() throws IOException
 	{
-		synchronized (_compiledScripts)
+		final File file = new File(L2ScriptEngineManager.SCRIPT_FOLDER, FILE_NAME);
+		final File tmp = new File(L2ScriptEngineManager.SCRIPT_FOLDER, FILE_NAME + ".tmp");
+		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tmp)))
 		{
-			ObjectOutputStream oos = new ObjectOutputStream(
-					new FileOutputStream(new File(L2ScriptEngineManager.SCRIPT_FOLDER, "CompiledScripts.cache")));
 			oos.writeObject(this);
-			oos.close();
-			_modified = false;
 		}
+
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		_modified = false;
 	}
 
+	/**
+	 * Forget the scripts which changed since they were cached.
+	 */
 	public void checkFiles()
 	{
-		synchronized (_compiledScripts)
+		if (_compiledScripts.keySet().removeIf(
+				path -> !_compiledScripts.get(path).matches(new File(L2ScriptEngineManager.SCRIPT_FOLDER, path), this)))
 		{
-			for (String path : _compiledScripts.keySet())
+			_modified = true;
+		}
+	}
+
+	/**
+	 * @return the hash of the content of a source, or null if it can't be read
+	 */
+	public String getHash(File file)
+	{
+		final String path = file.getAbsolutePath();
+		final long lastModified = file.lastModified();
+		final long length = file.length();
+
+		SourceHash hash = _hashes.get(path);
+		if (hash != null && hash._lastModified == lastModified && hash._length == length)
+		{
+			return hash._hash;
+		}
+
+		try
+		{
+			final byte[] digest = MessageDigest.getInstance("SHA-1").digest(Files.readAllBytes(file.toPath()));
+			final StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest)
+			{
+				sb.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+
+			hash = new SourceHash(sb.toString(), lastModified, length);
+			_hashes.put(path, hash);
+			return hash._hash;
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+	}
+
+	private static String getRelativeName(File file)
+	{
+		return file.getPath().substring(L2ScriptEngineManager.SCRIPT_FOLDER.getPath().length() + 1);
+	}
+
+	/**
+	 * @return the other datapack sources compiled into the script with their hash, or null if they can't be known
+	 */
+	private Map<String, String> getDependencies(CompiledScript cs, String relativeName)
+	{
+		final Map<?, ?> classBytes;
+		try
+		{
+			// The java engine keeps the bytecode of every class it compiled
+			final Field field = cs.getClass().getDeclaredField("_classBytes");
+			field.setAccessible(true);
+			classBytes = (Map<?, ?>) field.get(cs);
+		}
+		catch (Exception e)
+		{
+			Log.log(Level.WARNING, "CompiledScriptCache: Can't know the sources compiled with " + relativeName +
+					", it won't be cached.", e);
+			return null;
+		}
+
+		final Map<String, String> dependencies = new HashMap<>();
+		for (Object className : classBytes.keySet())
+		{
+			String name = className.toString();
+			final int inner = name.indexOf('$');
+			if (inner >= 0)
+			{
+				name = name.substring(0, inner);
+			}
+
+			final String path = name.replace('.', File.separatorChar) + ".java";
+			final File source = new File(L2ScriptEngineManager.SCRIPT_FOLDER, path);
+			if (!path.equals(relativeName) && !dependencies.containsKey(path) && source.isFile())
 			{
-				File file = new File(L2ScriptEngineManager.SCRIPT_FOLDER, path);
-				if (!_compiledScripts.get(path).matches(file))
+				final String hash = getHash(source);
+				if (hash == null)
 				{
-					_compiledScripts.clear();
-					return;
+					return null;
 				}
+				dependencies.put(path, hash);
 			}
 		}
+		return dependencies;
+	}
+
+	private static final class SourceHash
+	{
+		private final String _hash;
+		private final long _lastModified;
+		private final long _length;
+
+		private SourceHash(String hash, long lastModified, long length)
+		{
+			_hash = hash;
+			_lastModified = lastModified;
+			_length = length;
+		}
 	}
 }
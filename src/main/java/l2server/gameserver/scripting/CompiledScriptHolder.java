@@ -17,6 +17,7 @@ package l2server.gameserver.scripting;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.Map;
 
 import javax.script.CompiledScript;
 
@@ -26,55 +27,35 @@ import javax.script.CompiledScript;
 public class CompiledScriptHolder implements Serializable
 {
 	/**
-	 * Version 1
+	 * Version 2: content hashes instead of last modification time and size
 	 */
-	private static final long serialVersionUID = 1L;
+	private static final long serialVersionUID = 2L;
 
-	private long _lastModified;
-	private long _size;
+	private final String _hash;
+	// The other datapack sources compiled into this script (superclasses, helpers...), with their hash
+	private final Map<String, String> _dependencies;
 	private CompiledScript _compiledScript;
 
 	/**
 	 * @param compiledScript
-	 * @param scriptFile
+	 * @param hash           the hash of the script source
+	 * @param dependencies   the hash of the other sources compiled with it, by path relative to the scripts folder
 	 */
-	public CompiledScriptHolder(CompiledScript compiledScript, File scriptFile)
+	public CompiledScriptHolder(CompiledScript compiledScript, String hash, Map<String, String> dependencies)
 	{
 		_compiledScript = compiledScript;
-		_lastModified = scriptFile.lastModified();
-		_size = scriptFile.length();
+		_hash = hash;
+		_dependencies = dependencies;
 	}
 
-	/**
-	 * @return Returns the lastModified.
-	 */
-	public long getLastModified()
+	public String getHash()
 	{
-		return _lastModified;
+		return _hash;
 	}
 
-	/**
-	 * @param lastModified The lastModified to set.
-	 */
-	public void setLastModified(long lastModified)
-	{
-		_lastModified = lastModified;
-	}
-
-	/**
-	 * @return Returns the size.
-	 */
-	public long getSize()
+	public Map<String, String> getDependencies()
 	{
-		return _size;
-	}
-
-	/**
-	 * @param size The size to set.
-	 */
-	public void setSize(long size)
-	{
-		_size = size;
+		return _dependencies;
 	}
 
 	/**
@@ -93,8 +74,26 @@ public class CompiledScriptHolder implements Serializable
 		_compiledScript = compiledScript;
 	}
 
-	public boolean matches(File f)
+	/**
+	 * @param f     the script
+	 * @param cache where the hashes of the sources are computed
+	 * @return true if neither the script nor any source compiled with it changed
+	 */
+	public boolean matches(File f, CompiledScriptCache cache)
 	{
-		return f.lastModified() == getLastModified() && f.length() == getSize();
+		if (!_hash.equals(cache.getHash(f)))
+		{
+			return false;
+		}
+
+		for (Map.Entry<String, String> dependency : _dependencies.entrySet())
+		{
+			if (!dependency.getValue().equals(
+					cache.getHash(new File(L2ScriptEngineManager.SCRIPT_FOLDER, dependency.getKey()))))
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 }
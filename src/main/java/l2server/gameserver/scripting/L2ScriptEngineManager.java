@@ -30,10 +30,14 @@ import java.io.InvalidClassException;
 import java.io.LineNumberReader;
 import java.io.ObjectInputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import javax.script.Compilable;
@@ -216,6 +220,8 @@ public final class L2ScriptEngineManager
 
 		if (list.isFile())
 		{
+			// Collected first, so the ones which changed can be compiled in parallel before running them in order
+			final List<File> scripts = new ArrayList<>();
 			LineNumberReader lnr = new LineNumberReader(new InputStreamReader(new FileInputStream(list)));
 			String line;
 
@@ -245,22 +251,15 @@ public final class L2ScriptEngineManager
 
 					if (file.isDirectory() && parts[0].endsWith("/**"))
 					{
-						executeAllScriptsInDirectory(file, true, 32);
+						collectScriptsInDirectory(file, true, 32, 0, scripts);
 					}
 					else if (file.isDirectory() && parts[0].endsWith("/*"))
 					{
-						executeAllScriptsInDirectory(file);
+						collectScriptsInDirectory(file, false, 0, 0, scripts);
 					}
 					else if (file.isFile())
 					{
-						try
-						{
-							executeScript(file);
-						}
-						catch (ScriptException e)
-						{
-							reportScriptFileError(file, e);
-						}
+						scripts.add(file);
 					}
 					else
 					{
@@ -270,6 +269,19 @@ public final class L2ScriptEngineManager
 				}
 			}
 			lnr.close();
+
+			precompileScripts(scripts);
+			for (File script : scripts)
+			{
+				try
+				{
+					executeScript(script);
+				}
+				catch (ScriptException e)
+				{
+					reportScriptFileError(script, e);
+				}
+			}
 		}
 		else
 		{
@@ -277,6 +289,89 @@ public final class L2ScriptEngineManager
 		}
 	}
 
+	/**
+	 * Compile in parallel the java scripts which are not in the compiled scripts cache or changed, so that running
+	 * them afterwards only needs to load their classes.
+	 */
+	private void precompileScripts(List<File> scripts)
+	{
+		if (!USE_COMPILED_CACHE || !ATTEMPT_COMPILATION)
+		{
+			return;
+		}
+
+		final ScriptEngine javaEngine = getEngineByExtension("java");
+		if (!(javaEngine instanceof Compilable))
+		{
+			return;
+		}
+
+		int javaScripts = 0;
+		final List<File> toCompile = new ArrayList<>();
+		for (File script : scripts)
+		{
+			if (!script.getName().endsWith(".java"))
+			{
+				continue;
+			}
+
+			javaScripts++;
+			if (!_cache.isCached(script))
+			{
+				toCompile.add(script);
+			}
+		}
+
+		if (toCompile.size() < 2)
+		{
+			return;
+		}
+
+		final long start = System.currentTimeMillis();
+		final int threads = Math.min(Runtime.getRuntime().availableProcessors(), toCompile.size());
+		// The engines keep the script being compiled in their context, so each thread needs its own
+		final ScriptEngineFactory factory = javaEngine.getFactory();
+		final ThreadLocal<ScriptEngine> engines = ThreadLocal.withInitial(factory::getScriptEngine);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			final List<Future<?>> futures = new ArrayList<>(toCompile.size());
+			for (File script : toCompile)
+			{
+				futures.add(executor.submit(() ->
+				{
+					final ScriptEngine engine = engines.get();
+					try
+					{
+						engine.setContext(createScriptContext(engine, script));
+						_cache.compile(engine, script);
+					}
+					catch (Exception e)
+					{
+						// Compiled again and reported when it's run
+					}
+				}));
+			}
+
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch (Exception e)
+		{
+			Log.log(Level.WARNING, "Failed compiling the scripts in parallel: " + e.getMessage(), e);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		Log.info("Compiled " + toCompile.size() + " changed scripts in " + (System.currentTimeMillis() - start) +
+				" ms using " + threads + " threads, " + (javaScripts - toCompile.size()) +
+				" scripts are loaded from the cache.");
+	}
+
 	public void executeAllScriptsInDirectory(File dir)
 	{
 		this.executeAllScriptsInDirectory(dir, false, 0);
@@ -287,6 +382,25 @@ public final class L2ScriptEngineManager
 		this.executeAllScriptsInDirectory(dir, recurseDown, maxDepth, 0);
 	}
 
+	private void collectScriptsInDirectory(File dir, boolean recurseDown, int maxDepth, int currentDepth, List<File> scripts)
+	{
+		for (File file : dir.listFiles())
+		{
+			if (file.isDirectory() && recurseDown && maxDepth > currentDepth)
+			{
+				collectScriptsInDirectory(file, recurseDown, maxDepth, currentDepth + 1, scripts);
+			}
+			else if (file.isFile())
+			{
+				int lastIndex = file.getName().lastIndexOf('.');
+				if (lastIndex != -1 && getEngineByExtension(file.getName().substring(lastIndex + 1)) != null)
+				{
+					scripts.add(file);
+				}
+			}
+		}
+	}
+
 	private void executeAllScriptsInDirectory(File dir, boolean recurseDown, int maxDepth, int currentDepth)
 	{
 		if (dir.isDirectory())
@@ -450,13 +564,7 @@ public final class L2ScriptEngineManager
 		}
 		if (engine instanceof Compilable && ATTEMPT_COMPILATION)
 		{
-			ScriptContext context = new SimpleScriptContext();
-			context.setAttribute("mainClass", getClassForFile(file).replace('/', '.').replace('\\', '.'),
-					ScriptContext.ENGINE_SCOPE);
-			context.setAttribute(ScriptEngine.FILENAME, file.getName(), ScriptContext.ENGINE_SCOPE);
-			context.setAttribute("classpath", SCRIPT_FOLDER.getAbsolutePath(), ScriptContext.ENGINE_SCOPE);
-			context.setAttribute("sourcepath", SCRIPT_FOLDER.getAbsolutePath(), ScriptContext.ENGINE_SCOPE);
-			context.setAttribute(JythonScriptEngine.JYTHON_ENGINE_INSTANCE, engine, ScriptContext.ENGINE_SCOPE);
+			ScriptContext context = createScriptContext(engine, file);
 
 			setCurrentLoadingScript(file);
 			ScriptContext ctx = engine.getContext();
@@ -505,6 +613,18 @@ public final class L2ScriptEngineManager
 		}
 	}
 
+	private static ScriptContext createScriptContext(ScriptEngine engine, File file)
+	{
+		ScriptContext context = new SimpleScriptContext();
+		context.setAttribute("mainClass", getClassForFile(file).replace('/', '.').replace('\\', '.'),
+				ScriptContext.ENGINE_SCOPE);
+		context.setAttribute(ScriptEngine.FILENAME, file.getName(), ScriptContext.ENGINE_SCOPE);
+		context.setAttribute("classpath", SCRIPT_FOLDER.getAbsolutePath(), ScriptContext.ENGINE_SCOPE);
+		context.setAttribute("sourcepath", SCRIPT_FOLDER.getAbsolutePath(), ScriptContext.ENGINE_SCOPE);
+		context.setAttribute(JythonScriptEngine.JYTHON_ENGINE_INSTANCE, engine, ScriptContext.ENGINE_SCOPE);
+		return context;
+	}
+
 	public static String getClassForFile(File script)
 	{
 		String path = script.getAbsolutePath();
@@ -18,6 +18,8 @@ package l2server.gameserver.stats;
 import l2server.gameserver.stats.funcs.Func;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 
 /**
  * A calculator is created to manage and dynamically calculate the effect of a character property (ex : MAX_HP, REGENERATE_HP_RATE...).
@@ -44,6 +46,16 @@ public final class Calculator
 	 */
 	private Func[] _functions;
 
+	/**
+	 * True if none of the Funcs depends on the target, the skill or randomness
+	 */
+	private boolean _cacheable = true;
+
+	/**
+	 * Other stats read by the Funcs, the result can only be cached if these ones can be cached too
+	 */
+	private Stats[] _readStats = new Stats[0];
+
 	/**
 	 * Constructor of Calculator (Init value : emptyFuncs).<BR><BR>
 	 */
@@ -58,6 +70,8 @@ public final class Calculator
 	public Calculator(Calculator c)
 	{
 		_functions = c._functions;
+		_cacheable = c._cacheable;
+		_readStats = c._readStats;
 	}
 
 	/**
@@ -111,6 +125,22 @@ public final class Calculator
 		return _functions.length;
 	}
 
+	/**
+	 * Return true if the result of the Calculator only depends on the character owning it.<BR><BR>
+	 */
+	public boolean isCacheable()
+	{
+		return _cacheable;
+	}
+
+	/**
+	 * Return the other stats read by the Funcs of the Calculator.<BR><BR>
+	 */
+	public Stats[] getReadStats()
+	{
+		return _readStats;
+	}
+
 	/**
 	 * Add a Func to the Calculator.<BR><BR>
 	 */
@@ -134,7 +164,12 @@ public final class Calculator
 			tmp[i + 1] = funcs[i];
 		}
 
+		_cacheable = _cacheable && f.isCacheable();
 		_functions = tmp;
+		if (f.getReadStats().length > 0)
+		{
+			updateReadStats();
+		}
 	}
 
 	/**
@@ -170,6 +205,30 @@ public final class Calculator
 		{
 			_functions = tmp;
 		}
+
+		if (!_cacheable)
+		{
+			_cacheable = true;
+			for (Func func : _functions)
+			{
+				_cacheable = _cacheable && func.isCacheable();
+			}
+		}
+
+		if (f.getReadStats().length > 0)
+		{
+			updateReadStats();
+		}
+	}
+
+	private void updateReadStats()
+	{
+		EnumSet<Stats> readStats = EnumSet.noneOf(Stats.class);
+		for (Func func : _functions)
+		{
+			Collections.addAll(readStats, func.getReadStats());
+		}
+		_readStats = readStats.toArray(new Stats[readStats.size()]);
 	}
 
 	/**
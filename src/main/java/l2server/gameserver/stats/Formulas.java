@@ -217,7 +217,35 @@ public final class Formulas
 		}
 	}
 
-	static class FuncPAtkMod extends Func
+	/**
+	 * A Func reading the base stats (STR, CON, DEX...) of the character.
+	 */
+	abstract static class FuncBaseStatsMod extends Func
+	{
+		private static final Stats[] BASE_STATS = {
+				Stats.STAT_STR,
+				Stats.STAT_CON,
+				Stats.STAT_DEX,
+				Stats.STAT_INT,
+				Stats.STAT_WIT,
+				Stats.STAT_MEN,
+				Stats.STAT_LUC,
+				Stats.STAT_CHA
+		};
+
+		FuncBaseStatsMod(Stats pStat, Object owner)
+		{
+			super(pStat, owner);
+		}
+
+		@Override
+		public Stats[] getReadStats()
+		{
+			return BASE_STATS;
+		}
+	}
+
+	static class FuncPAtkMod extends FuncBaseStatsMod
 	{
 		static final FuncPAtkMod _fpa_instance = new FuncPAtkMod();
 
@@ -263,7 +291,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMAtkMod extends Func
+	static class FuncMAtkMod extends FuncBaseStatsMod
 	{
 		static final FuncMAtkMod _fma_instance = new FuncMAtkMod();
 
@@ -311,7 +339,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMDefMod extends Func
+	static class FuncMDefMod extends FuncBaseStatsMod
 	{
 		static final FuncMDefMod _fmm_instance = new FuncMDefMod();
 
@@ -375,7 +403,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncPDefMod extends Func
+	static class FuncPDefMod extends FuncBaseStatsMod
 	{
 		static final FuncPDefMod _fmm_instance = new FuncPDefMod();
 
@@ -506,7 +534,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncAtkAccuracy extends Func
+	static class FuncAtkAccuracy extends FuncBaseStatsMod
 	{
 		static final FuncAtkAccuracy _faa_instance = new FuncAtkAccuracy();
 
@@ -549,7 +577,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMAtkAccuracy extends Func
+	static class FuncMAtkAccuracy extends FuncBaseStatsMod
 	{
 		static final FuncMAtkAccuracy _fmaa_instance = new FuncMAtkAccuracy();
 
@@ -600,7 +628,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncAtkEvasion extends Func
+	static class FuncAtkEvasion extends FuncBaseStatsMod
 	{
 		static final FuncAtkEvasion _fae_instance = new FuncAtkEvasion();
 
@@ -647,7 +675,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMAtkEvasion extends Func
+	static class FuncMAtkEvasion extends FuncBaseStatsMod
 	{
 		static final FuncMAtkEvasion _fmae_instance = new FuncMAtkEvasion();
 
@@ -708,7 +736,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncAtkCritical extends Func
+	static class FuncAtkCritical extends FuncBaseStatsMod
 	{
 		static final FuncAtkCritical _fac_instance = new FuncAtkCritical();
 
@@ -746,7 +774,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMAtkCritical extends Func
+	static class FuncMAtkCritical extends FuncBaseStatsMod
 	{
 		static final FuncMAtkCritical _fac_instance = new FuncMAtkCritical();
 
@@ -774,7 +802,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncPAtkSpeed extends Func
+	static class FuncPAtkSpeed extends FuncBaseStatsMod
 	{
 		static final FuncPAtkSpeed _fas_instance = new FuncPAtkSpeed();
 
@@ -810,7 +838,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMAtkSpeed extends Func
+	static class FuncMAtkSpeed extends FuncBaseStatsMod
 	{
 		static final FuncMAtkSpeed _fas_instance = new FuncMAtkSpeed();
 
@@ -1102,7 +1130,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMaxHpMul extends Func
+	static class FuncMaxHpMul extends FuncBaseStatsMod
 	{
 		static final FuncMaxHpMul _fmhm_instance = new FuncMaxHpMul();
 
@@ -1138,7 +1166,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMaxCpMul extends Func
+	static class FuncMaxCpMul extends FuncBaseStatsMod
 	{
 		static final FuncMaxCpMul _fmcm_instance = new FuncMaxCpMul();
 
@@ -1174,7 +1202,7 @@ public final class Formulas
 		}
 	}
 
-	static class FuncMaxMpMul extends Func
+	static class FuncMaxMpMul extends FuncBaseStatsMod
 	{
 		static final FuncMaxMpMul _fmmm_instance = new FuncMaxMpMul();
 
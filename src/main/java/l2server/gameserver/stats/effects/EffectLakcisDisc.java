@@ -51,7 +51,7 @@ public class EffectLakcisDisc extends L2Effect
 		L2PcInstance player = (L2PcInstance) getEffected();
 
 		double amount = calc();
-		for (L2Character target : player.getKnownList().getKnownCharactersInRadius(getSkill().getSkillRadius()))
+		player.getKnownList().forEachKnownCharacterInRadius(getSkill().getSkillRadius(), target ->
 		{
 			if (target.isAutoAttackable(player))
 			{
@@ -80,7 +80,7 @@ public class EffectLakcisDisc extends L2Effect
 					target.sendPacket(suhp);
 				}
 			}
-		}
+		});
 
 		return true;
 	}
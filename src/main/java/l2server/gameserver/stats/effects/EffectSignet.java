@@ -99,16 +99,16 @@ public class EffectSignet extends L2Effect
 		boolean signetActor = calc() != 0;
 
 		final ArrayList<L2Character> targets = new ArrayList<>();
-		for (L2Character cha : _actor.getKnownList().getKnownCharactersInRadius(getSkill().getSkillRadius()))
+		_actor.getKnownList().forEachKnownCharacterInRadius(getSkill().getSkillRadius(), cha ->
 		{
 			if (cha == null)
 			{
-				continue;
+				return;
 			}
 
 			if (_skill.isOffensive() && !L2Skill.checkForAreaOffensiveSkills(getEffector(), cha, _skill, _srcInArena))
 			{
-				continue;
+				return;
 			}
 
 			if (cha instanceof L2PcInstance)
@@ -116,7 +116,7 @@ public class EffectSignet extends L2Effect
 				L2PcInstance player = (L2PcInstance) cha;
 				if (!player.isInsideZone(L2Character.ZONE_PVP) && player.getPvpFlag() == 0)
 				{
-					continue;
+					return;
 				}
 			}
 
@@ -126,7 +126,7 @@ public class EffectSignet extends L2Effect
 				_actor.broadcastPacket(new MagicSkillUse(_actor, cha, _skill.getId(), _skill.getLevelHash(), 0, 0, 0));
 			}
 			targets.add(cha);
-		}
+		});
 
 		if (signetActor)
 		{
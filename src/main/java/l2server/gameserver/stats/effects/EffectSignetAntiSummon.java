@@ -77,11 +77,13 @@ public class EffectSignetAntiSummon extends L2Effect
 
 		L2PcInstance caster = (L2PcInstance) getEffector();
 
-		for (L2Character cha : _actor.getKnownList().getKnownCharactersInRadius(getSkill().getSkillRadius()))
+		// Returns true to stop when the caster runs out of MP
+		final L2Character outOfMp =
+				_actor.getKnownList().findKnownCharacterInRadius(getSkill().getSkillRadius(), cha ->
 		{
 			if (cha == null)
 			{
-				continue;
+				return false;
 			}
 
 			if (cha instanceof L2PcInstance)
@@ -89,7 +91,7 @@ public class EffectSignetAntiSummon extends L2Effect
 				L2PcInstance player = (L2PcInstance) cha;
 				if (!player.isInsideZone(L2Character.ZONE_PVP) && player.getPvpFlag() == 0)
 				{
-					continue;
+					return false;
 				}
 			}
 
@@ -113,7 +115,7 @@ public class EffectSignetAntiSummon extends L2Effect
 						{
 							getEffector().sendPacket(
 									SystemMessage.getSystemMessage(SystemMessageId.SKILL_REMOVED_DUE_LACK_MP));
-							return false;
+							return true;
 						}
 						else
 						{
@@ -132,6 +134,11 @@ public class EffectSignetAntiSummon extends L2Effect
 					}
 				}
 			}
+			return false;
+		});
+		if (outOfMp != null)
+		{
+			return false;
 		}
 		return true;
 	}
@@ -128,11 +128,13 @@ public class EffectSignetMDam extends L2Effect
 
 		ArrayList<L2Character> targets = new ArrayList<>();
 
-		for (L2Character cha : _actor.getKnownList().getKnownCharactersInRadius(getSkill().getSkillRadius()))
+		// Returns true to stop when the caster runs out of MP
+		final L2Character outOfMp =
+				_actor.getKnownList().findKnownCharacterInRadius(getSkill().getSkillRadius(), cha ->
 		{
 			if (cha == null || cha == caster)
 			{
-				continue;
+				return false;
 			}
 
 			if (cha instanceof L2PcInstance)
@@ -140,7 +142,7 @@ public class EffectSignetMDam extends L2Effect
 				L2PcInstance player = (L2PcInstance) cha;
 				if (!player.isInsideZone(L2Character.ZONE_PVP) && player.getPvpFlag() == 0)
 				{
-					continue;
+					return false;
 				}
 			}
 
@@ -148,13 +150,13 @@ public class EffectSignetMDam extends L2Effect
 			{
 				if (cha.isAlikeDead())
 				{
-					continue;
+					return false;
 				}
 
 				if (mpConsume > caster.getCurrentMp())
 				{
 					caster.sendPacket(SystemMessage.getSystemMessage(SystemMessageId.SKILL_REMOVED_DUE_LACK_MP));
-					return false;
+					return true;
 				}
 				else
 				{
@@ -174,6 +176,11 @@ public class EffectSignetMDam extends L2Effect
 					targets.add(cha);
 				}
 			}
+			return false;
+		});
+		if (outOfMp != null)
+		{
+			return false;
 		}
 
 		if (!targets.isEmpty())
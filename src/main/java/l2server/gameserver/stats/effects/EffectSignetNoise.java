@@ -70,11 +70,11 @@ public class EffectSignetNoise extends L2Effect
 
 		L2PcInstance caster = (L2PcInstance) getEffector();
 
-		for (L2Character target : _actor.getKnownList().getKnownCharactersInRadius(getSkill().getSkillRadius()))
+		_actor.getKnownList().forEachKnownCharacterInRadius(getSkill().getSkillRadius(), target ->
 		{
 			if (target == null || target == caster)
 			{
-				continue;
+				return;
 			}
 
 			if (target instanceof L2PcInstance)
@@ -82,7 +82,7 @@ public class EffectSignetNoise extends L2Effect
 				L2PcInstance player = (L2PcInstance) target;
 				if (!player.isInsideZone(L2Character.ZONE_PVP) && player.getPvpFlag() == 0)
 				{
-					continue;
+					return;
 				}
 			}
 
@@ -100,7 +100,7 @@ public class EffectSignetNoise extends L2Effect
 					}
 				}
 			}
-		}
+		});
 		return true;
 	}
 
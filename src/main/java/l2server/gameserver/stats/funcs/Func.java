@@ -32,6 +32,7 @@ import l2server.gameserver.stats.conditions.Condition;
 
 public abstract class Func
 {
+	private static final Stats[] NO_STATS = new Stats[0];
 
 	/**
 	 * Statistics, that is affected by this function (See L2Character.CALCULATOR_XXX constants)
@@ -80,6 +81,24 @@ public abstract class Func
 		return 0x100;
 	}
 
+	/**
+	 * Return true if the Func only depends on the character it's applied to (its funcs, level, equipment...), not on
+	 * the target, the skill used or randomness, so the calculated stat can be cached by CharStat.<BR><BR>
+	 */
+	public boolean isCacheable()
+	{
+		return cond == null;
+	}
+
+	/**
+	 * Return the other stats of the character read by the Func (ex : STR for the P.Atk modifier). The stat calculated
+	 * with the Func can only be cached while these ones can be cached too.<BR><BR>
+	 */
+	public Stats[] getReadStats()
+	{
+		return NO_STATS;
+	}
+
 	/**
 	 * Run the mathematic function of the Func.<BR><BR>
 	 */
@@ -31,6 +31,12 @@ public class FuncAddPercentBase extends Func
 		_lambda = lambda;
 	}
 
+	@Override
+	public boolean isCacheable()
+	{
+		return super.isCacheable() && _lambda.isCacheable();
+	}
+
 	@Override
 	public int getOrder()
 	{
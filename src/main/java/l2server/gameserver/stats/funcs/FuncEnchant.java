@@ -33,6 +33,12 @@ public class FuncEnchant extends Func
 		_lambda = lambda;
 	}
 
+	@Override
+	public boolean isCacheable()
+	{
+		return super.isCacheable() && _lambda.isCacheable();
+	}
+
 	@Override
 	public int getOrder()
 	{
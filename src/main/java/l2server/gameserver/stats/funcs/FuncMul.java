@@ -28,6 +28,12 @@ public class FuncMul extends Func
 		_lambda = lambda;
 	}
 
+	@Override
+	public boolean isCacheable()
+	{
+		return super.isCacheable() && _lambda.isCacheable();
+	}
+
 	@Override
 	public int getOrder()
 	{
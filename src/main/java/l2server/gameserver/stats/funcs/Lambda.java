@@ -23,4 +23,12 @@ import l2server.gameserver.stats.Env;
 public abstract class Lambda
 {
 	public abstract double calc(Env env);
+
+	/**
+	 * @return true if the value doesn't depend on the target, the skill or randomness
+	 */
+	public boolean isCacheable()
+	{
+		return false;
+	}
 }
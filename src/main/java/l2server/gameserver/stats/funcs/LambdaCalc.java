@@ -49,6 +49,19 @@ public final class LambdaCalc extends Lambda
 		}
 	}
 
+	@Override
+	public boolean isCacheable()
+	{
+		for (Func f : funcs)
+		{
+			if (!f.isCacheable())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public void addFunc(Func f)
 	{
 		int len = funcs.length;
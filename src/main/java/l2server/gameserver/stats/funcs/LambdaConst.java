@@ -35,4 +35,10 @@ public final class LambdaConst extends Lambda
 	{
 		return _value;
 	}
+
+	@Override
+	public boolean isCacheable()
+	{
+		return true;
+	}
 }
@@ -73,4 +73,11 @@ public final class LambdaStats extends Lambda
 		}
 		return 0;
 	}
+
+	@Override
+	public boolean isCacheable()
+	{
+		// The max HP and MP are stats themselves, with Funcs that may not be cacheable
+		return _stat == StatsType.PLAYER_LEVEL || _stat == StatsType.CUBIC_LEVEL;
+	}
 }
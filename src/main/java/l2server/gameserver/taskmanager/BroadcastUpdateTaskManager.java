@@ -0,0 +1,226 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.taskmanager;
+
+import l2server.Config;
+import l2server.gameserver.ThreadPoolManager;
+import l2server.gameserver.TimeController;
+import l2server.gameserver.model.actor.L2Character;
+import l2server.gameserver.model.actor.instance.L2PcInstance;
+import l2server.gameserver.network.serverpackets.StatusUpdate.StatusUpdateDisplay;
+import l2server.log.Log;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Merges the status broadcasts of the characters and sends them once per game tick.<BR><BR>
+ * <p>
+ * A character changing many times within a tick (regeneration, DoTs, heals, buffs...) only marks the broadcast as
+ * pending, and the tick sends it once with the state the character has then. Which broadcasts are merged is set by
+ * CoalescedBroadcasts; the other ones are still sent straight away.<BR>
+ * The StatusUpdates showing a damage or naming who caused the change are always sent straight away, and replace the
+ * pending one. So is the UserInfo of a player to itself, which must stay in order with the packets following it: only
+ * the CharInfo to the other players is merged.
+ */
+public class BroadcastUpdateTaskManager
+{
+	public enum BroadcastType
+	{
+		// StatusUpdate with the current HP/MP/CP, to the player, its party and the observers
+		STATUS
+		{
+			@Override
+			protected void broadcast(L2Character character)
+			{
+				character.broadcastStatusUpdate(null, StatusUpdateDisplay.NONE);
+			}
+		},
+		// CharInfo to the known players, the UserInfo to the player itself is always sent straight away
+		USER_INFO
+		{
+			@Override
+			protected void broadcast(L2Character character)
+			{
+				if (character instanceof L2PcInstance)
+				{
+					((L2PcInstance) character).broadcastCharInfo();
+				}
+			}
+		},
+		// AbnormalStatusUpdateFromTarget to the characters targeting it
+		ABNORMAL_STATUS
+		{
+			@Override
+			protected void broadcast(L2Character character)
+			{
+				character.broadcastAbnormalStatusUpdateNow();
+			}
+		};
+
+		private final int _mask = 1 << ordinal();
+
+		protected abstract void broadcast(L2Character character);
+	}
+
+	private static final BroadcastType[] TYPES = BroadcastType.values();
+
+	private final int _coalescedTypes;
+	private final Set<L2Character> _pending = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder[] _requested = new LongAdder[TYPES.length];
+	private final LongAdder[] _sent = new LongAdder[TYPES.length];
+
+	private BroadcastUpdateTaskManager()
+	{
+		this(Config.COALESCED_BROADCASTS, true);
+	}
+
+	/**
+	 * @param coalescedTypes the names of the merged broadcast types, as in CoalescedBroadcasts
+	 * @param schedule       false to only send the pending broadcasts when broadcastPending() is called
+	 */
+	public BroadcastUpdateTaskManager(String[] coalescedTypes, boolean schedule)
+	{
+		int types = 0;
+		if (coalescedTypes != null)
+		{
+			for (String name : coalescedTypes)
+			{
+				if (name.trim().isEmpty())
+				{
+					continue;
+				}
+
+				try
+				{
+					types |= BroadcastType.valueOf(name.trim().toUpperCase())._mask;
+				}
+				catch (IllegalArgumentException e)
+				{
+					Log.warning("BroadcastUpdateTaskManager: Unknown broadcast type " + name + " in CoalescedBroadcasts.");
+				}
+			}
+		}
+		_coalescedTypes = types;
+
+		for (int i = 0; i < TYPES.length; i++)
+		{
+			_requested[i] = new LongAdder();
+			_sent[i] = new LongAdder();
+		}
+
+		if (schedule && _coalescedTypes != 0)
+		{
+			ThreadPoolManager.getInstance()
+					.scheduleGeneralAtFixedRate(this::broadcastPending, TimeController.MILLIS_IN_TICK,
+							TimeController.MILLIS_IN_TICK);
+		}
+	}
+
+	public static BroadcastUpdateTaskManager getInstance()
+	{
+		return SingletonHolder._instance;
+	}
+
+	/**
+	 * Leave the broadcast for the next tick, if this type is merged.
+	 *
+	 * @return false if the caller has to send it now
+	 */
+	public boolean coalesce(L2Character character, BroadcastType type)
+	{
+		if ((_coalescedTypes & type._mask) == 0)
+		{
+			return false;
+		}
+
+		_requested[type.ordinal()].increment();
+		// Only the first pending broadcast adds it, the tick removes it before taking them all
+		if (character.addPendingBroadcasts(type._mask) == 0)
+		{
+			_pending.add(character);
+		}
+		return true;
+	}
+
+	/**
+	 * Forget a pending broadcast, when the same packet was just sent straight away.
+	 */
+	public void cancel(L2Character character, BroadcastType type)
+	{
+		character.removePendingBroadcasts(type._mask);
+	}
+
+	/**
+	 * Send the pending broadcasts, every tick.
+	 */
+	public void broadcastPending()
+	{
+		final Iterator<L2Character> it = _pending.iterator();
+		while (it.hasNext())
+		{
+			final L2Character character = it.next();
+			it.remove();
+
+			final int pending = character.takePendingBroadcasts();
+			for (BroadcastType type : TYPES)
+			{
+				if ((pending & type._mask) == 0)
+				{
+					continue;
+				}
+
+				try
+				{
+					type.broadcast(character);
+					_sent[type.ordinal()].increment();
+				}
+				catch (Exception e)
+				{
+					Log.log(Level.WARNING,
+							"BroadcastUpdateTaskManager: Failed broadcasting " + type + " of " + character + ": " +
+									e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	public String[] getStats()
+	{
+		final String[] stats = new String[TYPES.length + 1];
+		stats[0] = "Coalesced broadcasts (pending: " + _pending.size() + "):";
+		for (BroadcastType type : TYPES)
+		{
+			final long requested = _requested[type.ordinal()].sum();
+			final long sent = _sent[type.ordinal()].sum();
+			stats[type.ordinal() + 1] =
+					" + " + type + ((_coalescedTypes & type._mask) == 0 ? " (not coalesced)" : "") + ": requested " +
+							requested + " sent " + sent + " saved " + (requested == 0 ? 0 : (requested - sent) * 100 /
+							requested) + "%";
+		}
+		return stats;
+	}
+
+	@SuppressWarnings("synthetic-access")
+	private static class SingletonHolder
+	{
+		protected static final BroadcastUpdateTaskManager _instance = new BroadcastUpdateTaskManager();
+	}
+}
@@ -15,7 +15,9 @@
 
 package l2server.gameserver.taskmanager.tasks;
 
+import l2server.Config;
 import l2server.L2DatabaseFactory;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager;
 import l2server.gameserver.taskmanager.Task;
 import l2server.gameserver.taskmanager.TaskManager;
 import l2server.gameserver.taskmanager.TaskManager.ExecutedTask;
@@ -53,6 +55,12 @@ public class TaskDailyQuestClean extends Task
 	@Override
 	public void onTimeElapsed(ExecutedTask task)
 	{
+		// The quests completed just before must be in the table to be cleared
+		if (Config.QUEST_VARS_WRITE_BEHIND)
+		{
+			QuestVarsWriteBehindManager.getInstance().flush();
+		}
+
 		Connection con = null;
 		try
 		{
@@ -0,0 +1,338 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.templates;
+
+import l2server.log.Log;
+import l2server.util.xml.XmlDocument;
+import l2server.util.xml.XmlNode;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * An instance xml from data/instances, parsed once and never changed.<BR><BR>
+ * <p>
+ * The InstanceManager keeps one per file and every new instance of it is stamped from it: the doors, the spawns and
+ * the spawn location are copied into the instance instead of reading the xml again.
+ */
+public final class InstanceTemplate
+{
+	private final String _fileName;
+	private final String _name;
+	// In minutes, -1 if the instance doesn't end by itself
+	private final int _activityTime;
+	private final boolean _allowSummon;
+	// In milliseconds, -1 if it's not destroyed once empty
+	private final long _emptyDestroyTime;
+	private final boolean _showTimer;
+	private final boolean _isTimerIncrease;
+	private final String _timerText;
+	private final boolean _isPvPInstance;
+	private final int[] _spawnLoc;
+	private final List<DoorInfo> _doors;
+	private final List<SpawnInfo> _spawns;
+
+	private InstanceTemplate(String fileName, XmlNode node)
+	{
+		_fileName = fileName;
+		_name = node.getString("name");
+
+		int activityTime = -1;
+		boolean allowSummon = true;
+		long emptyDestroyTime = -1;
+		boolean showTimer = false;
+		boolean isTimerIncrease = true;
+		String timerText = "";
+		boolean isPvPInstance = false;
+		int[] spawnLoc = new int[3];
+		List<DoorInfo> doors = new ArrayList<>();
+		List<SpawnInfo> spawns = new ArrayList<>();
+		for (XmlNode n : node.getChildren())
+		{
+			if (n.getName().equalsIgnoreCase("activityTime"))
+			{
+				if (n.hasAttribute("val"))
+				{
+					activityTime = n.getInt("val");
+				}
+			}
+			else if (n.getName().equalsIgnoreCase("allowSummon"))
+			{
+				if (n.hasAttribute("val"))
+				{
+					allowSummon = n.getBool("val");
+				}
+			}
+			else if (n.getName().equalsIgnoreCase("emptyDestroyTime"))
+			{
+				if (n.hasAttribute("val"))
+				{
+					emptyDestroyTime = n.getLong("val") * 1000;
+				}
+			}
+			else if (n.getName().equalsIgnoreCase("showTimer"))
+			{
+				if (n.hasAttribute("val"))
+				{
+					showTimer = n.getBool("val");
+				}
+				if (n.hasAttribute("increase"))
+				{
+					isTimerIncrease = n.getBool("increase");
+				}
+				if (n.hasAttribute("text"))
+				{
+					timerText = n.getString("text");
+				}
+			}
+			else if (n.getName().equalsIgnoreCase("PvPInstance"))
+			{
+				if (n.hasAttribute("val"))
+				{
+					isPvPInstance = n.getBool("val");
+				}
+			}
+			else if (n.getName().equalsIgnoreCase("doorlist"))
+			{
+				for (XmlNode d : n.getChildren())
+				{
+					if (d.getName().equalsIgnoreCase("door"))
+					{
+						doors.add(new DoorInfo(d));
+					}
+				}
+			}
+			else if (n.getName().equalsIgnoreCase("spawnlist"))
+			{
+				for (XmlNode d : n.getChildren())
+				{
+					if (d.getName().equalsIgnoreCase("spawn"))
+					{
+						spawns.add(new SpawnInfo(d));
+					}
+				}
+			}
+			else if (n.getName().equalsIgnoreCase("spawnpoint"))
+			{
+				try
+				{
+					spawnLoc = new int[]{n.getInt("spawnX"), n.getInt("spawnY"), n.getInt("spawnZ")};
+				}
+				catch (Exception e)
+				{
+					Log.log(Level.WARNING, "Error parsing instance xml: " + e.getMessage(), e);
+					spawnLoc = new int[3];
+				}
+			}
+		}
+
+		_activityTime = activityTime;
+		_allowSummon = allowSummon;
+		_emptyDestroyTime = emptyDestroyTime;
+		_showTimer = showTimer;
+		_isTimerIncrease = isTimerIncrease;
+		_timerText = timerText;
+		_isPvPInstance = isPvPInstance;
+		_spawnLoc = spawnLoc;
+		_doors = Collections.unmodifiableList(doors);
+		_spawns = Collections.unmodifiableList(spawns);
+	}
+
+	/**
+	 * Parse an instance xml.
+	 *
+	 * @return null if the file has no instance
+	 * @throws Exception if the file can't be read or parsed
+	 */
+	public static InstanceTemplate load(File file) throws Exception
+	{
+		XmlDocument doc = new XmlDocument(file);
+		InstanceTemplate template = null;
+		for (XmlNode n : doc.getChildren())
+		{
+			if (n.getName().equalsIgnoreCase("instance"))
+			{
+				template = new InstanceTemplate(file.getName(), n);
+			}
+		}
+		return template;
+	}
+
+	public String getFileName()
+	{
+		return _fileName;
+	}
+
+	public String getName()
+	{
+		return _name;
+	}
+
+	public int getActivityTime()
+	{
+		return _activityTime;
+	}
+
+	public boolean isSummonAllowed()
+	{
+		return _allowSummon;
+	}
+
+	public long getEmptyDestroyTime()
+	{
+		return _emptyDestroyTime;
+	}
+
+	public boolean isShowTimer()
+	{
+		return _showTimer;
+	}
+
+	public boolean isTimerIncrease()
+	{
+		return _isTimerIncrease;
+	}
+
+	public String getTimerText()
+	{
+		return _timerText;
+	}
+
+	public boolean isPvPInstance()
+	{
+		return _isPvPInstance;
+	}
+
+	/**
+	 * @return the spawn location as int[3], shared: copy it
+	 */
+	public int[] getSpawnLoc()
+	{
+		return _spawnLoc;
+	}
+
+	public List<DoorInfo> getDoors()
+	{
+		return _doors;
+	}
+
+	public List<SpawnInfo> getSpawns()
+	{
+		return _spawns;
+	}
+
+	public static final class DoorInfo
+	{
+		private final int _doorId;
+		// The values of the door template it overrides
+		private final Map<String, String> _set;
+
+		private DoorInfo(XmlNode node)
+		{
+			_doorId = node.getInt("doorId");
+			Map<String, String> set = new HashMap<>();
+			for (XmlNode bean : node.getChildren())
+			{
+				if (bean.getName().equalsIgnoreCase("set"))
+				{
+					set.put(bean.getString("name"), bean.getString("val"));
+				}
+			}
+			_set = Collections.unmodifiableMap(set);
+		}
+
+		public int getDoorId()
+		{
+			return _doorId;
+		}
+
+		/**
+		 * @return a new set with the overridden values, for one door
+		 */
+		public StatsSet newStatsSet()
+		{
+			StatsSet set = new StatsSet();
+			for (Map.Entry<String, String> entry : _set.entrySet())
+			{
+				set.set(entry.getKey(), entry.getValue());
+			}
+			return set;
+		}
+	}
+
+	public static final class SpawnInfo
+	{
+		private final int _npcId;
+		private final int _x;
+		private final int _y;
+		private final int _z;
+		private final int _heading;
+		private final int _respawn;
+		// -1 if not set
+		private final int _onKillDelay;
+
+		private SpawnInfo(XmlNode node)
+		{
+			_npcId = node.getInt("npcId");
+			_x = node.getInt("x");
+			_y = node.getInt("y");
+			_z = node.getInt("z");
+			_heading = node.getInt("heading");
+			_respawn = node.getInt("respawn");
+			_onKillDelay = node.getInt("onKillDelay", -1);
+		}
+
+		public int getNpcId()
+		{
+			return _npcId;
+		}
+
+		public int getX()
+		{
+			return _x;
+		}
+
+		public int getY()
+		{
+			return _y;
+		}
+
+		public int getZ()
+		{
+			return _z;
+		}
+
+		public int getHeading()
+		{
+			return _heading;
+		}
+
+		public int getRespawn()
+		{
+			return _respawn;
+		}
+
+		public int getOnKillDelay()
+		{
+			return _onKillDelay;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.gameserver.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time spent in each stage of the character restore (L2PcInstance.restore()), to find out which one makes the logins
+ * slow.
+ */
+public final class CharacterLoadStats
+{
+	private static final Map<String, Stage> _stages = new ConcurrentHashMap<>();
+
+	private CharacterLoadStats()
+	{
+	}
+
+	/**
+	 * Run a stage of the character restore and account its time.
+	 */
+	public static void time(String stage, Runnable task)
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			task.run();
+		}
+		finally
+		{
+			add(stage, System.nanoTime() - start);
+		}
+	}
+
+	public static void add(String stage, long nanos)
+	{
+		_stages.computeIfAbsent(stage, k -> new Stage()).add(nanos);
+	}
+
+	/**
+	 * @return a line per stage, the ones taking the most time first
+	 */
+	public static String[] getStats()
+	{
+		final List<Map.Entry<String, Stage>> stages = new ArrayList<>(_stages.entrySet());
+		stages.sort((a, b) -> Long.compare(b.getValue()._total.get(), a.getValue()._total.get()));
+
+		final String[] lines = new String[stages.size() + 1];
+		lines[0] = "Character load stages (ms) avg/max/total:";
+		int i = 1;
+		for (Map.Entry<String, Stage> entry : stages)
+		{
+			final Stage stage = entry.getValue();
+			final long count = Math.max(1, stage._count.get());
+			lines[i++] = " + " + entry.getKey() + ": " + String.format("%.2f", stage._total.get() / count / 1e6) + "/" +
+					String.format("%.2f", stage._max.get() / 1e6) + "/" + stage._total.get() / 1000000 + " (" +
+					stage._count.get() + " loads)";
+		}
+		return lines;
+	}
+
+	private static final class Stage
+	{
+		private final AtomicLong _count = new AtomicLong();
+		private final AtomicLong _total = new AtomicLong();
+		private final AtomicLong _max = new AtomicLong();
+
+		private void add(long nanos)
+		{
+			_count.incrementAndGet();
+			_total.addAndGet(nanos);
+			_max.accumulateAndGet(nanos, Math::max);
+		}
+	}
+}
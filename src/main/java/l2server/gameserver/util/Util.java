@@ -788,24 +788,7 @@ public final class Util
 
 	public static L2NpcInstance getNpcCloseTo(final int npcId, final L2PcInstance activeChar)
 	{
-		Collection<L2Character> knownCharacters = activeChar.getKnownList().getKnownCharactersInRadius(900);
-		for (L2Character character : knownCharacters)
-		{
-			if (!(character instanceof L2NpcInstance))
-			{
-				continue;
-			}
-
-			final L2NpcInstance npc = (L2NpcInstance) character;
-
-			if (npcId != npc.getNpcId())
-			{
-				continue;
-			}
-
-			return npc;
-		}
-
-		return null;
+		return (L2NpcInstance) activeChar.getKnownList().findKnownCharacterInRadius(900,
+				character -> character instanceof L2NpcInstance && ((L2NpcInstance) character).getNpcId() == npcId);
 	}
 }
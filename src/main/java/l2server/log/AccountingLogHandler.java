@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class AccountingLogHandler extends FileHandler
+public class AccountingLogHandler extends AsyncFileHandler
 {
 	public AccountingLogHandler() throws IOException, SecurityException
 	{
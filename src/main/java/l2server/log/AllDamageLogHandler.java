@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class AllDamageLogHandler extends FileHandler
+public class AllDamageLogHandler extends AsyncFileHandler
 {
 	public AllDamageLogHandler() throws IOException, SecurityException
 	{
@@ -0,0 +1,214 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.log;
+
+import java.io.IOException;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A FileHandler writing its records on the AsyncLogWriter thread.<BR><BR>
+ * <p>
+ * It's configured in log.cfg like any FileHandler (pattern, formatter, filter...). The level and the filter are
+ * checked on the logging thread, the formatting and the writing are left to the writer. Set
+ * <code>&lt;handler class&gt;.async = false</code> to write synchronously again.<BR>
+ * Records with parameters other than plain values (an item, a character...) are still formatted on the logging
+ * thread, since the formatters read the state of these objects: the item count or enchant level must be the logged
+ * one, not the one when written.
+ */
+public class AsyncFileHandler extends FileHandler
+{
+	private final boolean _async;
+
+	public AsyncFileHandler() throws IOException, SecurityException
+	{
+		super();
+		_async = isAsync();
+	}
+
+	/**
+	 * @param pattern the name pattern of the file, instead of the one of log.cfg
+	 */
+	public AsyncFileHandler(String pattern) throws IOException, SecurityException
+	{
+		super(pattern);
+		_async = isAsync();
+	}
+
+	private boolean isAsync()
+	{
+		final String async = LogManager.getLogManager().getProperty(getClass().getName() + ".async");
+		return async == null || Boolean.parseBoolean(async.trim());
+	}
+
+	@Override
+	public void publish(LogRecord record)
+	{
+		if (!_async)
+		{
+			super.publish(record);
+			return;
+		}
+
+		if (!isLoggable(record))
+		{
+			return;
+		}
+
+		if (hasObjectParameters(record))
+		{
+			record = new FormattedRecord(record, getFormatter().format(record));
+		}
+		// The caller is found from the stack, which is the writer's one later
+		else if (record.getThrown() != null || record.getLevel().intValue() >= Level.WARNING.intValue())
+		{
+			record.getSourceClassName();
+		}
+
+		AsyncLogWriter.getInstance().add(this, record);
+	}
+
+	@Override
+	public synchronized void setFormatter(Formatter formatter) throws SecurityException
+	{
+		// Called by the FileHandler constructor too
+		super.setFormatter(formatter == null || formatter instanceof RecordFormatter ? formatter :
+				new RecordFormatter(formatter));
+	}
+
+	@Override
+	public void flush()
+	{
+		if (_async)
+		{
+			// Flushed once per batch by the writer
+			if (AsyncLogWriter.getInstance().isWriterThread())
+			{
+				return;
+			}
+
+			AsyncLogWriter.getInstance().drain();
+		}
+		super.flush();
+	}
+
+	@Override
+	public void close() throws SecurityException
+	{
+		if (_async)
+		{
+			AsyncLogWriter.getInstance().drain();
+		}
+		super.close();
+	}
+
+	/**
+	 * Format and write a record, on the writer thread.
+	 */
+	void write(LogRecord record)
+	{
+		super.publish(record);
+	}
+
+	void flushFile()
+	{
+		super.flush();
+	}
+
+	private static boolean hasObjectParameters(LogRecord record)
+	{
+		final Object[] params = record.getParameters();
+		if (params == null)
+		{
+			return false;
+		}
+
+		for (Object param : params)
+		{
+			if (param != null && !(param instanceof String) && !(param instanceof Integer) && !(param instanceof Long) &&
+					!(param instanceof Double) && !(param instanceof Float) && !(param instanceof Boolean) &&
+					!(param instanceof Enum))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A record already formatted on the logging thread. The other fields are kept for the filter.
+	 */
+	private static class FormattedRecord extends LogRecord
+	{
+		private final String _text;
+
+		private FormattedRecord(LogRecord record, String text)
+		{
+			super(record.getLevel(), record.getMessage());
+			setLoggerName(record.getLoggerName());
+			setMillis(record.getMillis());
+			setParameters(record.getParameters());
+			setSequenceNumber(record.getSequenceNumber());
+			setThreadID(record.getThreadID());
+			setThrown(record.getThrown());
+			setResourceBundle(record.getResourceBundle());
+			setResourceBundleName(record.getResourceBundleName());
+			setSourceClassName(record.getSourceClassName());
+			setSourceMethodName(record.getSourceMethodName());
+			_text = text;
+		}
+	}
+
+	/**
+	 * The configured formatter, writing the formatted records as they are. Synchronized since the formatters aren't
+	 * thread safe, and both the logging threads and the writer use them.
+	 */
+	private static class RecordFormatter extends Formatter
+	{
+		private final Formatter _formatter;
+
+		private RecordFormatter(Formatter formatter)
+		{
+			_formatter = formatter;
+		}
+
+		@Override
+		public synchronized String format(LogRecord record)
+		{
+			if (record instanceof FormattedRecord)
+			{
+				return ((FormattedRecord) record)._text;
+			}
+			return _formatter.format(record);
+		}
+
+		@Override
+		public synchronized String getHead(Handler h)
+		{
+			return _formatter.getHead(h);
+		}
+
+		@Override
+		public synchronized String getTail(Handler h)
+		{
+			return _formatter.getTail(h);
+		}
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * The single thread writing the records of the AsyncFileHandlers.<BR><BR>
+ * <p>
+ * The logging threads only put the record in a bounded lock-free ring buffer; the writer takes them in batches,
+ * formats and writes them with the formatter of their handler, and flushes each file once per batch.<BR>
+ * When the buffer is full the record is either discarded or the logging thread waits for a free slot, depending on
+ * the overflow policy. Both the size and the policy are read from log.cfg, since the logging is configured before
+ * the server config:
+ * <pre>
+ * l2server.log.AsyncLogWriter.size = 8192
+ * l2server.log.AsyncLogWriter.overflow = BLOCK
+ * </pre>
+ */
+public final class AsyncLogWriter
+{
+	public enum OverflowPolicy
+	{
+		// The logging thread waits for the writer to free a slot
+		BLOCK,
+		// The record is lost, and counted
+		DISCARD
+	}
+
+	private static final int BATCH_SIZE = 256;
+
+	private final int _mask;
+	private final OverflowPolicy _overflowPolicy;
+
+	// Sequence of each slot: equal to the position when it's free, to the position + 1 when it holds a record
+	private final AtomicLongArray _sequences;
+	private final LogRecord[] _records;
+	private final AsyncFileHandler[] _handlers;
+
+	private final AtomicLong _tail = new AtomicLong();
+	// Only moved by the writer
+	private long _head;
+	// Records taken from the buffer and already written to their file
+	private volatile long _written;
+
+	private final Thread _thread;
+	private volatile boolean _sleeping;
+
+	private final AtomicLong _discarded = new AtomicLong();
+	private final AtomicLong _blocked = new AtomicLong();
+	private final AtomicLong _batches = new AtomicLong();
+	private final AtomicLong _maxBatch = new AtomicLong();
+
+	AsyncLogWriter(int size, OverflowPolicy overflowPolicy)
+	{
+		int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+		_mask = capacity - 1;
+		_overflowPolicy = overflowPolicy;
+
+		_sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++)
+		{
+			_sequences.set(i, i);
+		}
+		_records = new LogRecord[capacity];
+		_handlers = new AsyncFileHandler[capacity];
+
+		_thread = new Thread(this::run, "AsyncLogWriter");
+		_thread.setDaemon(true);
+		_thread.start();
+	}
+
+	public static AsyncLogWriter getInstance()
+	{
+		return SingletonHolder._instance;
+	}
+
+	/**
+	 * Queue a record, or handle the overflow when the buffer is full.
+	 *
+	 * @return false if the record was discarded
+	 */
+	boolean add(AsyncFileHandler handler, LogRecord record)
+	{
+		// A formatter logging something on the writer thread: waiting for itself would never end
+		if (isWriterThread())
+		{
+			handler.write(record);
+			handler.flushFile();
+			return true;
+		}
+
+		boolean blocked = false;
+		while (!offer(handler, record))
+		{
+			if (_overflowPolicy == OverflowPolicy.DISCARD)
+			{
+				_discarded.incrementAndGet();
+				return false;
+			}
+
+			if (!blocked)
+			{
+				blocked = true;
+				_blocked.incrementAndGet();
+			}
+			LockSupport.unpark(_thread);
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+
+		if (_sleeping)
+		{
+			LockSupport.unpark(_thread);
+		}
+		return true;
+	}
+
+	/**
+	 * Wait until all the records queued before are written.
+	 */
+	void drain()
+	{
+		if (isWriterThread())
+		{
+			return;
+		}
+
+		final long target = _tail.get();
+		while (_written < target && _thread.isAlive())
+		{
+			LockSupport.unpark(_thread);
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+	}
+
+	boolean isWriterThread()
+	{
+		return Thread.currentThread() == _thread;
+	}
+
+	private boolean offer(AsyncFileHandler handler, LogRecord record)
+	{
+		while (true)
+		{
+			final long position = _tail.get();
+			final int index = (int) position & _mask;
+			final long difference = _sequences.get(index) - position;
+			if (difference < 0)
+			{
+				// The writer didn't free this slot yet
+				return false;
+			}
+
+			if (difference == 0 && _tail.compareAndSet(position, position + 1))
+			{
+				_records[index] = record;
+				_handlers[index] = handler;
+				// Volatile store, so the writer can't go to sleep without seeing it
+				_sequences.set(index, position + 1);
+				return true;
+			}
+			// Another thread took the slot, retry with the new tail
+		}
+	}
+
+	private void run()
+	{
+		final List<AsyncFileHandler> touched = new ArrayList<>();
+		while (true)
+		{
+			int count = 0;
+			while (count < BATCH_SIZE)
+			{
+				final int index = (int) _head & _mask;
+				if (_sequences.get(index) != _head + 1)
+				{
+					break;
+				}
+
+				final LogRecord record = _records[index];
+				final AsyncFileHandler handler = _handlers[index];
+				_records[index] = null;
+				_handlers[index] = null;
+				_sequences.lazySet(index, _head + _mask + 1);
+				_head++;
+				count++;
+
+				try
+				{
+					handler.write(record);
+				}
+				catch (Throwable t)
+				{
+					// The handler reports its own errors, this should never happen
+					Log.log(Level.SEVERE, "AsyncLogWriter: Could not write a record: " + t.getMessage(), t);
+				}
+
+				if (!touched.contains(handler))
+				{
+					touched.add(handler);
+				}
+			}
+
+			if (count > 0)
+			{
+				for (AsyncFileHandler handler : touched)
+				{
+					handler.flushFile();
+				}
+				touched.clear();
+
+				_written = _head;
+				_batches.incrementAndGet();
+				_maxBatch.accumulateAndGet(count, Math::max);
+				continue;
+			}
+
+			_sleeping = true;
+			if (_sequences.get((int) _head & _mask) != _head + 1)
+			{
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+			}
+			_sleeping = false;
+		}
+	}
+
+	public String[] getStats()
+	{
+		final long written = _written;
+		final long batches = _batches.get();
+		return new String[]{
+				"Async log writer:",
+				" + Buffer: " + (_tail.get() - written) + "/" + (_mask + 1) + " overflow: " + _overflowPolicy,
+				" + Written: " + written + " discarded: " + _discarded.get() + " blocked: " + _blocked.get(),
+				" + Batches: " + batches + " avg: " + (batches == 0 ? 0 : written / batches) + " max: " + _maxBatch.get()
+		};
+	}
+
+	private static AsyncLogWriter create()
+	{
+		final LogManager manager = LogManager.getLogManager();
+		final String name = AsyncLogWriter.class.getName();
+
+		int size = 8192;
+		OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+		try
+		{
+			final String value = manager.getProperty(name + ".size");
+			if (value != null)
+			{
+				size = Integer.parseInt(value.trim());
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			System.err.println("AsyncLogWriter: Invalid size, using " + size + ".");
+		}
+		try
+		{
+			final String value = manager.getProperty(name + ".overflow");
+			if (value != null)
+			{
+				overflowPolicy = OverflowPolicy.valueOf(value.trim().toUpperCase());
+			}
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println("AsyncLogWriter: Invalid overflow policy, using " + overflowPolicy + ".");
+		}
+
+		return new AsyncLogWriter(size, overflowPolicy);
+	}
+
+	private static class SingletonHolder
+	{
+		protected static final AsyncLogWriter _instance = create();
+	}
+}
@@ -16,13 +16,12 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
 /**
  * @author zabbix
  *         Lets drink to code!
  */
-public class AuditLogHandler extends FileHandler
+public class AuditLogHandler extends AsyncFileHandler
 {
 	public AuditLogHandler() throws IOException, SecurityException
 	{
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class ChatLogHandler extends FileHandler
+public class ChatLogHandler extends AsyncFileHandler
 {
 
 	public ChatLogHandler() throws IOException, SecurityException
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class EnchantItemLogHandler extends FileHandler
+public class EnchantItemLogHandler extends AsyncFileHandler
 {
 	public EnchantItemLogHandler() throws IOException, SecurityException
 	{
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class EnchantSkillLogHandler extends FileHandler
+public class EnchantSkillLogHandler extends AsyncFileHandler
 {
 	public EnchantSkillLogHandler() throws IOException, SecurityException
 	{
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class ErrorLogHandler extends FileHandler
+public class ErrorLogHandler extends AsyncFileHandler
 {
 
 	public ErrorLogHandler() throws IOException, SecurityException
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class GMAuditLogHandler extends FileHandler
+public class GMAuditLogHandler extends AsyncFileHandler
 {
 
 	public GMAuditLogHandler() throws IOException, SecurityException
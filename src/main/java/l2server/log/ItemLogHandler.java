@@ -16,12 +16,11 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
 /**
  * @author Advi
  */
-public class ItemLogHandler extends FileHandler
+public class ItemLogHandler extends AsyncFileHandler
 {
 	public ItemLogHandler() throws IOException, SecurityException
 	{
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class MDamageLogHandler extends FileHandler
+public class MDamageLogHandler extends AsyncFileHandler
 {
 	public MDamageLogHandler() throws IOException, SecurityException
 	{
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class OlympiadLogHandler extends FileHandler
+public class OlympiadLogHandler extends AsyncFileHandler
 {
 	public OlympiadLogHandler() throws IOException, SecurityException
 	{
@@ -16,9 +16,8 @@
 package l2server.log;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
 
-public class PDamageLogHandler extends FileHandler
+public class PDamageLogHandler extends AsyncFileHandler
 {
 	public PDamageLogHandler() throws IOException, SecurityException
 	{
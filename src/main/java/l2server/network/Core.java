@@ -24,12 +24,14 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @param <T>
@@ -66,11 +68,28 @@ public final class Core<T extends MMOClient<?>> extends Thread
 	private final ArrayList<ByteBuffer> _bufferPool;
 	// Pending Close
 	private final NioNetStackList<MMOConnection<T>> _pendingClose;
-
-	private boolean _shutdown;
+	// Accepted channels waiting to be registered in this selector
+	private final NioNetStackList<SocketChannel> _pendingRegister;
+	// Connections waiting for OP_WRITE to be set by this selector
+	private final NioNetStackList<MMOConnection<T>> _pendingWrite;
+	// Selector loops the accepted connections are spread across (null on single selector mode)
+	private final Core<T>[] _workers;
+	private int _nextWorker;
+	// Blocks in select() instead of polling with selectNow() and sleeping
+	private final boolean _blocking;
+	private final AtomicBoolean _wakeupPending = new AtomicBoolean();
+
+	private volatile boolean _shutdown;
 
 	public Core(final CoreConfig sc, final IMMOExecutor<T> executor, final IPacketHandler<T> packetHandler, final IClientFactory<T> clientFactory, final IAcceptFilter acceptFilter) throws
 			IOException
+	{
+		this(sc, executor, packetHandler, clientFactory, acceptFilter, getSelectorThreadCount(sc), sc.SELECTOR_THREADS != 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Core(final CoreConfig sc, final IMMOExecutor<T> executor, final IPacketHandler<T> packetHandler, final IClientFactory<T> clientFactory, final IAcceptFilter acceptFilter, final int workerCount, final boolean blocking) throws
+			IOException
 	{
 		super.setName("SelectorThread-" + super.getId());
 
@@ -88,6 +107,8 @@ public final class Core<T extends MMOClient<?>> extends Thread
 		STRING_BUFFER = new NioNetStringBuffer(64 * 1024);
 
 		_pendingClose = new NioNetStackList<>();
+		_pendingRegister = new NioNetStackList<>();
+		_pendingWrite = new NioNetStackList<>();
 		_bufferPool = new ArrayList<>();
 
 		for (int i = 0; i < HELPER_BUFFER_COUNT; i++)
@@ -100,6 +121,32 @@ public final class Core<T extends MMOClient<?>> extends Thread
 		_clientFactory = clientFactory;
 		_executor = executor;
 		_selector = Selector.open();
+		_blocking = blocking;
+
+		if (workerCount > 0)
+		{
+			@SuppressWarnings("unchecked")
+			final Core<T>[] workers = (Core<T>[]) new Core<?>[workerCount];
+			for (int i = 0; i < workerCount; i++)
+			{
+				workers[i] = new Core<>(sc, executor, packetHandler, clientFactory, acceptFilter, 0, true);
+			}
+			_workers = workers;
+		}
+		else
+		{
+			_workers = null;
+		}
+	}
+
+	private static int getSelectorThreadCount(final CoreConfig sc)
+	{
+		if (sc.SELECTOR_THREADS < 0)
+		{
+			return Runtime.getRuntime().availableProcessors();
+		}
+
+		return sc.SELECTOR_THREADS;
 	}
 
 	public final void openServerSocket(InetAddress address, int tcpPort) throws IOException
@@ -140,6 +187,20 @@ public final class Core<T extends MMOClient<?>> extends Thread
 		}
 	}
 
+	@Override
+	public synchronized void start()
+	{
+		if (_workers != null)
+		{
+			for (Core<T> worker : _workers)
+			{
+				worker.start();
+			}
+		}
+
+		super.start();
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public final void run()
@@ -155,13 +216,27 @@ public final class Core<T extends MMOClient<?>> extends Thread
 		{
 			try
 			{
-				selectedKeysCount = _selector.selectNow();
+				if (_blocking)
+				{
+					selectedKeysCount = _selector.select();
+					_wakeupPending.set(false);
+				}
+				else
+				{
+					selectedKeysCount = _selector.selectNow();
+				}
 			}
 			catch (IOException e)
 			{
 				e.printStackTrace();
 			}
 
+			if (_blocking)
+			{
+				registerPendingChannels();
+				setPendingWriteInterests();
+			}
+
 			if (selectedKeysCount > 0)
 			{
 				selectedKeys = _selector.selectedKeys().iterator();
@@ -215,16 +290,126 @@ public final class Core<T extends MMOClient<?>> extends Thread
 				}
 			}
 
+			if (!_blocking)
+			{
+				try
+				{
+					Thread.sleep(SLEEP_TIME);
+				}
+				catch (InterruptedException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+		closeSelectorThread();
+	}
+
+	/**
+	 * Wakes up the selector if it is blocked in select(), unless a wake up is already on its way.
+	 */
+	private void wakeup()
+	{
+		if (_blocking && Thread.currentThread() != this && _wakeupPending.compareAndSet(false, true))
+		{
+			_selector.wakeup();
+		}
+	}
+
+	private void registerPendingChannels()
+	{
+		SocketChannel sc;
+		while (true)
+		{
+			synchronized (_pendingRegister)
+			{
+				if (_pendingRegister.isEmpty())
+				{
+					return;
+				}
+
+				sc = _pendingRegister.removeFirst();
+			}
+
 			try
 			{
-				Thread.sleep(SLEEP_TIME);
+				registerChannel(sc);
 			}
-			catch (InterruptedException e)
+			catch (IOException e)
 			{
 				e.printStackTrace();
+				try
+				{
+					sc.socket().close();
+				}
+				catch (IOException e1)
+				{
+					// ignore, we are closing anyway
+				}
 			}
 		}
-		closeSelectorThread();
+	}
+
+	private void registerChannel(final SocketChannel sc) throws IOException
+	{
+		SelectionKey clientKey = sc.register(_selector, SelectionKey.OP_READ);
+		MMOConnection<T> con = new MMOConnection<>(this, sc.socket(), clientKey, TCP_NODELAY);
+		con.setClient(_clientFactory.create(con));
+		clientKey.attach(con);
+	}
+
+	private void setPendingWriteInterests()
+	{
+		synchronized (_pendingWrite)
+		{
+			while (!_pendingWrite.isEmpty())
+			{
+				final MMOConnection<T> con = _pendingWrite.removeFirst();
+				con.setWriteScheduled(false);
+				enableWriteInterest(con);
+			}
+		}
+	}
+
+	private void enableWriteInterest(final MMOConnection<T> con)
+	{
+		try
+		{
+			final SelectionKey key = con.getSelectionKey();
+			key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+		}
+		catch (CancelledKeyException e)
+		{
+			// ignore
+		}
+	}
+
+	/**
+	 * Called when a packet has been queued on the given connection.<BR>
+	 * On single selector mode the write interest is set right away, otherwise the owning selector is woken up to set it.
+	 *
+	 * @param con the connection
+	 */
+	final void scheduleWrite(final MMOConnection<T> con)
+	{
+		if (!_blocking || Thread.currentThread() == this)
+		{
+			enableWriteInterest(con);
+			return;
+		}
+
+		synchronized (_pendingWrite)
+		{
+			if (con.isWriteScheduled())
+			{
+				return;
+			}
+
+			con.setWriteScheduled(true);
+			_pendingWrite.addLast(con);
+		}
+
+		wakeup();
 	}
 
 	private void finishConnection(final SelectionKey key, final MMOConnection<T> con)
@@ -259,10 +444,21 @@ public final class Core<T extends MMOClient<?>> extends Thread
 				if (_acceptFilter == null || _acceptFilter.accept(sc))
 				{
 					sc.configureBlocking(false);
-					SelectionKey clientKey = sc.register(_selector, SelectionKey.OP_READ);
-					con = new MMOConnection<>(this, sc.socket(), clientKey, TCP_NODELAY);
-					con.setClient(_clientFactory.create(con));
-					clientKey.attach(con);
+					if (_workers == null)
+					{
+						registerChannel(sc);
+					}
+					else
+					{
+						// round robin the accepted channels across the selector loops
+						final Core<T> worker = _workers[_nextWorker];
+						_nextWorker = (_nextWorker + 1) % _workers.length;
+						synchronized (worker._pendingRegister)
+						{
+							worker._pendingRegister.addLast(sc);
+						}
+						worker.wakeup();
+					}
 				}
 				else
 				{
@@ -615,16 +811,36 @@ public final class Core<T extends MMOClient<?>> extends Thread
 		final int dataPos = headerPos + HEADER_SIZE;
 		WRITE_BUFFER.position(dataPos);
 
-		// set client
-		sp._writeClient = client;
-		// set the write buffer
-		sp._buf = WRITE_BUFFER;
-		// write content to buffer
-		sp.write();
-		// delete the write buffer
-		sp._buf = null;
-		// release client
-		sp._writeClient = null;
+		// broadcast packets may be written by several selector threads at once
+		synchronized (sp)
+		{
+			if (sp._sharedData != null)
+			{
+				// already serialized for another recipient
+				WRITE_BUFFER.put(sp._sharedData);
+			}
+			else
+			{
+				// set client
+				sp._writeClient = client;
+				// set the write buffer
+				sp._buf = WRITE_BUFFER;
+				// write content to buffer
+				sp.write();
+				// delete the write buffer
+				sp._buf = null;
+				// release client
+				sp._writeClient = null;
+
+				// keep the plain content for the next recipients
+				if (sp.isRecipientIndependent())
+				{
+					final int size = WRITE_BUFFER.position() - dataPos;
+					sp._sharedData = new byte[size];
+					System.arraycopy(WRITE_BUFFER.array(), WRITE_BUFFER.arrayOffset() + dataPos, sp._sharedData, 0, size);
+				}
+			}
+		}
 
 		// size (inclusive header)
 		int dataSize = WRITE_BUFFER.position() - dataPos;
@@ -647,6 +863,8 @@ public final class Core<T extends MMOClient<?>> extends Thread
 		{
 			_pendingClose.addLast(con);
 		}
+
+		wakeup();
 	}
 
 	private void closeConnectionImpl(final SelectionKey key, final MMOConnection<T> con)
@@ -681,6 +899,18 @@ public final class Core<T extends MMOClient<?>> extends Thread
 	public final void shutdown()
 	{
 		_shutdown = true;
+		if (_blocking)
+		{
+			_selector.wakeup();
+		}
+
+		if (_workers != null)
+		{
+			for (Core<T> worker : _workers)
+			{
+				worker.shutdown();
+			}
+		}
 	}
 
 	protected void closeSelectorThread()
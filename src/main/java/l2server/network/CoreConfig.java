@@ -53,6 +53,15 @@ public final class CoreConfig
 	 */
 	public int SLEEP_TIME = 10;
 
+	/**
+	 * Number of selector threads the accepted connections are spread across.<BR>
+	 * <BR>
+	 * 0 keeps a single selector that polls and sleeps SLEEP_TIME between passes.<BR>
+	 * N > 0 uses one acceptor plus N selectors blocking in select(), woken up when packets are queued (SLEEP_TIME is ignored).<BR>
+	 * -1 uses one selector per available CPU core.<BR>
+	 */
+	public int SELECTOR_THREADS = 0;
+
 	/**
 	 * Used to enable/disable TCP_NODELAY which disable/enable Nagle's algorithm.<BR>
 	 * <BR>
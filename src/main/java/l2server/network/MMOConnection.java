@@ -60,6 +60,9 @@ public class MMOConnection<T extends MMOClient<?>>
 
 	private volatile boolean _pendingClose;
 
+	// guarded by the selector pending write queue
+	private boolean _writeScheduled;
+
 	private T _client;
 
 	public MMOConnection(final Core<T> selectorThread, final Socket socket, final SelectionKey key, boolean tcpNoDelay)
@@ -110,17 +113,20 @@ public class MMOConnection<T extends MMOClient<?>>
 
 		if (!_sendQueue.isEmpty())
 		{
-			try
-			{
-				_selectionKey.interestOps(_selectionKey.interestOps() | SelectionKey.OP_WRITE);
-			}
-			catch (CancelledKeyException e)
-			{
-				// ignore
-			}
+			_selectorThread.scheduleWrite(this);
 		}
 	}
 
+	final boolean isWriteScheduled()
+	{
+		return _writeScheduled;
+	}
+
+	final void setWriteScheduled(final boolean writeScheduled)
+	{
+		_writeScheduled = writeScheduled;
+	}
+
 	final SelectionKey getSelectionKey()
 	{
 		return _selectionKey;
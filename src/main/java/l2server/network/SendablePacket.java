@@ -26,6 +26,9 @@ public abstract class SendablePacket<T extends MMOClient<?>> extends AbstractPac
 {
 	protected T _writeClient;
 
+	// Plain content written by the first write of a recipient independent packet, guarded by the packet itself
+	byte[] _sharedData;
+
 	public final T getWriteClient()
 	{
 		return _writeClient;
@@ -143,4 +146,15 @@ public abstract class SendablePacket<T extends MMOClient<?>> extends AbstractPac
 	}
 
 	protected abstract void write();
+
+	/**
+	 * Packets which write the same content no matter which client they are sent to can return true here.<BR>
+	 * Their content will be written only once and shared by all the recipients, only the encryption being done per client.
+	 *
+	 * @return true if the written content doesn't depend on the recipient
+	 */
+	protected boolean isRecipientIndependent()
+	{
+		return false;
+	}
 }
@@ -0,0 +1,540 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package l2server.util;
+
+import l2server.log.Log;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+/**
+ * Hierarchical timing wheel, a replacement for ScheduledThreadPoolExecutor when there are lots of timers.<BR><BR>
+ * <p>
+ * Timers are kept in 4 levels of 256 buckets (the first level covering 256 ticks, the second one 256 * 256 ticks...)
+ * and cascade down to the lower levels as time goes by. Scheduling and cancelling a timer is O(1) and no cancelled
+ * timer is left behind, so no purge is needed. A single ticker thread advances the wheel every tick and hands the
+ * expired timers in batches to the worker threads.
+ */
+public final class TimingWheel
+{
+	private static final int WHEEL_BITS = 8;
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	private static final int LEVELS = 4;
+
+	// Max amount of expired timers run by a worker in a row
+	private static final int BATCH_SIZE = 32;
+
+	private static final int WAITING = 0;
+	private static final int RUNNING = 1;
+	private static final int DONE = 2;
+	private static final int CANCELLED = 3;
+
+	private final String _name;
+	private final long _tickDuration;
+	private final LongSupplier _clock;
+	private final long _startTime;
+	private final Timer[][] _wheel = new Timer[LEVELS][WHEEL_SIZE];
+	private final ThreadPoolExecutor _workers;
+	private final Thread _ticker;
+
+	// Only touched by the ticker thread
+	private long _currentTick;
+	private ArrayList<Timer> _expired = new ArrayList<>();
+
+	// Handed to the ticker thread by the other ones
+	private final Queue<Timer> _pendingTimers = new ConcurrentLinkedQueue<>();
+	private final Queue<Timer> _cancelledTimers = new ConcurrentLinkedQueue<>();
+
+	// Stats
+	private final AtomicInteger _scheduledCount = new AtomicInteger();
+	private final AtomicLong _completedCount = new AtomicLong();
+	private final AtomicLong _cancelledCount = new AtomicLong();
+	private volatile int _lastTickExpired;
+	private volatile long _lateTicks;
+
+	private volatile boolean _shutdown;
+
+	/**
+	 * @param name         name of the wheel, used for its ticker thread
+	 * @param tickDuration duration of a tick in milliseconds
+	 * @param threadCount  amount of threads running the expired timers
+	 * @param threadFactory factory for these threads
+	 */
+	public TimingWheel(String name, long tickDuration, int threadCount, ThreadFactory threadFactory)
+	{
+		this(name, tickDuration, threadCount, threadFactory, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+	}
+
+	/**
+	 * @param name         name of the wheel, used for its ticker thread
+	 * @param tickDuration duration of a tick in milliseconds
+	 * @param threadCount  amount of threads running the expired timers
+	 * @param threadFactory factory for these threads
+	 * @param clock        current time in milliseconds, only its differences are used. It must not jump: moving the
+	 *                     wall clock back would hold all the timers back
+	 */
+	public TimingWheel(String name, long tickDuration, int threadCount, ThreadFactory threadFactory, LongSupplier clock)
+	{
+		_name = name;
+		_clock = clock;
+		_tickDuration = Math.max(1, tickDuration);
+		_workers = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory);
+
+		for (int level = 0; level < LEVELS; level++)
+		{
+			for (int i = 0; i < WHEEL_SIZE; i++)
+			{
+				// Sentinel of each bucket list
+				final Timer head = new Timer(null, 0, 0);
+				head._prev = head;
+				head._next = head;
+				_wheel[level][i] = head;
+			}
+		}
+
+		_startTime = _clock.getAsLong();
+		_ticker = new Thread(new Ticker(), name + "-Ticker");
+		_ticker.setDaemon(true);
+		_ticker.setPriority(Thread.NORM_PRIORITY + 1);
+		_ticker.start();
+	}
+
+	/**
+	 * Schedule a task to be run once after the given delay.
+	 *
+	 * @param r     the task
+	 * @param delay the delay in milliseconds
+	 * @return the future of the task, which can be cancelled
+	 */
+	public ScheduledFuture<?> schedule(Runnable r, long delay)
+	{
+		return add(new Timer(r, _clock.getAsLong() + delay, 0));
+	}
+
+	/**
+	 * Schedule a task to be run periodically, with the same semantics as ScheduledExecutorService.scheduleAtFixedRate.
+	 *
+	 * @param r       the task
+	 * @param initial the delay before the first run in milliseconds
+	 * @param period  the period in milliseconds
+	 * @return the future of the task, which can be cancelled
+	 */
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable r, long initial, long period)
+	{
+		return add(new Timer(r, _clock.getAsLong() + initial, Math.max(1, period)));
+	}
+
+	/**
+	 * Run a task right away in the worker threads.
+	 *
+	 * @param r the task
+	 */
+	public void execute(Runnable r)
+	{
+		_workers.execute(r);
+	}
+
+	private Timer add(Timer timer)
+	{
+		if (_shutdown)
+		{
+			timer._state.set(CANCELLED);
+			return timer;
+		}
+
+		_scheduledCount.incrementAndGet();
+		_pendingTimers.add(timer);
+		return timer;
+	}
+
+	public void shutdown()
+	{
+		_shutdown = true;
+		_ticker.interrupt();
+		_workers.shutdown();
+	}
+
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		return _workers.awaitTermination(timeout, unit);
+	}
+
+	public String[] getStats()
+	{
+		return new String[]{
+				" |- Tick:            " + _tickDuration + " ms",
+				" |- ActiveThreads:   " + _workers.getActiveCount(),
+				" |- PoolSize:        " + _workers.getPoolSize(),
+				" |- ScheduledTimers: " + _scheduledCount.get(),
+				" |- CompletedTasks:  " + _completedCount.get(),
+				" |- CancelledTimers: " + _cancelledCount.get(),
+				" |- LastTickExpired: " + _lastTickExpired,
+				" |- LateTicks:       " + _lateTicks,
+				" |- QueuedBatches:   " + _workers.getQueue().size()
+		};
+	}
+
+	private final class Ticker implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			while (!_shutdown)
+			{
+				try
+				{
+					final long targetTick = (_clock.getAsLong() - _startTime) / _tickDuration;
+					if (targetTick - _currentTick > 1)
+					{
+						_lateTicks += targetTick - _currentTick - 1;
+					}
+
+					while (_currentTick < targetTick)
+					{
+						placePendingTimers();
+						removeCancelledTimers();
+						tick();
+					}
+
+					placePendingTimers();
+					removeCancelledTimers();
+					dispatchExpired();
+
+					final long nextTickTime = _startTime + (_currentTick + 1) * _tickDuration;
+					final long sleep = nextTickTime - _clock.getAsLong();
+					if (sleep > 0)
+					{
+						Thread.sleep(sleep);
+					}
+				}
+				catch (InterruptedException e)
+				{
+					// shutdown
+				}
+				catch (Exception e)
+				{
+					Log.log(Level.WARNING, _name + ": error while advancing the timing wheel", e);
+				}
+			}
+		}
+	}
+
+	private void placePendingTimers()
+	{
+		Timer timer;
+		while ((timer = _pendingTimers.poll()) != null)
+		{
+			if (timer._state.get() == CANCELLED)
+			{
+				continue;
+			}
+
+			// round up, a timer is never run before its deadline
+			timer._deadlineTick = Math.max(_currentTick,
+					(timer._deadline - _startTime + _tickDuration - 1) / _tickDuration);
+			place(timer);
+		}
+	}
+
+	private void removeCancelledTimers()
+	{
+		Timer timer;
+		while ((timer = _cancelledTimers.poll()) != null)
+		{
+			unlink(timer);
+		}
+	}
+
+	private void place(Timer timer)
+	{
+		final long delta = timer._deadlineTick - _currentTick;
+		if (delta <= 0)
+		{
+			_expired.add(timer);
+			return;
+		}
+
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= 1L << WHEEL_BITS * (level + 1))
+		{
+			level++;
+		}
+
+		// Timers further than the highest level will just cascade back to it
+		final int index = (int) (timer._deadlineTick >>> WHEEL_BITS * level) & WHEEL_MASK;
+		final Timer head = _wheel[level][index];
+		timer._prev = head._prev;
+		timer._next = head;
+		head._prev._next = timer;
+		head._prev = timer;
+	}
+
+	private static void unlink(Timer timer)
+	{
+		if (timer._next == null)
+		{
+			return;
+		}
+
+		timer._prev._next = timer._next;
+		timer._next._prev = timer._prev;
+		timer._prev = null;
+		timer._next = null;
+	}
+
+	private void tick()
+	{
+		_currentTick++;
+
+		// Cascade the timers of the higher levels whose bucket comes up
+		for (int level = 1; level < LEVELS; level++)
+		{
+			if ((_currentTick & (1L << WHEEL_BITS * level) - 1) != 0)
+			{
+				break;
+			}
+
+			final int index = (int) (_currentTick >>> WHEEL_BITS * level) & WHEEL_MASK;
+			final Timer head = _wheel[level][index];
+			Timer timer = head._next;
+			head._next = head;
+			head._prev = head;
+			while (timer != head)
+			{
+				final Timer next = timer._next;
+				timer._prev = null;
+				timer._next = null;
+				place(timer);
+				timer = next;
+			}
+		}
+
+		final Timer head = _wheel[0][(int) _currentTick & WHEEL_MASK];
+		Timer timer = head._next;
+		head._next = head;
+		head._prev = head;
+		while (timer != head)
+		{
+			final Timer next = timer._next;
+			timer._prev = null;
+			timer._next = null;
+			_expired.add(timer);
+			timer = next;
+		}
+	}
+
+	private void dispatchExpired()
+	{
+		final int count = _expired.size();
+		_lastTickExpired = count;
+		if (count == 0)
+		{
+			return;
+		}
+
+		final ArrayList<Timer> expired = _expired;
+		_expired = new ArrayList<>();
+		for (int i = 0; i < count; i += BATCH_SIZE)
+		{
+			_workers.execute(new Batch(expired, i, Math.min(count, i + BATCH_SIZE)));
+		}
+	}
+
+	private final class Batch implements Runnable
+	{
+		private final ArrayList<Timer> _timers;
+		private final int _from;
+		private final int _to;
+
+		Batch(ArrayList<Timer> timers, int from, int to)
+		{
+			_timers = timers;
+			_from = from;
+			_to = to;
+		}
+
+		@Override
+		public void run()
+		{
+			for (int i = _from; i < _to; i++)
+			{
+				_timers.get(i).run();
+			}
+		}
+	}
+
+	private final class Timer implements ScheduledFuture<Object>
+	{
+		private final Runnable _task;
+		private final long _period;
+		private final AtomicInteger _state = new AtomicInteger(WAITING);
+		private volatile long _deadline;
+
+		// Only touched by the ticker thread
+		private long _deadlineTick;
+		private Timer _prev;
+		private Timer _next;
+
+		Timer(Runnable task, long deadline, long period)
+		{
+			_task = task;
+			_deadline = deadline;
+			_period = period;
+		}
+
+		void run()
+		{
+			if (!_state.compareAndSet(WAITING, RUNNING))
+			{
+				return;
+			}
+
+			try
+			{
+				_task.run();
+			}
+			catch (final Throwable e)
+			{
+				final Thread t = Thread.currentThread();
+				final UncaughtExceptionHandler h = t.getUncaughtExceptionHandler();
+				if (h != null)
+				{
+					h.uncaughtException(t, e);
+				}
+			}
+
+			_completedCount.incrementAndGet();
+
+			if (_period > 0 && !_shutdown)
+			{
+				_deadline += _period;
+				if (_state.compareAndSet(RUNNING, WAITING))
+				{
+					_pendingTimers.add(this);
+				}
+				return;
+			}
+
+			if (_state.compareAndSet(RUNNING, DONE))
+			{
+				_scheduledCount.decrementAndGet();
+			}
+
+			synchronized (this)
+			{
+				notifyAll();
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			while (true)
+			{
+				final int state = _state.get();
+				if (state == DONE || state == CANCELLED)
+				{
+					return false;
+				}
+
+				if (_state.compareAndSet(state, CANCELLED))
+				{
+					_scheduledCount.decrementAndGet();
+					_cancelledCount.incrementAndGet();
+					if (state == WAITING)
+					{
+						_cancelledTimers.add(this);
+					}
+
+					synchronized (this)
+					{
+						notifyAll();
+					}
+					return true;
+				}
+			}
+		}
+
+		@Override
+		public boolean isCancelled()
+		{
+			return _state.get() == CANCELLED;
+		}
+
+		@Override
+		public boolean isDone()
+		{
+			return _state.get() >= DONE;
+		}
+
+		@Override
+		public synchronized Object get() throws InterruptedException, ExecutionException
+		{
+			while (!isDone())
+			{
+				wait();
+			}
+
+			return null;
+		}
+
+		@Override
+		public synchronized Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+		{
+			final long end = System.nanoTime() + unit.toNanos(timeout);
+			while (!isDone())
+			{
+				final long left = end - System.nanoTime();
+				if (left <= 0)
+				{
+					throw new TimeoutException();
+				}
+
+				TimeUnit.NANOSECONDS.timedWait(this, left);
+			}
+
+			return null;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit)
+		{
+			return unit.convert(_deadline - _clock.getAsLong(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o)
+		{
+			return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+		}
+	}
+}
@@ -1,13 +1,106 @@
 package l2server;
 
+import l2server.gameserver.ShutdownSaver;
+import l2server.gameserver.StartupLoader;
+import l2server.gameserver.cache.HtmTemplate;
 import l2server.gameserver.datatables.ItemTable;
 import l2server.gameserver.datatables.SkillTable;
+import l2server.gameserver.idfactory.BitSetIdAllocator;
+import l2server.gameserver.instancemanager.InstanceManager;
+import l2server.gameserver.instancemanager.InstanceManager.InstanceWorld;
+import l2server.gameserver.instancemanager.ItemsWriteBehindManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager;
+import l2server.gameserver.instancemanager.QuestVarsWriteBehindManager.Operation;
+import l2server.gameserver.model.KnownListGrid;
+import l2server.gameserver.model.L2Abnormal;
+import l2server.gameserver.model.L2ItemInstance;
+import l2server.gameserver.model.L2ItemInstance.ItemLocation;
+import l2server.gameserver.model.L2Object;
+import l2server.gameserver.model.L2Skill;
+import l2server.gameserver.model.L2World;
+import l2server.gameserver.model.L2WorldRegion;
+import l2server.gameserver.model.actor.L2Character;
+import l2server.gameserver.model.actor.L2Npc;
+import l2server.gameserver.model.actor.instance.L2PcInstance;
+import l2server.gameserver.model.actor.knownlist.ObjectKnownList;
+import l2server.gameserver.model.base.PlayerState;
+import l2server.gameserver.model.itemcontainer.ItemContainer;
+import l2server.gameserver.model.zone.L2ZoneType;
+import l2server.gameserver.model.zone.form.ZoneCuboid;
+import l2server.gameserver.model.zone.form.ZoneNPoly;
+import l2server.gameserver.model.zone.type.L2ScriptZone;
+import l2server.gameserver.network.PacketStats;
+import l2server.gameserver.network.serverpackets.StatusUpdate.StatusUpdateDisplay;
+import l2server.gameserver.scripting.CompiledScriptCache;
+import l2server.gameserver.scripting.L2ScriptEngineManager;
+import l2server.gameserver.stats.Stats;
+import l2server.gameserver.stats.conditions.ConditionPlayerState;
+import l2server.gameserver.stats.funcs.Func;
+import l2server.gameserver.stats.funcs.FuncAdd;
+import l2server.gameserver.stats.funcs.LambdaConst;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager;
+import l2server.gameserver.taskmanager.BroadcastUpdateTaskManager.BroadcastType;
+import l2server.gameserver.templates.InstanceTemplate;
+import l2server.gameserver.templates.chars.L2NpcTemplate;
+import l2server.gameserver.templates.chars.L2PcTemplate;
+import l2server.gameserver.templates.StatsSet;
+import l2server.log.AsyncFileHandler;
+import l2server.util.TimingWheel;
+import com.l2jserver.script.java.JavaScriptEngineFactory;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Reader;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
 import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 /**
  * @author Pere
@@ -52,4 +145,1334 @@ public class Tests
 		initializeServer();
 		ItemTable.getInstance();
 	}
+
+	@Test
+	public void testItemsWriteBehind() throws Exception
+	{
+		initializeServer();
+		final String databaseUrl = Config.DATABASE_URL;
+		final String databaseLogin = Config.DATABASE_LOGIN;
+		final String databasePassword = Config.DATABASE_PASSWORD;
+		final boolean lazyItemsUpdate = Config.LAZY_ITEMS_UPDATE;
+		final boolean itemsWriteBehind = Config.ITEMS_WRITE_BEHIND;
+		final int itemsWriteBehindDelay = Config.ITEMS_WRITE_BEHIND_DELAY;
+		Config.DATABASE_URL = "jdbc:h2:mem:l2server;MODE=MySQL;DB_CLOSE_DELAY=-1";
+		Config.DATABASE_LOGIN = "sa";
+		Config.DATABASE_PASSWORD = "";
+		Config.LAZY_ITEMS_UPDATE = false;
+		Config.ITEMS_WRITE_BEHIND = true;
+		// Long enough for the writer not to flush by itself during the test
+		Config.ITEMS_WRITE_BEHIND_DELAY = 60000;
+
+		final ItemsWriteBehindManager writeBehind = ItemsWriteBehindManager.getInstance();
+		try
+		{
+			try (Connection con = L2DatabaseFactory.getInstance().getConnection(); Statement st = con.createStatement())
+			{
+				st.execute("CREATE TABLE IF NOT EXISTS items (owner_id INT, item_id INT, count BIGINT, loc VARCHAR(10), " +
+						"loc_data INT, enchant_level INT, object_id INT PRIMARY KEY, custom_type1 INT, custom_type2 INT, " +
+						"mana_left INT, `time` BIGINT, appearance INT, mob_id INT)");
+				st.execute("CREATE TABLE IF NOT EXISTS item_attributes (itemId INT)");
+				st.execute("CREATE TABLE IF NOT EXISTS item_elementals (itemId INT)");
+			}
+
+			final L2ItemInstance item = new L2ItemInstance(268435456, 57);
+			item.setOwnerId(1);
+			item.setLocation(ItemLocation.INVENTORY);
+			item.setCount(10);
+
+			// Inserts are synchronous
+			item.updateDatabase();
+			assertEquals(10, getStoredCount(item));
+
+			// Updates are queued and coalesced
+			item.setCount(20);
+			item.updateDatabase();
+			item.setCount(30);
+			item.updateDatabase();
+			assertEquals(10, getStoredCount(item));
+
+			writeBehind.flush();
+			assertEquals(30, getStoredCount(item));
+
+			// Forced updates are synchronous
+			item.setCount(40);
+			item.updateDatabase(true);
+			assertEquals(40, getStoredCount(item));
+
+			// Flushing a character only writes its items
+			final L2ItemInstance other = new L2ItemInstance(268435460, 57);
+			other.setOwnerId(2);
+			other.setLocation(ItemLocation.INVENTORY);
+			other.setCount(10);
+			other.updateDatabase();
+			item.setCount(45);
+			item.updateDatabase();
+			other.setCount(15);
+			other.updateDatabase();
+			writeBehind.flush(1);
+			assertEquals(45, getStoredCount(item));
+			assertEquals(10, getStoredCount(other));
+			writeBehind.flush();
+			assertEquals(15, getStoredCount(other));
+
+			// A failed batch is queued again
+			item.setCount(48);
+			item.updateDatabase();
+			try (Connection con = L2DatabaseFactory.getInstance().getConnection(); Statement st = con.createStatement())
+			{
+				st.execute("ALTER TABLE items RENAME TO items_moved");
+				writeBehind.flush();
+				st.execute("ALTER TABLE items_moved RENAME TO items");
+			}
+			assertEquals(45, getStoredCount(item));
+			writeBehind.flush();
+			assertEquals(48, getStoredCount(item));
+
+			// A batch failing on execution is written by the next flush
+			item.setCount(49);
+			item.updateDatabase();
+			other.setCount(1000);
+			other.updateDatabase();
+			try (Connection con = L2DatabaseFactory.getInstance().getConnection(); Statement st = con.createStatement())
+			{
+				st.execute("ALTER TABLE items ADD CONSTRAINT items_count_check CHECK (count < 1000)");
+				writeBehind.flush();
+				st.execute("ALTER TABLE items DROP CONSTRAINT items_count_check");
+			}
+			assertEquals(48, getStoredCount(item));
+			assertEquals(15, getStoredCount(other));
+			writeBehind.flush();
+			assertEquals(49, getStoredCount(item));
+			assertEquals(1000, getStoredCount(other));
+
+			// A queued update is dropped when the item is deleted
+			item.setCount(50);
+			item.updateDatabase();
+			item.setCount(0);
+			item.updateDatabase();
+			writeBehind.flush();
+			assertEquals(-1, getStoredCount(item));
+		}
+		finally
+		{
+			writeBehind.shutdown();
+			Config.DATABASE_URL = databaseUrl;
+			Config.DATABASE_LOGIN = databaseLogin;
+			Config.DATABASE_PASSWORD = databasePassword;
+			Config.LAZY_ITEMS_UPDATE = lazyItemsUpdate;
+			Config.ITEMS_WRITE_BEHIND = itemsWriteBehind;
+			Config.ITEMS_WRITE_BEHIND_DELAY = itemsWriteBehindDelay;
+		}
+	}
+
+	@Test
+	public void testQuestVarsWriteBehind() throws Exception
+	{
+		initializeServer();
+		final String databaseUrl = Config.DATABASE_URL;
+		final String databaseLogin = Config.DATABASE_LOGIN;
+		final String databasePassword = Config.DATABASE_PASSWORD;
+		final boolean questVarsWriteBehind = Config.QUEST_VARS_WRITE_BEHIND;
+		final int questVarsWriteBehindDelay = Config.QUEST_VARS_WRITE_BEHIND_DELAY;
+		Config.DATABASE_URL = "jdbc:h2:mem:l2server;MODE=MySQL;DB_CLOSE_DELAY=-1";
+		Config.DATABASE_LOGIN = "sa";
+		Config.DATABASE_PASSWORD = "";
+		Config.QUEST_VARS_WRITE_BEHIND = true;
+		// Long enough for the writer not to flush by itself during the test
+		Config.QUEST_VARS_WRITE_BEHIND_DELAY = 60000;
+
+		final QuestVarsWriteBehindManager writeBehind = QuestVarsWriteBehindManager.getInstance();
+		try
+		{
+			try (Connection con = L2DatabaseFactory.getInstance().getConnection(); Statement st = con.createStatement())
+			{
+				st.execute("CREATE TABLE IF NOT EXISTS character_quests (charId INT, name VARCHAR(60), var VARCHAR(20), " +
+						"value VARCHAR(255), PRIMARY KEY (charId, name, var))");
+				st.execute("CREATE TABLE IF NOT EXISTS quest_global_data (quest_name VARCHAR(40), var VARCHAR(20), " +
+						"value VARCHAR(255), PRIMARY KEY (quest_name, var))");
+			}
+
+			// The changes are queued and coalesced
+			writeBehind.add(1, "Q1", "kills", "1", Operation.CREATE);
+			for (int i = 2; i <= 50; i++)
+			{
+				writeBehind.add(1, "Q1", "kills", String.valueOf(i), Operation.UPDATE);
+			}
+			writeBehind.add(1, "Q1", "cond", "1", Operation.CREATE);
+			writeBehind.add(QuestVarsWriteBehindManager.GLOBAL, "Q1", "reuse", "100", Operation.CREATE);
+			assertNull(getStoredQuestVar(1, "Q1", "kills"));
+			assertEquals("100", writeBehind.getPendingValue(QuestVarsWriteBehindManager.GLOBAL, "Q1", "reuse"));
+
+			writeBehind.flush();
+			assertEquals("50", getStoredQuestVar(1, "Q1", "kills"));
+			assertEquals("1", getStoredQuestVar(1, "Q1", "cond"));
+			assertEquals("100", getStoredQuestVar(QuestVarsWriteBehindManager.GLOBAL, "Q1", "reuse"));
+			assertNull(writeBehind.getPendingValue(QuestVarsWriteBehindManager.GLOBAL, "Q1", "reuse"));
+
+			// Updating a deleted variable doesn't bring it back
+			writeBehind.add(1, "Q1", "cond", null, Operation.DELETE);
+			writeBehind.add(1, "Q1", "cond", "2", Operation.UPDATE);
+			writeBehind.add(QuestVarsWriteBehindManager.GLOBAL, "Q1", "reuse", null, Operation.DELETE);
+			assertEquals("", writeBehind.getPendingValue(QuestVarsWriteBehindManager.GLOBAL, "Q1", "reuse"));
+			writeBehind.flush();
+			assertNull(getStoredQuestVar(1, "Q1", "cond"));
+			assertNull(getStoredQuestVar(QuestVarsWriteBehindManager.GLOBAL, "Q1", "reuse"));
+
+			// The queued changes of a deleted quest are dropped
+			writeBehind.add(1, "Q1", "kills", "60", Operation.UPDATE);
+			writeBehind.add(1, "Q2", "kills", "1", Operation.CREATE);
+			writeBehind.cancel(1, "Q1");
+			writeBehind.flush();
+			assertEquals("50", getStoredQuestVar(1, "Q1", "kills"));
+			assertEquals("1", getStoredQuestVar(1, "Q2", "kills"));
+
+			// Flushing a character only writes its variables
+			writeBehind.add(1, "Q2", "kills", "2", Operation.UPDATE);
+			writeBehind.add(2, "Q2", "kills", "1", Operation.CREATE);
+			writeBehind.flush(2);
+			assertEquals("1", getStoredQuestVar(2, "Q2", "kills"));
+			assertEquals("1", getStoredQuestVar(1, "Q2", "kills"));
+			writeBehind.flush();
+			assertEquals("2", getStoredQuestVar(1, "Q2", "kills"));
+
+			// A failed batch is queued again, and merged with the changes made afterwards
+			writeBehind.add(1, "Q3", "cond", "1", Operation.CREATE);
+			try (Connection con = L2DatabaseFactory.getInstance().getConnection(); Statement st = con.createStatement())
+			{
+				st.execute("ALTER TABLE character_quests RENAME TO character_quests_moved");
+				writeBehind.flush();
+				st.execute("ALTER TABLE character_quests_moved RENAME TO character_quests");
+			}
+			assertNull(getStoredQuestVar(1, "Q3", "cond"));
+			assertEquals("1", writeBehind.getPendingValue(1, "Q3", "cond"));
+			// Still created, the row doesn't exist yet
+			writeBehind.add(1, "Q3", "cond", "2", Operation.UPDATE);
+			writeBehind.flush();
+			assertEquals("2", getStoredQuestVar(1, "Q3", "cond"));
+
+			// A value being written is still pending until it's committed, the readers never see an older one
+			final AtomicBoolean done = new AtomicBoolean();
+			final AtomicInteger errors = new AtomicInteger();
+			final Thread reader = new Thread(() ->
+			{
+				try
+				{
+					int last = 0;
+					while (!done.get())
+					{
+						String value = writeBehind.getPendingValue(QuestVarsWriteBehindManager.GLOBAL, "Q4", "step");
+						if (value == null)
+						{
+							value = getStoredQuestVar(QuestVarsWriteBehindManager.GLOBAL, "Q4", "step");
+						}
+						if (value != null)
+						{
+							final int step = Integer.parseInt(value);
+							if (step < last)
+							{
+								errors.incrementAndGet();
+							}
+							last = step;
+						}
+					}
+				}
+				catch (Exception e)
+				{
+					errors.incrementAndGet();
+				}
+			});
+			reader.start();
+			try
+			{
+				for (int i = 1; i <= 100; i++)
+				{
+					writeBehind.add(QuestVarsWriteBehindManager.GLOBAL, "Q4", "step", String.valueOf(i), Operation.CREATE);
+					// In the same batches, for them to take a while
+					for (int j = 0; j < 100; j++)
+					{
+						writeBehind.add(3, "Q4", "var" + j, String.valueOf(i), Operation.CREATE);
+					}
+					writeBehind.flush();
+				}
+			}
+			finally
+			{
+				done.set(true);
+				reader.join();
+			}
+			assertEquals(0, errors.get());
+			assertEquals("100", getStoredQuestVar(QuestVarsWriteBehindManager.GLOBAL, "Q4", "step"));
+		}
+		finally
+		{
+			writeBehind.shutdown();
+			Config.DATABASE_URL = databaseUrl;
+			Config.DATABASE_LOGIN = databaseLogin;
+			Config.DATABASE_PASSWORD = databasePassword;
+			Config.QUEST_VARS_WRITE_BEHIND = questVarsWriteBehind;
+			Config.QUEST_VARS_WRITE_BEHIND_DELAY = questVarsWriteBehindDelay;
+		}
+	}
+
+	@Test
+	public void testItemContainerIndex()
+	{
+		initializeServer();
+		ItemTable.getInstance();
+
+		final TestContainer container = new TestContainer();
+		final L2ItemInstance adena = new L2ItemInstance(268435457, 57);
+		final L2ItemInstance sword1 = new L2ItemInstance(268435458, 1);
+		final L2ItemInstance sword2 = new L2ItemInstance(268435459, 1);
+		container.add(adena);
+		container.add(sword1);
+		container.add(sword2);
+
+		assertSame(sword2, container.getItemByObjectId(sword2.getObjectId()));
+		assertSame(adena, container.getItemByItemId(57));
+		assertEquals(2, container.getItemsByItemId(1).size());
+		assertSame(sword2, container.getItemByItemId(1, sword1));
+		assertEquals(2, container.getInventoryItemCount(1, -1));
+
+		container.remove(sword1);
+		assertNull(container.getItemByObjectId(sword1.getObjectId()));
+		assertSame(sword2, container.getItemByItemId(1));
+		assertEquals(1, container.getItemsByItemId(1).size());
+
+		container.remove(sword2);
+		assertNull(container.getItemByItemId(1));
+		assertEquals(0, container.getItemsByItemId(1).size());
+		assertEquals(1, container.getSize());
+	}
+
+	@Test
+	public void testHtmTemplate()
+	{
+		final HtmTemplate template = new HtmTemplate(
+				"<html><body>%name%: 100% sure<br><a action=\"bypass -h npc_%objectId%_Chat 1\">Chat</a>" +
+						"<a action=\"bypass _bbshome\">Home</a><edit var=\"x\"><a action=\"bypass -h npc_%objectId%_Buy $x\">Buy</a>" +
+						"</body></html>");
+		final Map<String, String> values = new HashMap<>();
+		values.put("%name%", "Gatekeeper $1");
+		values.put("%objectId%", "123");
+
+		assertEquals("<html><body>Gatekeeper $1: 100% sure<br><a action=\"bypass -h npc_123_Chat 1\">Chat</a>" +
+				"<a action=\"bypass _bbshome\">Home</a><edit var=\"x\"><a action=\"bypass -h npc_123_Buy $x\">Buy</a>" +
+				"</body></html>", template.render(values));
+		assertArrayEquals(new String[]{"npc_123_Chat 1", "_bbshome", "npc_123_Buy $x"}, template.renderBypasses(values));
+		assertEquals(true, template.isInBypass("%objectId%"));
+		assertEquals(false, template.isInBypass("%name%"));
+
+		assertEquals(true, HtmTemplate.isPlaceholder("%object_Id2%"));
+		assertEquals(false, HtmTemplate.isPlaceholder("%rank"));
+		assertEquals(false, HtmTemplate.isPlaceholder("<a %x%"));
+		assertEquals("a$1b$1c", HtmTemplate.replace("a%x%b%x%c", "%x%", "$1"));
+	}
+
+	@Test
+	public void testStartupLoader() throws Exception
+	{
+		initializeServer();
+		final boolean parallelStartup = Config.PARALLEL_STARTUP;
+		Config.PARALLEL_STARTUP = true;
+		try
+		{
+			final Map<String, Long> loaded = new ConcurrentHashMap<>();
+			final StartupLoader loader = new StartupLoader();
+			loader.add("SkillTable", () -> loaded.put("SkillTable", System.nanoTime()));
+			loader.add("ItemTable", () -> loaded.put("ItemTable", System.nanoTime()));
+			loader.add("NpcTable", () -> loaded.put("NpcTable", System.nanoTime()), "SkillTable", "ItemTable");
+			loader.add("HtmCache", () -> loaded.put("HtmCache", System.nanoTime()));
+			loader.load();
+			loader.report();
+
+			assertEquals(4, loaded.size());
+			assertEquals(true, loaded.get("NpcTable") > loaded.get("SkillTable"));
+			assertEquals(true, loaded.get("NpcTable") > loaded.get("ItemTable"));
+		}
+		finally
+		{
+			Config.PARALLEL_STARTUP = parallelStartup;
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStartupLoaderUnknownDependency()
+	{
+		new StartupLoader().add("NpcTable", () ->
+		{
+		}, "SkillTable");
+	}
+
+	@Test
+	public void testCompiledScriptCache() throws Exception
+	{
+		initializeServer();
+
+		final File dir = new File(L2ScriptEngineManager.SCRIPT_FOLDER, "compiledscriptcachetest");
+		final File base = new File(dir, "Base.java");
+		final File main = new File(dir, "Main.java");
+		dir.mkdirs();
+		try
+		{
+			writeScript(base, "public class Base { public static int value() { return 1; } }", 1000000);
+			writeScript(main, "public class Main { public static void main(String[] args) { Base.value(); } }", 1000000);
+
+			final ScriptEngine engine = new JavaScriptEngineFactory().getScriptEngine();
+			final ScriptContext context = new SimpleScriptContext();
+			context.setAttribute("mainClass", "compiledscriptcachetest.Main", ScriptContext.ENGINE_SCOPE);
+			context.setAttribute(ScriptEngine.FILENAME, main.getName(), ScriptContext.ENGINE_SCOPE);
+			final String scriptFolder = L2ScriptEngineManager.SCRIPT_FOLDER.getAbsolutePath();
+			context.setAttribute("classpath", scriptFolder, ScriptContext.ENGINE_SCOPE);
+			context.setAttribute("sourcepath", scriptFolder, ScriptContext.ENGINE_SCOPE);
+			engine.setContext(context);
+
+			CompiledScriptCache cache = new CompiledScriptCache();
+			assertEquals(false, cache.isCached(main));
+			final CompiledScript compiled = cache.loadCompiledScript(engine, main);
+			assertEquals(true, cache.isCached(main));
+			assertSame(compiled, cache.loadCompiledScript(engine, main));
+
+			// Unchanged sources are still cached after a restart
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(bytes))
+			{
+				oos.writeObject(cache);
+			}
+			try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+			{
+				cache = (CompiledScriptCache) ois.readObject();
+			}
+			cache.checkFiles();
+			assertEquals(true, cache.isCached(main));
+			final CompiledScript restored = cache.loadCompiledScript(engine, main);
+			assertSame(restored, cache.loadCompiledScript(engine, main));
+
+			// An edited script is compiled again
+			writeScript(main, "public class Main { public static void main(String[] args) { Base.value(); Base.value(); } }",
+					2000000);
+			assertEquals(false, cache.isCached(main));
+			final CompiledScript edited = cache.loadCompiledScript(engine, main);
+			assertNotSame(restored, edited);
+			assertEquals(true, cache.isCached(main));
+
+			// So are the scripts compiled with an edited source
+			writeScript(base, "public class Base { public static int value() { return 2; } }", 2000000);
+			assertEquals(false, cache.isCached(main));
+			cache.checkFiles();
+			assertEquals(false, cache.isCached(main));
+			assertNotSame(edited, cache.loadCompiledScript(engine, main));
+			assertEquals(true, cache.isCached(main));
+
+			// Without the class bytes the dependencies are unknown: compiled each time, never cached
+			final ScriptEngine uncachable = new UncachableScriptEngine();
+			final CompiledScript first = cache.loadCompiledScript(uncachable, base);
+			assertEquals(false, cache.isCached(base));
+			assertNotSame(first, cache.loadCompiledScript(uncachable, base));
+			assertEquals(false, cache.isCached(base));
+		}
+		finally
+		{
+			base.delete();
+			main.delete();
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void testAsyncFileHandler() throws Exception
+	{
+		final File file = File.createTempFile("chat", ".log");
+		file.deleteOnExit();
+		final AsyncFileHandler handler = new AsyncFileHandler(file.getAbsolutePath().replace('\\', '/'));
+		handler.setFormatter(new Formatter()
+		{
+			@Override
+			public String format(LogRecord record)
+			{
+				final Object[] params = record.getParameters();
+				return record.getMessage() + (params == null ? "" : ":" + params[0]) + "\n";
+			}
+		});
+
+		final Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++)
+		{
+			final int thread = i;
+			threads[i] = new Thread(() ->
+			{
+				for (int j = 0; j < 5000; j++)
+				{
+					handler.publish(new LogRecord(Level.INFO, thread + ":" + j));
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		handler.close();
+
+		// Everything written, in the order each thread logged it
+		final int[] next = new int[threads.length];
+		final List<String> lines = Files.readAllLines(file.toPath());
+		for (String line : lines)
+		{
+			final String[] parts = line.split(":");
+			final int thread = Integer.parseInt(parts[0]);
+			assertEquals(next[thread]++, Integer.parseInt(parts[1]));
+		}
+		assertEquals(threads.length * 5000, lines.size());
+
+		// Records with objects are formatted when logged, even if the writer is busy
+		final File itemFile = File.createTempFile("item", ".log");
+		itemFile.deleteOnExit();
+		final AsyncFileHandler itemHandler = new AsyncFileHandler(itemFile.getAbsolutePath().replace('\\', '/'));
+		itemHandler.setFormatter(handler.getFormatter());
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final File blockingFile = File.createTempFile("blocking", ".log");
+		blockingFile.deleteOnExit();
+		final AsyncFileHandler blockingHandler =
+				new AsyncFileHandler(blockingFile.getAbsolutePath().replace('\\', '/'));
+		blockingHandler.setFormatter(new Formatter()
+		{
+			@Override
+			public String format(LogRecord record)
+			{
+				writing.countDown();
+				try
+				{
+					release.await(30, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ignored)
+				{
+				}
+				return record.getMessage() + "\n";
+			}
+		});
+		blockingHandler.publish(new LogRecord(Level.INFO, "blocking"));
+		writing.await(30, TimeUnit.SECONDS);
+
+		final StringBuilder count = new StringBuilder("10");
+		final LogRecord record = new LogRecord(Level.INFO, "count");
+		record.setParameters(new Object[]{count});
+		itemHandler.publish(record);
+		count.replace(0, count.length(), "20");
+		release.countDown();
+		itemHandler.close();
+		blockingHandler.close();
+		assertEquals(Collections.singletonList("count:10"), Files.readAllLines(itemFile.toPath()));
+	}
+
+	@Test
+	public void testBitSetIdAllocator() throws Exception
+	{
+		// Small, so the threads make it grow and wrap around
+		final BitSetIdAllocator allocator = new BitSetIdAllocator(1000, 1 << 20);
+		allocator.markUsed(5);
+		allocator.markUsed(70000);
+
+		final Set<Integer> used = ConcurrentHashMap.newKeySet();
+		used.add(5);
+		used.add(70000);
+
+		final AtomicInteger duplicates = new AtomicInteger();
+		final Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(() ->
+			{
+				final List<Integer> mine = new ArrayList<>();
+				for (int j = 0; j < 50000; j++)
+				{
+					final int id = allocator.allocate();
+					if (!used.add(id))
+					{
+						duplicates.incrementAndGet();
+					}
+					mine.add(id);
+
+					// Release every other one, so they can be given again later
+					if ((j & 1) == 1)
+					{
+						final int released = mine.remove(mine.size() - 2);
+						used.remove(released);
+						allocator.release(released);
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals(0, duplicates.get());
+		assertEquals(used.size(), allocator.usedCount());
+		assertEquals(true, allocator.capacity() > 70000);
+
+		// Everything handed out at most once until the maximum size
+		final BitSetIdAllocator small = new BitSetIdAllocator(10, 100);
+		final Set<Integer> ids = new HashSet<>();
+		for (int i = 0; i < 100; i++)
+		{
+			assertEquals(true, ids.add(small.allocate()));
+		}
+		try
+		{
+			small.allocate();
+			fail();
+		}
+		catch (NullPointerException ignored)
+		{
+		}
+		assertEquals(true, small.release(42));
+		assertEquals(false, small.release(42));
+		assertEquals(42, small.allocate());
+	}
+
+	@Test
+	public void testPacketStatsHistogram()
+	{
+		// Every value falls in the bucket starting at or below it, and the buckets are within 12.5% of it
+		for (long value = 0; value < 1L << 42; value = value * 3 / 2 + 1)
+		{
+			final int bucket = PacketStats.Histogram.getBucket(value);
+			final long lowest = PacketStats.Histogram.getLowestValue(bucket);
+			assertEquals(true, lowest <= value);
+			assertEquals(true, value < 1L << 41 ? value - lowest <= value / 8 : true);
+			assertEquals(true, bucket == 0 || PacketStats.Histogram.getLowestValue(bucket - 1) < lowest);
+		}
+
+		final PacketStats.Histogram histogram = new PacketStats.Histogram();
+		assertEquals(0, histogram.getPercentile(0.5));
+		for (int i = 1; i <= 1000; i++)
+		{
+			histogram.add(i * 1000L);
+		}
+		final long median = histogram.getPercentile(0.5);
+		final long p99 = histogram.getPercentile(0.99);
+		assertEquals(true, median >= 500000 && median <= 500000 * 9 / 8);
+		assertEquals(true, p99 >= 990000 && p99 <= 990000 * 9 / 8);
+
+		histogram.reset();
+		assertEquals(0, histogram.getPercentile(0.99));
+
+		// Without significant bits the buckets are the powers of two, as kept for each client
+		for (long value = 1; value < 1L << 40; value = value * 3 / 2 + 1)
+		{
+			final int bucket = PacketStats.Histogram.getBucket(value, 0);
+			assertEquals(Long.highestOneBit(value), PacketStats.Histogram.getLowestValue(bucket, 0));
+		}
+		final PacketStats.Histogram coarse = new PacketStats.Histogram(0);
+		for (int i = 1; i <= 1000; i++)
+		{
+			coarse.add(i * 1000L);
+		}
+		assertEquals((1L << 19) - 1, coarse.getPercentile(0.5));
+	}
+
+	@Test
+	public void testShutdownSaver()
+	{
+		final List<Integer> objects = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			objects.add(i);
+		}
+		objects.add(null);
+
+		for (int threads : new int[]{1, 4})
+		{
+			Config.SHUTDOWN_SAVE_THREADS = threads;
+			final Set<Integer> saved = ConcurrentHashMap.newKeySet();
+			final AtomicInteger calls = new AtomicInteger();
+			new ShutdownSaver<>("numbers", objects, i ->
+			{
+				calls.incrementAndGet();
+				// A failing one doesn't stop the others
+				if (i == 500)
+				{
+					throw new IllegalStateException("Test failure");
+				}
+				saved.add(i);
+			}).save();
+
+			assertEquals(1000, calls.get());
+			assertEquals(999, saved.size());
+		}
+	}
+
+	@Test
+	public void testInstanceTemplate() throws Exception
+	{
+		final InstanceTemplate template =
+				InstanceTemplate.load(new File(Config.DATAPACK_ROOT, Config.DATA_FOLDER + "instances/demo.xml"));
+		assertEquals("Giran Marketplace", template.getName());
+		assertEquals(5, template.getActivityTime());
+		assertEquals(5000, template.getEmptyDestroyTime());
+		assertEquals(3, template.getSpawns().size());
+		assertEquals(82355, template.getSpawns().get(1).getX());
+		assertEquals(-1, template.getSpawns().get(1).getOnKillDelay());
+
+		assertEquals(2, template.getDoors().size());
+		final StatsSet set = template.getDoors().get(0).newStatsSet();
+		assertEquals("open", set.getString("default_status"));
+		// Each door gets its own set
+		set.set("default_status", "close");
+		assertEquals("open", template.getDoors().get(0).newStatsSet().getString("default_status"));
+	}
+
+	@Test
+	public void testInstancePlayerIndex()
+	{
+		initializeServer();
+
+		final InstanceManager manager = InstanceManager.getInstance();
+		final int player = 0x7ff0000b;
+		final int other = 0x7ff0000c;
+		final InstanceWorld older = new InstanceWorld();
+		older.instanceId = 0x7ff0000d;
+		older.allowed.add(player);
+		manager.addWorld(older);
+		final InstanceWorld world = new InstanceWorld();
+		world.instanceId = 0x7ff0000e;
+		manager.addWorld(world);
+		try
+		{
+			assertSame(older, manager.getPlayerWorld(player));
+
+			world.allowed.add(player);
+			assertSame(world, manager.getPlayerWorld(player));
+
+			// Removed through an iterator: back to the older world
+			final Iterator<Integer> it = world.allowed.iterator();
+			it.next();
+			it.remove();
+			assertSame(older, manager.getPlayerWorld(player));
+
+			world.allowed.add(player);
+			world.allowed.set(0, other);
+			assertSame(older, manager.getPlayerWorld(player));
+			assertSame(world, manager.getPlayerWorld(other));
+
+			world.allowed.removeIf(objectId -> objectId == other);
+			assertNull(manager.getPlayerWorld(other));
+
+			older.allowed.subList(0, 1).clear();
+			assertNull(manager.getPlayerWorld(player));
+		}
+		finally
+		{
+			older.allowed.clear();
+			world.allowed.clear();
+		}
+	}
+
+	@Test
+	public void testZoneGrid()
+	{
+		initializeServer();
+
+		// The region of (0, 0), which goes from 0 to 4095 in both axes
+		final L2WorldRegion region = L2World.getInstance().getRegion(0, 0);
+		final L2ScriptZone cuboid = new L2ScriptZone(-100);
+		cuboid.setZone(new ZoneCuboid(100, 600, 100, 600, -1000, 1000));
+		final L2ScriptZone poly = new L2ScriptZone(-101);
+		poly.setZone(new ZoneNPoly(new int[]{2000, 4000, 4000}, new int[]{2000, 2000, 4000}, -1000, 1000));
+		region.addZone(cuboid);
+		region.addZone(poly);
+		try
+		{
+			assertArrayEquals(new L2ZoneType[]{cuboid}, region.getZones(200, 200));
+			assertArrayEquals(new L2ZoneType[]{cuboid}, region.getZones(600, 550));
+			assertArrayEquals(new L2ZoneType[0], region.getZones(1500, 200));
+			assertArrayEquals(new L2ZoneType[]{poly}, region.getZones(3900, 2100));
+
+			// Candidates only: the cell is in the bounding box of the polygon, the point is not in the polygon
+			assertArrayEquals(new L2ZoneType[]{poly}, region.getZones(2100, 3900));
+			assertEquals(false, poly.isInsideZone(2100, 3900, 0));
+			assertEquals(true, poly.isInsideZone(3900, 2100, 0));
+			assertEquals(false, poly.isInsideZone(5000, 2100, 0));
+
+			region.removeZone(cuboid);
+			assertArrayEquals(new L2ZoneType[0], region.getZones(200, 200));
+		}
+		finally
+		{
+			region.clearZones();
+		}
+	}
+
+	@Test
+	public void testKnownListGrid()
+	{
+		initializeServer();
+
+		// Cells are 512 wide from 0: a is in the first cell, b in the third one
+		final KnownListGrid grid = KnownListGrid.getInstance();
+		final GridObject a = new GridObject(0x7ff00001, 140, 100);
+		final GridObject b = new GridObject(0x7ff00002, 1200, 100);
+		grid.addObject(a);
+		grid.addObject(b);
+		try
+		{
+			assertEquals(false, a.getKnownList().knowsObject(b));
+
+			// 960 from a but less than UPDATE_DISTANCE from the last update: not seen yet
+			b.moveTo(1100);
+			assertEquals(false, a.getKnownList().knowsObject(b));
+
+			// Still in the same cell, UPDATE_DISTANCE away from the last update
+			b.moveTo(1200 - KnownListGrid.UPDATE_DISTANCE);
+			assertEquals(true, a.getKnownList().knowsObject(b));
+
+			// Within the forget distance
+			b.moveTo(1500);
+			assertEquals(true, a.getKnownList().knowsObject(b));
+
+			// To another cell, 1560 from a
+			b.moveTo(1700);
+			assertEquals(false, a.getKnownList().knowsObject(b));
+		}
+		finally
+		{
+			grid.removeObject(a);
+			grid.removeObject(b);
+		}
+	}
+
+	@Test
+	public void testKnownListRadius()
+	{
+		initializeServer();
+
+		// Collision radius 10 each: in a radius of 100 up to 120 away
+		final L2Npc npc = createKnownListNpc(0x7ff00006, 0, 0, 0);
+		final L2Npc boundary = createKnownListNpc(0x7ff00007, 120, 0, 0);
+		final L2Npc outside = createKnownListNpc(0x7ff00008, 0, 121, 0);
+		final L2PcInstance player = createKnownListPlayer(0x7ff00009, 0, 0, 120);
+		final L2PcInstance farPlayer = createKnownListPlayer(0x7ff0000a, 0, 200, 0);
+		for (L2Character cha : Arrays.asList(boundary, outside, player, farPlayer))
+		{
+			npc.getKnownList().addKnownObject(cha);
+		}
+
+		final Set<L2Character> visited = new HashSet<>();
+		npc.getKnownList().forEachKnownCharacterInRadius(100, visited::add);
+		assertEquals(new HashSet<>(Arrays.asList(boundary, player)), visited);
+		assertEquals(visited, new HashSet<>(npc.getKnownList().getKnownCharactersInRadius(100)));
+
+		assertSame(boundary, npc.getKnownList().findKnownCharacterInRadius(100, cha -> cha instanceof L2Npc));
+		assertNull(npc.getKnownList().findKnownCharacterInRadius(100, cha -> cha == outside));
+		assertSame(outside, npc.getKnownList().findKnownCharacterInRadius(101, cha -> cha == outside));
+
+		final Set<L2PcInstance> players = new HashSet<>();
+		npc.getKnownList().forEachKnownPlayerInRadius(100, players::add);
+		assertEquals(Collections.singleton(player), players);
+		players.clear();
+		npc.getKnownList().forEachKnownPlayerInRadius(180, players::add);
+		assertEquals(new HashSet<>(Arrays.asList(player, farPlayer)), players);
+
+		assertEquals(true, npc.getKnownList().hasKnownPlayersInRadius(100));
+		assertEquals(false, npc.getKnownList().hasKnownPlayersInRadius(99));
+		assertEquals(false, outside.getKnownList().hasKnownPlayersInRadius(1000));
+	}
+
+	@Test
+	public void testTimingWheel() throws Exception
+	{
+		// 1 ms ticks on a clock moved by hand, one worker so the timers run in order
+		final AtomicLong clock = new AtomicLong();
+		final TimingWheel wheel = new TimingWheel("TestWheel", 1, 1, Thread::new, clock::get);
+		final List<String> runs = Collections.synchronizedList(new ArrayList<>());
+		try
+		{
+			// Ordering, even when the ticker catches up several ticks at once
+			wheel.schedule(() -> runs.add("c"), 30);
+			wheel.schedule(() -> runs.add("a"), 10);
+			wheel.schedule(() -> runs.add("b"), 20);
+			final ScheduledFuture<?> cancelled = wheel.schedule(() -> runs.add("cancelled"), 15);
+			assertEquals(true, cancelled.cancel(false));
+			advanceWheel(wheel, clock, 100);
+			assertEquals(Arrays.asList("a", "b", "c"), runs);
+			assertEquals(true, cancelled.isCancelled());
+			assertEquals(false, cancelled.cancel(false));
+
+			// Crossing the end of the first level: tick 250 + 10 is in bucket 4
+			runs.clear();
+			advanceWheel(wheel, clock, 250);
+			wheel.schedule(() -> runs.add("wrap"), 10);
+			advanceWheel(wheel, clock, 259);
+			assertEquals(0, runs.size());
+			advanceWheel(wheel, clock, 260);
+			assertEquals(Arrays.asList("wrap"), runs);
+
+			// Cascading from the third and the fourth levels
+			runs.clear();
+			final long start = clock.get();
+			wheel.schedule(() -> runs.add("level2"), 70000);
+			wheel.schedule(() -> runs.add("level3"), 20000000);
+			advanceWheel(wheel, clock, start + 69999);
+			assertEquals(0, runs.size());
+			advanceWheel(wheel, clock, start + 70000);
+			assertEquals(Arrays.asList("level2"), runs);
+			advanceWheel(wheel, clock, start + 19999999);
+			assertEquals(Arrays.asList("level2"), runs);
+			advanceWheel(wheel, clock, start + 20000000);
+			assertEquals(Arrays.asList("level2", "level3"), runs);
+
+			// Fixed rate, cancelled between two runs
+			final AtomicInteger count = new AtomicInteger();
+			final long periodStart = clock.get();
+			final ScheduledFuture<?> periodic = wheel.scheduleAtFixedRate(count::incrementAndGet, 100, 100);
+			// A run is scheduled again once the previous one is over, so move the clock by steps
+			for (long time = periodStart; time <= periodStart + 350; time += 50)
+			{
+				advanceWheel(wheel, clock, time);
+			}
+			assertEquals(3, count.get());
+			periodic.cancel(false);
+			for (long time = periodStart + 400; time <= periodStart + 1000; time += 50)
+			{
+				advanceWheel(wheel, clock, time);
+			}
+			assertEquals(3, count.get());
+		}
+		finally
+		{
+			wheel.shutdown();
+		}
+	}
+
+	/**
+	 * Move the clock and wait until every timer due by then has run.
+	 */
+	@Test
+	public void testStatCacheDependencies()
+	{
+		initializeServer();
+		final boolean statCache = Config.STAT_CACHE;
+		Config.STAT_CACHE = true;
+		try
+		{
+			final L2Npc npc = new L2Npc(0x7ff00003, createNpcTemplate(1));
+
+			// STR and CON bonuses only while flying, which doesn't invalidate the stat cache
+			final Func str = new FuncAdd(Stats.STAT_STR, this, new LambdaConst(20));
+			str.setCondition(new ConditionPlayerState(PlayerState.FLYING, true));
+			final Func con = new FuncAdd(Stats.STAT_CON, this, new LambdaConst(20));
+			con.setCondition(new ConditionPlayerState(PlayerState.FLYING, true));
+			npc.addStatFunc(str);
+			npc.addStatFunc(con);
+
+			final int pAtk = npc.getPAtk(null);
+			final int maxHp = npc.getMaxHp();
+			assertEquals(pAtk, npc.getPAtk(null));
+
+			npc.setIsFlying(true);
+			assertEquals(true, npc.getPAtk(null) > pAtk);
+			assertEquals(true, npc.getMaxHp() > maxHp);
+
+			npc.setIsFlying(false);
+			assertEquals(pAtk, npc.getPAtk(null));
+			assertEquals(maxHp, npc.getMaxHp());
+		}
+		finally
+		{
+			Config.STAT_CACHE = statCache;
+		}
+	}
+
+	@Test
+	public void testBroadcastUpdateCoalescing()
+	{
+		initializeServer();
+		final BroadcastUpdateTaskManager broadcasts =
+				new BroadcastUpdateTaskManager(new String[]{"STATUS", "ABNORMAL_STATUS"}, false);
+		final List<BroadcastType> sent = new ArrayList<>();
+		final L2Npc npc = new L2Npc(0x7ff00004, createNpcTemplate(2))
+		{
+			@Override
+			public void broadcastStatusUpdate(L2Character causer, StatusUpdateDisplay display)
+			{
+				sent.add(BroadcastType.STATUS);
+			}
+
+			@Override
+			public void broadcastAbnormalStatusUpdateNow()
+			{
+				sent.add(BroadcastType.ABNORMAL_STATUS);
+			}
+		};
+
+		// Left for the tick and sent once, whatever the number of requests
+		assertEquals(true, broadcasts.coalesce(npc, BroadcastType.ABNORMAL_STATUS));
+		for (int i = 0; i < 10; i++)
+		{
+			assertEquals(true, broadcasts.coalesce(npc, BroadcastType.STATUS));
+		}
+		assertEquals(false, broadcasts.coalesce(npc, BroadcastType.USER_INFO));
+		assertEquals(0, sent.size());
+		broadcasts.broadcastPending();
+		assertEquals(Arrays.asList(BroadcastType.STATUS, BroadcastType.ABNORMAL_STATUS), sent);
+
+		sent.clear();
+		broadcasts.broadcastPending();
+		assertEquals(0, sent.size());
+
+		// Sent straight away meanwhile: the pending one would be older, it's dropped
+		broadcasts.coalesce(npc, BroadcastType.STATUS);
+		broadcasts.cancel(npc, BroadcastType.STATUS);
+		broadcasts.broadcastPending();
+		assertEquals(0, sent.size());
+
+		// A change after the one sent straight away is still sent by the tick
+		broadcasts.coalesce(npc, BroadcastType.STATUS);
+		broadcasts.cancel(npc, BroadcastType.STATUS);
+		broadcasts.coalesce(npc, BroadcastType.STATUS);
+		broadcasts.broadcastPending();
+		assertEquals(Collections.singletonList(BroadcastType.STATUS), sent);
+	}
+
+	@Test
+	public void testAbnormalListIndexes() throws Exception
+	{
+		initializeServer();
+		final boolean effectCanceling = Config.EFFECT_CANCELING;
+		Config.EFFECT_CANCELING = false;
+		try
+		{
+			checkAbnormalListIndexes();
+		}
+		finally
+		{
+			Config.EFFECT_CANCELING = effectCanceling;
+		}
+	}
+
+	private void checkAbnormalListIndexes() throws Exception
+	{
+		final L2Npc npc = new L2Npc(0x7ff00005, createNpcTemplate(3));
+		final L2Skill aura = SkillTable.getInstance().getInfo(91, 1);
+		final L2Skill shield = SkillTable.getInstance().getInfo(1040, 3);
+
+		// Both pd_up and kept without the effect canceling: the higher stack level is in use and the other one waits
+		aura.getEffects(npc, npc);
+		shield.getEffects(npc, npc);
+		final L2Abnormal auraEffect = npc.getFirstEffect(91);
+		final L2Abnormal shieldEffect = npc.getFirstEffect(1040);
+		assertEquals(2, npc.getAllEffectsView().size());
+		assertEquals(false, auraEffect.getInUse());
+		assertEquals(true, shieldEffect.getInUse());
+		assertSame(shieldEffect, npc.getFirstEffect("pd_up"));
+
+		// The indexes follow the effects in use without waiting for the next publish
+		shieldEffect.setInUse(false);
+		auraEffect.setInUse(true);
+		assertSame(auraEffect, npc.getFirstEffect("pd_up"));
+		auraEffect.setInUse(false);
+		shieldEffect.setInUse(true);
+		assertSame(shieldEffect, npc.getFirstEffect("pd_up"));
+
+		// getAllEffects() is the caller's copy, the view can't be changed
+		final L2Abnormal[] copy = npc.getAllEffects();
+		Arrays.fill(copy, null);
+		assertEquals(false, npc.getAllEffectsView().contains(null));
+		assertEquals(2, npc.getAllEffects().length);
+		try
+		{
+			npc.getAllEffectsView().set(0, null);
+			fail();
+		}
+		catch (UnsupportedOperationException ignored)
+		{
+		}
+
+		// The readers always see a consistent list while the queue runner changes it
+		final AtomicBoolean done = new AtomicBoolean();
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		final List<Thread> readers = new ArrayList<>();
+		for (int i = 0; i < 4; i++)
+		{
+			final Thread reader = new Thread(() ->
+			{
+				try
+				{
+					while (!done.get())
+					{
+						for (L2Abnormal e : npc.getAllEffectsView())
+						{
+							final int skillId = e.getSkill().getId();
+							if (skillId != 91 && skillId != 1040)
+							{
+								throw new IllegalStateException("Unknown effect " + skillId);
+							}
+						}
+
+						final L2Abnormal pdUp = npc.getFirstEffect("pd_up");
+						if (pdUp != null && !"pd_up".equals(pdUp.getSkill().getFirstEffectStack()))
+						{
+							throw new IllegalStateException("Wrong stack type " + pdUp.getSkill().getFirstEffectStack());
+						}
+						if (npc.getAllEffects().length > 2)
+						{
+							throw new IllegalStateException("Too many effects");
+						}
+					}
+				}
+				catch (Throwable t)
+				{
+					errors.add(t);
+				}
+			});
+			reader.start();
+			readers.add(reader);
+		}
+
+		try
+		{
+			for (int i = 0; i < 500; i++)
+			{
+				npc.stopAllEffects();
+				aura.getEffects(npc, npc);
+				shield.getEffects(npc, npc);
+			}
+		}
+		finally
+		{
+			done.set(true);
+			for (Thread reader : readers)
+			{
+				reader.join();
+			}
+		}
+		assertEquals(Collections.emptyList(), errors);
+		assertSame(npc.getFirstEffect(1040), npc.getFirstEffect("pd_up"));
+		assertEquals(true, npc.getFirstEffect("pd_up").getInUse());
+		npc.stopAllEffects();
+		assertEquals(0, npc.getAllEffectsView().size());
+	}
+
+	private static void advanceWheel(TimingWheel wheel, AtomicLong clock, long time) throws Exception
+	{
+		clock.set(time);
+		// Expires in the last tick, after the ones scheduled before, and the only worker runs them in order
+		wheel.schedule(() ->
+		{
+		}, 0).get(30, TimeUnit.SECONDS);
+	}
+
+	private static class TestContainer extends ItemContainer
+	{
+		@Override
+		protected L2Character getOwner()
+		{
+			return null;
+		}
+
+		@Override
+		protected ItemLocation getBaseLocation()
+		{
+			return ItemLocation.INVENTORY;
+		}
+
+		private void add(L2ItemInstance item)
+		{
+			addItem(item);
+		}
+
+		private void remove(L2ItemInstance item)
+		{
+			removeItem(item);
+		}
+	}
+
+	/**
+	 * Compiles to a script without the class bytes of the java engine.
+	 */
+	private static class UncachableScriptEngine extends AbstractScriptEngine implements Compilable
+	{
+		@Override
+		public CompiledScript compile(String script)
+		{
+			return new UncachableScript(this);
+		}
+
+		@Override
+		public CompiledScript compile(Reader script)
+		{
+			return new UncachableScript(this);
+		}
+
+		@Override
+		public Object eval(String script, ScriptContext context)
+		{
+			return null;
+		}
+
+		@Override
+		public Object eval(Reader reader, ScriptContext context)
+		{
+			return null;
+		}
+
+		@Override
+		public Bindings createBindings()
+		{
+			return new SimpleBindings();
+		}
+
+		@Override
+		public ScriptEngineFactory getFactory()
+		{
+			return null;
+		}
+	}
+
+	private static class UncachableScript extends CompiledScript implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final transient ScriptEngine _engine;
+
+		private UncachableScript(ScriptEngine engine)
+		{
+			_engine = engine;
+		}
+
+		@Override
+		public Object eval(ScriptContext context)
+		{
+			return null;
+		}
+
+		@Override
+		public ScriptEngine getEngine()
+		{
+			return _engine;
+		}
+	}
+
+	/**
+	 * Sees objects within 1000 and forgets them beyond 1500.
+	 */
+	private static class GridObject extends L2Object
+	{
+		private GridObject(int objectId, int x, int y)
+		{
+			super(objectId);
+			getPosition().setWorldPosition(x, y, 0);
+		}
+
+		@Override
+		public void initKnownList()
+		{
+			setKnownList(new ObjectKnownList(this)
+			{
+				@Override
+				public int getDistanceToWatchObject(L2Object object)
+				{
+					return 1000;
+				}
+
+				@Override
+				public int getDistanceToForgetObject(L2Object object)
+				{
+					return 1500;
+				}
+			});
+		}
+
+		@Override
+		public boolean isAutoAttackable(L2Character attacker)
+		{
+			return false;
+		}
+
+		private void moveTo(int x)
+		{
+			getPosition().setWorldPosition(x, getY(), 0);
+			KnownListGrid.getInstance().onMove(this);
+		}
+	}
+
+	private static L2Npc createKnownListNpc(int objectId, int x, int y, int z)
+	{
+		final L2Npc npc = new L2Npc(objectId, createNpcTemplate(objectId));
+		npc.getPosition().setWorldPosition(x, y, z);
+		return npc;
+	}
+
+	private static L2PcInstance createKnownListPlayer(int objectId, int x, int y, int z)
+	{
+		final StatsSet set = new StatsSet();
+		set.set("raceId", 0);
+		set.set("isMage", false);
+		set.set("startingClassId", 0);
+		set.set("collisionRadiusFemale", 10.0);
+		set.set("collisionHeightFemale", 20.0);
+		final L2PcInstance player = L2PcInstance.createDummyPlayer(objectId, "Test");
+		player.setTemplate(new L2PcTemplate(set));
+		player.getPosition().setWorldPosition(x, y, z);
+		return player;
+	}
+
+	private static L2NpcTemplate createNpcTemplate(int id)
+	{
+		final StatsSet set = new StatsSet();
+		set.set("id", id);
+		set.set("type", "L2Npc");
+		set.set("name", "Test");
+		set.set("level", 85);
+		set.set("hpMax", 5000.0);
+		set.set("pAtk", 1000.0);
+		set.set("bonusFromBaseStats", true);
+		return new L2NpcTemplate(set);
+	}
+
+	private static void writeScript(File file, String source, long lastModified) throws IOException
+	{
+		final String script = "package " + file.getParentFile().getName() + "; " + source;
+		Files.write(file.toPath(), script.getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(lastModified);
+	}
+
+	private String getStoredQuestVar(int charId, String quest, String var) throws Exception
+	{
+		final boolean global = charId == QuestVarsWriteBehindManager.GLOBAL;
+		try (Connection con = L2DatabaseFactory.getInstance().getConnection();
+			 PreparedStatement st = con.prepareStatement(global ?
+					 "SELECT value FROM quest_global_data WHERE quest_name = ? AND var = ?" :
+					 "SELECT value FROM character_quests WHERE name = ? AND var = ? AND charId = ?"))
+		{
+			st.setString(1, quest);
+			st.setString(2, var);
+			if (!global)
+			{
+				st.setInt(3, charId);
+			}
+			try (ResultSet rs = st.executeQuery())
+			{
+				return rs.next() ? rs.getString(1) : null;
+			}
+		}
+	}
+
+	private long getStoredCount(L2ItemInstance item) throws Exception
+	{
+		try (Connection con = L2DatabaseFactory.getInstance().getConnection();
+			 PreparedStatement st = con.prepareStatement("SELECT count FROM items WHERE object_id = ?"))
+		{
+			st.setInt(1, item.getObjectId());
+			try (ResultSet rs = st.executeQuery())
+			{
+				return rs.next() ? rs.getLong(1) : -1;
+			}
+		}
+	}
 }